@@ -1,13 +1,17 @@
 package edu.ucsb.cs156.example.aop;
 
 import jakarta.servlet.http.HttpServletRequest;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Optional;
+import jakarta.servlet.http.HttpServletResponse;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 import lombok.extern.slf4j.Slf4j;
-import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
-import org.aspectj.lang.annotation.Before;
+import org.slf4j.spi.LoggingEventBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Component;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
@@ -17,6 +21,15 @@ import org.springframework.web.context.request.ServletRequestAttributes;
  * {@code @RequestMapping}, {@code @GetMapping}, {@code @PostMapping}, {@code @PutMapping},
  * {@code @DeleteMapping}, or {@code @PatchMapping}.
  *
+ * <p>Each invocation is logged once it returns, as one event with the key-value pairs {@code
+ * method}, {@code uri}, {@code handler}, {@code status} (or {@code error}, if it threw) and {@code
+ * latency_us}. The events of this logger go through an asynchronous, bounded appender that drops
+ * them when full (see {@code logback-spring.xml}), so logging never waits on the console.
+ *
+ * <p>Only a fraction {@code app.logging.requests.sample-rate} of successful invocations is logged;
+ * failed ones always are. Controllers listed in {@code app.logging.requests.stoplist} are never
+ * logged.
+ *
  * <p>For more information on Aspect Oriented Programming (AOP) and AspectJ, including what a {@code
  * JoinPoint} is, refer to <a
  * href="https://www.baeldung.com/aspectj">https://www.baeldung.com/aspectj</a>
@@ -36,45 +49,92 @@ public class LoggingAspect {
       @annotation(org.springframework.web.bind.annotation.PatchMapping)
       """;
 
-  private ArrayList<String> stoplist =
-      new ArrayList<String>(
-          Arrays.asList("edu.ucsb.cs156.example.controllers.FrontendProxyController"));
+  @Value(
+      "${app.logging.requests.stoplist:edu.ucsb.cs156.example.controllers.FrontendProxyController}")
+  private Set<String> stoplist = new HashSet<>();
+
+  @Value("${app.logging.requests.sample-rate:1.0}")
+  private double sampleRate = 1.0;
+
+  /** whether each controller class is in the stoplist, worked out once per class */
+  private final ClassValue<Boolean> stopped =
+      new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+          return stoplist.contains(type.getName());
+        }
+      };
 
   /**
-   * This method is called before any controller method that is annotated with
+   * The controller method of an event; turned into text only when the event is written.
+   *
+   * @param type the controller class
+   * @param method name of the method
+   */
+  private record Handler(Class<?> type, String method) {
+    @Override
+    public String toString() {
+      return type.getName() + "." + method;
+    }
+  }
+
+  /**
+   * This method is called around any controller method that is annotated with
    * {@code @RequestMapping}, {@code @GetMapping}, {@code @PostMapping}, {@code @PutMapping},
    * {@code @DeleteMapping}, or {@code @PatchMapping}.
    *
    * @param joinPoint the join point (injected by Spring framework)
+   * @return what the controller method returns
+   * @throws Throwable what the controller method throws
    */
-  @Before(pointcut)
-  public void logControllers(JoinPoint joinPoint) {
-    getCurrentHttpRequest()
-        .ifPresent(
-            request -> {
-              String declaringTypeName = joinPoint.getSignature().getDeclaringTypeName();
-              if (!stoplist.contains(declaringTypeName)) {
-                log.info(
-                    "===== %s %s handled by %s in %s"
-                        .formatted(
-                            request.getMethod(),
-                            request.getRequestURI(),
-                            joinPoint.getSignature().getName(),
-                            declaringTypeName));
-              }
-            });
+  @Around(pointcut)
+  public Object logControllers(ProceedingJoinPoint joinPoint) throws Throwable {
+    Class<?> type = joinPoint.getSignature().getDeclaringType();
+    if (!log.isInfoEnabled()
+        || !(RequestContextHolder.getRequestAttributes()
+            instanceof ServletRequestAttributes request)
+        || stopped.get(type)) {
+      return joinPoint.proceed();
+    }
+
+    long start = System.nanoTime();
+    Object result;
+    try {
+      result = joinPoint.proceed();
+    } catch (Throwable e) {
+      event(request, type, joinPoint, start).addKeyValue("error", e.getClass().getName()).log();
+      throw e;
+    }
+    if (sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate) {
+      event(request, type, joinPoint, start).addKeyValue("status", status(request, result)).log();
+    }
+    return result;
+  }
+
+  private static LoggingEventBuilder event(
+      ServletRequestAttributes attributes,
+      Class<?> type,
+      ProceedingJoinPoint joinPoint,
+      long start) {
+    long latencyMicros = (System.nanoTime() - start) / 1000;
+    HttpServletRequest request = attributes.getRequest();
+    return log.atInfo()
+        .setMessage("request")
+        .addKeyValue("method", request.getMethod())
+        .addKeyValue("uri", request.getRequestURI())
+        .addKeyValue("handler", new Handler(type, joinPoint.getSignature().getName()))
+        .addKeyValue("latency_us", latencyMicros);
   }
 
   /**
-   * The function `getCurrentHttpRequest` returns an `Optional` containing the current
-   * `HttpServletRequest` if available.
-   *
-   * @return An Optional object containing the current HttpServletRequest, if available.
+   * Returns the status of the response to a controller method that has returned: the status of its
+   * ResponseEntity, if it returned one, else the status set on the response so far.
    */
-  private static Optional<HttpServletRequest> getCurrentHttpRequest() {
-    return Optional.ofNullable(RequestContextHolder.getRequestAttributes())
-        .filter(ServletRequestAttributes.class::isInstance)
-        .map(ServletRequestAttributes.class::cast)
-        .map(ServletRequestAttributes::getRequest);
+  private static int status(ServletRequestAttributes attributes, Object result) {
+    if (result instanceof ResponseEntity<?> entity) {
+      return entity.getStatusCode().value();
+    }
+    HttpServletResponse response = attributes.getResponse();
+    return response == null ? HttpServletResponse.SC_OK : response.getStatus();
   }
 }
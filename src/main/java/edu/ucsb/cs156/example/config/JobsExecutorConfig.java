@@ -0,0 +1,44 @@
+package edu.ucsb.cs156.example.config;
+
+import edu.ucsb.cs156.example.services.jobs.JobsExecutor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * The `JobsExecutorConfig` class defines the `jobsExecutor` bean that runs jobs, keeping them
+ * separate from any other {@code @Async} work.
+ *
+ * <p>Set {@code app.jobs.executor.mode} to {@code virtual} (one virtual thread per job) or {@code
+ * platform} (a fixed pool of platform threads).
+ */
+@Configuration
+@Slf4j
+public class JobsExecutorConfig {
+
+  @Value("${app.jobs.executor.mode:virtual}")
+  private String mode;
+
+  @Value("${app.jobs.executor.max-concurrent:4}")
+  private int maxConcurrent;
+
+  @Value("${app.jobs.executor.queue-capacity:100}")
+  private int queueCapacity;
+
+  @Bean(name = "jobsExecutor", destroyMethod = "shutdown")
+  public JobsExecutor jobsExecutor() {
+    log.info(
+        "jobsExecutor: mode={}, maxConcurrent={}, queueCapacity={}",
+        mode,
+        maxConcurrent,
+        queueCapacity);
+    return switch (mode) {
+      case "virtual" -> JobsExecutor.virtualThreads(maxConcurrent, queueCapacity);
+      case "platform" -> JobsExecutor.platformThreads(maxConcurrent, queueCapacity);
+      default ->
+          throw new IllegalArgumentException(
+              "app.jobs.executor.mode must be 'virtual' or 'platform', not '%s'".formatted(mode));
+    };
+  }
+}
@@ -0,0 +1,25 @@
+package edu.ucsb.cs156.example.config;
+
+import java.time.ZonedDateTime;
+import java.util.Optional;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.auditing.DateTimeProvider;
+import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+
+/**
+ * The `JpaAuditingConfig` class turns on Spring Data auditing, which fills in the
+ * {@code @CreatedDate} and {@code @LastModifiedDate} fields of entities such as {@code Job}.
+ *
+ * <p>The default provider only produces {@code LocalDateTime}, so a provider for {@code
+ * ZonedDateTime} is supplied here.
+ */
+@Configuration
+@EnableJpaAuditing(dateTimeProviderRef = "auditingDateTimeProvider")
+public class JpaAuditingConfig {
+
+  @Bean
+  public DateTimeProvider auditingDateTimeProvider() {
+    return () -> Optional.of(ZonedDateTime.now());
+  }
+}
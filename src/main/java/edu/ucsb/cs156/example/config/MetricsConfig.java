@@ -0,0 +1,42 @@
+package edu.ucsb.cs156.example.config;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.common.KeyValues;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.server.observation.DefaultServerRequestObservationConvention;
+import org.springframework.http.server.observation.ServerRequestObservationContext;
+import org.springframework.http.server.observation.ServerRequestObservationConvention;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * The `MetricsConfig` class adds a {@code handler} tag, the controller class and method that
+ * handled the request (e.g. {@code HelpRequestController.allHelpRequest}), to the {@code
+ * http.server.requests} timers, so that latency and throughput can be read per controller method.
+ *
+ * <p>Requests not handled by a controller method (static resources, 404s) are tagged {@code none}.
+ */
+@Configuration
+public class MetricsConfig {
+
+  @Bean
+  public ServerRequestObservationConvention serverRequestObservationConvention() {
+    return new DefaultServerRequestObservationConvention() {
+      @Override
+      public KeyValues getLowCardinalityKeyValues(ServerRequestObservationContext context) {
+        return super.getLowCardinalityKeyValues(context).and(handler(context));
+      }
+    };
+  }
+
+  private static KeyValue handler(ServerRequestObservationContext context) {
+    if (context.getCarrier().getAttribute(HandlerMapping.BEST_MATCHING_HANDLER_ATTRIBUTE)
+        instanceof HandlerMethod handlerMethod) {
+      return KeyValue.of(
+          "handler",
+          handlerMethod.getBeanType().getSimpleName() + "." + handlerMethod.getMethod().getName());
+    }
+    return KeyValue.of("handler", "none");
+  }
+}
@@ -2,23 +2,19 @@ package edu.ucsb.cs156.example.config;
 
 import static org.springframework.security.web.util.matcher.AntPathRequestMatcher.antMatcher;
 
-import edu.ucsb.cs156.example.entities.User;
-import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.UserRolesService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.util.ArrayList;
 import java.util.HashSet;
-import java.util.List;
-import java.util.Map;
-import java.util.Optional;
 import java.util.Set;
 import java.util.function.Supplier;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.actuate.metrics.export.prometheus.PrometheusScrapeEndpoint;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
@@ -26,7 +22,6 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityCustomizer;
 import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.authority.mapping.GrantedAuthoritiesMapper;
 import org.springframework.security.oauth2.core.user.OAuth2UserAuthority;
 import org.springframework.security.web.SecurityFilterChain;
@@ -43,7 +38,8 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 /**
  * The `SecurityConfig` class in Java configures web security with OAuth2 login, CSRF protection,
- * and role-based authorization based on user email addresses.
+ * and role-based authorization based on user email addresses. The Prometheus scrape endpoint is
+ * only open to admins.
  */
 @Configuration
 @EnableWebSecurity
@@ -51,10 +47,7 @@ import org.springframework.web.filter.OncePerRequestFilter;
 @Slf4j
 public class SecurityConfig {
 
-  @Value("${app.admin.emails}")
-  private final List<String> adminEmails = new ArrayList<>();
-
-  @Autowired UserRepository userRepository;
+  @Autowired UserRolesService userRolesService;
 
   /**
    * The `filterChain` method in this Java code configures various security settings for an HTTP
@@ -77,7 +70,12 @@ public class SecurityConfig {
                 csrf.csrfTokenRepository(CookieCsrfTokenRepository.withHttpOnlyFalse())
                     .csrfTokenRequestHandler(new SpaCsrfTokenRequestHandler()))
         .addFilterAfter(new CsrfCookieFilter(), BasicAuthenticationFilter.class)
-        .authorizeHttpRequests(auth -> auth.anyRequest().permitAll())
+        .authorizeHttpRequests(
+            auth ->
+                auth.requestMatchers(EndpointRequest.to(PrometheusScrapeEndpoint.class))
+                    .hasRole("ADMIN")
+                    .anyRequest()
+                    .permitAll())
         .logout(
             logout ->
                 logout
@@ -97,47 +95,28 @@ public class SecurityConfig {
 
   private GrantedAuthoritiesMapper userAuthoritiesMapper() {
     return (authorities) -> {
-      Set<GrantedAuthority> mappedAuthorities = new HashSet<>();
-      log.info("********** authorities={}", authorities);
-
+      Set<GrantedAuthority> mappedAuthorities = new HashSet<>(authorities);
       authorities.forEach(
           authority -> {
-            log.info("********** authority={}", authority);
-            mappedAuthorities.add(authority);
             if (authority instanceof OAuth2UserAuthority oauth2UserAuthority) {
-              Map<String, Object> userAttributes = oauth2UserAuthority.getAttributes();
-              log.info("********** userAttributes={}", userAttributes);
-
-              mappedAuthorities.add(new SimpleGrantedAuthority("ROLE_USER"));
-
-              String email = (String) userAttributes.get("email");
-              if (getAdmin(email)) {
-                mappedAuthorities.add(new SimpleGrantedAuthority("ROLE_ADMIN"));
-              }
-
-              if (email.endsWith("@ucsb.edu")) {
-                mappedAuthorities.add(new SimpleGrantedAuthority("ROLE_MEMBER"));
-              }
+              String email = (String) oauth2UserAuthority.getAttributes().get("email");
+              mappedAuthorities.addAll(userRolesService.getRoles(email));
             }
           });
-      log.info("********** mappedAuthorities={}", mappedAuthorities);
+      log.debug("mappedAuthorities={}", mappedAuthorities);
       return mappedAuthorities;
     };
   }
 
   /**
-   * This method checks if the given email belongs to an admin user either from a predefined list or
-   * by querying the user repository.
+   * This method checks if the given email belongs to an admin user, either from a predefined list
+   * or from the users table (see {@link UserRolesService}).
    *
    * @param email email address of the user
    * @return whether the user with the given email is an admin
    */
   public boolean getAdmin(String email) {
-    if (adminEmails.contains(email)) {
-      return true;
-    }
-    Optional<User> u = userRepository.findByEmail(email);
-    return u.isPresent() && u.get().getAdmin();
+    return userRolesService.isAdmin(email);
   }
 }
 
@@ -1,20 +1,90 @@
 package edu.ucsb.cs156.example.controllers;
 
+import edu.ucsb.cs156.example.errors.BadRequestException;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
 import edu.ucsb.cs156.example.models.CurrentUser;
+import edu.ucsb.cs156.example.repositories.PagedRepository;
 import edu.ucsb.cs156.example.services.CurrentUserService;
+import edu.ucsb.cs156.example.services.TableVersionService;
+import jakarta.persistence.Id;
+import jakarta.persistence.Version;
+import jakarta.servlet.http.HttpServletRequest;
+import java.lang.reflect.Field;
+import java.util.Enumeration;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.convert.ConversionException;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.mapping.PropertyPath;
+import org.springframework.data.mapping.PropertyReferenceException;
+import org.springframework.data.util.Streamable;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.ReflectionUtils;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
 /** This is an abstract class that provides common functionality for all API controllers. */
 @Slf4j
 public abstract class ApiController {
+  /** response header telling whether there is another page after this one */
+  public static final String HAS_NEXT_HEADER = "X-Has-Next";
+
+  /** response header with the cursor to pass as {@code after} to get the next page */
+  public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+  /** the field annotated with {@link Id} of each entity class that is paged through */
+  private static final ClassValue<Field> ID_FIELDS =
+      new ClassValue<>() {
+        @Override
+        protected Field computeValue(Class<?> type) {
+          for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+              if (field.isAnnotationPresent(Id.class)) {
+                ReflectionUtils.makeAccessible(field);
+                return field;
+              }
+            }
+          }
+          throw new IllegalStateException(type.getName() + " has no @Id field");
+        }
+      };
+
+  /** the field annotated with {@link Version} of each entity class, or null if there is none */
+  private static final ClassValue<Field> VERSION_FIELDS =
+      new ClassValue<>() {
+        @Override
+        protected Field computeValue(Class<?> type) {
+          for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+              if (field.isAnnotationPresent(Version.class)) {
+                ReflectionUtils.makeAccessible(field);
+                return field;
+              }
+            }
+          }
+          return null;
+        }
+      };
+
   @Autowired private CurrentUserService currentUserService;
 
+  @Autowired private TableVersionService tableVersionService;
+
   /**
    * This method returns the current user.
    *
@@ -34,6 +104,197 @@ public abstract class ApiController {
     return Map.of("message", message);
   }
 
+  /**
+   * This method returns one page of entities, as a plain JSON array. The {@value #HAS_NEXT_HEADER}
+   * header tells whether there are more. A request with none of {@code page}, {@code size} and
+   * {@code after} gets all the entities (in {@code sort} order, if given), as before paging
+   * existed, so that callers that expect the whole list keep working.
+   *
+   * <p>Pages are chosen either with {@code page} (and optionally {@code sort}), or with a cursor:
+   * the {@code after} parameter, taken from the {@value #NEXT_CURSOR_HEADER} header of the previous
+   * page. Cursors are only given when sorting by id (the default), and are cheaper than high page
+   * numbers, which make the database skip over all the earlier rows. The page size is capped by
+   * {@code spring.data.web.pageable.max-page-size}.
+   *
+   * <p>The response has an ETag made from the change counter of the entity's table (see {@link
+   * TableVersionService}). A request whose {@code If-None-Match} header matches it gets 304 Not
+   * Modified without the entities being read at all.
+   *
+   * @param <T> the entity type
+   * @param repository the repository of the entities
+   * @param type the entity class
+   * @param pageable page number, size and sort order from the request
+   * @param after id of the last entity of the previous page, or null
+   * @return the page
+   * @throws BadRequestException if the sort order or cursor is invalid
+   */
+  protected <T> ResponseEntity<List<T>> page(
+      PagedRepository<T, ?> repository, Class<T> type, Pageable pageable, String after) {
+    String eTag = tableETag(type);
+    if (eTag != null && notModified(eTag)) {
+      return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+    }
+
+    Field idField = ID_FIELDS.get(type);
+    Sort byId = Sort.by(idField.getName());
+    for (Sort.Order order : pageable.getSort()) {
+      try {
+        PropertyPath.from(order.getProperty(), type);
+      } catch (PropertyReferenceException e) {
+        throw new BadRequestException("Cannot sort by " + order.getProperty());
+      }
+    }
+    boolean sortedById = pageable.getSort().isUnsorted() || pageable.getSort().equals(byId);
+
+    List<T> content;
+    boolean hasNext;
+    if (after == null && !isPageRequested()) {
+      Sort sort = pageable.getSort();
+      content =
+          Streamable.of(sort.isSorted() ? repository.findAll(sort) : repository.findAll()).toList();
+      hasNext = false;
+    } else if (after != null) {
+      if (!sortedById) {
+        throw new BadRequestException("after can only be used when sorting by id");
+      }
+      Window<T> window =
+          repository.findBy(
+              ScrollPosition.forward(Map.of(idField.getName(), parseId(idField, after))),
+              byId,
+              Limit.of(pageable.getPageSize()));
+      content = window.getContent();
+      hasNext = window.hasNext();
+    } else {
+      Sort sort = sortedById ? byId : pageable.getSort();
+      Slice<T> slice =
+          repository.findAllBy(
+              PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sort));
+      content = slice.getContent();
+      hasNext = slice.hasNext();
+    }
+
+    ResponseEntity.BodyBuilder response =
+        ResponseEntity.ok().header(HAS_NEXT_HEADER, Boolean.toString(hasNext));
+    if (eTag != null) {
+      response.eTag(eTag);
+    }
+    if (hasNext && sortedById) {
+      Object lastId = ReflectionUtils.getField(idField, content.get(content.size() - 1));
+      response.header(NEXT_CURSOR_HEADER, String.valueOf(lastId));
+    }
+    return response.body(content);
+  }
+
+  /**
+   * This method returns entities read with a keyset query, as a plain JSON array, with an ETag and
+   * the {@value #HAS_NEXT_HEADER} and {@value #NEXT_CURSOR_HEADER} headers as in {@link #page}.
+   *
+   * @param <T> the entity type
+   * @param type the entity class
+   * @param read reads the entities; only called if the client's copy is out of date
+   * @param cursor makes the cursor for the next window from the last entity of this one
+   * @return the entities, or 304 Not Modified
+   */
+  protected <T> ResponseEntity<List<T>> window(
+      Class<T> type, Supplier<Window<T>> read, Function<T, String> cursor) {
+    String eTag = tableETag(type);
+    if (eTag != null && notModified(eTag)) {
+      return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+    }
+
+    Window<T> window = read.get();
+    ResponseEntity.BodyBuilder response =
+        ResponseEntity.ok().header(HAS_NEXT_HEADER, Boolean.toString(window.hasNext()));
+    if (eTag != null) {
+      response.eTag(eTag);
+    }
+    if (window.hasNext()) {
+      response.header(NEXT_CURSOR_HEADER, cursor.apply(window.getContent().get(window.size() - 1)));
+    }
+    return response.body(window.getContent());
+  }
+
+  /**
+   * This method returns all entities of a table that is not paged, with an ETag as in {@link
+   * #page}.
+   *
+   * @param <T> the entity type
+   * @param type the entity class
+   * @param findAll reads the entities; only called if the client's copy is out of date
+   * @return the entities, or 304 Not Modified
+   */
+  protected <T> ResponseEntity<Iterable<T>> all(Class<T> type, Supplier<Iterable<T>> findAll) {
+    String eTag = tableETag(type);
+    if (eTag == null) {
+      return ResponseEntity.ok(findAll.get());
+    }
+    if (notModified(eTag)) {
+      return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+    }
+    return ResponseEntity.ok().eTag(eTag).body(findAll.get());
+  }
+
+  /**
+   * This method returns a single entity with an ETag made from its {@link Version} field and its
+   * contents, so that an entity deleted and created again under the same id gets a new one. Spring
+   * answers a matching {@code If-None-Match} with 304 Not Modified, without writing the entity.
+   *
+   * @param <T> the entity type
+   * @param entity the entity
+   * @return the response
+   */
+  protected <T> ResponseEntity<T> withETag(T entity) {
+    Field versionField = VERSION_FIELDS.get(entity.getClass());
+    if (versionField == null) {
+      return ResponseEntity.ok(entity);
+    }
+    Object version = ReflectionUtils.getField(versionField, entity);
+    return ResponseEntity.ok()
+        .eTag("\"%s-%08x\"".formatted(version, entity.hashCode()))
+        .body(entity);
+  }
+
+  private String tableETag(Class<?> type) {
+    Long version = tableVersionService.getVersion(type);
+    return version == null ? null : "\"%d\"".formatted(version);
+  }
+
+  private static boolean notModified(String eTag) {
+    if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attrs)) {
+      return false;
+    }
+    Enumeration<String> headers = attrs.getRequest().getHeaders(HttpHeaders.IF_NONE_MATCH);
+    while (headers != null && headers.hasMoreElements()) {
+      for (String candidate : headers.nextElement().split(",")) {
+        String tag = candidate.trim();
+        if (tag.startsWith("W/")) {
+          tag = tag.substring(2);
+        }
+        if (tag.equals(eTag) || tag.equals("*")) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /** whether the request names a page, rather than asking for the whole list */
+  private static boolean isPageRequested() {
+    if (!(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attrs)) {
+      return true;
+    }
+    HttpServletRequest request = attrs.getRequest();
+    return request.getParameter("page") != null || request.getParameter("size") != null;
+  }
+
+  private static Object parseId(Field idField, String after) {
+    try {
+      return DefaultConversionService.getSharedInstance().convert(after, idField.getType());
+    } catch (ConversionException e) {
+      throw new BadRequestException("Invalid cursor " + after);
+    }
+  }
+
   /**
    * This method handles the EntityNotFoundException.
    *
@@ -47,4 +308,18 @@ public abstract class ApiController {
         "type", e.getClass().getSimpleName(),
         "message", e.getMessage());
   }
+
+  /**
+   * This method handles invalid request parameters.
+   *
+   * @param e the exception
+   * @return a map with the type and message of the exception
+   */
+  @ExceptionHandler({BadRequestException.class})
+  @ResponseStatus(HttpStatus.BAD_REQUEST)
+  public Object handleBadRequest(Throwable e) {
+    return Map.of(
+        "type", e.getClass().getSimpleName(),
+        "message", e.getMessage());
+  }
 }
@@ -3,15 +3,21 @@ package edu.ucsb.cs156.example.controllers;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import edu.ucsb.cs156.example.entities.Articles;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BulkResult;
 import edu.ucsb.cs156.example.repositories.ArticlesRepository;
+import edu.ucsb.cs156.example.services.BulkService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import java.time.LocalDateTime;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -31,17 +37,24 @@ public class ArticlesController extends ApiController {
 
   @Autowired ArticlesRepository articlesRepository;
 
+  @Autowired BulkService bulkService;
+
   /**
-   * List all Articles
+   * List all Articles, one page at a time (see {@link ApiController#page})
    *
-   * @return an iterable of Article
+   * @param pageable page number, size and sort order
+   * @param after id of the last item of the previous page, for cursor paging
+   * @return one page of articles
    */
-  @Operation(summary = "List all articles")
+  @Operation(summary = "List all articles, one page at a time")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("/all")
-  public Iterable<Articles> allArticles() {
-    Iterable<Articles> articles = articlesRepository.findAll();
-    return articles;
+  public ResponseEntity<List<Articles>> allArticles(
+      @ParameterObject Pageable pageable,
+      @Parameter(name = "after", description = "value of X-Next-Cursor from the previous page")
+          @RequestParam(required = false)
+          String after) {
+    return page(articlesRepository, Articles.class, pageable, after);
   }
 
   /**
@@ -96,13 +109,13 @@ public class ArticlesController extends ApiController {
   @Operation(summary = "Get a single articles")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("")
-  public Articles getById(@Parameter(name = "id") @RequestParam Long id) {
+  public ResponseEntity<Articles> getById(@Parameter(name = "id") @RequestParam Long id) {
     Articles articles =
         articlesRepository
             .findById(id)
             .orElseThrow(() -> new EntityNotFoundException(Articles.class, id));
 
-    return articles;
+    return withETag(articles);
   }
 
   @Operation(summary = "Update a single Articles")
@@ -139,4 +152,43 @@ public class ArticlesController extends ApiController {
     articlesRepository.delete(articles);
     return genericMessage("Articles with id %s deleted".formatted(id));
   }
+
+  /**
+   * Create many articles at once, in one transaction (see {@link BulkService})
+   *
+   * @param incoming the articles to create
+   * @return the id and status of each of the articles, in order
+   */
+  @Operation(summary = "Create many articles at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping("/bulk")
+  public BulkResult postArticles(@RequestBody List<Articles> incoming) {
+    return bulkService.create(articlesRepository, incoming);
+  }
+
+  /**
+   * Update many articles at once, in one transaction (see {@link BulkService})
+   *
+   * @param incoming the new versions of the articles, identified by their ids
+   * @return the id and status of each of the articles, in order
+   */
+  @Operation(summary = "Update many articles at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PutMapping("/bulk")
+  public BulkResult updateArticles(@RequestBody List<Articles> incoming) {
+    return bulkService.update(articlesRepository, incoming);
+  }
+
+  /**
+   * Delete many articles at once, in one transaction (see {@link BulkService})
+   *
+   * @param ids the ids of the articles to delete
+   * @return the id and status of each of the articles, in order
+   */
+  @Operation(summary = "Delete many articles at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @DeleteMapping("/bulk")
+  public BulkResult deleteArticles(@RequestBody List<Long> ids) {
+    return bulkService.delete(articlesRepository, ids);
+  }
 }
@@ -2,25 +2,42 @@ package edu.ucsb.cs156.example.controllers;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.errors.BadRequestException;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BulkResult;
 import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import edu.ucsb.cs156.example.services.BulkService;
+import edu.ucsb.cs156.example.services.ExportService;
+import edu.ucsb.cs156.example.services.TableVersionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
 import lombok.extern.slf4j.Slf4j;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @Tag(name = "HelpRequest")
 @RequestMapping("/api/helprequest")
@@ -30,17 +47,43 @@ public class HelpRequestController extends ApiController {
 
   @Autowired HelpRequestRepository helpRequestRepository;
 
+  @Autowired BulkService bulkService;
+
+  @Autowired ExportService exportService;
+
+  @Autowired TableVersionService tableVersionService;
+
+  @Value("${spring.data.web.pageable.max-page-size:1000}")
+  private int maxPageSize;
+
   /**
-   * List all Help Requests
+   * List all Help Requests, one page at a time (see {@link ApiController#page})
    *
-   * @return an iterable of helpRequest
+   * @param pageable page number, size and sort order
+   * @param after id of the last item of the previous page, for cursor paging
+   * @return one page of help requests
    */
-  @Operation(summary = "List all help requests")
+  @Operation(summary = "List all help requests, one page at a time")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("/all")
-  public Iterable<HelpRequest> allHelpRequest() {
-    Iterable<HelpRequest> helpRequest = helpRequestRepository.findAll();
-    return helpRequest;
+  public ResponseEntity<List<HelpRequest>> allHelpRequest(
+      @ParameterObject Pageable pageable,
+      @Parameter(name = "after", description = "value of X-Next-Cursor from the previous page")
+          @RequestParam(required = false)
+          String after) {
+    return page(helpRequestRepository, HelpRequest.class, pageable, after);
+  }
+
+  /**
+   * Export all help requests as newline-delimited JSON, written as they are read from the database
+   *
+   * @return a response streaming one HelpRequest per line
+   */
+  @Operation(summary = "Export all help requests as newline-delimited JSON")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping(value = "/export", produces = "application/x-ndjson")
+  public ResponseEntity<StreamingResponseBody> exportHelpRequests() {
+    return exportService.ndjson("helprequests.ndjson", helpRequestRepository::streamAllBy);
   }
 
   /**
@@ -52,13 +95,81 @@ public class HelpRequestController extends ApiController {
   @Operation(summary = "Get a single help request")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("")
-  public HelpRequest getById(@Parameter(name = "id") @RequestParam Long id) {
+  public ResponseEntity<HelpRequest> getById(@Parameter(name = "id") @RequestParam Long id) {
     HelpRequest helpRequest =
         helpRequestRepository
             .findById(id)
             .orElseThrow(() -> new EntityNotFoundException(HelpRequest.class, id));
 
-    return helpRequest;
+    return withETag(helpRequest);
+  }
+
+  /**
+   * List all help requests made by a requester, with an ETag (see {@link ApiController#all})
+   *
+   * @param requesterEmail the email address of the requester
+   * @return the help requests made by the requester
+   */
+  @Operation(summary = "List all help requests made by a requester")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/byrequester")
+  public ResponseEntity<Iterable<HelpRequest>> getByRequester(
+      @Parameter(name = "requesterEmail") @RequestParam String requesterEmail) {
+    return all(
+        HelpRequest.class, () -> helpRequestRepository.findAllByRequesterEmail(requesterEmail));
+  }
+
+  /**
+   * List all help requests of a team, with an ETag (see {@link ApiController#all})
+   *
+   * @param teamId the id of the team
+   * @return the help requests of the team
+   */
+  @Operation(summary = "List all help requests of a team")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/byteam")
+  public ResponseEntity<Iterable<HelpRequest>> getByTeam(
+      @Parameter(name = "teamId") @RequestParam String teamId) {
+    return all(HelpRequest.class, () -> helpRequestRepository.findAllByTeamId(teamId));
+  }
+
+  /**
+   * List the unsolved help requests, oldest first, with an ETag (see {@link ApiController#window})
+   *
+   * @param size the most help requests to return
+   * @param after value of X-Next-Cursor from the previous call, to continue from there
+   * @return unsolved help requests
+   */
+  @Operation(summary = "List the unsolved help requests, oldest first")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/queue")
+  public ResponseEntity<List<HelpRequest>> queue(
+      @Parameter(name = "size") @RequestParam(defaultValue = "50") int size,
+      @Parameter(name = "after", description = "value of X-Next-Cursor from the previous call")
+          @RequestParam(required = false)
+          String after) {
+    if (size < 1 || size > maxPageSize) {
+      throw new BadRequestException(
+          "size must be between 1 and %d, got %d".formatted(maxPageSize, size));
+    }
+    ScrollPosition position = after == null ? ScrollPosition.keyset() : queuePosition(after);
+    return window(
+        HelpRequest.class,
+        () -> helpRequestRepository.findQueue(position, Limit.of(size)),
+        helpRequest -> helpRequest.getRequestTime() + "," + helpRequest.getId());
+  }
+
+  private static ScrollPosition queuePosition(String after) {
+    String[] parts = after.split(",");
+    try {
+      if (parts.length == 2) {
+        return ScrollPosition.forward(
+            Map.of("requestTime", LocalDateTime.parse(parts[0]), "id", Long.parseLong(parts[1])));
+      }
+    } catch (DateTimeParseException | NumberFormatException e) {
+      // reported below
+    }
+    throw new BadRequestException("Invalid cursor " + after);
   }
 
   /**
@@ -156,4 +267,65 @@ public class HelpRequestController extends ApiController {
 
     return helpRequest;
   }
+
+  /**
+   * Mark a help request as solved or unsolved, without sending the whole help request
+   *
+   * @param id id of the help request
+   * @param solved whether it is solved; true if not given
+   * @return a message indicating the help request was updated
+   */
+  @Operation(summary = "Mark a help request as solved or unsolved")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @PatchMapping("/solve")
+  @Transactional
+  public Object solveHelpRequest(
+      @Parameter(name = "id") @RequestParam Long id,
+      @Parameter(name = "solved") @RequestParam(defaultValue = "true") boolean solved) {
+    if (helpRequestRepository.setSolved(id, solved) == 0) {
+      throw new EntityNotFoundException(HelpRequest.class, id);
+    }
+    tableVersionService.changed(HelpRequest.class);
+    return genericMessage(
+        "HelpRequest with id %s marked %s".formatted(id, solved ? "solved" : "unsolved"));
+  }
+
+  /**
+   * Create many help requests at once, in one transaction (see {@link BulkService})
+   *
+   * @param incoming the help requests to create
+   * @return the id and status of each of the help requests, in order
+   */
+  @Operation(summary = "Create many help requests at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping("/bulk")
+  public BulkResult postHelpRequests(@RequestBody List<HelpRequest> incoming) {
+    return bulkService.create(helpRequestRepository, incoming);
+  }
+
+  /**
+   * Update many help requests at once, in one transaction (see {@link BulkService})
+   *
+   * @param incoming the new versions of the help requests, identified by their ids
+   * @return the id and status of each of the help requests, in order
+   */
+  @Operation(summary = "Update many help requests at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PutMapping("/bulk")
+  public BulkResult updateHelpRequests(@RequestBody List<HelpRequest> incoming) {
+    return bulkService.update(helpRequestRepository, incoming);
+  }
+
+  /**
+   * Delete many help requests at once, in one transaction (see {@link BulkService})
+   *
+   * @param ids the ids of the help requests to delete
+   * @return the id and status of each of the help requests, in order
+   */
+  @Operation(summary = "Delete many help requests at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @DeleteMapping("/bulk")
+  public BulkResult deleteHelpRequests(@RequestBody List<Long> ids) {
+    return bulkService.delete(helpRequestRepository, ids);
+  }
 }
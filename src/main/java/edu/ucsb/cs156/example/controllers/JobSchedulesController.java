@@ -0,0 +1,161 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.entities.JobSchedule;
+import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.repositories.JobSchedulesRepository;
+import edu.ucsb.cs156.example.services.jobs.JobScheduler;
+import edu.ucsb.cs156.example.services.jobs.JobService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+/** This is a REST controller for schedules of recurring jobs. */
+@Tag(name = "Jobs")
+@RequestMapping("/api/jobs/schedules")
+@RestController
+@Slf4j
+public class JobSchedulesController extends ApiController {
+  @Autowired JobSchedulesRepository jobSchedulesRepository;
+
+  @Autowired JobScheduler jobScheduler;
+
+  @Autowired JobService jobService;
+
+  /**
+   * This method returns a list of all job schedules.
+   *
+   * @return a list of all job schedules
+   */
+  @Operation(summary = "List all job schedules")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @GetMapping("/all")
+  public Iterable<JobSchedule> allSchedules() {
+    return jobSchedulesRepository.findAll();
+  }
+
+  /**
+   * Create a new job schedule. Exactly one of cron and fixedRateMs must be given.
+   *
+   * @param name unique name of the schedule
+   * @param jobType class name of the job, which must be a RecoverableJob
+   * @param payload the job as JSON
+   * @param cron Spring cron expression, e.g. "0 0 3 * * *" for 3am every day
+   * @param fixedRateMs time between runs in milliseconds
+   * @return the saved schedule
+   */
+  @Operation(summary = "Create a new job schedule (give either cron or fixedRateMs)")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping("/post")
+  public JobSchedule postSchedule(
+      @Parameter(name = "name") @RequestParam String name,
+      @Parameter(name = "jobType", description = "e.g. edu.ucsb.cs156.example.jobs.TestJob")
+          @RequestParam
+          String jobType,
+      @Parameter(name = "payload", description = "the job as JSON, e.g. {\"sleepMs\":1000}")
+          @RequestParam(defaultValue = "{}")
+          String payload,
+      @Parameter(name = "cron") @RequestParam(required = false) String cron,
+      @Parameter(name = "fixedRateMs") @RequestParam(required = false) Long fixedRateMs) {
+    if ((cron == null) == (fixedRateMs == null)) {
+      throw new IllegalArgumentException("Give exactly one of cron and fixedRateMs");
+    }
+    if (cron != null && !CronExpression.isValidExpression(cron)) {
+      throw new IllegalArgumentException("Invalid cron expression " + cron);
+    }
+    if (fixedRateMs != null && fixedRateMs <= 0) {
+      throw new IllegalArgumentException("fixedRateMs must be positive");
+    }
+    jobService.readJob(jobType, payload);
+
+    JobSchedule schedule =
+        JobSchedule.builder()
+            .name(name)
+            .jobType(jobType)
+            .payload(payload)
+            .cron(cron)
+            .fixedRateMs(fixedRateMs)
+            .enabled(true)
+            .build();
+    schedule.setNextRunAt(firstRun(schedule));
+    return jobSchedulesRepository.save(schedule);
+  }
+
+  /**
+   * Enable or disable a job schedule. A schedule that is enabled again first runs at its next
+   * regular time.
+   *
+   * @param id id of the schedule
+   * @param enabled whether the schedule should run
+   * @return the updated schedule
+   */
+  @Operation(summary = "Enable or disable a job schedule")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PutMapping("")
+  public JobSchedule updateSchedule(
+      @Parameter(name = "id") @RequestParam Long id,
+      @Parameter(name = "enabled") @RequestParam boolean enabled) {
+    JobSchedule schedule =
+        jobSchedulesRepository
+            .findById(id)
+            .orElseThrow(() -> new EntityNotFoundException(JobSchedule.class, id));
+    if (enabled && !schedule.getEnabled()) {
+      schedule.setNextRunAt(firstRun(schedule));
+    }
+    schedule.setEnabled(enabled);
+    return jobSchedulesRepository.save(schedule);
+  }
+
+  /**
+   * Delete a job schedule. Jobs it has already started are kept.
+   *
+   * @param id id of the schedule
+   * @return a message indicating the schedule was deleted
+   */
+  @Operation(summary = "Delete a job schedule")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @DeleteMapping("")
+  public Object deleteSchedule(@Parameter(name = "id") @RequestParam Long id) {
+    JobSchedule schedule =
+        jobSchedulesRepository
+            .findById(id)
+            .orElseThrow(() -> new EntityNotFoundException(JobSchedule.class, id));
+    jobSchedulesRepository.delete(schedule);
+    return genericMessage("JobSchedule with id %s deleted".formatted(id));
+  }
+
+  /**
+   * This method handles invalid schedules.
+   *
+   * @param e the exception
+   * @return a map with the type and message of the exception
+   */
+  @ExceptionHandler({IllegalArgumentException.class})
+  @ResponseStatus(HttpStatus.BAD_REQUEST)
+  public Object handleBadRequest(Throwable e) {
+    return Map.of(
+        "type", e.getClass().getSimpleName(),
+        "message", e.getMessage());
+  }
+
+  private ZonedDateTime firstRun(JobSchedule schedule) {
+    ZonedDateTime now = ZonedDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+    return jobScheduler.nextRunAfter(schedule, null, now);
+  }
+}
@@ -5,22 +5,32 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.ucsb.cs156.example.entities.Job;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
 import edu.ucsb.cs156.example.jobs.TestJob;
+import edu.ucsb.cs156.example.models.JobSummary;
+import edu.ucsb.cs156.example.models.JobSummaryPage;
 import edu.ucsb.cs156.example.repositories.JobsRepository;
+import edu.ucsb.cs156.example.services.jobs.JobRetention;
 import edu.ucsb.cs156.example.services.jobs.JobService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import java.time.ZonedDateTime;
+import java.util.List;
 import java.util.Map;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @Tag(name = "Jobs")
 @RequestMapping("/api/jobs")
@@ -31,8 +41,13 @@ public class JobsController extends ApiController {
 
   @Autowired private JobService jobService;
 
+  @Autowired private JobRetention jobRetention;
+
   @Autowired ObjectMapper mapper;
 
+  /** largest page that {@code /api/jobs/page} will return */
+  public static final int MAX_PAGE_SIZE = 100;
+
   @Operation(summary = "List all jobs")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @GetMapping("/all")
@@ -41,12 +56,58 @@ public class JobsController extends ApiController {
     return jobs;
   }
 
-  @Operation(summary = "Delete all job records")
+  @Operation(
+      summary =
+          "List jobs newest first, one page at a time, without their logs (pass nextCreatedAt and nextId back as beforeCreatedAt and beforeId for the next page)")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @GetMapping("/page")
+  public JobSummaryPage pageOfJobs(
+      @Parameter(name = "size", description = "number of jobs per page (at most 100)")
+          @RequestParam(defaultValue = "20")
+          int size,
+      @Parameter(name = "status", description = "only jobs with this status")
+          @RequestParam(required = false)
+          String status,
+      @Parameter(name = "createdBy", description = "only jobs created by the user with this id")
+          @RequestParam(required = false)
+          Long createdBy,
+      @Parameter(
+              name = "beforeCreatedAt",
+              description = "nextCreatedAt of the previous page; omit for the first page")
+          @RequestParam(required = false)
+          @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+          ZonedDateTime beforeCreatedAt,
+      @Parameter(name = "beforeId", description = "nextId of the previous page")
+          @RequestParam(required = false)
+          Long beforeId) {
+    int pageSize = Math.min(Math.max(size, 1), MAX_PAGE_SIZE);
+    // fetch one extra row to find out whether there is another page
+    Limit limit = Limit.of(pageSize + 1);
+
+    List<JobSummary> jobs =
+        beforeCreatedAt == null || beforeId == null
+            ? jobsRepository.findSummaries(status, createdBy, limit)
+            : jobsRepository.findSummariesBefore(
+                status, createdBy, beforeCreatedAt, beforeId, limit);
+
+    if (jobs.size() <= pageSize) {
+      return JobSummaryPage.builder().jobs(jobs).build();
+    }
+    jobs = jobs.subList(0, pageSize);
+    JobSummary last = jobs.get(pageSize - 1);
+    return JobSummaryPage.builder()
+        .jobs(jobs)
+        .nextCreatedAt(last.getCreatedAt())
+        .nextId(last.getId())
+        .build();
+  }
+
+  @Operation(summary = "Delete all finished job records; queued and running jobs are kept")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @DeleteMapping("/all")
   public Map<String, String> deleteAllJobs() {
-    jobsRepository.deleteAll();
-    return Map.of("message", "All jobs deleted");
+    int deleted = jobRetention.deleteAll();
+    return Map.of("message", "All jobs deleted (%d)".formatted(deleted));
   }
 
   @Operation(summary = "Get a specific Job Log by ID if it is in the database")
@@ -73,6 +134,20 @@ public class JobsController extends ApiController {
     return Map.of("message", String.format("Job with id %d deleted", id));
   }
 
+  @Operation(summary = "Cancel a queued or running job")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping("/{id}/cancel")
+  public Map<String, String> cancelJob(
+      @Parameter(name = "id", description = "Job ID") @PathVariable Long id) {
+    if (!jobsRepository.existsById(id)) {
+      throw new EntityNotFoundException(Job.class, id);
+    }
+    if (!jobService.cancelJob(id)) {
+      return Map.of("message", String.format("Job with id %d has already finished", id));
+    }
+    return Map.of("message", String.format("Job with id %d cancelled", id));
+  }
+
   @Operation(summary = "Launch Test Job (click fail if you want to test exception handling)")
   @PreAuthorize("hasRole('ROLE_ADMIN')")
   @PostMapping("/launch/testjob")
@@ -91,4 +166,20 @@ public class JobsController extends ApiController {
 
     return jobService.getJobLogs(id);
   }
+
+  @Operation(
+      summary =
+          "Stream job logs as Server-Sent Events: the backlog, then new lines until the job finishes")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @GetMapping(value = "/{id}/logs/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter streamJobLogs(
+      @Parameter(name = "id", description = "Job ID") @PathVariable Long id,
+      @Parameter(name = "Last-Event-ID", description = "last line number already received")
+          @RequestHeader(value = "Last-Event-ID", required = false)
+          Integer lastEventId) {
+    Job job =
+        jobsRepository.findById(id).orElseThrow(() -> new EntityNotFoundException(Job.class, id));
+    int fromLine = lastEventId == null ? 0 : lastEventId + 1;
+    return jobService.streamJobLogs(job, fromLine);
+  }
 }
@@ -2,16 +2,28 @@ package edu.ucsb.cs156.example.controllers;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.MenuItemReviewStats;
+import edu.ucsb.cs156.example.errors.BadRequestException;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BulkResult;
 import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewStatsRepository;
+import edu.ucsb.cs156.example.services.BulkService;
+import edu.ucsb.cs156.example.services.ExportService;
+import edu.ucsb.cs156.example.services.MenuItemReviewStatsService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import java.time.LocalDateTime;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -21,6 +33,7 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /** This is a REST controller for MenuItemReviews */
 @Tag(name = "MenuItemReviews")
@@ -28,19 +41,46 @@ import org.springframework.web.bind.annotation.RestController;
 @RestController
 @Slf4j
 public class MenuItemReviewController extends ApiController {
+  /** most items that {@link #getTopRated} lists */
+  public static final int MAX_TOP_RATED = 100;
+
   @Autowired MenuItemReviewRepository menuItemReviewRepository;
 
+  @Autowired MenuItemReviewStatsRepository menuItemReviewStatsRepository;
+
+  @Autowired BulkService bulkService;
+
+  @Autowired ExportService exportService;
+
   /**
-   * List all Menu Item Reviews
+   * List all Menu Item Reviews, one page at a time (see {@link ApiController#page})
    *
-   * @return an iterable of MenuItemReview
+   * @param pageable page number, size and sort order
+   * @param after id of the last item of the previous page, for cursor paging
+   * @return one page of menu item reviews
    */
-  @Operation(summary = "List all menu item reviews")
+  @Operation(summary = "List all menu item reviews, one page at a time")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("/all")
-  public Iterable<MenuItemReview> allMenuItemReviews() {
-    Iterable<MenuItemReview> reviews = menuItemReviewRepository.findAll();
-    return reviews;
+  public ResponseEntity<List<MenuItemReview>> allMenuItemReviews(
+      @ParameterObject Pageable pageable,
+      @Parameter(name = "after", description = "value of X-Next-Cursor from the previous page")
+          @RequestParam(required = false)
+          String after) {
+    return page(menuItemReviewRepository, MenuItemReview.class, pageable, after);
+  }
+
+  /**
+   * Export all menu item reviews as newline-delimited JSON, written as they are read from the
+   * database
+   *
+   * @return a response streaming one MenuItemReview per line
+   */
+  @Operation(summary = "Export all menu item reviews as newline-delimited JSON")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping(value = "/export", produces = "application/x-ndjson")
+  public ResponseEntity<StreamingResponseBody> exportMenuItemReviews() {
+    return exportService.ndjson("menuitemreviews.ndjson", menuItemReviewRepository::streamAllBy);
   }
 
   /**
@@ -52,13 +92,83 @@ public class MenuItemReviewController extends ApiController {
   @Operation(summary = "Get a single menu item review")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("")
-  public MenuItemReview getById(@Parameter(name = "id") @RequestParam Long id) {
+  public ResponseEntity<MenuItemReview> getById(@Parameter(name = "id") @RequestParam Long id) {
     MenuItemReview menuItemReview =
         menuItemReviewRepository
             .findById(id)
             .orElseThrow(() -> new EntityNotFoundException(MenuItemReview.class, id));
 
-    return menuItemReview;
+    return withETag(menuItemReview);
+  }
+
+  /**
+   * List all reviews of a menu item, with an ETag (see {@link ApiController#all})
+   *
+   * @param itemId the id of the menu item
+   * @return the reviews of the item
+   */
+  @Operation(summary = "List all reviews of a menu item")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/byitem")
+  public ResponseEntity<Iterable<MenuItemReview>> getByItem(
+      @Parameter(name = "itemId") @RequestParam long itemId) {
+    return all(MenuItemReview.class, () -> menuItemReviewRepository.findAllByItemId(itemId));
+  }
+
+  /**
+   * List all reviews written by a reviewer, with an ETag (see {@link ApiController#all})
+   *
+   * @param reviewerEmail the email address of the reviewer
+   * @return the reviews written by the reviewer
+   */
+  @Operation(summary = "List all reviews written by a reviewer")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/byreviewer")
+  public ResponseEntity<Iterable<MenuItemReview>> getByReviewer(
+      @Parameter(name = "reviewerEmail") @RequestParam String reviewerEmail) {
+    return all(
+        MenuItemReview.class, () -> menuItemReviewRepository.findAllByReviewerEmail(reviewerEmail));
+  }
+
+  /**
+   * Get the star-rating totals of a menu item: the number of reviews, the average and the number of
+   * reviews with each number of stars. These are read from a single row that is kept up to date as
+   * reviews change (see {@link MenuItemReviewStatsService}), not computed from the reviews.
+   *
+   * @param itemId the id of the menu item
+   * @return the totals; all zero if the item has no reviews
+   */
+  @Operation(summary = "Get the star-rating totals of a menu item")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/stats")
+  public MenuItemReviewStats getStats(@Parameter(name = "itemId") @RequestParam long itemId) {
+    return menuItemReviewStatsRepository
+        .findById(itemId)
+        .orElseGet(() -> MenuItemReviewStats.builder().itemId(itemId).build());
+  }
+
+  /**
+   * List the best-rated menu items, highest average first
+   *
+   * @param count how many items to list, at most {@value #MAX_TOP_RATED}
+   * @param minReviews fewest reviews an item needs to be listed, so that one five-star review does
+   *     not put an item on top
+   * @return the star-rating totals of the items
+   */
+  @Operation(summary = "List the best-rated menu items")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/top")
+  public List<MenuItemReviewStats> getTopRated(
+      @Parameter(name = "count") @RequestParam(defaultValue = "10") int count,
+      @Parameter(name = "minReviews") @RequestParam(defaultValue = "1") long minReviews) {
+    if (count < 1 || count > MAX_TOP_RATED) {
+      throw new BadRequestException(
+          "count must be between 1 and %d, got %d".formatted(MAX_TOP_RATED, count));
+    }
+    if (minReviews < 1) {
+      throw new BadRequestException("minReviews must be at least 1, got " + minReviews);
+    }
+    return menuItemReviewStatsRepository.findTopRated(minReviews, Limit.of(count));
   }
 
   /**
@@ -152,4 +262,43 @@ public class MenuItemReviewController extends ApiController {
     menuItemReviewRepository.delete(menuItemReview);
     return genericMessage("MenuItemReview with id %s deleted".formatted(id));
   }
+
+  /**
+   * Create many menu item reviews at once, in one transaction (see {@link BulkService})
+   *
+   * @param incoming the menu item reviews to create
+   * @return the id and status of each of the menu item reviews, in order
+   */
+  @Operation(summary = "Create many menu item reviews at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping("/bulk")
+  public BulkResult postMenuItemReviews(@RequestBody List<MenuItemReview> incoming) {
+    return bulkService.create(menuItemReviewRepository, incoming);
+  }
+
+  /**
+   * Update many menu item reviews at once, in one transaction (see {@link BulkService})
+   *
+   * @param incoming the new versions of the menu item reviews, identified by their ids
+   * @return the id and status of each of the menu item reviews, in order
+   */
+  @Operation(summary = "Update many menu item reviews at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PutMapping("/bulk")
+  public BulkResult updateMenuItemReviews(@RequestBody List<MenuItemReview> incoming) {
+    return bulkService.update(menuItemReviewRepository, incoming);
+  }
+
+  /**
+   * Delete many menu item reviews at once, in one transaction (see {@link BulkService})
+   *
+   * @param ids the ids of the menu item reviews to delete
+   * @return the id and status of each of the menu item reviews, in order
+   */
+  @Operation(summary = "Delete many menu item reviews at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @DeleteMapping("/bulk")
+  public BulkResult deleteMenuItemReviews(@RequestBody List<Long> ids) {
+    return bulkService.delete(menuItemReviewRepository, ids);
+  }
 }
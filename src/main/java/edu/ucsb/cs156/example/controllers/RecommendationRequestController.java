@@ -3,15 +3,21 @@ package edu.ucsb.cs156.example.controllers;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import edu.ucsb.cs156.example.entities.RecommendationRequest;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BulkResult;
 import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
+import edu.ucsb.cs156.example.services.BulkService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import java.time.LocalDateTime;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -31,18 +37,24 @@ public class RecommendationRequestController extends ApiController {
 
   @Autowired RecommendationRequestRepository recommendationRequestRepository;
 
+  @Autowired BulkService bulkService;
+
   /**
-   * List all Recommendation Requests
+   * List all Recommendation Requests, one page at a time (see {@link ApiController#page})
    *
-   * @return an iterable of RecommendationRequest
+   * @param pageable page number, size and sort order
+   * @param after id of the last item of the previous page, for cursor paging
+   * @return one page of recommendation requests
    */
-  @Operation(summary = "List all recommendation requests")
+  @Operation(summary = "List all recommendation requests, one page at a time")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("/all")
-  public Iterable<RecommendationRequest> allRecommendationRequests() {
-    Iterable<RecommendationRequest> recommendationRequests =
-        recommendationRequestRepository.findAll();
-    return recommendationRequests;
+  public ResponseEntity<List<RecommendationRequest>> allRecommendationRequests(
+      @ParameterObject Pageable pageable,
+      @Parameter(name = "after", description = "value of X-Next-Cursor from the previous page")
+          @RequestParam(required = false)
+          String after) {
+    return page(recommendationRequestRepository, RecommendationRequest.class, pageable, after);
   }
 
   /**
@@ -54,13 +66,31 @@ public class RecommendationRequestController extends ApiController {
   @Operation(summary = "Get a single recommendation request")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("")
-  public RecommendationRequest getById(@Parameter(name = "id") @RequestParam Long id) {
+  public ResponseEntity<RecommendationRequest> getById(
+      @Parameter(name = "id") @RequestParam Long id) {
     RecommendationRequest recommendationRequest =
         recommendationRequestRepository
             .findById(id)
             .orElseThrow(() -> new EntityNotFoundException(RecommendationRequest.class, id));
 
-    return recommendationRequest;
+    return withETag(recommendationRequest);
+  }
+
+  /**
+   * List all recommendation requests made by a requester, with an ETag (see {@link
+   * ApiController#all})
+   *
+   * @param requesterEmail the email address of the requester
+   * @return the recommendation requests made by the requester
+   */
+  @Operation(summary = "List all recommendation requests made by a requester")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/byrequester")
+  public ResponseEntity<Iterable<RecommendationRequest>> getByRequester(
+      @Parameter(name = "requesterEmail") @RequestParam String requesterEmail) {
+    return all(
+        RecommendationRequest.class,
+        () -> recommendationRequestRepository.findAllByRequesteremail(requesterEmail));
   }
 
   /**
@@ -166,4 +196,44 @@ public class RecommendationRequestController extends ApiController {
 
     return recRequest;
   }
+
+  /**
+   * Create many recommendation requests at once, in one transaction (see {@link BulkService})
+   *
+   * @param incoming the recommendation requests to create
+   * @return the id and status of each of the recommendation requests, in order
+   */
+  @Operation(summary = "Create many recommendation requests at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping("/bulk")
+  public BulkResult postRecommendationRequests(@RequestBody List<RecommendationRequest> incoming) {
+    return bulkService.create(recommendationRequestRepository, incoming);
+  }
+
+  /**
+   * Update many recommendation requests at once, in one transaction (see {@link BulkService})
+   *
+   * @param incoming the new versions of the recommendation requests, identified by their ids
+   * @return the id and status of each of the recommendation requests, in order
+   */
+  @Operation(summary = "Update many recommendation requests at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PutMapping("/bulk")
+  public BulkResult updateRecommendationRequests(
+      @RequestBody List<RecommendationRequest> incoming) {
+    return bulkService.update(recommendationRequestRepository, incoming);
+  }
+
+  /**
+   * Delete many recommendation requests at once, in one transaction (see {@link BulkService})
+   *
+   * @param ids the ids of the recommendation requests to delete
+   * @return the id and status of each of the recommendation requests, in order
+   */
+  @Operation(summary = "Delete many recommendation requests at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @DeleteMapping("/bulk")
+  public BulkResult deleteRecommendationRequests(@RequestBody List<Long> ids) {
+    return bulkService.delete(recommendationRequestRepository, ids);
+  }
 }
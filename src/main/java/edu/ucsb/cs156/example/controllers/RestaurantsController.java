@@ -2,12 +2,18 @@ package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.entities.Restaurant;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BulkResult;
 import edu.ucsb.cs156.example.repositories.RestaurantRepository;
+import edu.ucsb.cs156.example.services.BulkService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import java.util.List;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -26,17 +32,25 @@ public class RestaurantsController extends ApiController {
 
   @Autowired RestaurantRepository restaurantRepository;
 
+  @Autowired BulkService bulkService;
+
   /**
-   * This method returns a list of all restaurants.
+   * This method returns a list of all restaurants., one page at a time (see {@link
+   * ApiController#page})
    *
-   * @return a list of all restaurants
+   * @param pageable page number, size and sort order
+   * @param after id of the last item of the previous page, for cursor paging
+   * @return one page of restaurants
    */
-  @Operation(summary = "List all restaurants")
+  @Operation(summary = "List all restaurants, one page at a time")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("/all")
-  public Iterable<Restaurant> allRestaurants() {
-    Iterable<Restaurant> restaurants = restaurantRepository.findAll();
-    return restaurants;
+  public ResponseEntity<List<Restaurant>> allRestaurants(
+      @ParameterObject Pageable pageable,
+      @Parameter(name = "after", description = "value of X-Next-Cursor from the previous page")
+          @RequestParam(required = false)
+          String after) {
+    return page(restaurantRepository, Restaurant.class, pageable, after);
   }
 
   /**
@@ -48,13 +62,13 @@ public class RestaurantsController extends ApiController {
   @Operation(summary = "Get a single restaurant")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("")
-  public Restaurant getById(@Parameter(name = "id") @RequestParam Long id) {
+  public ResponseEntity<Restaurant> getById(@Parameter(name = "id") @RequestParam Long id) {
     Restaurant restaurant =
         restaurantRepository
             .findById(id)
             .orElseThrow(() -> new EntityNotFoundException(Restaurant.class, id));
 
-    return restaurant;
+    return withETag(restaurant);
   }
 
   /**
@@ -123,4 +137,43 @@ public class RestaurantsController extends ApiController {
 
     return restaurant;
   }
+
+  /**
+   * Create many restaurants at once, in one transaction (see {@link BulkService})
+   *
+   * @param incoming the restaurants to create
+   * @return the id and status of each of the restaurants, in order
+   */
+  @Operation(summary = "Create many restaurants at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping("/bulk")
+  public BulkResult postRestaurants(@RequestBody List<Restaurant> incoming) {
+    return bulkService.create(restaurantRepository, incoming);
+  }
+
+  /**
+   * Update many restaurants at once, in one transaction (see {@link BulkService})
+   *
+   * @param incoming the new versions of the restaurants, identified by their ids
+   * @return the id and status of each of the restaurants, in order
+   */
+  @Operation(summary = "Update many restaurants at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PutMapping("/bulk")
+  public BulkResult updateRestaurants(@RequestBody List<Restaurant> incoming) {
+    return bulkService.update(restaurantRepository, incoming);
+  }
+
+  /**
+   * Delete many restaurants at once, in one transaction (see {@link BulkService})
+   *
+   * @param ids the ids of the restaurants to delete
+   * @return the id and status of each of the restaurants, in order
+   */
+  @Operation(summary = "Delete many restaurants at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @DeleteMapping("/bulk")
+  public BulkResult deleteRestaurants(@RequestBody List<Long> ids) {
+    return bulkService.delete(restaurantRepository, ids);
+  }
 }
@@ -0,0 +1,55 @@
+package edu.ucsb.cs156.example.controllers;
+
+import edu.ucsb.cs156.example.errors.BadRequestException;
+import edu.ucsb.cs156.example.models.SearchHit;
+import edu.ucsb.cs156.example.services.SearchService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.springdoc.core.annotations.ParameterObject;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/** This is a REST controller for full-text search */
+@Tag(name = "Search")
+@RequestMapping("/api/search")
+@RestController
+@Slf4j
+public class SearchController extends ApiController {
+
+  @Autowired SearchService searchService;
+
+  /**
+   * Search articles, help requests and menu item reviews for words, best matches first. As with the
+   * list endpoints, the {@value ApiController#HAS_NEXT_HEADER} header tells whether there are more.
+   *
+   * @param q the words to look for
+   * @param pageable page number and size; results are always sorted by rank
+   * @return one page of hits
+   */
+  @Operation(summary = "Search articles, help requests and menu item reviews")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("")
+  public ResponseEntity<List<SearchHit>> search(
+      @Parameter(name = "q", description = "words to search for") @RequestParam String q,
+      @ParameterObject @PageableDefault(size = 20) Pageable pageable) {
+    if (pageable.getSort().isSorted()) {
+      throw new BadRequestException("Search results are always sorted by rank");
+    }
+    List<SearchHit> hits =
+        searchService.search(q, pageable.getOffset(), pageable.getPageSize() + 1);
+    boolean hasNext = hits.size() > pageable.getPageSize();
+    return ResponseEntity.ok()
+        .header(HAS_NEXT_HEADER, Boolean.toString(hasNext))
+        .body(hasNext ? hits.subList(0, pageable.getPageSize()) : hits);
+  }
+}
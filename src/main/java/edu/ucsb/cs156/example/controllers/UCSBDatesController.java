@@ -3,15 +3,21 @@ package edu.ucsb.cs156.example.controllers;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import edu.ucsb.cs156.example.entities.UCSBDate;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BulkResult;
 import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
+import edu.ucsb.cs156.example.services.BulkService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import java.time.LocalDateTime;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -31,17 +37,24 @@ public class UCSBDatesController extends ApiController {
 
   @Autowired UCSBDateRepository ucsbDateRepository;
 
+  @Autowired BulkService bulkService;
+
   /**
-   * List all UCSB dates
+   * List all UCSB dates, one page at a time (see {@link ApiController#page})
    *
-   * @return an iterable of UCSBDate
+   * @param pageable page number, size and sort order
+   * @param after id of the last item of the previous page, for cursor paging
+   * @return one page of ucsb dates
    */
-  @Operation(summary = "List all ucsb dates")
+  @Operation(summary = "List all ucsb dates, one page at a time")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("/all")
-  public Iterable<UCSBDate> allUCSBDates() {
-    Iterable<UCSBDate> dates = ucsbDateRepository.findAll();
-    return dates;
+  public ResponseEntity<List<UCSBDate>> allUCSBDates(
+      @ParameterObject Pageable pageable,
+      @Parameter(name = "after", description = "value of X-Next-Cursor from the previous page")
+          @RequestParam(required = false)
+          String after) {
+    return page(ucsbDateRepository, UCSBDate.class, pageable, after);
   }
 
   /**
@@ -53,13 +66,27 @@ public class UCSBDatesController extends ApiController {
   @Operation(summary = "Get a single date")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("")
-  public UCSBDate getById(@Parameter(name = "id") @RequestParam Long id) {
+  public ResponseEntity<UCSBDate> getById(@Parameter(name = "id") @RequestParam Long id) {
     UCSBDate ucsbDate =
         ucsbDateRepository
             .findById(id)
             .orElseThrow(() -> new EntityNotFoundException(UCSBDate.class, id));
 
-    return ucsbDate;
+    return withETag(ucsbDate);
+  }
+
+  /**
+   * List all dates of a quarter, with an ETag (see {@link ApiController#all})
+   *
+   * @param quarterYYYYQ the quarter, in the format YYYYQ (e.g. 20244 for Fall 2024)
+   * @return the dates of the quarter
+   */
+  @Operation(summary = "List all dates of a quarter")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/byquarter")
+  public ResponseEntity<Iterable<UCSBDate>> getByQuarter(
+      @Parameter(name = "quarterYYYYQ") @RequestParam String quarterYYYYQ) {
+    return all(UCSBDate.class, () -> ucsbDateRepository.findAllByQuarterYYYYQ(quarterYYYYQ));
   }
 
   /**
@@ -145,4 +172,43 @@ public class UCSBDatesController extends ApiController {
 
     return ucsbDate;
   }
+
+  /**
+   * Create many ucsb dates at once, in one transaction (see {@link BulkService})
+   *
+   * @param incoming the ucsb dates to create
+   * @return the id and status of each of the ucsb dates, in order
+   */
+  @Operation(summary = "Create many ucsb dates at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping("/bulk")
+  public BulkResult postUCSBDates(@RequestBody List<UCSBDate> incoming) {
+    return bulkService.create(ucsbDateRepository, incoming);
+  }
+
+  /**
+   * Update many ucsb dates at once, in one transaction (see {@link BulkService})
+   *
+   * @param incoming the new versions of the ucsb dates, identified by their ids
+   * @return the id and status of each of the ucsb dates, in order
+   */
+  @Operation(summary = "Update many ucsb dates at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PutMapping("/bulk")
+  public BulkResult updateUCSBDates(@RequestBody List<UCSBDate> incoming) {
+    return bulkService.update(ucsbDateRepository, incoming);
+  }
+
+  /**
+   * Delete many ucsb dates at once, in one transaction (see {@link BulkService})
+   *
+   * @param ids the ids of the ucsb dates to delete
+   * @return the id and status of each of the ucsb dates, in order
+   */
+  @Operation(summary = "Delete many ucsb dates at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @DeleteMapping("/bulk")
+  public BulkResult deleteUCSBDates(@RequestBody List<Long> ids) {
+    return bulkService.delete(ucsbDateRepository, ids);
+  }
 }
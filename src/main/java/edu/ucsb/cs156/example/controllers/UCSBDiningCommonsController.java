@@ -1,14 +1,21 @@
 package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.errors.BadRequestException;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BulkResult;
+import edu.ucsb.cs156.example.models.NearbyDiningCommons;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.services.BulkService;
+import edu.ucsb.cs156.example.services.NearestDiningCommonsService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -28,17 +35,20 @@ public class UCSBDiningCommonsController extends ApiController {
 
   @Autowired UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
 
+  @Autowired BulkService bulkService;
+
+  @Autowired NearestDiningCommonsService nearestDiningCommonsService;
+
   /**
    * THis method returns a list of all ucsbdiningcommons.
    *
-   * @return a list of all ucsbdiningcommons
+   * @return a list of all ucsbdiningcommons, with an ETag (see {@link ApiController#all})
    */
   @Operation(summary = "List all ucsb dining commons")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("/all")
-  public Iterable<UCSBDiningCommons> allCommonss() {
-    Iterable<UCSBDiningCommons> commons = ucsbDiningCommonsRepository.findAll();
-    return commons;
+  public ResponseEntity<Iterable<UCSBDiningCommons>> allCommonss() {
+    return all(UCSBDiningCommons.class, ucsbDiningCommonsRepository::findAll);
   }
 
   /**
@@ -50,13 +60,42 @@ public class UCSBDiningCommonsController extends ApiController {
   @Operation(summary = "Get a single commons")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("")
-  public UCSBDiningCommons getById(@Parameter(name = "code") @RequestParam String code) {
+  public ResponseEntity<UCSBDiningCommons> getById(
+      @Parameter(name = "code") @RequestParam String code) {
     UCSBDiningCommons commons =
         ucsbDiningCommonsRepository
             .findById(code)
             .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommons.class, code));
 
-    return commons;
+    return withETag(commons);
+  }
+
+  /**
+   * This method returns the dining commons nearest to a location, nearest first, from an in-memory
+   * index (see {@link NearestDiningCommonsService}).
+   *
+   * @param lat latitude of the location, in degrees
+   * @param lon longitude of the location, in degrees
+   * @param k the most dining commons to return
+   * @return up to k dining commons, each with its distance in meters
+   */
+  @Operation(summary = "List the dining commons nearest to a location")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/nearest")
+  public List<NearbyDiningCommons> nearest(
+      @Parameter(name = "lat") @RequestParam double lat,
+      @Parameter(name = "lon") @RequestParam double lon,
+      @Parameter(name = "k") @RequestParam(defaultValue = "5") int k) {
+    if (!(lat >= -90 && lat <= 90)) {
+      throw new BadRequestException("lat must be between -90 and 90, got %s".formatted(lat));
+    }
+    if (!(lon >= -180 && lon <= 180)) {
+      throw new BadRequestException("lon must be between -180 and 180, got %s".formatted(lon));
+    }
+    if (k < 1 || k > 100) {
+      throw new BadRequestException("k must be between 1 and 100, got %d".formatted(k));
+    }
+    return nearestDiningCommonsService.nearest(lat, lon, k);
   }
 
   /**
@@ -146,4 +185,43 @@ public class UCSBDiningCommonsController extends ApiController {
 
     return commons;
   }
+
+  /**
+   * Create many dining commons at once, in one transaction (see {@link BulkService})
+   *
+   * @param incoming the dining commons to create
+   * @return the id and status of each of the dining commons, in order
+   */
+  @Operation(summary = "Create many dining commons at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping("/bulk")
+  public BulkResult postCommons(@RequestBody List<UCSBDiningCommons> incoming) {
+    return bulkService.create(ucsbDiningCommonsRepository, incoming);
+  }
+
+  /**
+   * Update many dining commons at once, in one transaction (see {@link BulkService})
+   *
+   * @param incoming the new versions of the dining commons, identified by their ids
+   * @return the id and status of each of the dining commons, in order
+   */
+  @Operation(summary = "Update many dining commons at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PutMapping("/bulk")
+  public BulkResult updateCommons(@RequestBody List<UCSBDiningCommons> incoming) {
+    return bulkService.update(ucsbDiningCommonsRepository, incoming);
+  }
+
+  /**
+   * Delete many dining commons at once, in one transaction (see {@link BulkService})
+   *
+   * @param codes the ids of the dining commons to delete
+   * @return the id and status of each of the dining commons, in order
+   */
+  @Operation(summary = "Delete many dining commons at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @DeleteMapping("/bulk")
+  public BulkResult deleteCommons(@RequestBody List<String> codes) {
+    return bulkService.delete(ucsbDiningCommonsRepository, codes);
+  }
 }
@@ -3,13 +3,19 @@ package edu.ucsb.cs156.example.controllers;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BulkResult;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsMenuItemRepository;
+import edu.ucsb.cs156.example.services.BulkService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -29,18 +35,25 @@ public class UCSBDiningCommonsMenuItemController extends ApiController {
 
   @Autowired UCSBDiningCommonsMenuItemRepository ucsbDiningCommonsMenuItemRepository;
 
+  @Autowired BulkService bulkService;
+
   /**
-   * List all UCSB diningcommonsmenuitems
+   * List all UCSB diningcommonsmenuitems, one page at a time (see {@link ApiController#page})
    *
-   * @return an iterable of UCSBDiningCommonMenuItem
+   * @param pageable page number, size and sort order
+   * @param after id of the last item of the previous page, for cursor paging
+   * @return one page of ucsb dining commons menu items
    */
-  @Operation(summary = "List all ucsb dining commons menu items")
+  @Operation(summary = "List all ucsb dining commons menu items, one page at a time")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("/all")
-  public Iterable<UCSBDiningCommonsMenuItem> allUCSBDiningCommonsMenuItems() {
-    Iterable<UCSBDiningCommonsMenuItem> diningCommonsMenuItems =
-        ucsbDiningCommonsMenuItemRepository.findAll();
-    return diningCommonsMenuItems;
+  public ResponseEntity<List<UCSBDiningCommonsMenuItem>> allUCSBDiningCommonsMenuItems(
+      @ParameterObject Pageable pageable,
+      @Parameter(name = "after", description = "value of X-Next-Cursor from the previous page")
+          @RequestParam(required = false)
+          String after) {
+    return page(
+        ucsbDiningCommonsMenuItemRepository, UCSBDiningCommonsMenuItem.class, pageable, after);
   }
 
   /**
@@ -80,13 +93,30 @@ public class UCSBDiningCommonsMenuItemController extends ApiController {
   @Operation(summary = "Get a single dining commons menu item")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("")
-  public UCSBDiningCommonsMenuItem getById(@Parameter(name = "id") @RequestParam Long id) {
+  public ResponseEntity<UCSBDiningCommonsMenuItem> getById(
+      @Parameter(name = "id") @RequestParam Long id) {
     UCSBDiningCommonsMenuItem ucsbDiningCommonsMenuItem =
         ucsbDiningCommonsMenuItemRepository
             .findById(id)
             .orElseThrow(() -> new EntityNotFoundException(UCSBDiningCommonsMenuItem.class, id));
 
-    return ucsbDiningCommonsMenuItem;
+    return withETag(ucsbDiningCommonsMenuItem);
+  }
+
+  /**
+   * List all menu items of a dining commons, with an ETag (see {@link ApiController#all})
+   *
+   * @param diningCommonsCode the code of the dining commons
+   * @return the menu items of the dining commons
+   */
+  @Operation(summary = "List all menu items of a dining commons")
+  @PreAuthorize("hasRole('ROLE_USER')")
+  @GetMapping("/bydiningcommons")
+  public ResponseEntity<Iterable<UCSBDiningCommonsMenuItem>> getByDiningCommons(
+      @Parameter(name = "diningCommonsCode") @RequestParam String diningCommonsCode) {
+    return all(
+        UCSBDiningCommonsMenuItem.class,
+        () -> ucsbDiningCommonsMenuItemRepository.findAllByDiningcommonscode(diningCommonsCode));
   }
 
   /**
@@ -135,4 +165,48 @@ public class UCSBDiningCommonsMenuItemController extends ApiController {
     ucsbDiningCommonsMenuItemRepository.delete(ucsbDiningCommonsMenuItem);
     return genericMessage("UCSBDiningCommonsMenuItem with id %s deleted".formatted(id));
   }
+
+  /**
+   * Create many ucsb dining commons menu items at once, in one transaction (see {@link
+   * BulkService})
+   *
+   * @param incoming the ucsb dining commons menu items to create
+   * @return the id and status of each of the ucsb dining commons menu items, in order
+   */
+  @Operation(summary = "Create many ucsb dining commons menu items at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping("/bulk")
+  public BulkResult postUCSBDiningCommonsMenuItems(
+      @RequestBody List<UCSBDiningCommonsMenuItem> incoming) {
+    return bulkService.create(ucsbDiningCommonsMenuItemRepository, incoming);
+  }
+
+  /**
+   * Update many ucsb dining commons menu items at once, in one transaction (see {@link
+   * BulkService})
+   *
+   * @param incoming the new versions of the ucsb dining commons menu items, identified by their ids
+   * @return the id and status of each of the ucsb dining commons menu items, in order
+   */
+  @Operation(summary = "Update many ucsb dining commons menu items at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PutMapping("/bulk")
+  public BulkResult updateUCSBDiningCommonsMenuItems(
+      @RequestBody List<UCSBDiningCommonsMenuItem> incoming) {
+    return bulkService.update(ucsbDiningCommonsMenuItemRepository, incoming);
+  }
+
+  /**
+   * Delete many ucsb dining commons menu items at once, in one transaction (see {@link
+   * BulkService})
+   *
+   * @param ids the ids of the ucsb dining commons menu items to delete
+   * @return the id and status of each of the ucsb dining commons menu items, in order
+   */
+  @Operation(summary = "Delete many ucsb dining commons menu items at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @DeleteMapping("/bulk")
+  public BulkResult deleteUCSBDiningCommonsMenuItems(@RequestBody List<Long> ids) {
+    return bulkService.delete(ucsbDiningCommonsMenuItemRepository, ids);
+  }
 }
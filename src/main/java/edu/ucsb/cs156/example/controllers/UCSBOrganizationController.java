@@ -2,13 +2,19 @@ package edu.ucsb.cs156.example.controllers;
 
 import edu.ucsb.cs156.example.entities.UCSBOrganization;
 import edu.ucsb.cs156.example.errors.EntityNotFoundException;
+import edu.ucsb.cs156.example.models.BulkResult;
 import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
+import edu.ucsb.cs156.example.services.BulkService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import java.util.List;
 import lombok.extern.slf4j.Slf4j;
+import org.springdoc.core.annotations.ParameterObject;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -27,17 +33,25 @@ public class UCSBOrganizationController extends ApiController {
 
   @Autowired UCSBOrganizationRepository ucsbOrganizationRepository;
 
+  @Autowired BulkService bulkService;
+
   /**
-   * This method returns a list of all UCSB Organizations
+   * This method returns a list of all UCSB Organizations, one page at a time (see {@link
+   * ApiController#page})
    *
-   * @return a list of all ucsborganizations
+   * @param pageable page number, size and sort order
+   * @param after id of the last item of the previous page, for cursor paging
+   * @return one page of ucsb organizations
    */
-  @Operation(summary = "List all ucsb organizations")
+  @Operation(summary = "List all ucsb organizations, one page at a time")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("/all")
-  public Iterable<UCSBOrganization> allOrganizations() {
-    Iterable<UCSBOrganization> organizations = ucsbOrganizationRepository.findAll();
-    return organizations;
+  public ResponseEntity<List<UCSBOrganization>> allOrganizations(
+      @ParameterObject Pageable pageable,
+      @Parameter(name = "after", description = "value of X-Next-Cursor from the previous page")
+          @RequestParam(required = false)
+          String after) {
+    return page(ucsbOrganizationRepository, UCSBOrganization.class, pageable, after);
   }
 
   /**
@@ -49,13 +63,14 @@ public class UCSBOrganizationController extends ApiController {
   @Operation(summary = "Get a single organization")
   @PreAuthorize("hasRole('ROLE_USER')")
   @GetMapping("")
-  public UCSBOrganization getById(@Parameter(name = "orgcode") @RequestParam String orgcode) {
+  public ResponseEntity<UCSBOrganization> getById(
+      @Parameter(name = "orgcode") @RequestParam String orgcode) {
     UCSBOrganization organization =
         ucsbOrganizationRepository
             .findById(orgcode)
             .orElseThrow(() -> new EntityNotFoundException(UCSBOrganization.class, orgcode));
 
-    return organization;
+    return withETag(organization);
   }
 
   /**
@@ -132,4 +147,43 @@ public class UCSBOrganizationController extends ApiController {
 
     return organization;
   }
+
+  /**
+   * Create many organizations at once, in one transaction (see {@link BulkService})
+   *
+   * @param incoming the organizations to create
+   * @return the id and status of each of the organizations, in order
+   */
+  @Operation(summary = "Create many organizations at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PostMapping("/bulk")
+  public BulkResult postOrganizations(@RequestBody List<UCSBOrganization> incoming) {
+    return bulkService.create(ucsbOrganizationRepository, incoming);
+  }
+
+  /**
+   * Update many organizations at once, in one transaction (see {@link BulkService})
+   *
+   * @param incoming the new versions of the organizations, identified by their ids
+   * @return the id and status of each of the organizations, in order
+   */
+  @Operation(summary = "Update many organizations at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @PutMapping("/bulk")
+  public BulkResult updateOrganizations(@RequestBody List<UCSBOrganization> incoming) {
+    return bulkService.update(ucsbOrganizationRepository, incoming);
+  }
+
+  /**
+   * Delete many organizations at once, in one transaction (see {@link BulkService})
+   *
+   * @param orgcodes the ids of the organizations to delete
+   * @return the id and status of each of the organizations, in order
+   */
+  @Operation(summary = "Delete many organizations at once")
+  @PreAuthorize("hasRole('ROLE_ADMIN')")
+  @DeleteMapping("/bulk")
+  public BulkResult deleteOrganizations(@RequestBody List<String> orgcodes) {
+    return bulkService.delete(ucsbOrganizationRepository, orgcodes);
+  }
 }
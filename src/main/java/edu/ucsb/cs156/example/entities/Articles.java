@@ -5,6 +5,8 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Version;
 import java.time.LocalDateTime;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -18,7 +20,8 @@ import lombok.NoArgsConstructor;
 @Entity(name = "articles")
 public class Articles {
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "articles_seq")
+  @SequenceGenerator(name = "articles_seq", allocationSize = 50)
   private long id;
 
   private String title;
@@ -28,4 +31,6 @@ public class Articles {
 
   @Column(name = "DATEADDED")
   private LocalDateTime dateAdded;
+
+  @Version private long version;
 }
@@ -27,6 +27,7 @@ public class Job {
   @CreatedDate private ZonedDateTime createdAt;
   @LastModifiedDate private ZonedDateTime updatedAt;
 
+  // queued, running, complete, error, rejected or cancelled
   private String status;
 
   // 1048576 is 2^20, which is the max size of a mediumtext in MySQL
@@ -35,4 +36,35 @@ public class Job {
       length = 1048576) // needed for long strings, i.e. log entries longer than 255
   // characters
   private String log;
+
+  // reported with JobContext.progress(); eta is estimated from the rate of progress so far
+  private Long progressDone;
+  private Long progressTotal;
+  private ZonedDateTime eta;
+
+  // for jobs that can be re-run on another node (see RecoverableJob): the class of the job and
+  // its JSON
+  private String jobType;
+
+  @JsonIgnore
+  @Column(columnDefinition = "TEXT", length = 1048576)
+  private String payload;
+
+  // a job submitted on a node is inserted with that node's lease (see JobQueue.lease); after that
+  // the lease is managed by JobQueue with plain SQL, so JPA never updates these columns
+  @Column(updatable = false)
+  private String leaseOwner;
+
+  @Column(updatable = false)
+  private ZonedDateTime leaseExpiresAt;
+
+  @Column(updatable = false)
+  private ZonedDateTime heartbeatAt;
+
+  @Column(updatable = false)
+  private int attempts;
+
+  // set by POST /api/jobs/{id}/cancel; the node running the job sees it at its next heartbeat
+  @Column(insertable = false, updatable = false)
+  private boolean cancelRequested;
 }
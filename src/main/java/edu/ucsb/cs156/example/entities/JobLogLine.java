@@ -0,0 +1,34 @@
+package edu.ucsb.cs156.example.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a JPA entity that represents a single line of output from a Job.
+ *
+ * <p>Lines are only ever appended; the full log of a job is the concatenation of its lines ordered
+ * by lineNumber.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity(name = "job_log_lines")
+public class JobLogLine {
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private long id;
+
+  private long jobId;
+  private int lineNumber;
+
+  @Column(columnDefinition = "TEXT", length = 1048576)
+  private String message;
+}
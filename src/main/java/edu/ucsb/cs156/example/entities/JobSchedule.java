@@ -0,0 +1,46 @@
+package edu.ucsb.cs156.example.entities;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import java.time.ZonedDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A job that is run repeatedly, either on a cron schedule or at a fixed rate.
+ *
+ * <p>The job is stored like a queued {@link Job}: the class name of a {@code RecoverableJob} and
+ * its JSON.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity(name = "job_schedules")
+public class JobSchedule {
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private long id;
+
+  private String name;
+
+  private String jobType;
+
+  @Column(columnDefinition = "TEXT", length = 1048576)
+  private String payload;
+
+  // exactly one of cron (a Spring cron expression, in server time) and fixedRateMs is set
+  private String cron;
+  private Long fixedRateMs;
+
+  private boolean enabled;
+
+  private ZonedDateTime nextRunAt;
+  private ZonedDateTime lastRunAt;
+  private Long lastJobId;
+}
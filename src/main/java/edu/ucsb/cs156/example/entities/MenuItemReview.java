@@ -4,6 +4,8 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Version;
 import java.time.LocalDateTime;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -21,7 +23,8 @@ import lombok.NoArgsConstructor;
 @Entity(name = "menuitemreviews")
 public class MenuItemReview {
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "menuitemreviews_seq")
+  @SequenceGenerator(name = "menuitemreviews_seq", allocationSize = 50)
   private long id;
 
   private long itemId;
@@ -29,4 +32,6 @@ public class MenuItemReview {
   private int stars;
   private LocalDateTime dateReviewed;
   private String comments;
+
+  @Version private long version;
 }
@@ -0,0 +1,36 @@
+package edu.ucsb.cs156.example.entities;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a JPA entity that represents the star-rating totals of the reviews of one menu item.
+ *
+ * <p>Rows are written only by {@link edu.ucsb.cs156.example.services.MenuItemReviewStatsService},
+ * whenever reviews are created, changed or deleted. Reviews with fewer than one or more than five
+ * stars count towards {@code reviewCount}, {@code starSum} and {@code averageStars} but not towards
+ * any of the per-star counts.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Entity(name = "menuitemreviewstats")
+public class MenuItemReviewStats {
+  @Id private long itemId;
+
+  private long reviewCount;
+  private long starSum;
+  private long oneStar;
+  private long twoStars;
+  private long threeStars;
+  private long fourStars;
+  private long fiveStars;
+
+  /** starSum / reviewCount, or null when there are no reviews */
+  private Double averageStars;
+}
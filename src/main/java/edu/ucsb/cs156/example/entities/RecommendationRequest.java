@@ -4,6 +4,8 @@ import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.SequenceGenerator;
+import jakarta.persistence.Version;
 import java.time.LocalDateTime;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -21,7 +23,8 @@ import lombok.NoArgsConstructor;
 @Entity(name = "recommendationrequest")
 public class RecommendationRequest {
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "recommendationrequest_seq")
+  @SequenceGenerator(name = "recommendationrequest_seq", allocationSize = 50)
   private long id;
 
   private String requesteremail;
@@ -30,4 +33,6 @@ public class RecommendationRequest {
   private LocalDateTime daterequested;
   private LocalDateTime dateneeded;
   private boolean done;
+
+  @Version private long version;
 }
@@ -1,5 +1,6 @@
 package edu.ucsb.cs156.example.entities;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Entity;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
@@ -9,13 +10,23 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
-/** This is a JPA entity that represents a user. */
+/**
+ * This is a JPA entity that represents a user.
+ *
+ * <p>Users are looked up on most API calls (see {@link
+ * edu.ucsb.cs156.example.services.CurrentUserServiceImpl}), so they are kept in the second-level
+ * cache.
+ */
 @Data
 @AllArgsConstructor
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @Builder
 @Entity(name = "users")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
 public class User {
   @Id
   @GeneratedValue(strategy = GenerationType.IDENTITY)
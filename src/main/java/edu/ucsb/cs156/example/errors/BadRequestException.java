@@ -0,0 +1,17 @@
+package edu.ucsb.cs156.example.errors;
+
+/**
+ * This is an error class for a custom IllegalArgumentException in Java that is used to indicate
+ * that a request parameter, such as a page size, sort order or cursor, is invalid. It is reported
+ * to the client as a 400 Bad Request.
+ */
+public class BadRequestException extends IllegalArgumentException {
+  /**
+   * Constructor for the exception
+   *
+   * @param message what is wrong with the request
+   */
+  public BadRequestException(String message) {
+    super(message);
+  }
+}
@@ -1,13 +1,19 @@
 package edu.ucsb.cs156.example.jobs;
 
 import edu.ucsb.cs156.example.services.jobs.JobContext;
-import edu.ucsb.cs156.example.services.jobs.JobContextConsumer;
+import edu.ucsb.cs156.example.services.jobs.RecoverableJob;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
 @Builder
-public class TestJob implements JobContextConsumer {
+public class TestJob implements RecoverableJob {
 
   private boolean fail;
   private int sleepMs;
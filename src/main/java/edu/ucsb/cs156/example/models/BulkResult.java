@@ -0,0 +1,31 @@
+package edu.ucsb.cs156.example.models;
+
+import java.util.List;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a model class that represents the outcome of a bulk create, update or delete.
+ *
+ * <p>{@code results} has one entry per item of the request, in the same order, holding the item's
+ * id and an HTTP status code for it: 201 (created), 200 (updated or deleted), 400 (an id was given
+ * for an entity whose ids are assigned by the server), 404 (no such id) or 409 (the id is already
+ * taken).
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class BulkResult {
+  private int succeeded;
+  private int failed;
+  private List<Item> results;
+
+  /**
+   * @param id id of the item
+   * @param status HTTP status code for the item
+   */
+  public record Item(Object id, int status) {}
+}
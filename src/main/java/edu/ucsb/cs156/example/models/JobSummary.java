@@ -0,0 +1,29 @@
+package edu.ucsb.cs156.example.models;
+
+import java.time.ZonedDateTime;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a model class that represents a job in a listing.
+ *
+ * <p>It leaves out the job's log, which can be up to 1 MB per job; use {@code /api/jobs/logs/{id}}
+ * to fetch that.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class JobSummary {
+  private long id;
+  private Long createdById;
+  private ZonedDateTime createdAt;
+  private ZonedDateTime updatedAt;
+  private String status;
+  private Long progressDone;
+  private Long progressTotal;
+  private ZonedDateTime eta;
+}
@@ -0,0 +1,25 @@
+package edu.ucsb.cs156.example.models;
+
+import java.time.ZonedDateTime;
+import java.util.List;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a model class that represents one page of a job listing.
+ *
+ * <p>Jobs are listed newest first. To get the next page, pass {@code nextCreatedAt} and {@code
+ * nextId} back as {@code beforeCreatedAt} and {@code beforeId}; both are null on the last page.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@Builder
+public class JobSummaryPage {
+  private List<JobSummary> jobs;
+  private ZonedDateTime nextCreatedAt;
+  private Long nextId;
+}
@@ -0,0 +1,20 @@
+package edu.ucsb.cs156.example.models;
+
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a model class that represents a dining commons found near a location, with its
+ * great-circle distance from that location in meters.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class NearbyDiningCommons {
+  private UCSBDiningCommons commons;
+  private double distanceMeters;
+}
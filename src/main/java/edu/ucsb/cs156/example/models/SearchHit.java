@@ -0,0 +1,25 @@
+package edu.ucsb.cs156.example.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This is a model class that represents one result of a full-text search.
+ *
+ * <p>{@code type} tells which kind of entity matched ({@code article}, {@code helprequest} or
+ * {@code menuitemreview}), and {@code id} which one, so that the client can get the whole entity
+ * from its own endpoint. {@code text} is the title of an article, the explanation of a help request
+ * or the comments of a review. Results are ordered by {@code rank}, highest first.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class SearchHit {
+  private String type;
+  private long id;
+  private String text;
+  private double rank;
+}
@@ -1,9 +1,68 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.HelpRequest;
-import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 /** The RestaurantRepository is a repository for Restaurant entities */
 @Repository
-public interface HelpRequestRepository extends CrudRepository<HelpRequest, Long> {}
+public interface HelpRequestRepository extends PagedRepository<HelpRequest, Long> {
+  /** order of the queue of unsolved help requests (see {@link #findQueue}) */
+  Sort QUEUE_ORDER = Sort.by("requestTime", "id");
+
+  /**
+   * This method returns all help requests made by a requester.
+   *
+   * @param requesterEmail email address of the requester
+   * @return all help requests made by a requester
+   */
+  Iterable<HelpRequest> findAllByRequesterEmail(String requesterEmail);
+
+  /**
+   * This method returns all help requests of a team.
+   *
+   * @param teamId id of the team
+   * @return all help requests of a team
+   */
+  Iterable<HelpRequest> findAllByTeamId(String teamId);
+
+  /**
+   * This method returns unsolved help requests after a position in the queue, oldest first. Help
+   * requests without a request time are not in the queue.
+   *
+   * @param position the position to continue from, made of a request time and an id
+   * @param limit the maximum number of help requests to return
+   * @return the help requests, and whether there are more
+   */
+  default Window<HelpRequest> findQueue(ScrollPosition position, Limit limit) {
+    return findBySolvedFalseAndRequestTimeNotNull(position, QUEUE_ORDER, limit);
+  }
+
+  /**
+   * This method returns unsolved help requests with a request time after a position.
+   *
+   * @param position the position to continue from
+   * @param sort the order of the help requests
+   * @param limit the maximum number of help requests to return
+   * @return the help requests, and whether there are more
+   */
+  Window<HelpRequest> findBySolvedFalseAndRequestTimeNotNull(
+      ScrollPosition position, Sort sort, Limit limit);
+
+  /**
+   * This method marks a help request as solved or unsolved with a single UPDATE, without reading it
+   * first. The version goes up as it would for an update through the entity.
+   *
+   * @param id id of the help request
+   * @param solved whether the help request is solved
+   * @return 1 if the help request was updated, 0 if there is none with that id
+   */
+  @Modifying(clearAutomatically = true)
+  @Query("UPDATE helprequest h SET h.solved = :solved, h.version = h.version + 1 WHERE h.id = :id")
+  int setSolved(long id, boolean solved);
+}
@@ -0,0 +1,42 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import java.util.List;
+import java.util.stream.Stream;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+/** The JobLogLinesRepository is a repository for JobLogLine entities */
+@Repository
+public interface JobLogLinesRepository extends CrudRepository<JobLogLine, Long> {
+  /**
+   * This method streams the log lines of a job in the order they were written. It must be called
+   * inside a transaction, and the stream must be closed by the caller.
+   *
+   * @param jobId id of the job
+   * @return a stream of the job's log lines ordered by line number
+   */
+  Stream<JobLogLine> streamAllByJobIdOrderByLineNumberAsc(long jobId);
+
+  /**
+   * This method returns a page of the log lines of a job, starting at a given line number.
+   *
+   * @param jobId id of the job
+   * @param lineNumber first line number to return
+   * @param limit maximum number of lines to return
+   * @return the job's log lines from that line number on, ordered by line number
+   */
+  List<JobLogLine> findByJobIdAndLineNumberGreaterThanEqualOrderByLineNumberAsc(
+      long jobId, int lineNumber, Limit limit);
+
+  /**
+   * This method returns the line number that the next line logged by a job should get.
+   *
+   * @param jobId id of the job
+   * @return one more than the highest line number of the job, or 0 if it has no lines
+   */
+  @Query("SELECT COALESCE(MAX(l.lineNumber) + 1, 0) FROM job_log_lines l WHERE l.jobId = :jobId")
+  int nextLineNumber(long jobId);
+}
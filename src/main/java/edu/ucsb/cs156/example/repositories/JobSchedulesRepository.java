@@ -0,0 +1,50 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.entities.JobSchedule;
+import java.time.ZonedDateTime;
+import java.util.List;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/** The JobSchedulesRepository is a repository for JobSchedule entities */
+@Repository
+public interface JobSchedulesRepository extends CrudRepository<JobSchedule, Long> {
+  /**
+   * This method returns the enabled schedules that are due to run.
+   *
+   * @param now the current time
+   * @return schedules whose next run is at or before now
+   */
+  List<JobSchedule> findByEnabledTrueAndNextRunAtLessThanEqual(ZonedDateTime now);
+
+  /**
+   * This method claims one firing of a schedule by moving its next run forward. Only the node whose
+   * update still sees the old next run succeeds, so each firing runs on exactly one node.
+   *
+   * @param id id of the schedule
+   * @param due the next run this node saw
+   * @param next the run after that
+   * @param now the current time, recorded as the last run
+   * @return 1 if this node claimed the firing, 0 if another node did
+   */
+  @Modifying(clearAutomatically = true)
+  @Transactional
+  @Query(
+      "UPDATE job_schedules s SET s.nextRunAt = :next, s.lastRunAt = :now"
+          + " WHERE s.id = :id AND s.nextRunAt = :due")
+  int claimFiring(long id, ZonedDateTime due, ZonedDateTime next, ZonedDateTime now);
+
+  /**
+   * This method records the job started by the last firing of a schedule.
+   *
+   * @param id id of the schedule
+   * @param jobId id of the job
+   */
+  @Modifying(clearAutomatically = true)
+  @Transactional
+  @Query("UPDATE job_schedules s SET s.lastJobId = :jobId WHERE s.id = :id")
+  void setLastJobId(long id, long jobId);
+}
@@ -1,8 +1,62 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.models.JobSummary;
+import java.time.ZonedDateTime;
+import java.util.List;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.PagingAndSortingRepository;
 import org.springframework.stereotype.Repository;
 
+/** The JobsRepository is a repository for Job entities */
 @Repository
-public interface JobsRepository extends CrudRepository<Job, Long> {}
+public interface JobsRepository
+    extends CrudRepository<Job, Long>, PagingAndSortingRepository<Job, Long> {
+
+  /**
+   * This method returns the newest job summaries, optionally filtered by status and creator.
+   *
+   * @param status only jobs with this status, or null for any status
+   * @param createdById only jobs created by the user with this id, or null for any user
+   * @param limit maximum number of summaries to return
+   * @return summaries ordered by createdAt and then id, newest first
+   */
+  @Query(
+      """
+      SELECT new edu.ucsb.cs156.example.models.JobSummary(
+          j.id, u.id, j.createdAt, j.updatedAt, j.status, j.progressDone, j.progressTotal, j.eta)
+      FROM jobs j LEFT JOIN j.createdBy u
+      WHERE (:status IS NULL OR j.status = :status)
+        AND (:createdById IS NULL OR u.id = :createdById)
+      ORDER BY j.createdAt DESC, j.id DESC
+      """)
+  List<JobSummary> findSummaries(String status, Long createdById, Limit limit);
+
+  /**
+   * This method returns the job summaries that come after a given job in {@link #findSummaries}
+   * order. Because it seeks directly to the position of that job, it is as fast for the last page
+   * as for the first.
+   *
+   * @param status only jobs with this status, or null for any status
+   * @param createdById only jobs created by the user with this id, or null for any user
+   * @param beforeCreatedAt createdAt of the last job on the previous page
+   * @param beforeId id of the last job on the previous page
+   * @param limit maximum number of summaries to return
+   * @return summaries ordered by createdAt and then id, newest first
+   */
+  @Query(
+      """
+      SELECT new edu.ucsb.cs156.example.models.JobSummary(
+          j.id, u.id, j.createdAt, j.updatedAt, j.status, j.progressDone, j.progressTotal, j.eta)
+      FROM jobs j LEFT JOIN j.createdBy u
+      WHERE (:status IS NULL OR j.status = :status)
+        AND (:createdById IS NULL OR u.id = :createdById)
+        AND (j.createdAt < :beforeCreatedAt
+          OR (j.createdAt = :beforeCreatedAt AND j.id < :beforeId))
+      ORDER BY j.createdAt DESC, j.id DESC
+      """)
+  List<JobSummary> findSummariesBefore(
+      String status, Long createdById, ZonedDateTime beforeCreatedAt, long beforeId, Limit limit);
+}
@@ -1,9 +1,24 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.MenuItemReview;
-import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
 /** The MenuItemReviewRepository is a repository for MenuItemReview entities */
 @Repository
-public interface MenuItemReviewRepository extends CrudRepository<MenuItemReview, Long> {}
+public interface MenuItemReviewRepository extends PagedRepository<MenuItemReview, Long> {
+  /**
+   * This method returns all reviews of a menu item.
+   *
+   * @param itemId id of the menu item
+   * @return all reviews of a menu item
+   */
+  Iterable<MenuItemReview> findAllByItemId(long itemId);
+
+  /**
+   * This method returns all reviews written by a reviewer.
+   *
+   * @param reviewerEmail email address of the reviewer
+   * @return all reviews written by a reviewer
+   */
+  Iterable<MenuItemReview> findAllByReviewerEmail(String reviewerEmail);
+}
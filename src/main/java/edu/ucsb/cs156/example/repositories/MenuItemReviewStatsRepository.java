@@ -0,0 +1,28 @@
+package edu.ucsb.cs156.example.repositories;
+
+import edu.ucsb.cs156.example.entities.MenuItemReviewStats;
+import java.util.List;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+/** The MenuItemReviewStatsRepository is a repository for MenuItemReviewStats entities */
+@Repository
+public interface MenuItemReviewStatsRepository extends CrudRepository<MenuItemReviewStats, Long> {
+  /**
+   * Returns the best-rated menu items, highest average first; ties go to the item with more
+   * reviews. Follows the index on (average_stars, review_count, item_id).
+   *
+   * @param minReviews fewest reviews an item must have to be listed
+   * @param limit how many items to return
+   * @return the items
+   */
+  @Query(
+      """
+      SELECT s FROM menuitemreviewstats s
+      WHERE s.reviewCount >= :minReviews
+      ORDER BY s.averageStars DESC, s.reviewCount DESC, s.itemId
+      """)
+  List<MenuItemReviewStats> findTopRated(long minReviews, Limit limit);
+}
@@ -0,0 +1,59 @@
+package edu.ucsb.cs156.example.repositories;
+
+import jakarta.persistence.QueryHint;
+import java.util.stream.Stream;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.NoRepositoryBean;
+import org.springframework.data.repository.PagingAndSortingRepository;
+
+/**
+ * The PagedRepository is the base of repositories whose entities are listed a page at a time (see
+ * {@code ApiController.page}).
+ *
+ * @param <T> the entity type
+ * @param <ID> the type of the entity's id
+ */
+@NoRepositoryBean
+public interface PagedRepository<T, ID>
+    extends CrudRepository<T, ID>, PagingAndSortingRepository<T, ID> {
+  /**
+   * This method returns one page of entities, without counting how many there are in total.
+   *
+   * @param pageable the page to return, and its sort order
+   * @return the page
+   */
+  Slice<T> findAllBy(Pageable pageable);
+
+  /**
+   * This method returns the entities after a position, in the given order.
+   *
+   * @param position the position to continue from
+   * @param sort the order of the entities
+   * @param limit the maximum number of entities to return
+   * @return the entities, and whether there are more
+   */
+  Window<T> findBy(ScrollPosition position, Sort sort, Limit limit);
+
+  /**
+   * This method streams all entities, fetching {@value #EXPORT_FETCH_SIZE} rows at a time from the
+   * database. It must be called inside a transaction, and the stream must be closed by the caller.
+   *
+   * @return a stream of all entities
+   */
+  @QueryHints({
+    @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+    @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+  })
+  Stream<T> streamAllBy();
+
+  /** number of rows fetched per round trip by {@link #streamAllBy()} */
+  String EXPORT_FETCH_SIZE = "500";
+}
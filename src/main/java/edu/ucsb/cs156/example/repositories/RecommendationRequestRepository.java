@@ -1,10 +1,17 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.RecommendationRequest;
-import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
 /** The UserRepository is a repository for RecommendationRequest entities. */
 @Repository
 public interface RecommendationRequestRepository
-    extends CrudRepository<RecommendationRequest, Long> {}
+    extends PagedRepository<RecommendationRequest, Long> {
+  /**
+   * This method returns all recommendation requests made by a requester.
+   *
+   * @param requesteremail email address of the requester
+   * @return all recommendation requests made by a requester
+   */
+  Iterable<RecommendationRequest> findAllByRequesteremail(String requesteremail);
+}
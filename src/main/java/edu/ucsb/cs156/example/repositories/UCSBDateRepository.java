@@ -1,18 +1,25 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.UCSBDate;
-import org.springframework.data.repository.CrudRepository;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 /** The UCSBDateRepository is a repository for UCSBDate entities. */
 @Repository
-public interface UCSBDateRepository extends CrudRepository<UCSBDate, Long> {
+public interface UCSBDateRepository extends PagedRepository<UCSBDate, Long> {
   /**
-   * This method returns all UCSBDate entities with a given quarterYYYYQ.
+   * This method returns all UCSBDate entities with a given quarterYYYYQ. Results are kept in the
+   * second-level query cache until the ucsbdates table is next written.
    *
    * @param quarterYYYYQ quarter in the format YYYYQ (e.g. 20241 for Winter 2024, 20242 for Spring
    *     2024, 20243 for Summer 2024, 20244 for Fall 2024)
    * @return all UCSBDate entities with a given quarterYYYYQ
    */
+  @QueryHints({
+    @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+    @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "ucsbdates-by-quarter")
+  })
   Iterable<UCSBDate> findAllByQuarterYYYYQ(String quarterYYYYQ);
 }
@@ -1,9 +1,16 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.UCSBDiningCommonsMenuItem;
-import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
 @Repository
 public interface UCSBDiningCommonsMenuItemRepository
-    extends CrudRepository<UCSBDiningCommonsMenuItem, Long> {}
+    extends PagedRepository<UCSBDiningCommonsMenuItem, Long> {
+  /**
+   * This method returns all menu items of a dining commons.
+   *
+   * @param diningcommonscode code of the dining commons
+   * @return all menu items of a dining commons
+   */
+  Iterable<UCSBDiningCommonsMenuItem> findAllByDiningcommonscode(String diningcommonscode);
+}
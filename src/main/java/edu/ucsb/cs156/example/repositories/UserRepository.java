@@ -1,7 +1,12 @@
 package edu.ucsb.cs156.example.repositories;
 
 import edu.ucsb.cs156.example.entities.User;
+import jakarta.persistence.QueryHint;
+import java.util.List;
 import java.util.Optional;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
@@ -9,10 +14,23 @@ import org.springframework.stereotype.Repository;
 @Repository
 public interface UserRepository extends CrudRepository<User, Long> {
   /**
-   * This method returns a User entity with a given email.
+   * This method returns a User entity with a given email. Results are kept in the second-level
+   * query cache until the users table is next written, e.g. when a user is made an admin.
    *
    * @param email email address of the user
    * @return Optional of User (empty if not found)
    */
+  @QueryHints({
+    @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+    @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = "users-by-email")
+  })
   Optional<User> findByEmail(String email);
+
+  /**
+   * This method returns the email addresses of all users marked as admins.
+   *
+   * @return emails of the admins
+   */
+  @Query("SELECT u.email FROM users u WHERE u.admin = true")
+  List<String> findAdminEmails();
 }
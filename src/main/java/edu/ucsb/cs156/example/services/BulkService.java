@@ -0,0 +1,231 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.errors.BadRequestException;
+import edu.ucsb.cs156.example.models.BulkResult;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.Id;
+import jakarta.persistence.PersistenceUnitUtil;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Creates, updates and deletes many entities at once, for the {@code /bulk} endpoints.
+ *
+ * <p>Each request runs in a single transaction. Items are handled in chunks of the JDBC batch size
+ * ({@code spring.jpa.properties.hibernate.jdbc.batch_size}): each chunk is looked up with one
+ * query, written with one JDBC batch per statement type, and then cleared from the persistence
+ * context, so that memory use does not grow with the size of the request.
+ *
+ * <p>Items that cannot be handled (an unknown id, say) get their own status in the {@link
+ * BulkResult} and do not stop the others. Database errors roll back the whole request.
+ */
+@Service
+public class BulkService {
+  /** whether the {@link Id} field of each entity class is assigned by the database */
+  private static final ClassValue<Boolean> GENERATED_IDS =
+      new ClassValue<>() {
+        @Override
+        protected Boolean computeValue(Class<?> type) {
+          for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+              if (field.isAnnotationPresent(Id.class)) {
+                return field.isAnnotationPresent(GeneratedValue.class);
+              }
+            }
+          }
+          throw new IllegalStateException(type.getName() + " has no @Id field");
+        }
+      };
+
+  @Autowired private EntityManager entityManager;
+
+  @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+  private int batchSize = 50;
+
+  @Value("${app.bulk.max-items:1000}")
+  private int maxItems = 1000;
+
+  /**
+   * Creates entities. Entities whose ids are assigned by the database must not have an id yet
+   * (400); entities with natural ids must not reuse an existing id (409).
+   *
+   * @param <T> the entity type
+   * @param <ID> the id type
+   * @param repository repository of the entities
+   * @param items the entities to create
+   * @return the new id and status of each entity
+   * @throws BadRequestException if there are more than {@code app.bulk.max-items} items
+   */
+  @Transactional
+  public <T, ID> BulkResult create(CrudRepository<T, ID> repository, List<T> items) {
+    checkSize(items);
+    List<BulkResult.Item> results = new ArrayList<>(items.size());
+    Set<Object> created = new HashSet<>();
+    forEachChunk(
+        items,
+        chunk -> {
+          Set<Object> taken = new HashSet<>();
+          List<ID> naturalIds = new ArrayList<>();
+          for (T item : chunk) {
+            if (!GENERATED_IDS.get(item.getClass()) && getId(item) != null) {
+              naturalIds.add(getId(item));
+            }
+          }
+          if (!naturalIds.isEmpty()) {
+            repository.findAllById(naturalIds).forEach(found -> taken.add(getId(found)));
+          }
+
+          for (T item : chunk) {
+            Object id = getId(item);
+            if (GENERATED_IDS.get(item.getClass())
+                ? !(id == null || id instanceof Number n && n.longValue() == 0)
+                : id == null) {
+              results.add(new BulkResult.Item(id, HttpStatus.BAD_REQUEST.value()));
+            } else if (taken.contains(id) || created.contains(id)) {
+              results.add(new BulkResult.Item(id, HttpStatus.CONFLICT.value()));
+            } else {
+              entityManager.persist(item);
+              id = getId(item);
+              created.add(id);
+              results.add(new BulkResult.Item(id, HttpStatus.CREATED.value()));
+            }
+          }
+        });
+    return summarize(results);
+  }
+
+  /**
+   * Replaces existing entities, identified by their ids, with the ones given (404 if there is no
+   * entity with that id).
+   *
+   * @param <T> the entity type
+   * @param <ID> the id type
+   * @param repository repository of the entities
+   * @param items the new versions of the entities
+   * @return the id and status of each entity
+   * @throws BadRequestException if there are more than {@code app.bulk.max-items} items
+   */
+  @Transactional
+  public <T, ID> BulkResult update(CrudRepository<T, ID> repository, List<T> items) {
+    checkSize(items);
+    List<BulkResult.Item> results = new ArrayList<>(items.size());
+    forEachChunk(
+        items,
+        chunk -> {
+          Map<Object, T> existing = new HashMap<>();
+          List<ID> ids = chunk.stream().map(this::<ID>getId).filter(Objects::nonNull).toList();
+          // loads the chunk into the persistence context, so that merge does not select again
+          repository.findAllById(ids).forEach(found -> existing.put(getId(found), found));
+
+          for (T item : chunk) {
+            Object id = getId(item);
+            T current = existing.get(id);
+            if (current != null) {
+              copyVersion(current, item);
+              entityManager.merge(item);
+              results.add(new BulkResult.Item(id, HttpStatus.OK.value()));
+            } else {
+              results.add(new BulkResult.Item(id, HttpStatus.NOT_FOUND.value()));
+            }
+          }
+        });
+    return summarize(results);
+  }
+
+  /**
+   * Deletes entities by id (404 if there is no entity with that id).
+   *
+   * @param <T> the entity type
+   * @param <ID> the id type
+   * @param repository repository of the entities
+   * @param ids ids of the entities to delete
+   * @return the id and status of each entity
+   * @throws BadRequestException if there are more than {@code app.bulk.max-items} ids
+   */
+  @Transactional
+  public <T, ID> BulkResult delete(CrudRepository<T, ID> repository, List<ID> ids) {
+    checkSize(ids);
+    List<BulkResult.Item> results = new ArrayList<>(ids.size());
+    forEachChunk(
+        ids,
+        chunk -> {
+          Map<Object, T> existing = new HashMap<>();
+          repository
+              .findAllById(chunk.stream().filter(Objects::nonNull).toList())
+              .forEach(found -> existing.put(getId(found), found));
+
+          for (ID id : chunk) {
+            T entity = existing.remove(id);
+            if (entity != null) {
+              entityManager.remove(entity);
+              results.add(new BulkResult.Item(id, HttpStatus.OK.value()));
+            } else {
+              results.add(new BulkResult.Item(id, HttpStatus.NOT_FOUND.value()));
+            }
+          }
+        });
+    return summarize(results);
+  }
+
+  private void checkSize(List<?> items) {
+    if (items.size() > maxItems) {
+      throw new BadRequestException(
+          "At most %d items can be sent at once, got %d".formatted(maxItems, items.size()));
+    }
+  }
+
+  private <E> void forEachChunk(List<E> items, Consumer<List<E>> action) {
+    for (int from = 0; from < items.size(); from += batchSize) {
+      action.accept(items.subList(from, Math.min(from + batchSize, items.size())));
+      entityManager.flush();
+      entityManager.clear();
+    }
+  }
+
+  /**
+   * Items replace whatever is stored, as they did before entities had versions, so they take the
+   * stored version rather than failing the optimistic lock check in merge.
+   */
+  private void copyVersion(Object from, Object to) {
+    EntityPersister persister =
+        entityManager
+            .getEntityManagerFactory()
+            .unwrap(SessionFactoryImplementor.class)
+            .getMappingMetamodel()
+            .getEntityDescriptor(to.getClass());
+    if (persister.isVersioned()) {
+      persister.setValue(to, persister.getVersionProperty(), persister.getVersion(from));
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private <ID> ID getId(Object entity) {
+    PersistenceUnitUtil util = entityManager.getEntityManagerFactory().getPersistenceUnitUtil();
+    return (ID) util.getIdentifier(entity);
+  }
+
+  private static BulkResult summarize(List<BulkResult.Item> results) {
+    int succeeded = (int) results.stream().filter(r -> r.status() < 300).count();
+    return BulkResult.builder()
+        .succeeded(succeeded)
+        .failed(results.size() - succeeded)
+        .results(results)
+        .build();
+  }
+}
@@ -2,14 +2,10 @@ package edu.ucsb.cs156.example.services;
 
 import edu.ucsb.cs156.example.entities.User;
 import edu.ucsb.cs156.example.models.CurrentUser;
-import edu.ucsb.cs156.example.repositories.UserRepository;
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.List;
-import java.util.Optional;
+import java.util.function.Supplier;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Primary;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
@@ -18,22 +14,29 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
 import org.springframework.security.oauth2.core.user.OAuth2User;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 
 /**
  * This is a service that provides information about the current user.
  *
  * <p>This is the version of the service used in production.
+ *
+ * <p>The user and their roles are looked up once per HTTP request, however often they are asked
+ * for; users themselves are kept in the second-level cache (see {@link User}).
  */
 @Slf4j
 @Service("currentUser")
 @Primary
 public class CurrentUserServiceImpl extends CurrentUserService {
-  @Autowired private UserRepository userRepository;
-
   @Autowired GrantedAuthoritiesService grantedAuthoritiesService;
 
-  @Value("${app.admin.emails}")
-  private final List<String> adminEmails = new ArrayList<String>();
+  @Autowired private UserRolesService userRolesService;
+
+  @Autowired private UserProvisioningService userProvisioningService;
+
+  /** A value worked out for the authentication of the current request. */
+  private record Memo<T>(Authentication authentication, T value) {}
 
   /**
    * This method returns the current user as a User object.
@@ -41,9 +44,40 @@ public class CurrentUserServiceImpl extends CurrentUserService {
    * @return the current user
    */
   public CurrentUser getCurrentUser() {
-    CurrentUser cu = CurrentUser.builder().user(this.getUser()).roles(this.getRoles()).build();
-    log.info("getCurrentUser returns {}", cu);
-    return cu;
+    return memoized(
+        CurrentUser.class.getName(),
+        () -> {
+          CurrentUser cu =
+              CurrentUser.builder().user(this.getUser()).roles(this.getRoles()).build();
+          log.debug("getCurrentUser returns {}", cu);
+          return cu;
+        });
+  }
+
+  /**
+   * Returns a value stored in the current request, working it out first if it is not there yet or
+   * was worked out for another authentication. Outside of a request (e.g. in a job), it is worked
+   * out every time.
+   *
+   * @param name name of the request attribute the value is kept in
+   * @param supplier works out the value
+   * @return the value
+   */
+  @SuppressWarnings("unchecked")
+  private <T> T memoized(String name, Supplier<T> supplier) {
+    RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+    if (attributes == null) {
+      return supplier.get();
+    }
+    Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+    if (attributes.getAttribute(name, RequestAttributes.SCOPE_REQUEST) instanceof Memo<?> memo
+        && memo.authentication() == authentication) {
+      return (T) memo.value();
+    }
+    T value = supplier.get();
+    attributes.setAttribute(
+        name, new Memo<>(authentication, value), RequestAttributes.SCOPE_REQUEST);
+    return value;
   }
 
   /**
@@ -51,7 +85,7 @@ public class CurrentUserServiceImpl extends CurrentUserService {
    * automatically injected by Spring.
    *
    * <p>This method also has a side effect of storing the user in the database if they are not
-   * already there.
+   * already there, or if their profile has changed (see {@link UserProvisioningService}).
    *
    * @param securityContext the security context (provided by Spring)
    * @param authentication the authentication token (provided by Spring)
@@ -71,19 +105,9 @@ public class CurrentUserServiceImpl extends CurrentUserService {
     String hostedDomain = oAuthUser.getAttribute("hd");
 
     java.util.Map<java.lang.String, java.lang.Object> attrs = oAuthUser.getAttributes();
-    log.info("attrs={}", attrs);
-
-    Optional<User> ou = userRepository.findByEmail(email);
-    if (ou.isPresent()) {
-      User u = ou.get();
-      if (adminEmails.contains(email) && !u.getAdmin()) {
-        u.setAdmin(true);
-        userRepository.save(u);
-      }
-      return u;
-    }
+    log.debug("attrs={}", attrs);
 
-    User u =
+    User profile =
         User.builder()
             .googleSub(googleSub)
             .email(email)
@@ -94,10 +118,9 @@ public class CurrentUserServiceImpl extends CurrentUserService {
             .emailVerified(emailVerified)
             .locale(locale)
             .hostedDomain(hostedDomain)
-            .admin(adminEmails.contains(email))
+            .admin(userRolesService.isAdminEmail(email))
             .build();
-    userRepository.save(u);
-    return u;
+    return userProvisioningService.provision(profile);
   }
 
   /**
@@ -110,7 +133,8 @@ public class CurrentUserServiceImpl extends CurrentUserService {
     Authentication authentication = securityContext.getAuthentication();
 
     if (authentication instanceof OAuth2AuthenticationToken) {
-      return getOAuth2AuthenticatedUser(securityContext, authentication);
+      return memoized(
+          User.class.getName(), () -> getOAuth2AuthenticatedUser(securityContext, authentication));
     }
     return null;
   }
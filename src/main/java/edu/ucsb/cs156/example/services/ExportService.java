@@ -0,0 +1,90 @@
+package edu.ucsb.cs156.example.services;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jakarta.persistence.EntityManager;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Writes whole tables as newline-delimited JSON (one object per line), for clients that really do
+ * want every row.
+ *
+ * <p>Rows are read from a database cursor, written and then detached from the persistence context
+ * one at a time, so memory use does not grow with the size of the table.
+ */
+@Service
+public class ExportService {
+  /** media type of newline-delimited JSON */
+  public static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+  @Autowired private EntityManager entityManager;
+
+  @Autowired private PlatformTransactionManager transactionManager;
+
+  @Autowired private ObjectMapper objectMapper;
+
+  /**
+   * Builds a response that streams rows as NDJSON. The rows are only read once the response is
+   * being written, in a read-only transaction of their own.
+   *
+   * @param <T> the entity type
+   * @param filename name offered to browsers that save the download
+   * @param rows opens the stream of rows, e.g. a repository's {@code streamAllBy}
+   * @return the response
+   */
+  public <T> ResponseEntity<StreamingResponseBody> ndjson(
+      String filename, Supplier<Stream<T>> rows) {
+    return ResponseEntity.ok()
+        .contentType(NDJSON)
+        .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"%s\"".formatted(filename))
+        .body(out -> write(rows, out));
+  }
+
+  /**
+   * Writes rows to a stream as NDJSON.
+   *
+   * @param <T> the entity type
+   * @param rows opens the stream of rows
+   * @param out where to write them
+   * @return number of rows written
+   * @throws IOException if writing fails
+   */
+  public <T> long write(Supplier<Stream<T>> rows, OutputStream out) throws IOException {
+    TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+    transaction.setReadOnly(true);
+    ObjectWriter writer = objectMapper.writer();
+    try {
+      return transaction.execute(
+          status -> {
+            long count = 0;
+            try (Stream<T> stream = rows.get()) {
+              for (Iterator<T> it = stream.iterator(); it.hasNext(); count++) {
+                T row = it.next();
+                out.write(writer.writeValueAsBytes(row));
+                out.write('\n');
+                entityManager.detach(row);
+              }
+              out.flush();
+            } catch (IOException e) {
+              throw new UncheckedIOException(e);
+            }
+            return count;
+          });
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+}
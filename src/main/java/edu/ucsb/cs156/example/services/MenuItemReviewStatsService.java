@@ -0,0 +1,214 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+/**
+ * Keeps {@code menuitemreviewstats} (see {@link
+ * edu.ucsb.cs156.example.entities.MenuItemReviewStats}) in step with {@code menuitemreviews}, so
+ * that the rating of a menu item can be read from one row however many reviews it has.
+ *
+ * <p>Every insert, update and delete of a {@link MenuItemReview}, whether it comes from the single
+ * or the bulk endpoints, adds to a per-item delta. Just before the transaction commits, the deltas
+ * are added to the totals with one upsert per item, in the same transaction, so the totals always
+ * agree with the committed reviews.
+ */
+@Slf4j
+@Service
+public class MenuItemReviewStatsService
+    implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+  /** columns added to by each delta: the count, the sum and the five per-star counts */
+  private static final List<String> COLUMNS =
+      List.of(
+          "review_count",
+          "star_sum",
+          "one_star",
+          "two_stars",
+          "three_stars",
+          "four_stars",
+          "five_stars");
+
+  private static final String MERGE_SQL =
+      """
+      MERGE INTO menuitemreviewstats t
+      USING (VALUES (CAST(? AS BIGINT), %s)) AS d (item_id, %s)
+      ON t.item_id = d.item_id
+      WHEN MATCHED THEN UPDATE SET %s
+      WHEN NOT MATCHED THEN INSERT (item_id, %s) VALUES (d.item_id, %s)
+      """
+          .formatted(
+              COLUMNS.stream().map(c -> "CAST(? AS BIGINT)").collect(Collectors.joining(", ")),
+              String.join(", ", COLUMNS),
+              COLUMNS.stream()
+                  .map(c -> "%s = t.%s + d.%s".formatted(c, c, c))
+                  .collect(Collectors.joining(", ")),
+              String.join(", ", COLUMNS),
+              COLUMNS.stream().map(c -> "d." + c).collect(Collectors.joining(", ")));
+
+  /** PostgreSQL's MERGE can fail when two transactions insert the same item, ON CONFLICT cannot */
+  private static final String POSTGRES_UPSERT_SQL =
+      """
+      INSERT INTO menuitemreviewstats AS t (item_id, %s) VALUES (?, %s)
+      ON CONFLICT (item_id) DO UPDATE SET %s
+      """
+          .formatted(
+              String.join(", ", COLUMNS),
+              COLUMNS.stream().map(c -> "?").collect(Collectors.joining(", ")),
+              COLUMNS.stream()
+                  .map(c -> "%s = t.%s + EXCLUDED.%s".formatted(c, c, c))
+                  .collect(Collectors.joining(", ")));
+
+  private static final String AVERAGE_SQL =
+      """
+      UPDATE menuitemreviewstats
+      SET average_stars = CASE WHEN review_count > 0
+        THEN CAST(star_sum AS DOUBLE PRECISION) / review_count END
+      WHERE item_id = ?
+      """;
+
+  @Autowired private EntityManagerFactory entityManagerFactory;
+
+  /** deltas of the transaction of each session, by item id, in {@link #COLUMNS} order */
+  private final Map<SharedSessionContractImplementor, SortedMap<Long, long[]>> pending =
+      new ConcurrentHashMap<>();
+
+  /** Starts listening to changes of menu item reviews. */
+  @PostConstruct
+  public void init() {
+    EventListenerRegistry registry =
+        entityManagerFactory
+            .unwrap(SessionFactoryImplementor.class)
+            .getServiceRegistry()
+            .getService(EventListenerRegistry.class);
+    registry.appendListeners(EventType.POST_INSERT, this);
+    registry.appendListeners(EventType.POST_UPDATE, this);
+    registry.appendListeners(EventType.POST_DELETE, this);
+  }
+
+  @Override
+  public void onPostInsert(PostInsertEvent event) {
+    if (event.getEntity() instanceof MenuItemReview review) {
+      add(event.getSession(), review.getItemId(), review.getStars(), 1);
+    }
+  }
+
+  @Override
+  public void onPostUpdate(PostUpdateEvent event) {
+    if (event.getEntity() instanceof MenuItemReview review) {
+      Object[] oldState = event.getOldState();
+      if (oldState == null) {
+        log.warn("No previous state for menu item review {}, stats not updated", review.getId());
+        return;
+      }
+      EntityPersister persister = event.getPersister();
+      long oldItemId = (Long) oldState[persister.getPropertyIndex("itemId")];
+      int oldStars = (Integer) oldState[persister.getPropertyIndex("stars")];
+      if (oldItemId != review.getItemId() || oldStars != review.getStars()) {
+        add(event.getSession(), oldItemId, oldStars, -1);
+        add(event.getSession(), review.getItemId(), review.getStars(), 1);
+      }
+    }
+  }
+
+  @Override
+  public void onPostDelete(PostDeleteEvent event) {
+    if (event.getEntity() instanceof MenuItemReview) {
+      Object[] state = event.getDeletedState();
+      EntityPersister persister = event.getPersister();
+      long itemId = (Long) state[persister.getPropertyIndex("itemId")];
+      int stars = (Integer) state[persister.getPropertyIndex("stars")];
+      add(event.getSession(), itemId, stars, -1);
+    }
+  }
+
+  @Override
+  public boolean requiresPostCommitHandling(EntityPersister persister) {
+    return false;
+  }
+
+  private void add(EventSource session, long itemId, int stars, int sign) {
+    long[] delta =
+        pending
+            .computeIfAbsent(
+                session,
+                s -> {
+                  // sorted, so that concurrent transactions lock the rows in the same order
+                  SortedMap<Long, long[]> deltas = new TreeMap<>();
+                  session
+                      .getActionQueue()
+                      .registerProcess(beforeCompletion -> apply(beforeCompletion, deltas));
+                  session
+                      .getActionQueue()
+                      .registerProcess((success, afterCompletion) -> pending.remove(session));
+                  return deltas;
+                })
+            .computeIfAbsent(itemId, id -> new long[COLUMNS.size()]);
+    delta[0] += sign;
+    delta[1] += sign * stars;
+    if (stars >= 1 && stars <= 5) {
+      delta[1 + stars] += sign;
+    }
+  }
+
+  private static void apply(SessionImplementor session, SortedMap<Long, long[]> deltas) {
+    boolean postgres =
+        session.getFactory().getJdbcServices().getDialect() instanceof PostgreSQLDialect;
+    session.doWork(
+        connection -> {
+          try (PreparedStatement upsert =
+                  connection.prepareStatement(postgres ? POSTGRES_UPSERT_SQL : MERGE_SQL);
+              PreparedStatement average = connection.prepareStatement(AVERAGE_SQL)) {
+            for (Map.Entry<Long, long[]> entry : deltas.entrySet()) {
+              long[] delta = entry.getValue();
+              if (isZero(delta)) {
+                continue;
+              }
+              upsert.setLong(1, entry.getKey());
+              for (int i = 0; i < delta.length; i++) {
+                upsert.setLong(i + 2, delta[i]);
+              }
+              upsert.addBatch();
+              average.setLong(1, entry.getKey());
+              average.addBatch();
+            }
+            upsert.executeBatch();
+            average.executeBatch();
+          }
+        });
+  }
+
+  private static boolean isZero(long[] delta) {
+    for (long d : delta) {
+      if (d != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,222 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.models.NearbyDiningCommons;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * Finds the dining commons nearest to a location, from an in-memory k-d tree of their coordinates
+ * (see {@link SphericalKdTree}) and a copy of each commons, so that queries do not read the
+ * database at all.
+ *
+ * <p>The tree is loaded at startup. After that, every insert, update and delete of a {@link
+ * UCSBDiningCommons}, from the single or the bulk endpoints, is applied to it once its transaction
+ * has committed. Changes made by other instances, or straight in the database, are picked up by
+ * {@link #refresh}, which reloads the tree when the table's change counter (see {@link
+ * TableVersionService}) is not the one it was loaded at. Commons without coordinates are left out.
+ */
+@Slf4j
+@Service
+public class NearestDiningCommonsService
+    implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+  @Autowired private EntityManagerFactory entityManagerFactory;
+
+  @Autowired private UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
+
+  @Autowired private TableVersionService tableVersionService;
+
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  private SphericalKdTree tree = new SphericalKdTree();
+
+  /** a detached copy of each commons in the tree, by code */
+  private Map<String, UCSBDiningCommons> commonsByCode = new HashMap<>();
+
+  /** the change counter of the table when the tree was last loaded */
+  private volatile Long loadedVersion;
+
+  /** copy of each commons changed by the transaction of each session; null if deleted */
+  private final Map<SharedSessionContractImplementor, Map<String, UCSBDiningCommons>> pending =
+      new ConcurrentHashMap<>();
+
+  /** Loads the tree and starts listening to changes of dining commons. */
+  @PostConstruct
+  public void init() {
+    load();
+    EventListenerRegistry registry =
+        entityManagerFactory
+            .unwrap(SessionFactoryImplementor.class)
+            .getServiceRegistry()
+            .getService(EventListenerRegistry.class);
+    registry.appendListeners(EventType.POST_INSERT, this);
+    registry.appendListeners(EventType.POST_UPDATE, this);
+    registry.appendListeners(EventType.POST_DELETE, this);
+  }
+
+  /** Reloads the tree if the table has changed in ways the tree may not have seen. */
+  @Scheduled(fixedDelayString = "${app.diningcommons.nearest.refresh-ms:300000}")
+  public void refresh() {
+    if (!Objects.equals(loadedVersion, tableVersionService.getVersion(UCSBDiningCommons.class))) {
+      load();
+    }
+  }
+
+  /**
+   * Returns the dining commons nearest to a location, nearest first.
+   *
+   * @param latitude latitude in degrees
+   * @param longitude longitude in degrees
+   * @param k the most dining commons to return
+   * @return up to k dining commons, with their distances
+   */
+  public List<NearbyDiningCommons> nearest(double latitude, double longitude, int k) {
+    lock.readLock().lock();
+    try {
+      return tree.nearest(latitude, longitude, k).stream()
+          .map(
+              neighbor ->
+                  NearbyDiningCommons.builder()
+                      .commons(commonsByCode.get(neighbor.name()))
+                      .distanceMeters(neighbor.distanceMeters())
+                      .build())
+          .toList();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  private void load() {
+    Long version = tableVersionService.getVersion(UCSBDiningCommons.class);
+    SphericalKdTree loaded = new SphericalKdTree();
+    Map<String, UCSBDiningCommons> loadedCommons = new HashMap<>();
+    for (UCSBDiningCommons commons : ucsbDiningCommonsRepository.findAll()) {
+      put(loaded, loadedCommons, copy(commons));
+    }
+    lock.writeLock().lock();
+    try {
+      tree = loaded;
+      commonsByCode = loadedCommons;
+      loadedVersion = version;
+    } finally {
+      lock.writeLock().unlock();
+    }
+    log.info("Loaded {} dining commons into the nearest-commons index", loaded.size());
+  }
+
+  @Override
+  public void onPostInsert(PostInsertEvent event) {
+    if (event.getEntity() instanceof UCSBDiningCommons commons) {
+      changed(event.getSession(), commons.getCode(), copy(commons));
+    }
+  }
+
+  @Override
+  public void onPostUpdate(PostUpdateEvent event) {
+    if (event.getEntity() instanceof UCSBDiningCommons commons) {
+      changed(event.getSession(), commons.getCode(), copy(commons));
+    }
+  }
+
+  @Override
+  public void onPostDelete(PostDeleteEvent event) {
+    if (event.getEntity() instanceof UCSBDiningCommons commons) {
+      changed(event.getSession(), commons.getCode(), null);
+    }
+  }
+
+  @Override
+  public boolean requiresPostCommitHandling(EntityPersister persister) {
+    return false;
+  }
+
+  private static UCSBDiningCommons copy(UCSBDiningCommons commons) {
+    return UCSBDiningCommons.builder()
+        .code(commons.getCode())
+        .name(commons.getName())
+        .hasSackMeal(commons.getHasSackMeal())
+        .hasTakeOutMeal(commons.getHasTakeOutMeal())
+        .hasDiningCam(commons.getHasDiningCam())
+        .latitude(commons.getLatitude())
+        .longitude(commons.getLongitude())
+        .version(commons.getVersion())
+        .build();
+  }
+
+  /** adds a commons to a tree, or takes it out if it has no coordinates */
+  private static void put(
+      SphericalKdTree tree,
+      Map<String, UCSBDiningCommons> commonsByCode,
+      UCSBDiningCommons commons) {
+    if (commons.getLatitude() == null || commons.getLongitude() == null) {
+      tree.remove(commons.getCode());
+      commonsByCode.remove(commons.getCode());
+    } else {
+      tree.put(commons.getCode(), commons.getLatitude(), commons.getLongitude());
+      commonsByCode.put(commons.getCode(), commons);
+    }
+  }
+
+  private void changed(EventSource session, String code, UCSBDiningCommons commons) {
+    pending
+        .computeIfAbsent(
+            session,
+            s -> {
+              Map<String, UCSBDiningCommons> changes = new LinkedHashMap<>();
+              session
+                  .getActionQueue()
+                  .registerProcess(
+                      (success, afterCompletion) -> {
+                        pending.remove(session);
+                        if (success) {
+                          apply(changes);
+                        }
+                      });
+              return changes;
+            })
+        .put(code, commons);
+  }
+
+  private void apply(Map<String, UCSBDiningCommons> changes) {
+    lock.writeLock().lock();
+    try {
+      changes.forEach(
+          (code, commons) -> {
+            if (commons == null) {
+              tree.remove(code);
+              commonsByCode.remove(code);
+            } else {
+              put(tree, commonsByCode, commons);
+            }
+          });
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+}
@@ -0,0 +1,200 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.errors.BadRequestException;
+import edu.ucsb.cs156.example.models.SearchHit;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+
+/**
+ * Full-text search over articles, help requests and menu item reviews.
+ *
+ * <p>On PostgreSQL each of those tables has a {@code search_vector} column, filled in by a trigger
+ * and indexed with GIN (see the changelogs), which is matched against the query with {@code
+ * websearch_to_tsquery} and ranked with {@code ts_rank}. Each table contributes at most one page's
+ * worth of its best hits, so only those are merged and sorted however many rows match.
+ *
+ * <p>H2, used in development and tests, has no such column. There every word of the query must
+ * appear in one of the searched columns, and a hit ranks higher the more words it has in its main
+ * column. This reads every row and is only meant for small databases.
+ */
+@Slf4j
+@Service
+public class SearchService {
+
+  /** text search configuration used both here and by the triggers that fill search_vector */
+  private static final String CONFIGURATION = "english";
+
+  /** the most distinct words of a query that are used on H2 */
+  static final int MAX_TERMS = 8;
+
+  /**
+   * A searchable table.
+   *
+   * @param type value of {@link SearchHit#getType()} for its rows
+   * @param table the table
+   * @param textColumn the column returned as {@link SearchHit#getText()}
+   * @param weights weight of each searched column, used for ranking on H2
+   */
+  private record Source(
+      String type, String table, String textColumn, Map<String, Double> weights) {}
+
+  private static final List<Source> SOURCES =
+      List.of(
+          new Source("article", "articles", "title", Map.of("title", 1.0, "explanation", 0.4)),
+          new Source(
+              "helprequest",
+              "helprequest",
+              "explanation",
+              Map.of("explanation", 1.0, "team_id", 0.4)),
+          new Source("menuitemreview", "menuitemreviews", "comments", Map.of("comments", 1.0)));
+
+  private static final RowMapper<SearchHit> HIT_MAPPER =
+      (rs, rowNum) ->
+          SearchHit.builder()
+              .type(rs.getString("hit_type"))
+              .id(rs.getLong("id"))
+              .text(rs.getString("hit_text"))
+              .rank(rs.getDouble("hit_rank"))
+              .build();
+
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  @Autowired private EntityManagerFactory entityManagerFactory;
+
+  @Value("${app.search.max-results:1000}")
+  private long maxResults;
+
+  private boolean postgres;
+
+  /** Chooses between the PostgreSQL and the H2 query. */
+  @PostConstruct
+  public void init() {
+    postgres =
+        entityManagerFactory.unwrap(SessionFactoryImplementor.class).getJdbcServices().getDialect()
+            instanceof PostgreSQLDialect;
+    log.info("Full-text search uses {}", postgres ? "tsvector columns" : "LIKE");
+  }
+
+  /**
+   * Returns the hits for a query, best first.
+   *
+   * @param query the words to look for
+   * @param offset number of hits to skip
+   * @param limit the most hits to return
+   * @return the hits, never going past the first {@code app.search.max-results}
+   * @throws BadRequestException if the query has no words, or the offset is past {@code
+   *     app.search.max-results}
+   */
+  public List<SearchHit> search(String query, long offset, int limit) {
+    List<String> terms = terms(query);
+    if (terms.isEmpty()) {
+      throw new BadRequestException("q must contain at least one letter or digit");
+    }
+    if (offset >= maxResults) {
+      throw new BadRequestException(
+          "Only the first %d results can be paged through".formatted(maxResults));
+    }
+    limit = (int) Math.min(limit, maxResults - offset);
+    return postgres ? searchPostgres(query, offset, limit) : searchH2(terms, offset, limit);
+  }
+
+  private List<SearchHit> searchPostgres(String query, long offset, int limit) {
+    String branches =
+        SOURCES.stream()
+            .map(
+                source ->
+                    """
+                    (SELECT '%s' AS hit_type, id, %s AS hit_text,
+                      ts_rank(search_vector, q.query) AS hit_rank
+                    FROM %s, q WHERE search_vector @@ q.query
+                    ORDER BY hit_rank DESC, id LIMIT ?)
+                    """
+                        .formatted(source.type(), source.textColumn(), source.table()))
+            .collect(Collectors.joining(" UNION ALL "));
+    String sql =
+        """
+        WITH q AS (SELECT websearch_to_tsquery('%s', ?) AS query)
+        SELECT * FROM (%s) hits ORDER BY hit_rank DESC, hit_type, id LIMIT ? OFFSET ?
+        """
+            .formatted(CONFIGURATION, branches);
+
+    List<Object> args = new ArrayList<>();
+    args.add(query);
+    for (int i = 0; i < SOURCES.size(); i++) {
+      args.add(offset + limit);
+    }
+    args.add(limit);
+    args.add(offset);
+    return jdbcTemplate.query(sql, HIT_MAPPER, args.toArray());
+  }
+
+  private List<SearchHit> searchH2(List<String> terms, long offset, int limit) {
+    List<Object> args = new ArrayList<>();
+    List<String> branches = new ArrayList<>();
+    for (Source source : SOURCES) {
+      List<String> scores = new ArrayList<>();
+      List<Object> scoreArgs = new ArrayList<>();
+      List<String> matches = new ArrayList<>();
+      List<Object> matchArgs = new ArrayList<>();
+      for (String term : terms) {
+        String pattern = "%" + term + "%";
+        List<String> anyColumn = new ArrayList<>();
+        for (Map.Entry<String, Double> weight : source.weights().entrySet()) {
+          scores.add(
+              "CASE WHEN LOWER(%s) LIKE ? THEN %s ELSE 0 END"
+                  .formatted(weight.getKey(), weight.getValue()));
+          scoreArgs.add(pattern);
+          anyColumn.add("LOWER(%s) LIKE ?".formatted(weight.getKey()));
+          matchArgs.add(pattern);
+        }
+        matches.add("(" + String.join(" OR ", anyColumn) + ")");
+      }
+      branches.add(
+          """
+          (SELECT '%s' AS hit_type, id, %s AS hit_text, CAST(%s AS DOUBLE PRECISION) AS hit_rank
+          FROM %s WHERE %s ORDER BY hit_rank DESC, id LIMIT ?)
+          """
+              .formatted(
+                  source.type(),
+                  source.textColumn(),
+                  String.join(" + ", scores),
+                  source.table(),
+                  String.join(" AND ", matches)));
+      args.addAll(scoreArgs);
+      args.addAll(matchArgs);
+      args.add(offset + limit);
+    }
+    String sql =
+        "SELECT * FROM (%s) hits ORDER BY hit_rank DESC, hit_type, id LIMIT ? OFFSET ?"
+            .formatted(String.join(" UNION ALL ", branches));
+    args.add(limit);
+    args.add(offset);
+    return jdbcTemplate.query(sql, HIT_MAPPER, args.toArray());
+  }
+
+  /**
+   * Splits a query into its distinct lower-case words. Since words are made of letters and digits
+   * only, they need no escaping in a LIKE pattern.
+   */
+  static List<String> terms(String query) {
+    return Arrays.stream(query.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+        .filter(term -> !term.isEmpty())
+        .distinct()
+        .limit(MAX_TERMS)
+        .toList();
+  }
+}
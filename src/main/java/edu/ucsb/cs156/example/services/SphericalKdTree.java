@@ -0,0 +1,199 @@
+package edu.ucsb.cs156.example.services;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * A k-d tree of named points on the Earth's surface, answering k-nearest-neighbour queries.
+ *
+ * <p>Points are stored as unit vectors in three dimensions. The straight-line distance between two
+ * unit vectors grows with the great-circle distance between the points, so the nearest points by
+ * the one are the nearest by the other, with no special cases at the poles or the antimeridian.
+ *
+ * <p>Points are added as leaves and removed by marking their node, so each change costs one walk
+ * down the tree. The tree is rebuilt, balanced, once the changes since the last rebuild outnumber
+ * the points. It is not thread-safe.
+ */
+final class SphericalKdTree {
+  /** mean radius of the Earth, in meters */
+  static final double EARTH_RADIUS_METERS = 6_371_008.8;
+
+  /**
+   * A point found by {@link #nearest}.
+   *
+   * @param name name of the point
+   * @param distanceMeters great-circle distance from the query point, in meters
+   */
+  record Neighbor(String name, double distanceMeters) {}
+
+  private static final class Node {
+    final String name;
+    final double[] xyz;
+    final int axis;
+    Node left;
+    Node right;
+    boolean removed;
+
+    Node(String name, double[] xyz, int axis) {
+      this.name = name;
+      this.xyz = xyz;
+      this.axis = axis;
+    }
+  }
+
+  private Node root;
+
+  /** the node of each point that has not been removed */
+  private final Map<String, Node> nodes = new HashMap<>();
+
+  private int changesSinceRebuild;
+
+  /**
+   * Adds a point, replacing any earlier point with the same name.
+   *
+   * @param name name of the point
+   * @param latitude latitude in degrees
+   * @param longitude longitude in degrees
+   */
+  void put(String name, double latitude, double longitude) {
+    remove(name);
+    double[] xyz = toXyz(latitude, longitude);
+    if (root == null) {
+      root = new Node(name, xyz, 0);
+      nodes.put(name, root);
+      return;
+    }
+    Node parent = root;
+    while (true) {
+      boolean left = xyz[parent.axis] < parent.xyz[parent.axis];
+      Node child = left ? parent.left : parent.right;
+      if (child == null) {
+        child = new Node(name, xyz, (parent.axis + 1) % 3);
+        if (left) {
+          parent.left = child;
+        } else {
+          parent.right = child;
+        }
+        nodes.put(name, child);
+        break;
+      }
+      parent = child;
+    }
+    changed();
+  }
+
+  /**
+   * Removes a point, if there is one with that name.
+   *
+   * @param name name of the point
+   */
+  void remove(String name) {
+    Node node = nodes.remove(name);
+    if (node != null) {
+      node.removed = true;
+      changed();
+    }
+  }
+
+  /**
+   * @return the number of points
+   */
+  int size() {
+    return nodes.size();
+  }
+
+  /**
+   * Returns the points nearest to a location, nearest first.
+   *
+   * @param latitude latitude in degrees
+   * @param longitude longitude in degrees
+   * @param k the most points to return
+   * @return up to k points
+   */
+  List<Neighbor> nearest(double latitude, double longitude, int k) {
+    double[] query = toXyz(latitude, longitude);
+    // farthest of the best k found so far on top, compared by squared chord length
+    PriorityQueue<Map.Entry<Node, Double>> best =
+        new PriorityQueue<>(Map.Entry.<Node, Double>comparingByValue().reversed());
+    search(root, query, k, best);
+
+    List<Map.Entry<Node, Double>> sorted = new ArrayList<>(best);
+    sorted.sort(
+        Map.Entry.<Node, Double>comparingByValue()
+            .thenComparing(e -> e.getKey().name, Comparator.naturalOrder()));
+    return sorted.stream().map(e -> new Neighbor(e.getKey().name, toMeters(e.getValue()))).toList();
+  }
+
+  private static void search(
+      Node node, double[] query, int k, PriorityQueue<Map.Entry<Node, Double>> best) {
+    if (node == null) {
+      return;
+    }
+    if (!node.removed) {
+      double d = squaredDistance(node.xyz, query);
+      if (best.size() < k) {
+        best.add(Map.entry(node, d));
+      } else if (d < best.peek().getValue()) {
+        best.poll();
+        best.add(Map.entry(node, d));
+      }
+    }
+    double diff = query[node.axis] - node.xyz[node.axis];
+    search(diff < 0 ? node.left : node.right, query, k, best);
+    if (best.size() < k || diff * diff < best.peek().getValue()) {
+      search(diff < 0 ? node.right : node.left, query, k, best);
+    }
+  }
+
+  private void changed() {
+    if (++changesSinceRebuild > Math.max(16, nodes.size())) {
+      rebuild();
+    }
+  }
+
+  private void rebuild() {
+    List<Node> live = new ArrayList<>(nodes.values());
+    nodes.clear();
+    root = build(live, 0, live.size(), 0);
+    changesSinceRebuild = 0;
+  }
+
+  private Node build(List<Node> points, int from, int to, int axis) {
+    if (from >= to) {
+      return null;
+    }
+    List<Node> range = points.subList(from, to);
+    range.sort(Comparator.comparingDouble(n -> n.xyz[axis]));
+    int median = from + (to - from) / 2;
+    Node old = points.get(median);
+    Node node = new Node(old.name, old.xyz, axis);
+    nodes.put(node.name, node);
+    node.left = build(points, from, median, (axis + 1) % 3);
+    node.right = build(points, median + 1, to, (axis + 1) % 3);
+    return node;
+  }
+
+  private static double[] toXyz(double latitude, double longitude) {
+    double lat = Math.toRadians(latitude);
+    double lon = Math.toRadians(longitude);
+    return new double[] {
+      Math.cos(lat) * Math.cos(lon), Math.cos(lat) * Math.sin(lon), Math.sin(lat)
+    };
+  }
+
+  private static double squaredDistance(double[] a, double[] b) {
+    double dx = a[0] - b[0];
+    double dy = a[1] - b[1];
+    double dz = a[2] - b[2];
+    return dx * dx + dy * dy + dz * dz;
+  }
+
+  /** turns a squared chord length between unit vectors into a great-circle distance */
+  private static double toMeters(double squaredChord) {
+    return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1, Math.sqrt(squaredChord) / 2));
+  }
+}
@@ -0,0 +1,178 @@
+package edu.ucsb.cs156.example.services;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.persister.entity.Joinable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Keeps a change counter for each table listed in {@code table_versions}, which list endpoints use
+ * as their ETag (see {@code ApiController#page}).
+ *
+ * <p>The counter of a table goes up by one for each transaction that inserts, updates or deletes
+ * any of its entities. The increment runs in the same transaction, just before it commits, so a
+ * reader never sees a new counter together with old rows.
+ *
+ * <p>Changes made without going through the entities (native SQL or bulk JPQL statements) are not
+ * counted, unless the code making them also calls {@link #changed(Class)}.
+ */
+@Slf4j
+@Service
+public class TableVersionService
+    implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  @Autowired private EntityManagerFactory entityManagerFactory;
+
+  @PersistenceContext private EntityManager entityManager;
+
+  /** names of the tables that have a row in table_versions */
+  private Set<String> trackedTables = Set.of();
+
+  /** tables changed so far by the transaction of each session */
+  private final Map<SharedSessionContractImplementor, Set<String>> pending =
+      new ConcurrentHashMap<>();
+
+  /** Loads the tracked tables and starts listening to entity changes. */
+  @PostConstruct
+  public void init() {
+    trackedTables =
+        Set.copyOf(
+            jdbcTemplate.queryForList("SELECT table_name FROM table_versions", String.class));
+    EventListenerRegistry registry =
+        entityManagerFactory
+            .unwrap(SessionFactoryImplementor.class)
+            .getServiceRegistry()
+            .getService(EventListenerRegistry.class);
+    registry.appendListeners(EventType.POST_INSERT, this);
+    registry.appendListeners(EventType.POST_UPDATE, this);
+    registry.appendListeners(EventType.POST_DELETE, this);
+    log.info("Tracking versions of tables {}", trackedTables);
+  }
+
+  /**
+   * Returns the current change counter of the table of an entity class.
+   *
+   * @param type the entity class
+   * @return the counter, or null if the table is not tracked
+   */
+  public Long getVersion(Class<?> type) {
+    EntityPersister persister =
+        entityManagerFactory
+            .unwrap(SessionFactoryImplementor.class)
+            .getMappingMetamodel()
+            .getEntityDescriptor(type);
+    String table = tableName(persister);
+    if (!trackedTables.contains(table)) {
+      return null;
+    }
+    return jdbcTemplate.queryForObject(
+        "SELECT version FROM table_versions WHERE table_name = ?", Long.class, table);
+  }
+
+  /**
+   * Counts a change to the table of an entity class that was made without going through the
+   * entities, such as a bulk JPQL update. The counter goes up when the current transaction commits.
+   *
+   * @param type the entity class
+   * @throws IllegalStateException if there is no current transaction
+   */
+  public void changed(Class<?> type) {
+    if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+      throw new IllegalStateException("changed must be called inside a transaction");
+    }
+    SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+    changed(
+        session.asEventSource(),
+        session.getFactory().getMappingMetamodel().getEntityDescriptor(type));
+  }
+
+  @Override
+  public void onPostInsert(PostInsertEvent event) {
+    changed(event.getSession(), event.getPersister());
+  }
+
+  @Override
+  public void onPostUpdate(PostUpdateEvent event) {
+    changed(event.getSession(), event.getPersister());
+  }
+
+  @Override
+  public void onPostDelete(PostDeleteEvent event) {
+    changed(event.getSession(), event.getPersister());
+  }
+
+  @Override
+  public boolean requiresPostCommitHandling(EntityPersister persister) {
+    return false;
+  }
+
+  private void changed(EventSource session, EntityPersister persister) {
+    String table = tableName(persister);
+    if (!trackedTables.contains(table)) {
+      return;
+    }
+    pending
+        .computeIfAbsent(
+            session,
+            s -> {
+              Set<String> tables = ConcurrentHashMap.newKeySet();
+              session
+                  .getActionQueue()
+                  .registerProcess(beforeCompletion -> increment(beforeCompletion, tables));
+              session
+                  .getActionQueue()
+                  .registerProcess((success, afterCompletion) -> pending.remove(session));
+              return tables;
+            })
+        .add(table);
+  }
+
+  private static void increment(SessionImplementor session, Set<String> tables) {
+    List<String> names = List.copyOf(tables);
+    String placeholders = String.join(", ", names.stream().map(t -> "?").toList());
+    session.doWork(
+        connection -> {
+          try (PreparedStatement statement =
+              connection.prepareStatement(
+                  "UPDATE table_versions SET version = version + 1 WHERE table_name IN ("
+                      + placeholders
+                      + ")")) {
+            for (int i = 0; i < names.size(); i++) {
+              statement.setString(i + 1, names.get(i));
+            }
+            statement.executeUpdate();
+          }
+        });
+  }
+
+  private static String tableName(EntityPersister persister) {
+    return ((Joinable) persister).getTableName().toLowerCase(Locale.ROOT);
+  }
+}
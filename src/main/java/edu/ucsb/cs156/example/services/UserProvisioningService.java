@@ -0,0 +1,147 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.exception.ConstraintViolationException;
+import org.hibernate.query.NativeQuery;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Stores the profile of a user who has logged in, adding them to the users table the first time.
+ *
+ * <p>The row is written with a single upsert keyed on the (unique) email, so that concurrent first
+ * logins of the same user cannot create two rows. When the stored profile, read through the
+ * second-level cache (see {@link UserRepository#findByEmail}), is already up to date, which is the
+ * case for most logins, no transaction is started at all.
+ */
+@Slf4j
+@Service
+public class UserProvisioningService {
+
+  /** profile columns written on every upsert, besides email and admin */
+  private static final List<String> COLUMNS =
+      List.of(
+          "google_sub",
+          "picture_url",
+          "full_name",
+          "given_name",
+          "family_name",
+          "email_verified",
+          "locale",
+          "hosted_domain");
+
+  /** an admin stays an admin when their email is taken off app.admin.emails */
+  private static final String MERGE_SQL =
+      """
+      MERGE INTO users u
+      USING (VALUES (CAST(? AS VARCHAR(255)), %s, CAST(? AS BOOLEAN))) AS d (email, %s, admin)
+      ON u.email = d.email
+      WHEN MATCHED THEN UPDATE SET %s, admin = u.admin OR d.admin
+      WHEN NOT MATCHED THEN INSERT (email, %s, admin) VALUES (d.email, %s, d.admin)
+      """
+          .formatted(
+              COLUMNS.stream()
+                  .map(
+                      c ->
+                          c.equals("email_verified")
+                              ? "CAST(? AS BOOLEAN)"
+                              : "CAST(? AS VARCHAR(255))")
+                  .collect(Collectors.joining(", ")),
+              String.join(", ", COLUMNS),
+              COLUMNS.stream()
+                  .map(c -> "%s = d.%s".formatted(c, c))
+                  .collect(Collectors.joining(", ")),
+              String.join(", ", COLUMNS),
+              COLUMNS.stream().map(c -> "d." + c).collect(Collectors.joining(", ")));
+
+  /** PostgreSQL's MERGE can fail when two transactions insert the same email, ON CONFLICT cannot */
+  private static final String POSTGRES_UPSERT_SQL =
+      """
+      INSERT INTO users AS u (email, %s, admin) VALUES (?, %s, ?)
+      ON CONFLICT (email) DO UPDATE SET %s, admin = u.admin OR EXCLUDED.admin
+      """
+          .formatted(
+              String.join(", ", COLUMNS),
+              COLUMNS.stream().map(c -> "?").collect(Collectors.joining(", ")),
+              COLUMNS.stream()
+                  .map(c -> "%s = EXCLUDED.%s".formatted(c, c))
+                  .collect(Collectors.joining(", ")));
+
+  @Autowired private UserRepository userRepository;
+
+  @PersistenceContext private EntityManager entityManager;
+
+  @Autowired private PlatformTransactionManager transactionManager;
+
+  /**
+   * Returns the stored user with the email of a profile, first inserting or updating them if the
+   * stored profile is missing or differs.
+   *
+   * @param profile the user as described by the identity provider; admin if they must be an admin
+   * @return the stored user
+   */
+  public User provision(User profile) {
+    Optional<User> stored = userRepository.findByEmail(profile.getEmail());
+    if (stored.isPresent() && isUpToDate(stored.get(), profile)) {
+      return stored.get();
+    }
+    TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+    try {
+      transaction.executeWithoutResult(status -> upsert(profile));
+    } catch (ConstraintViolationException e) {
+      // only MERGE can lose a race with a concurrent first login; the retry updates its row
+      transaction.executeWithoutResult(status -> upsert(profile));
+    }
+    log.info("Stored the profile of user {}", profile.getEmail());
+    return userRepository.findByEmail(profile.getEmail()).orElseThrow();
+  }
+
+  private static boolean isUpToDate(User stored, User profile) {
+    return Objects.equals(stored.getGoogleSub(), profile.getGoogleSub())
+        && Objects.equals(stored.getPictureUrl(), profile.getPictureUrl())
+        && Objects.equals(stored.getFullName(), profile.getFullName())
+        && Objects.equals(stored.getGivenName(), profile.getGivenName())
+        && Objects.equals(stored.getFamilyName(), profile.getFamilyName())
+        && stored.getEmailVerified() == profile.getEmailVerified()
+        && Objects.equals(stored.getLocale(), profile.getLocale())
+        && Objects.equals(stored.getHostedDomain(), profile.getHostedDomain())
+        && (stored.getAdmin() || !profile.getAdmin());
+  }
+
+  private void upsert(User profile) {
+    boolean postgres =
+        entityManager
+                .getEntityManagerFactory()
+                .unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices()
+                .getDialect()
+            instanceof PostgreSQLDialect;
+    Query upsert = entityManager.createNativeQuery(postgres ? POSTGRES_UPSERT_SQL : MERGE_SQL);
+    // only evict users from the second-level cache, rather than every cached entity
+    upsert.unwrap(NativeQuery.class).addSynchronizedEntityClass(User.class);
+    upsert.setParameter(1, profile.getEmail());
+    upsert.setParameter(2, profile.getGoogleSub());
+    upsert.setParameter(3, profile.getPictureUrl());
+    upsert.setParameter(4, profile.getFullName());
+    upsert.setParameter(5, profile.getGivenName());
+    upsert.setParameter(6, profile.getFamilyName());
+    upsert.setParameter(7, profile.getEmailVerified());
+    upsert.setParameter(8, profile.getLocale());
+    upsert.setParameter(9, profile.getHostedDomain());
+    upsert.setParameter(10, profile.getAdmin());
+    upsert.executeUpdate();
+  }
+}
@@ -0,0 +1,180 @@
+package edu.ucsb.cs156.example.services;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.stereotype.Service;
+
+/**
+ * Works out the roles of a user from their email address, when they log in.
+ *
+ * <p>A user is an admin if their email is listed in {@code app.admin.emails}, or if they are marked
+ * as an admin in the users table. The emails of the admins in the table are read all at once and
+ * kept until a user is inserted as an admin, updated or deleted on this node (once that transaction
+ * has committed), or for at most {@code app.roles.admin-refresh-ms}, so that changes made through
+ * other nodes are seen too. Logins therefore do not query the users table.
+ */
+@Slf4j
+@Service
+public class UserRolesService
+    implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+  @Autowired private UserRepository userRepository;
+
+  @Autowired private EntityManagerFactory entityManagerFactory;
+
+  @Value("${app.roles.admin-refresh-ms:60000}")
+  private long adminRefreshMs;
+
+  private Set<String> adminEmails = Set.of();
+
+  /**
+   * Emails of the admins in the users table.
+   *
+   * @param emails the emails
+   * @param invalidations the value of {@link #invalidations} before they were read
+   * @param loadedAtMs when they were read
+   */
+  private record DatabaseAdmins(Set<String> emails, long invalidations, long loadedAtMs) {}
+
+  private volatile DatabaseAdmins databaseAdmins;
+
+  /** goes up on every change to the users table that may change who is an admin */
+  private final AtomicLong invalidations = new AtomicLong();
+
+  /**
+   * Sets the emails of the users that are always admins.
+   *
+   * @param emails the emails, from {@code app.admin.emails}
+   */
+  @Value("${app.admin.emails}")
+  public void setAdminEmails(List<String> emails) {
+    adminEmails = Set.copyOf(emails);
+  }
+
+  /** Starts listening to changes of users. */
+  @PostConstruct
+  public void init() {
+    EventListenerRegistry registry =
+        entityManagerFactory
+            .unwrap(SessionFactoryImplementor.class)
+            .getServiceRegistry()
+            .getService(EventListenerRegistry.class);
+    registry.appendListeners(EventType.POST_INSERT, this);
+    registry.appendListeners(EventType.POST_UPDATE, this);
+    registry.appendListeners(EventType.POST_DELETE, this);
+  }
+
+  /**
+   * Returns whether an email is listed in {@code app.admin.emails}.
+   *
+   * @param email email address of the user
+   * @return whether the user is always an admin
+   */
+  public boolean isAdminEmail(String email) {
+    return adminEmails.contains(email);
+  }
+
+  /**
+   * Returns whether the user with an email is an admin, either from {@code app.admin.emails} or
+   * from the users table.
+   *
+   * @param email email address of the user
+   * @return whether the user is an admin
+   */
+  public boolean isAdmin(String email) {
+    return isAdminEmail(email) || databaseAdminEmails().contains(email);
+  }
+
+  /**
+   * Returns the roles of a user who has logged in: ROLE_USER, ROLE_ADMIN for admins and ROLE_MEMBER
+   * for UCSB email addresses.
+   *
+   * @param email email address of the user
+   * @return the roles
+   */
+  public Set<GrantedAuthority> getRoles(String email) {
+    Set<GrantedAuthority> roles = new HashSet<>();
+    roles.add(new SimpleGrantedAuthority("ROLE_USER"));
+    if (isAdmin(email)) {
+      roles.add(new SimpleGrantedAuthority("ROLE_ADMIN"));
+    }
+    if (email.endsWith("@ucsb.edu")) {
+      roles.add(new SimpleGrantedAuthority("ROLE_MEMBER"));
+    }
+    return roles;
+  }
+
+  private Set<String> databaseAdminEmails() {
+    DatabaseAdmins admins = databaseAdmins;
+    long now = System.currentTimeMillis();
+    if (admins == null
+        || admins.invalidations() != invalidations.get()
+        || now - admins.loadedAtMs() >= adminRefreshMs) {
+      // read the counter first, so that a change committed while loading makes the result stale
+      long before = invalidations.get();
+      admins = new DatabaseAdmins(Set.copyOf(userRepository.findAdminEmails()), before, now);
+      databaseAdmins = admins;
+      log.debug("Loaded {} admins from the users table", admins.emails().size());
+    }
+    return admins.emails();
+  }
+
+  @Override
+  public void onPostInsert(PostInsertEvent event) {
+    if (event.getEntity() instanceof User user && user.getAdmin()) {
+      invalidateOnCommit(event.getSession());
+    }
+  }
+
+  @Override
+  public void onPostUpdate(PostUpdateEvent event) {
+    if (event.getEntity() instanceof User) {
+      invalidateOnCommit(event.getSession());
+    }
+  }
+
+  @Override
+  public void onPostDelete(PostDeleteEvent event) {
+    if (event.getEntity() instanceof User) {
+      invalidateOnCommit(event.getSession());
+    }
+  }
+
+  @Override
+  public boolean requiresPostCommitHandling(EntityPersister persister) {
+    return false;
+  }
+
+  private void invalidateOnCommit(EventSource session) {
+    session
+        .getActionQueue()
+        .registerProcess(
+            (success, s) -> {
+              if (success) {
+                invalidations.incrementAndGet();
+              }
+            });
+  }
+}
@@ -0,0 +1,16 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+/**
+ * Thrown by {@link JobContext#checkCancelled()} to stop a job that has been cancelled. {@link
+ * JobService} marks the job as cancelled rather than failed.
+ */
+public class JobCancelledException extends RuntimeException {
+  /**
+   * Constructor for the exception
+   *
+   * @param jobId id of the cancelled job
+   */
+  public JobCancelledException(long jobId) {
+    super("Job %d was cancelled".formatted(jobId));
+  }
+}
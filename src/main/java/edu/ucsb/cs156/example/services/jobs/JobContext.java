@@ -1,20 +1,192 @@
 package edu.ucsb.cs156.example.services.jobs;
 
 import edu.ucsb.cs156.example.entities.Job;
-import edu.ucsb.cs156.example.repositories.JobsRepository;
-import lombok.AllArgsConstructor;
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 
-@AllArgsConstructor
+/**
+ * A JobContext is handed to a running job so that it can report output.
+ *
+ * <p>Calls to {@link #log(String)} are collected in a fixed-size in-memory buffer, which is written
+ * to the job_log_lines table as one batch when it fills up, when it has held lines for longer than
+ * the flush interval, or when {@link #flush()} is called at the end of the job. Each line is also
+ * handed to the {@link JobLogPublisher} as soon as it is logged, for live viewers.
+ *
+ * <p>Jobs that work through a known number of items can report {@link #progress(long, long)}.
+ * Progress is kept on the {@link Job} and written to the database at most once per progress
+ * interval, so it can be reported as often as is convenient.
+ *
+ * <p>Long-running jobs should call {@link #checkCancelled()} (or test {@link #isCancelled()})
+ * regularly. Cancelling a job also interrupts its thread, so blocking calls such as {@code
+ * Thread.sleep} end early.
+ */
 @Slf4j
 public class JobContext {
-  private JobsRepository jobsRepository;
-  private Job job;
-
-  public void log(String message) {
-    log.info("Job %s: %s".formatted(job.getId(), message));
-    String previousLog = job.getLog() == null ? "" : (job.getLog() + "\n");
-    job.setLog(previousLog + message);
-    if (jobsRepository != null) jobsRepository.save(job);
+  private final JobLogWriter jobLogWriter;
+  private final JobLogPublisher jobLogPublisher;
+  @Getter private final Job job;
+
+  private final JobLogLine[] buffer;
+  private final long flushIntervalNanos;
+  private int buffered = 0;
+  private long lastFlushNanos = System.nanoTime();
+
+  /** number of lines logged so far; also the line number of the next line */
+  @Getter private int lineCount;
+
+  private final long startNanos = System.nanoTime();
+  private final long progressIntervalNanos;
+  private boolean progressPending = false;
+  private boolean progressWritten = false;
+  private long lastProgressWriteNanos;
+
+  private volatile boolean cancelled = false;
+  private Thread runner;
+
+  public JobContext(JobLogWriter jobLogWriter, Job job) {
+    this(jobLogWriter, null, job);
+  }
+
+  public JobContext(JobLogWriter jobLogWriter, JobLogPublisher jobLogPublisher, Job job) {
+    this(jobLogWriter, jobLogPublisher, job, 0);
+  }
+
+  /**
+   * @param jobLogWriter writes the buffered lines; null to discard them
+   * @param jobLogPublisher receives each line as it is logged; may be null
+   * @param job the job
+   * @param firstLine line number of the first line logged, non-zero when a job is re-run after an
+   *     earlier attempt has already logged some lines
+   */
+  public JobContext(
+      JobLogWriter jobLogWriter, JobLogPublisher jobLogPublisher, Job job, int firstLine) {
+    this.lineCount = firstLine;
+    this.jobLogWriter = jobLogWriter;
+    this.jobLogPublisher = jobLogPublisher;
+    this.job = job;
+    int flushSize = jobLogWriter == null ? 1 : jobLogWriter.getFlushSize();
+    long flushIntervalMs = jobLogWriter == null ? 0 : jobLogWriter.getFlushIntervalMs();
+    this.buffer = new JobLogLine[Math.max(1, flushSize)];
+    this.flushIntervalNanos = flushIntervalMs * 1_000_000;
+    long progressIntervalMs = jobLogWriter == null ? 0 : jobLogWriter.getProgressIntervalMs();
+    this.progressIntervalNanos = progressIntervalMs * 1_000_000;
+  }
+
+  public synchronized void log(String message) {
+    log.info("Job {}: {}", job.getId(), message);
+    JobLogLine line =
+        JobLogLine.builder().jobId(job.getId()).lineNumber(lineCount++).message(message).build();
+    buffer[buffered++] = line;
+    if (jobLogPublisher != null) jobLogPublisher.publish(line);
+    if (buffered == buffer.length) {
+      flush();
+    } else {
+      flushIfDue();
+    }
+  }
+
+  /**
+   * Records how far the job has got, and estimates when it will finish from the rate of progress
+   * since it started. The first report is written to the database straight away, later ones at most
+   * once per progress interval; the last one is saved with the job when it ends.
+   *
+   * @param done number of items done
+   * @param total total number of items
+   */
+  public synchronized void progress(long done, long total) {
+    long now = System.nanoTime();
+    job.setProgressDone(done);
+    job.setProgressTotal(total);
+    job.setEta(estimateEta(now, done, total));
+    progressPending = true;
+    if (!progressWritten || now - lastProgressWriteNanos >= progressIntervalNanos) {
+      writeProgress(now);
+    }
+  }
+
+  private ZonedDateTime estimateEta(long now, long done, long total) {
+    if (done >= total) return ZonedDateTime.now();
+    if (done <= 0) return null;
+    double nanosPerItem = (double) (now - startNanos) / done;
+    return ZonedDateTime.now().plusNanos((long) (nanosPerItem * (total - done)));
+  }
+
+  private void writeProgress(long now) {
+    progressPending = false;
+    progressWritten = true;
+    lastProgressWriteNanos = now;
+    if (jobLogWriter != null) jobLogWriter.writeProgress(job);
+  }
+
+  /**
+   * Flushes the buffer if lines have been waiting longer than the flush interval, and writes
+   * progress that has been held back for longer than the progress interval.
+   */
+  public synchronized void flushIfDue() {
+    long now = System.nanoTime();
+    if (buffered > 0 && now - lastFlushNanos >= flushIntervalNanos) {
+      flush();
+    }
+    if (progressPending && now - lastProgressWriteNanos >= progressIntervalNanos) {
+      writeProgress(now);
+    }
+  }
+
+  /**
+   * @return the lines logged but not yet written to the database
+   */
+  public synchronized List<JobLogLine> getBufferedLines() {
+    return List.copyOf(Arrays.asList(buffer).subList(0, buffered));
+  }
+
+  /** Writes all buffered lines as one batch. */
+  public synchronized void flush() {
+    lastFlushNanos = System.nanoTime();
+    if (buffered == 0) return;
+    List<JobLogLine> lines = new ArrayList<>(buffered);
+    for (int i = 0; i < buffered; i++) {
+      lines.add(buffer[i]);
+      buffer[i] = null;
+    }
+    buffered = 0;
+    if (jobLogWriter != null) jobLogWriter.write(lines);
+  }
+
+  /**
+   * @return true once the job has been cancelled
+   */
+  public boolean isCancelled() {
+    return cancelled;
+  }
+
+  /**
+   * Stops the job if it has been cancelled.
+   *
+   * @throws JobCancelledException if the job has been cancelled
+   */
+  public void checkCancelled() {
+    if (cancelled) throw new JobCancelledException(job.getId());
+  }
+
+  /** Cancels the job, interrupting its thread if it is running. */
+  public synchronized void cancel() {
+    cancelled = true;
+    if (runner != null) runner.interrupt();
+  }
+
+  /**
+   * Records the thread running the job, so that {@link #cancel()} can interrupt it. Cleared again
+   * with null when the job ends, so that a pooled thread is not interrupted while running the next
+   * job.
+   *
+   * @param runner the thread, or null
+   */
+  synchronized void setRunner(Thread runner) {
+    this.runner = runner;
   }
 }
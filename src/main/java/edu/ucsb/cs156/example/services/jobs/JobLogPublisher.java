@@ -0,0 +1,271 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * In-process fan-out of job log lines to Server-Sent Events subscribers.
+ *
+ * <p>{@link JobContext#log(String)} publishes every line here as it is logged. All viewers of the
+ * same job share one subscriber list, so live lines are never re-read from the database. Each
+ * subscriber sends on its own virtual thread, so a slow client never holds up the job or the other
+ * viewers.
+ *
+ * <p>Lines of jobs running on another node are not published here as they are logged; {@link
+ * JobService#pollLogStreams()} publishes them from the database instead.
+ */
+@Slf4j
+@Component
+public class JobLogPublisher implements DisposableBean {
+  private final Map<Long, List<Subscription>> subscribers = new ConcurrentHashMap<>();
+  private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+
+  /**
+   * Registers a new viewer of a job's log. The caller sends the backlog with {@link
+   * Subscription#sendBacklog} and then calls {@link Subscription#goLive()}; lines published in the
+   * meantime are held back and de-duplicated by line number.
+   *
+   * @param jobId id of the job
+   * @param emitter the emitter to send events to
+   * @param fromLine first line number the viewer wants
+   * @return the subscription
+   */
+  public Subscription subscribe(long jobId, SseEmitter emitter, int fromLine) {
+    Subscription subscription = new Subscription(jobId, emitter, fromLine);
+    subscribers.computeIfAbsent(jobId, id -> new CopyOnWriteArrayList<>()).add(subscription);
+    emitter.onCompletion(() -> unsubscribe(subscription));
+    emitter.onTimeout(() -> unsubscribe(subscription));
+    emitter.onError(e -> unsubscribe(subscription));
+    return subscription;
+  }
+
+  /**
+   * Runs a task on a virtual thread of the senders, e.g. to send a backlog without holding up the
+   * request that opened the stream.
+   *
+   * @param task the task
+   */
+  public void execute(Runnable task) {
+    senders.execute(task);
+  }
+
+  /**
+   * Pushes a newly logged line to everyone watching its job.
+   *
+   * @param line the line
+   */
+  public void publish(JobLogLine line) {
+    List<Subscription> list = subscribers.get(line.getJobId());
+    if (list == null) return;
+    list.forEach(s -> s.enqueue(line));
+  }
+
+  /**
+   * Tells everyone watching a job that it has finished, and ends their streams.
+   *
+   * @param jobId id of the job
+   */
+  public void complete(long jobId) {
+    List<Subscription> list = subscribers.remove(jobId);
+    if (list == null) return;
+    list.forEach(Subscription::complete);
+  }
+
+  /**
+   * @return ids of the jobs that currently have viewers
+   */
+  public List<Long> getWatchedJobIds() {
+    return List.copyOf(subscribers.keySet());
+  }
+
+  /**
+   * @param jobId id of the job
+   * @return the lowest line number that a viewer of the job who has received the backlog is still
+   *     waiting for, or -1 if no viewer has received the backlog yet
+   */
+  public int getNextLine(long jobId) {
+    List<Subscription> list = subscribers.get(jobId);
+    if (list == null) return -1;
+    return list.stream()
+        .filter(Subscription::isLive)
+        .mapToInt(Subscription::getQueuedUntil)
+        .min()
+        .orElse(-1);
+  }
+
+  /**
+   * @param jobId id of the job
+   * @return number of viewers currently watching the job
+   */
+  public int getSubscriberCount(long jobId) {
+    List<Subscription> list = subscribers.get(jobId);
+    return list == null ? 0 : list.size();
+  }
+
+  private void unsubscribe(Subscription subscription) {
+    subscribers.computeIfPresent(
+        subscription.jobId,
+        (id, list) -> {
+          list.remove(subscription);
+          return list.isEmpty() ? null : list;
+        });
+  }
+
+  @Override
+  public void destroy() {
+    senders.shutdownNow();
+  }
+
+  /** One viewer of one job's log. */
+  public class Subscription {
+    private static final Object COMPLETE = new Object();
+
+    private final long jobId;
+    private final SseEmitter emitter;
+    private final Queue<Object> pending = new ArrayDeque<>();
+    private int nextLine;
+
+    /** one more than the highest line number sent or queued so far */
+    private int queuedUntil;
+
+    private boolean live = false;
+    private boolean draining = false;
+    private volatile boolean closed = false;
+
+    private Subscription(long jobId, SseEmitter emitter, int fromLine) {
+      this.jobId = jobId;
+      this.emitter = emitter;
+      this.nextLine = fromLine;
+      this.queuedUntil = fromLine;
+    }
+
+    /**
+     * Sends the contents of the legacy {@code Job.log} column as a single event without an id. Like
+     * {@link #sendBacklog}, it must be called before {@link #goLive()}.
+     *
+     * @param log the legacy log
+     */
+    public void sendLegacy(String log) {
+      send(SseEmitter.event().name("legacy").data(log));
+    }
+
+    /**
+     * Sends a line from the backlog, unless the viewer already has it. The backlog is sent from one
+     * thread before {@link #goLive()}, while nothing else sends to this viewer, so lines published
+     * in the meantime are not held up by a slow client.
+     *
+     * @param line the line
+     */
+    public void sendBacklog(JobLogLine line) {
+      sendLine(line);
+    }
+
+    /** Marks the backlog as sent; held back and future live lines are sent from now on. */
+    public void goLive() {
+      synchronized (this) {
+        live = true;
+        queuedUntil = Math.max(queuedUntil, nextLine);
+      }
+      scheduleDrain();
+    }
+
+    /**
+     * @return true once the viewer has gone away or the stream has ended
+     */
+    public boolean isClosed() {
+      return closed;
+    }
+
+    private synchronized boolean isLive() {
+      return live;
+    }
+
+    private synchronized int getQueuedUntil() {
+      return queuedUntil;
+    }
+
+    /** Ends the stream after any lines still waiting to be sent. */
+    public void complete() {
+      synchronized (this) {
+        pending.add(COMPLETE);
+      }
+      scheduleDrain();
+    }
+
+    private void enqueue(JobLogLine line) {
+      synchronized (this) {
+        pending.add(line);
+        queuedUntil = Math.max(queuedUntil, line.getLineNumber() + 1);
+      }
+      scheduleDrain();
+    }
+
+    private void scheduleDrain() {
+      synchronized (this) {
+        if (!live || draining || pending.isEmpty()) return;
+        draining = true;
+      }
+      senders.execute(this::drain);
+    }
+
+    // only one drain runs at a time per subscription, so sending happens outside the lock
+    private void drain() {
+      while (true) {
+        Object next;
+        synchronized (this) {
+          next = pending.poll();
+          if (next == null) {
+            draining = false;
+            return;
+          }
+        }
+        if (next == COMPLETE) {
+          send(SseEmitter.event().name("complete").data(""));
+          close();
+        } else {
+          sendLine((JobLogLine) next);
+        }
+      }
+    }
+
+    private void sendLine(JobLogLine line) {
+      if (line.getLineNumber() < nextLine) return;
+      send(
+          SseEmitter.event()
+              .id(Integer.toString(line.getLineNumber()))
+              .name("log")
+              .data(line.getMessage() == null ? "" : line.getMessage()));
+      nextLine = line.getLineNumber() + 1;
+    }
+
+    private void send(SseEmitter.SseEventBuilder event) {
+      if (closed) return;
+      try {
+        emitter.send(event);
+      } catch (IOException | IllegalStateException e) {
+        log.debug("Dropping log viewer of job {}: {}", jobId, e.getMessage());
+        closed = true;
+        unsubscribe(this);
+      }
+    }
+
+    private void close() {
+      if (closed) return;
+      closed = true;
+      unsubscribe(this);
+      emitter.complete();
+    }
+  }
+}
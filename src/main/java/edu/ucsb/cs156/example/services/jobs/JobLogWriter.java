@@ -0,0 +1,72 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import java.sql.Timestamp;
+import java.util.List;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Writes buffered job log lines to the job_log_lines table, and job progress to the jobs table.
+ *
+ * <p>Lines are inserted with a single JDBC batch per flush, outside of any transaction the job
+ * itself may be using, so everything flushed before a job fails is kept.
+ */
+@Component
+public class JobLogWriter {
+  private static final String INSERT_SQL =
+      "INSERT INTO job_log_lines (job_id, line_number, message) VALUES (?, ?, ?)";
+
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  /** number of buffered lines that triggers a flush */
+  @Getter
+  @Value("${app.jobs.log.flush-size:100}")
+  private int flushSize = 100;
+
+  /** maximum time a line may stay buffered before it is flushed */
+  @Getter
+  @Value("${app.jobs.log.flush-interval-ms:1000}")
+  private long flushIntervalMs = 1000;
+
+  /** minimum time between two progress updates of the same job */
+  @Getter
+  @Value("${app.jobs.progress.write-interval-ms:2000}")
+  private long progressIntervalMs = 2000;
+
+  /**
+   * Inserts the given lines as one JDBC batch.
+   *
+   * @param lines the lines to insert
+   */
+  public void write(List<JobLogLine> lines) {
+    if (lines.isEmpty()) return;
+    jdbcTemplate.batchUpdate(
+        INSERT_SQL,
+        lines,
+        lines.size(),
+        (ps, line) -> {
+          ps.setLong(1, line.getJobId());
+          ps.setInt(2, line.getLineNumber());
+          ps.setString(3, line.getMessage());
+        });
+  }
+
+  /**
+   * Updates just the progress columns of a job.
+   *
+   * @param job the job, with its current progress
+   */
+  public void writeProgress(Job job) {
+    jdbcTemplate.update(
+        "UPDATE jobs SET progress_done = ?, progress_total = ?, eta = ? WHERE id = ?",
+        job.getProgressDone(),
+        job.getProgressTotal(),
+        job.getEta() == null ? null : Timestamp.from(job.getEta().toInstant()),
+        job.getId());
+  }
+}
@@ -0,0 +1,343 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import edu.ucsb.cs156.example.entities.Job;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * The database side of the job queue: leases on rows of the jobs table.
+ *
+ * <p>A node only runs a job while it holds the job's lease. The lease is taken when the job is
+ * inserted or claimed from the queue, and is extended by {@link #heartbeat()} for as long as the
+ * node is alive. When a node dies its leases run out, and {@link #sweep()} (on any node) puts its
+ * recoverable jobs back in the queue and marks the rest as failed. The final status of a job is
+ * only written by the node that still holds its lease (see {@link #finish(Job)}).
+ *
+ * <p>On PostgreSQL jobs are claimed with {@code SELECT ... FOR UPDATE SKIP LOCKED}, so that nodes
+ * polling at the same time never wait for each other. Other databases (H2) claim one row at a time
+ * with a conditional update instead.
+ */
+@Slf4j
+@Component
+public class JobQueue {
+  private static final String CLAIM_SKIP_LOCKED =
+      """
+      UPDATE jobs SET lease_owner = ?, lease_expires_at = ?, heartbeat_at = ?,
+          attempts = attempts + 1
+      WHERE id IN (
+          SELECT id FROM jobs
+          WHERE status = 'queued' AND lease_owner IS NULL AND payload IS NOT NULL
+          ORDER BY id LIMIT ?
+          FOR UPDATE SKIP LOCKED)
+      RETURNING id
+      """;
+
+  private static final String SELECT_CLAIMABLE =
+      """
+      SELECT id FROM jobs
+      WHERE status = 'queued' AND lease_owner IS NULL AND payload IS NOT NULL
+      ORDER BY id LIMIT ?
+      """;
+
+  private static final String CLAIM_ONE =
+      """
+      UPDATE jobs SET lease_owner = ?, lease_expires_at = ?, heartbeat_at = ?,
+          attempts = attempts + 1
+      WHERE id = ? AND status = 'queued' AND lease_owner IS NULL
+      """;
+
+  private static final String APPEND_LOG_LINE =
+      """
+      INSERT INTO job_log_lines (job_id, line_number, message)
+      SELECT ?, COALESCE(MAX(line_number) + 1, 0), ? FROM job_log_lines WHERE job_id = ?
+      """;
+
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  @Value("${app.jobs.queue.node-id:}")
+  private String nodeId;
+
+  @Getter
+  @Value("${app.jobs.queue.lease-ms:60000}")
+  private long leaseMs = 60000;
+
+  @Getter
+  @Value("${app.jobs.queue.max-attempts:3}")
+  private int maxAttempts = 3;
+
+  private Boolean skipLocked;
+
+  /**
+   * @return the name this node uses as lease owner; {@code app.jobs.queue.node-id} if set, else the
+   *     host name with a random suffix
+   */
+  public synchronized String getNodeId() {
+    if (nodeId == null || nodeId.isBlank()) {
+      nodeId = hostName() + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+    return nodeId;
+  }
+
+  /**
+   * Sets this node's lease on a job that is about to be inserted, so that the job is never in the
+   * table without an owner and no other node can claim it before it runs here.
+   *
+   * @param job the job, not yet saved
+   */
+  public void lease(Job job) {
+    ZonedDateTime now = ZonedDateTime.now();
+    job.setLeaseOwner(getNodeId());
+    job.setLeaseExpiresAt(now.plus(leaseMs, ChronoUnit.MILLIS));
+    job.setHeartbeatAt(now);
+    job.setAttempts(1);
+  }
+
+  /**
+   * Claims up to {@code max} queued jobs, oldest first.
+   *
+   * @param max maximum number of jobs to claim
+   * @return ids of the jobs now leased by this node
+   */
+  public List<Long> claim(int max) {
+    if (max <= 0) return List.of();
+    Timestamp now = now();
+    if (supportsSkipLocked()) {
+      return jdbcTemplate.queryForList(
+          CLAIM_SKIP_LOCKED, Long.class, getNodeId(), expiry(now), now, max);
+    }
+    List<Long> claimed = new ArrayList<>();
+    for (Long id : jdbcTemplate.queryForList(SELECT_CLAIMABLE, Long.class, max)) {
+      // another node may claim the same row first, in which case nothing is updated
+      if (jdbcTemplate.update(CLAIM_ONE, getNodeId(), expiry(now), now, id) == 1) {
+        claimed.add(id);
+      }
+    }
+    return claimed;
+  }
+
+  /**
+   * Gives up the lease on a job that this node cannot run after all, and puts it back in the queue.
+   *
+   * @param jobId id of the job
+   */
+  public void release(long jobId) {
+    jdbcTemplate.update(
+        "UPDATE jobs SET status = 'queued', lease_owner = NULL, lease_expires_at = NULL"
+            + " WHERE id = ? AND lease_owner = ?",
+        jobId,
+        getNodeId());
+  }
+
+  /**
+   * Writes the final status and progress of a job, provided this node still holds its lease. A node
+   * whose lease ran out, and whose job may since have been re-queued and claimed by another node,
+   * therefore cannot overwrite what the new owner writes.
+   *
+   * @param job the job, with its final status
+   * @return true if written, false if this node no longer holds the lease
+   */
+  public boolean finish(Job job) {
+    return jdbcTemplate.update(
+            "UPDATE jobs SET status = ?, progress_done = ?, progress_total = ?, eta = ?,"
+                + " updated_at = ? WHERE id = ? AND lease_owner = ?",
+            job.getStatus(),
+            job.getProgressDone(),
+            job.getProgressTotal(),
+            job.getEta() == null ? null : Timestamp.from(job.getEta().toInstant()),
+            now(),
+            job.getId(),
+            getNodeId())
+        == 1;
+  }
+
+  /**
+   * Extends the leases on all unfinished jobs held by this node.
+   *
+   * @return number of leases extended
+   */
+  public int heartbeat() {
+    Timestamp now = now();
+    return jdbcTemplate.update(
+        "UPDATE jobs SET heartbeat_at = ?, lease_expires_at = ?"
+            + " WHERE lease_owner = ? AND status IN ('queued', 'running')",
+        now,
+        expiry(now),
+        getNodeId());
+  }
+
+  /**
+   * Cancels a job that is still waiting in the queue, before any node has claimed it.
+   *
+   * @param jobId id of the job
+   * @return true if the job was cancelled
+   */
+  public boolean cancelIfUnclaimed(long jobId) {
+    int updated =
+        jdbcTemplate.update(
+            "UPDATE jobs SET status = 'cancelled', cancel_requested = TRUE"
+                + " WHERE id = ? AND status = 'queued' AND lease_owner IS NULL",
+            jobId);
+    if (updated == 0) return false;
+    appendLogLine(jobId, "Job cancelled before it started");
+    return true;
+  }
+
+  /**
+   * Flags an unfinished job for cancellation by whichever node holds its lease.
+   *
+   * @param jobId id of the job
+   * @return true if the job was flagged, false if it has already finished
+   */
+  public boolean requestCancel(long jobId) {
+    return jdbcTemplate.update(
+            "UPDATE jobs SET cancel_requested = TRUE"
+                + " WHERE id = ? AND status IN ('queued', 'running')",
+            jobId)
+        == 1;
+  }
+
+  /**
+   * @param jobId id of the job
+   * @return true if the job has been flagged for cancellation
+   */
+  public boolean isCancelRequested(long jobId) {
+    return Boolean.TRUE.equals(
+        jdbcTemplate.queryForObject(
+            "SELECT cancel_requested FROM jobs WHERE id = ?", Boolean.class, jobId));
+  }
+
+  /**
+   * @return ids of the unfinished jobs held by this node that have been flagged for cancellation
+   */
+  public List<Long> findCancelRequested() {
+    return jdbcTemplate.queryForList(
+        "SELECT id FROM jobs WHERE lease_owner = ? AND cancel_requested"
+            + " AND status IN ('queued', 'running')",
+        Long.class,
+        getNodeId());
+  }
+
+  /**
+   * Finds unfinished jobs that no live node is running. Jobs whose lease has run out are put back
+   * in the queue if they are recoverable and have attempts left, are marked as cancelled if that
+   * was requested, and are marked as failed otherwise. Jobs that were never leased (submitted
+   * before leases existed) are marked as failed.
+   *
+   * @return number of jobs re-queued or failed
+   */
+  public int sweep() {
+    Timestamp now = now();
+    int swept = 0;
+
+    List<Orphan> expired =
+        jdbcTemplate.query(
+            "SELECT id, lease_owner, attempts, payload IS NOT NULL AS recoverable,"
+                + " cancel_requested FROM jobs"
+                + " WHERE status IN ('queued', 'running') AND lease_expires_at < ?",
+            (rs, i) ->
+                new Orphan(
+                    rs.getLong("id"),
+                    rs.getString("lease_owner"),
+                    rs.getInt("attempts"),
+                    rs.getBoolean("recoverable"),
+                    rs.getBoolean("cancel_requested")),
+            now);
+    for (Orphan orphan : expired) {
+      boolean retry =
+          orphan.recoverable() && orphan.attempts() < maxAttempts && !orphan.cancelRequested();
+      String status = retry ? "queued" : orphan.cancelRequested() ? "cancelled" : "error";
+      // the conditions on the lease make this a no-op if another node swept it, or its owner
+      // came back, in the meantime
+      int updated =
+          jdbcTemplate.update(
+              "UPDATE jobs SET status = ?, lease_owner = NULL, lease_expires_at = NULL"
+                  + " WHERE id = ? AND lease_owner = ? AND lease_expires_at < ?",
+              status,
+              orphan.id(),
+              orphan.leaseOwner(),
+              now);
+      if (updated == 1) {
+        appendLogLine(
+            orphan.id(),
+            switch (status) {
+              case "queued" ->
+                  "Lease held by %s expired; job re-queued (attempt %d of %d)"
+                      .formatted(orphan.leaseOwner(), orphan.attempts() + 1, maxAttempts);
+              case "cancelled" ->
+                  "Lease held by %s expired; job cancelled".formatted(orphan.leaseOwner());
+              default -> "Lease held by %s expired; job abandoned".formatted(orphan.leaseOwner());
+            });
+        swept++;
+      }
+    }
+
+    Timestamp unleasedBefore = new Timestamp(now.getTime() - leaseMs);
+    List<Long> unleased =
+        jdbcTemplate.queryForList(
+            "SELECT id FROM jobs WHERE status IN ('queued', 'running') AND lease_owner IS NULL"
+                + " AND payload IS NULL AND created_at < ?",
+            Long.class,
+            unleasedBefore);
+    for (Long id : unleased) {
+      int updated =
+          jdbcTemplate.update(
+              "UPDATE jobs SET status = 'error' WHERE id = ? AND lease_owner IS NULL"
+                  + " AND status IN ('queued', 'running')",
+              id);
+      if (updated == 1) {
+        appendLogLine(id, "Job was not running on any node; marked as failed");
+        swept++;
+      }
+    }
+
+    if (swept > 0) log.info("Swept {} orphaned jobs", swept);
+    return swept;
+  }
+
+  private void appendLogLine(long jobId, String message) {
+    jdbcTemplate.update(APPEND_LOG_LINE, jobId, message, jobId);
+  }
+
+  private synchronized boolean supportsSkipLocked() {
+    if (skipLocked == null) {
+      String product =
+          jdbcTemplate.execute(
+              (ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName());
+      skipLocked = "PostgreSQL".equalsIgnoreCase(product);
+    }
+    return skipLocked;
+  }
+
+  private Timestamp now() {
+    return Timestamp.from(Instant.now());
+  }
+
+  private Timestamp expiry(Timestamp now) {
+    return new Timestamp(now.getTime() + leaseMs);
+  }
+
+  private static String hostName() {
+    try {
+      return InetAddress.getLocalHost().getHostName();
+    } catch (UnknownHostException e) {
+      return "node";
+    }
+  }
+
+  private record Orphan(
+      long id, String leaseOwner, int attempts, boolean recoverable, boolean cancelRequested) {}
+}
@@ -0,0 +1,137 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Removes old jobs, and their log lines, from the database.
+ *
+ * <p>Only finished jobs are removed. A finished job is removed once it is older than {@code
+ * max-age-days}, or once there are more than {@code max-count} newer finished jobs. Failed jobs are
+ * instead kept for exactly {@code keep-failed-days}, so that there is time to look into them. A
+ * setting of 0 switches that rule off.
+ *
+ * <p>Rows are deleted by id in chunks of {@code chunk-size}, each in its own short transaction, so
+ * enforcing the policy never holds locks on a large part of the table. Log lines go with their job
+ * through the foreign key's {@code ON DELETE CASCADE}.
+ */
+@Slf4j
+@Component
+public class JobRetention {
+  static final String FINISHED = "status IN ('complete', 'error', 'rejected', 'cancelled')";
+
+  @Autowired private JdbcTemplate jdbcTemplate;
+
+  @Value("${app.jobs.retention.max-age-days:30}")
+  private int maxAgeDays = 30;
+
+  @Value("${app.jobs.retention.max-count:10000}")
+  private int maxCount = 10000;
+
+  @Value("${app.jobs.retention.keep-failed-days:90}")
+  private int keepFailedDays = 90;
+
+  @Value("${app.jobs.retention.chunk-size:1000}")
+  private int chunkSize = 1000;
+
+  private Boolean truncate;
+
+  /**
+   * Removes the finished jobs that the retention policy no longer keeps.
+   *
+   * @return number of jobs removed
+   */
+  @Scheduled(
+      initialDelayString = "${app.jobs.retention.interval-ms:3600000}",
+      fixedDelayString = "${app.jobs.retention.interval-ms:3600000}")
+  public int enforce() {
+    Instant now = Instant.now();
+    // failed jobs younger than keep-failed-days are not touched by either limit
+    String removable = FINISHED + " AND NOT (status = 'error' AND created_at >= ?)";
+    Timestamp failedCutoff = Timestamp.from(now.minus(Duration.ofDays(keepFailedDays)));
+
+    int deleted = 0;
+    if (keepFailedDays > 0) {
+      deleted += deleteInChunks("status = 'error' AND created_at < ?", failedCutoff);
+    }
+    if (maxAgeDays > 0) {
+      Timestamp ageCutoff = Timestamp.from(now.minus(Duration.ofDays(maxAgeDays)));
+      deleted += deleteInChunks(removable + " AND created_at < ?", failedCutoff, ageCutoff);
+    }
+    if (maxCount > 0) {
+      List<Long> cutoff =
+          jdbcTemplate.queryForList(
+              "SELECT id FROM jobs WHERE " + removable + " ORDER BY id DESC LIMIT 1 OFFSET ?",
+              Long.class,
+              failedCutoff,
+              maxCount);
+      if (!cutoff.isEmpty()) {
+        deleted += deleteInChunks(removable + " AND id <= ?", failedCutoff, cutoff.get(0));
+      }
+    }
+
+    if (deleted > 0) log.info("Retention policy removed {} jobs", deleted);
+    return deleted;
+  }
+
+  private int deleteInChunks(String where, Object... args) {
+    String select = "SELECT id FROM jobs WHERE " + where + " ORDER BY id LIMIT ?";
+    Object[] selectArgs = Stream.concat(Stream.of(args), Stream.of(chunkSize)).toArray();
+    int deleted = 0;
+    while (true) {
+      List<Long> ids = jdbcTemplate.queryForList(select, Long.class, selectArgs);
+      if (ids.isEmpty()) return deleted;
+      String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+      deleted +=
+          jdbcTemplate.update("DELETE FROM jobs WHERE id IN (" + placeholders + ")", ids.toArray());
+      if (ids.size() < chunkSize) return deleted;
+    }
+  }
+
+  /**
+   * Removes every finished job and its log lines. Jobs that are queued or running are kept, so that
+   * the node running one can still write its log and final status. On PostgreSQL, when every job
+   * has finished, both tables are truncated, which takes a brief exclusive lock instead of deleting
+   * row by row; otherwise the finished jobs are removed with a single bulk delete.
+   *
+   * @return number of jobs removed
+   */
+  @Transactional
+  public int deleteAll() {
+    if (supportsTruncate()) {
+      // the lock keeps the counts exact: no job can be added or claimed while they are used
+      jdbcTemplate.execute("LOCK TABLE jobs IN ACCESS EXCLUSIVE MODE");
+      Integer unfinished =
+          jdbcTemplate.queryForObject(
+              "SELECT COUNT(*) FROM jobs WHERE NOT (" + FINISHED + ")", Integer.class);
+      if (unfinished != null && unfinished == 0) {
+        Integer count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM jobs", Integer.class);
+        jdbcTemplate.execute("TRUNCATE TABLE job_log_lines, jobs");
+        return count == null ? 0 : count;
+      }
+    }
+    return jdbcTemplate.update("DELETE FROM jobs WHERE " + FINISHED);
+  }
+
+  private synchronized boolean supportsTruncate() {
+    if (truncate == null) {
+      String product =
+          jdbcTemplate.execute(
+              (ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName());
+      truncate = "PostgreSQL".equalsIgnoreCase(product);
+    }
+    return truncate;
+  }
+}
@@ -0,0 +1,68 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobSchedule;
+import edu.ucsb.cs156.example.repositories.JobSchedulesRepository;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.stereotype.Service;
+
+/**
+ * Starts the jobs of {@link JobSchedule}s when they are due.
+ *
+ * <p>Every node checks the schedules; each firing is claimed with a conditional update of the
+ * schedule row, so it runs on only one of them. A schedule that missed several firings (e.g. while
+ * all nodes were down) fires once, and then continues on its normal timetable.
+ */
+@Slf4j
+@Service
+public class JobScheduler {
+  @Autowired private JobSchedulesRepository jobSchedulesRepository;
+
+  @Autowired private JobService jobService;
+
+  /** Starts the jobs of all schedules that are due. */
+  @Scheduled(fixedDelayString = "${app.jobs.scheduler.tick-ms:10000}")
+  public void runDueSchedules() {
+    ZonedDateTime now = ZonedDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+    for (JobSchedule schedule :
+        jobSchedulesRepository.findByEnabledTrueAndNextRunAtLessThanEqual(now)) {
+      ZonedDateTime next = nextRunAfter(schedule, schedule.getNextRunAt(), now);
+      if (jobSchedulesRepository.claimFiring(schedule.getId(), schedule.getNextRunAt(), next, now)
+          == 0) {
+        continue;
+      }
+      try {
+        Job job = jobService.runAsJob(schedule.getJobType(), schedule.getPayload());
+        jobSchedulesRepository.setLastJobId(schedule.getId(), job.getId());
+      } catch (RuntimeException e) {
+        log.error("Schedule {} could not start its job: {}", schedule.getName(), e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Works out when a schedule runs next.
+   *
+   * @param schedule the schedule
+   * @param due the run that is due (for a fixed rate, the timetable is kept relative to it)
+   * @param now the current time
+   * @return the first run of the schedule after now
+   */
+  public ZonedDateTime nextRunAfter(JobSchedule schedule, ZonedDateTime due, ZonedDateTime now) {
+    if (schedule.getCron() != null) {
+      return CronExpression.parse(schedule.getCron()).next(now);
+    }
+    long rateMs = schedule.getFixedRateMs();
+    if (due == null || due.isAfter(now)) {
+      return now.plus(Duration.ofMillis(rateMs));
+    }
+    long runsMissed = Duration.between(due, now).toMillis() / rateMs;
+    return due.plus(Duration.ofMillis((runsMissed + 1) * rateMs));
+  }
+}
@@ -1,53 +1,413 @@
 package edu.ucsb.cs156.example.services.jobs;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import edu.ucsb.cs156.example.repositories.JobLogLinesRepository;
 import edu.ucsb.cs156.example.repositories.JobsRepository;
 import edu.ucsb.cs156.example.services.CurrentUserService;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.Limit;
 import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+/**
+ * Runs jobs and keeps track of them in the jobs table.
+ *
+ * <p>Jobs run on the {@code jobsExecutor} of the node that holds their lease (see {@link
+ * JobQueue}). {@link RecoverableJob}s are also stored as JSON, so any node can claim them when the
+ * submitting node is busy, and they are run again if the node running them dies.
+ */
+@Slf4j
 @Service
 public class JobService {
+  /** statuses a job does not leave; see also {@link JobRetention} */
+  private static final Set<String> FINISHED = Set.of("complete", "error", "rejected", "cancelled");
+
   @Autowired private JobsRepository jobsRepository;
 
+  @Autowired private JobLogLinesRepository jobLogLinesRepository;
+
+  @Autowired private JobLogWriter jobLogWriter;
+
+  @Autowired private JobLogPublisher jobLogPublisher;
+
   @Autowired private CurrentUserService currentUserService;
 
+  @Autowired private JobsExecutor jobsExecutor;
+
+  @Autowired private JobQueue jobQueue;
+
+  @Autowired private ObjectMapper objectMapper;
+
   @Lazy @Autowired private JobService self;
 
+  @Value("${app.jobs.log.stream-timeout-ms:1800000}")
+  private long streamTimeoutMs = 1800000;
+
+  @Value("${app.jobs.log.stream-page-size:500}")
+  private int streamPageSize = 500;
+
+  /** contexts of the jobs running on this node, by job id */
+  private final Map<Long, JobContext> runningContexts = new ConcurrentHashMap<>();
+
   public Job runAsJob(JobContextConsumer jobFunction) {
-    Job job = Job.builder().createdBy(currentUserService.getUser()).status("running").build();
+    String status = jobsExecutor.isSaturated() ? "queued" : "running";
+    Job job = Job.builder().createdBy(currentUserService.getUser()).status(status).build();
+    if (jobFunction instanceof RecoverableJob recoverableJob) {
+      setPayload(job, recoverableJob);
+    }
 
+    jobQueue.lease(job);
     jobsRepository.save(job);
-    self.runJobAsync(job, jobFunction);
+    try {
+      self.runJobAsync(job, jobFunction);
+    } catch (TaskRejectedException e) {
+      if (job.getPayload() != null) {
+        // leave it in the queue for a node with room (possibly this one, later)
+        jobQueue.release(job.getId());
+        job.setStatus("queued");
+        return job;
+      }
+      JobContext context = new JobContext(jobLogWriter, job);
+      context.log(e.getMessage());
+      context.flush();
+      job.setStatus("rejected");
+      finish(job);
+    }
 
     return job;
   }
 
-  @Async
+  /**
+   * Runs a job given as the class name and JSON of a {@link RecoverableJob}, e.g. one stored in a
+   * schedule.
+   *
+   * @param jobType class name of the job
+   * @param payload JSON of the job
+   * @return the job
+   * @throws IllegalArgumentException if the job cannot be restored
+   */
+  public Job runAsJob(String jobType, String payload) {
+    return runAsJob(readJob(jobType, payload));
+  }
+
+  @Async("jobsExecutor")
   public void runJobAsync(Job job, JobContextConsumer jobFunction) {
-    JobContext context = new JobContext(jobsRepository, job);
+    if (!"running".equals(job.getStatus())) {
+      // the job has been waiting, and may have been cancelled in the meantime
+      if (jobQueue.isCancelRequested(job.getId())) {
+        finishCancelledBeforeStart(job);
+        return;
+      }
+      job.setStatus("running");
+      jobsRepository.save(job);
+    }
+
+    // a job that is run again continues the log of the earlier attempt
+    int firstLine = job.getAttempts() > 1 ? jobLogLinesRepository.nextLineNumber(job.getId()) : 0;
+    JobContext context = new JobContext(jobLogWriter, jobLogPublisher, job, firstLine);
+    context.setRunner(Thread.currentThread());
+    runningContexts.put(job.getId(), context);
 
     try {
       jobFunction.accept(context);
+      job.setStatus("complete");
+    } catch (Throwable e) {
+      // the status is set first, so that it is written even if logging the failure fails
+      if (context.isCancelled()) {
+        job.setStatus("cancelled");
+        context.log("Job cancelled");
+      } else {
+        job.setStatus("error");
+        context.log(e instanceof Exception ? e.getMessage() : e.toString());
+      }
+      if (e instanceof Error error) {
+        throw error;
+      }
+    } finally {
+      context.setRunner(null);
+      // a cancel that arrived as the job finished must not interrupt whatever this thread does next
+      Thread.interrupted();
+      runningContexts.remove(job.getId());
+      try {
+        context.flush();
+      } catch (RuntimeException e) {
+        log.error("Could not write the last log lines of job {}", job.getId(), e);
+      }
+      finish(job);
+    }
+  }
+
+  /**
+   * Writes the final status of a job and ends the log streams of its viewers, unless this node has
+   * lost the lease on the job in the meantime, in which case the status is left to the new owner.
+   */
+  private void finish(Job job) {
+    if (!jobQueue.finish(job)) {
+      log.warn(
+          "Job {} ended as {}, but this node no longer holds its lease; status not written",
+          job.getId(),
+          job.getStatus());
+      return;
+    }
+    jobLogPublisher.complete(job.getId());
+  }
+
+  private void finishCancelledBeforeStart(Job job) {
+    JobContext context =
+        new JobContext(
+            jobLogWriter, jobLogPublisher, job, jobLogLinesRepository.nextLineNumber(job.getId()));
+    context.log("Job cancelled before it started");
+    context.flush();
+    job.setStatus("cancelled");
+    finish(job);
+  }
+
+  /**
+   * Cancels a job. A job still waiting in the database queue is cancelled straight away. Otherwise
+   * the job is flagged in the database, and the node holding it interrupts it: immediately if that
+   * is this node, else at that node's next heartbeat.
+   *
+   * @param jobId id of the job
+   * @return false if the job had already finished
+   */
+  public boolean cancelJob(long jobId) {
+    if (jobQueue.cancelIfUnclaimed(jobId)) {
+      jobLogPublisher.complete(jobId);
+      return true;
+    }
+    if (!jobQueue.requestCancel(jobId)) {
+      return false;
+    }
+    cancelLocally(jobId);
+    return true;
+  }
+
+  private void cancelLocally(long jobId) {
+    JobContext context = runningContexts.get(jobId);
+    if (context != null) {
+      context.cancel();
+    }
+  }
+
+  /** Claims queued jobs from the database for as long as this node has idle capacity. */
+  @Scheduled(fixedDelayString = "${app.jobs.queue.poll-interval-ms:5000}")
+  public void pollQueue() {
+    for (Long id : jobQueue.claim(jobsExecutor.getIdleCount())) {
+      jobsRepository.findById(id).ifPresent(this::runClaimedJob);
+    }
+  }
+
+  private void runClaimedJob(Job job) {
+    JobContextConsumer jobFunction;
+    try {
+      jobFunction = readJob(job.getJobType(), job.getPayload());
     } catch (Exception e) {
+      JobContext context =
+          new JobContext(
+              jobLogWriter,
+              jobLogPublisher,
+              job,
+              jobLogLinesRepository.nextLineNumber(job.getId()));
+      context.log("Cannot restore job of type %s: %s".formatted(job.getJobType(), e.getMessage()));
+      context.flush();
       job.setStatus("error");
-      context.log(e.getMessage());
+      finish(job);
       return;
     }
+    try {
+      self.runJobAsync(job, jobFunction);
+    } catch (TaskRejectedException e) {
+      jobQueue.release(job.getId());
+    }
+  }
 
-    job.setStatus("complete");
-    jobsRepository.save(job);
+  /**
+   * Extends the leases on the jobs this node is running or has queued, and cancels those of them
+   * that were cancelled on another node.
+   */
+  @Scheduled(fixedDelayString = "${app.jobs.queue.heartbeat-interval-ms:15000}")
+  public void heartbeat() {
+    jobQueue.heartbeat();
+    jobQueue.findCancelRequested().forEach(this::cancelLocally);
+  }
+
+  /**
+   * Re-queues or fails jobs left behind by nodes that died. Runs at startup and then periodically,
+   * so that the survivors pick up the jobs of a node that is not coming back.
+   */
+  @Scheduled(fixedDelayString = "${app.jobs.queue.sweep-interval-ms:30000}")
+  public void sweepOrphanedJobs() {
+    jobQueue.sweep();
   }
 
+  private void setPayload(Job job, RecoverableJob jobFunction) {
+    try {
+      job.setPayload(objectMapper.writeValueAsString(jobFunction));
+      job.setJobType(jobFunction.getClass().getName());
+    } catch (JsonProcessingException e) {
+      log.warn(
+          "Cannot serialize {}, it will not be recoverable: {}",
+          jobFunction.getClass().getName(),
+          e.getMessage());
+    }
+  }
+
+  /**
+   * Restores a {@link RecoverableJob} from its class name and JSON.
+   *
+   * @param jobType class name of the job
+   * @param payload JSON of the job
+   * @return the job
+   * @throws IllegalArgumentException if the class is not a RecoverableJob or the JSON does not fit
+   */
+  public JobContextConsumer readJob(String jobType, String payload) {
+    try {
+      Class<?> type = Class.forName(jobType);
+      if (!RecoverableJob.class.isAssignableFrom(type)) {
+        throw new IllegalArgumentException(type.getName() + " is not a RecoverableJob");
+      }
+      return (JobContextConsumer) objectMapper.readValue(payload, type);
+    } catch (ClassNotFoundException e) {
+      throw new IllegalArgumentException("Unknown job type " + jobType);
+    } catch (JsonProcessingException e) {
+      throw new IllegalArgumentException(
+          "Invalid JSON for %s: %s".formatted(jobType, e.getOriginalMessage()));
+    }
+  }
+
+  /**
+   * Flushes the log buffers of running jobs that have held lines for longer than the flush
+   * interval, and writes progress they have held back, so that output from jobs that report rarely
+   * still shows up promptly.
+   */
+  @Scheduled(fixedDelayString = "${app.jobs.log.flush-interval-ms:1000}")
+  public void flushJobLogs() {
+    runningContexts.values().forEach(JobContext::flushIfDue);
+  }
+
+  /**
+   * Reassembles the full log of a job. Jobs written before log lines were stored separately keep
+   * their output in the legacy {@code log} column, which comes first if present.
+   *
+   * @param jobId id of the job
+   * @return the log, one line per log message
+   */
+  @Transactional(readOnly = true)
   public String getJobLogs(Long jobId) {
     Job job =
         jobsRepository
             .findById(jobId)
             .orElseThrow(() -> new IllegalArgumentException("Job not found"));
 
-    String log = job.getLog();
-    return log != null ? log : "";
+    Stream<String> legacy = job.getLog() == null ? Stream.empty() : Stream.of(job.getLog());
+    try (Stream<JobLogLine> lines =
+        jobLogLinesRepository.streamAllByJobIdOrderByLineNumberAsc(jobId)) {
+      return Stream.concat(legacy, lines.map(JobLogLine::getMessage))
+          .collect(Collectors.joining("\n"));
+    }
+  }
+
+  /**
+   * Opens a Server-Sent Events stream of a job's log. The lines already logged are sent first, then
+   * new lines as they are logged; the stream ends with a {@code complete} event when the job
+   * finishes. Each line is sent with its line number as the event id, so a client reconnecting with
+   * {@code Last-Event-ID} only gets the lines after it.
+   *
+   * <p>The backlog is read and sent a page at a time on a separate thread, after the emitter has
+   * been returned. Whether the job has finished is read from the database after subscribing; the
+   * stream of a job that has not stays open until this node finishes the job or {@link
+   * #pollLogStreams()} sees it finished on another node.
+   *
+   * @param job the job
+   * @param fromLine first line number to send
+   * @return the emitter
+   */
+  public SseEmitter streamJobLogs(Job job, int fromLine) {
+    SseEmitter emitter = new SseEmitter(streamTimeoutMs);
+    JobLogPublisher.Subscription subscription =
+        jobLogPublisher.subscribe(job.getId(), emitter, fromLine);
+    jobLogPublisher.execute(
+        () -> {
+          try {
+            sendBacklog(job, fromLine, subscription);
+          } catch (RuntimeException e) {
+            log.warn("Cannot send the log of job {}: {}", job.getId(), e.getMessage());
+            emitter.completeWithError(e);
+          }
+        });
+    return emitter;
+  }
+
+  private void sendBacklog(Job job, int fromLine, JobLogPublisher.Subscription subscription) {
+    // read the status before the lines: a job writes all its lines before its final status
+    boolean finished = isFinished(job.getId());
+
+    // take the unflushed lines before reading the table: a line flushed in between is then seen
+    // twice (and sent once) rather than not at all
+    JobContext context = runningContexts.get(job.getId());
+    List<JobLogLine> buffered = context == null ? List.of() : context.getBufferedLines();
+
+    if (fromLine == 0 && job.getLog() != null) subscription.sendLegacy(job.getLog());
+    forEachStoredLine(job.getId(), fromLine, subscription::sendBacklog, subscription::isClosed);
+    buffered.forEach(subscription::sendBacklog);
+    subscription.goLive();
+
+    if (finished) {
+      subscription.complete();
+    }
+  }
+
+  /**
+   * Brings the log streams of jobs that are not running on this node up to date from the database,
+   * and ends them once the job has finished, so that viewers can follow jobs run by other nodes.
+   */
+  @Scheduled(fixedDelayString = "${app.jobs.log.stream-poll-interval-ms:2000}")
+  public void pollLogStreams() {
+    for (long jobId : jobLogPublisher.getWatchedJobIds()) {
+      int nextLine = jobLogPublisher.getNextLine(jobId);
+      if (nextLine < 0 || runningContexts.containsKey(jobId)) continue;
+      boolean finished = isFinished(jobId);
+      forEachStoredLine(jobId, nextLine, jobLogPublisher::publish, () -> false);
+      if (finished) {
+        jobLogPublisher.complete(jobId);
+      }
+    }
+  }
+
+  /** Hands the stored log lines of a job to a consumer, one page at a time. */
+  private void forEachStoredLine(
+      long jobId, int fromLine, Consumer<JobLogLine> consumer, BooleanSupplier stop) {
+    int next = fromLine;
+    List<JobLogLine> page;
+    do {
+      page =
+          jobLogLinesRepository.findByJobIdAndLineNumberGreaterThanEqualOrderByLineNumberAsc(
+              jobId, next, Limit.of(streamPageSize));
+      page.forEach(consumer);
+      if (!page.isEmpty()) next = page.getLast().getLineNumber() + 1;
+    } while (page.size() == streamPageSize && !stop.getAsBoolean());
+  }
+
+  /** A job that no longer exists counts as finished. */
+  private boolean isFinished(long jobId) {
+    return jobsRepository.findById(jobId).map(j -> FINISHED.contains(j.getStatus())).orElse(true);
   }
 }
@@ -0,0 +1,182 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskRejectedException;
+
+/**
+ * The executor that runs jobs (see {@link JobService#runJobAsync}).
+ *
+ * <p>At most {@code maxConcurrent} jobs run at once; further jobs wait in a backlog of at most
+ * {@code queueCapacity} entries, and jobs beyond that are rejected. Jobs run either on a new
+ * virtual thread each, or on a fixed pool of platform threads.
+ *
+ * <p>Queue depth, active count and rejection count are published as Micrometer gauges.
+ */
+@Slf4j
+public class JobsExecutor implements Executor, MeterBinder {
+  @Getter private final String mode;
+  @Getter private final int maxConcurrent;
+  @Getter private final int queueCapacity;
+
+  private final ExecutorService threads;
+  private final Deque<Runnable> queue = new ArrayDeque<>();
+  private int active = 0;
+  private final AtomicLong rejected = new AtomicLong();
+
+  private JobsExecutor(String mode, ExecutorService threads, int maxConcurrent, int queueCapacity) {
+    this.mode = mode;
+    this.threads = threads;
+    this.maxConcurrent = maxConcurrent;
+    this.queueCapacity = queueCapacity;
+  }
+
+  /**
+   * Creates an executor that starts a new virtual thread for every job.
+   *
+   * @param maxConcurrent maximum number of jobs running at once
+   * @param queueCapacity maximum number of jobs waiting to run
+   * @return the executor
+   */
+  public static JobsExecutor virtualThreads(int maxConcurrent, int queueCapacity) {
+    return new JobsExecutor(
+        "virtual",
+        Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("job-", 0).factory()),
+        maxConcurrent,
+        queueCapacity);
+  }
+
+  /**
+   * Creates an executor backed by a fixed pool of {@code maxConcurrent} platform threads.
+   *
+   * @param maxConcurrent maximum number of jobs running at once
+   * @param queueCapacity maximum number of jobs waiting to run
+   * @return the executor
+   */
+  public static JobsExecutor platformThreads(int maxConcurrent, int queueCapacity) {
+    return new JobsExecutor(
+        "platform",
+        Executors.newFixedThreadPool(maxConcurrent, Thread.ofPlatform().name("job-", 0).factory()),
+        maxConcurrent,
+        queueCapacity);
+  }
+
+  @Override
+  public void execute(Runnable task) {
+    synchronized (this) {
+      if (active >= maxConcurrent) {
+        if (queue.size() >= queueCapacity) {
+          rejected.incrementAndGet();
+          throw new TaskRejectedException(
+              "Job queue is full (%d running, %d queued)".formatted(active, queue.size()));
+        }
+        queue.add(task);
+        return;
+      }
+      active++;
+    }
+    start(task);
+  }
+
+  private void start(Runnable task) {
+    try {
+      threads.execute(() -> runThenStartNext(task));
+    } catch (RejectedExecutionException e) {
+      synchronized (this) {
+        active--;
+      }
+      rejected.incrementAndGet();
+      throw new TaskRejectedException("Jobs executor has been shut down", e);
+    }
+  }
+
+  private void runThenStartNext(Runnable task) {
+    try {
+      task.run();
+    } catch (RuntimeException e) {
+      log.error("Job failed with an uncaught exception", e);
+    } finally {
+      Runnable next;
+      synchronized (this) {
+        next = queue.poll();
+        if (next == null) active--;
+      }
+      if (next != null) startQueued(next);
+    }
+  }
+
+  private void startQueued(Runnable task) {
+    try {
+      start(task);
+    } catch (TaskRejectedException e) {
+      // nobody is left to tell on this thread; the job stays in the database for the sweep
+      log.warn("Dropping queued job: {}", e.getMessage());
+    }
+  }
+
+  /**
+   * @return true if a job submitted now would have to wait in the backlog
+   */
+  public synchronized boolean isSaturated() {
+    return active >= maxConcurrent;
+  }
+
+  /**
+   * @return number of jobs that could start right now without waiting
+   */
+  public synchronized int getIdleCount() {
+    return Math.max(0, maxConcurrent - active);
+  }
+
+  /**
+   * @return number of jobs currently running
+   */
+  public synchronized int getActiveCount() {
+    return active;
+  }
+
+  /**
+   * @return number of jobs waiting to run
+   */
+  public synchronized int getQueueDepth() {
+    return queue.size();
+  }
+
+  /**
+   * @return number of jobs rejected since startup
+   */
+  public long getRejectedCount() {
+    return rejected.get();
+  }
+
+  /** Stops accepting jobs; jobs already running are allowed to finish. */
+  public void shutdown() {
+    threads.shutdown();
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder("jobs.executor.queue.depth", this, JobsExecutor::getQueueDepth)
+        .description("Number of jobs waiting to run")
+        .tag("mode", mode)
+        .register(registry);
+    Gauge.builder("jobs.executor.active", this, JobsExecutor::getActiveCount)
+        .description("Number of jobs currently running")
+        .tag("mode", mode)
+        .register(registry);
+    Gauge.builder("jobs.executor.rejected", this, JobsExecutor::getRejectedCount)
+        .description("Number of jobs rejected because the queue was full")
+        .tag("mode", mode)
+        .register(registry);
+  }
+}
@@ -0,0 +1,12 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+/**
+ * A job that can be re-created from JSON.
+ *
+ * <p>{@link JobService#runAsJob} stores such jobs in the jobs table, so that any node can claim
+ * them from the queue, and so that they are run again if the node running them dies. Jobs are
+ * serialized with Jackson, so they need a no-argument constructor and getters for their fields.
+ * Jobs that do not implement this interface (e.g. lambdas) only run on the node that submitted them
+ * and are marked as failed if it dies.
+ */
+public interface RecoverableJob extends JobContextConsumer {}
@@ -4,6 +4,9 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.ucsb.cs156.example.services.CurrentUserService;
 import edu.ucsb.cs156.example.services.GrantedAuthoritiesService;
+import edu.ucsb.cs156.example.services.TableVersionService;
+import edu.ucsb.cs156.example.services.UserProvisioningService;
+import edu.ucsb.cs156.example.services.UserRolesService;
 import edu.ucsb.cs156.example.services.wiremock.WiremockService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import java.io.UnsupportedEncodingException;
@@ -28,6 +31,12 @@ public abstract class ControllerTestCase {
 
   @MockitoBean WiremockService mockWiremockService;
 
+  @MockitoBean public TableVersionService tableVersionService;
+
+  @MockitoBean public UserRolesService userRolesService;
+
+  @MockitoBean public UserProvisioningService userProvisioningService;
+
   protected Map<String, Object> responseToJson(MvcResult result)
       throws UnsupportedEncodingException, JsonProcessingException {
     String responseString = result.getResponse().getContentAsString();
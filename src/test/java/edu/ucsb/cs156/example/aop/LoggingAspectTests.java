@@ -0,0 +1,142 @@
+package edu.ucsb.cs156.example.aop;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import edu.ucsb.cs156.example.controllers.FrontendProxyController;
+import edu.ucsb.cs156.example.controllers.HelpRequestController;
+import jakarta.persistence.EntityNotFoundException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.Signature;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import org.slf4j.event.KeyValuePair;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+public class LoggingAspectTests {
+
+  private final LoggingAspect loggingAspect = new LoggingAspect();
+
+  private final ListAppender<ILoggingEvent> appender = new ListAppender<>();
+
+  private final Logger logger = (Logger) LoggerFactory.getLogger(LoggingAspect.class);
+
+  @BeforeEach
+  public void setup() {
+    ReflectionTestUtils.setField(
+        loggingAspect, "stoplist", Set.of(FrontendProxyController.class.getName()));
+    appender.start();
+    logger.addAppender(appender);
+    RequestContextHolder.setRequestAttributes(
+        new ServletRequestAttributes(
+            new MockHttpServletRequest("GET", "/api/helprequests"), new MockHttpServletResponse()));
+  }
+
+  @AfterEach
+  public void cleanup() {
+    logger.detachAppender(appender);
+    RequestContextHolder.resetRequestAttributes();
+  }
+
+  private static ProceedingJoinPoint joinPoint(Class<?> type, String method) {
+    Signature signature = mock(Signature.class);
+    when(signature.getDeclaringType()).thenReturn(type);
+    when(signature.getName()).thenReturn(method);
+    ProceedingJoinPoint joinPoint = mock(ProceedingJoinPoint.class);
+    when(joinPoint.getSignature()).thenReturn(signature);
+    return joinPoint;
+  }
+
+  private static Map<String, String> keyValues(ILoggingEvent event) {
+    Map<String, String> keyValues = new LinkedHashMap<>();
+    for (KeyValuePair pair : event.getKeyValuePairs()) {
+      keyValues.put(pair.key, String.valueOf(pair.value));
+    }
+    return keyValues;
+  }
+
+  @Test
+  public void an_invocation_is_logged_as_key_values() throws Throwable {
+    // arrange
+    ProceedingJoinPoint joinPoint = joinPoint(HelpRequestController.class, "allHelpRequests");
+    ResponseEntity<String> response = ResponseEntity.status(201).body("created");
+    when(joinPoint.proceed()).thenReturn(response);
+
+    // act
+    Object result = loggingAspect.logControllers(joinPoint);
+
+    // assert
+    assertSame(response, result);
+    assertEquals(1, appender.list.size());
+    Map<String, String> keyValues = keyValues(appender.list.get(0));
+    assertEquals("GET", keyValues.get("method"));
+    assertEquals("/api/helprequests", keyValues.get("uri"));
+    assertEquals(
+        HelpRequestController.class.getName() + ".allHelpRequests", keyValues.get("handler"));
+    assertEquals("201", keyValues.get("status"));
+    assertEquals(true, keyValues.containsKey("latency_us"));
+  }
+
+  @Test
+  public void controllers_in_the_stoplist_are_not_logged() throws Throwable {
+    // arrange
+    ProceedingJoinPoint joinPoint = joinPoint(FrontendProxyController.class, "proxy");
+    when(joinPoint.proceed()).thenReturn("index");
+
+    // act
+    Object result = loggingAspect.logControllers(joinPoint);
+
+    // assert
+    assertEquals("index", result);
+    assertEquals(0, appender.list.size());
+  }
+
+  @Test
+  public void unsampled_invocations_are_not_logged_unless_they_fail() throws Throwable {
+    // arrange
+    ReflectionTestUtils.setField(loggingAspect, "sampleRate", 0.0);
+    ProceedingJoinPoint succeeds = joinPoint(HelpRequestController.class, "allHelpRequests");
+    when(succeeds.proceed()).thenReturn("ok");
+    ProceedingJoinPoint fails = joinPoint(HelpRequestController.class, "getById");
+    when(fails.proceed()).thenThrow(new EntityNotFoundException());
+
+    // act
+    loggingAspect.logControllers(succeeds);
+    assertThrows(EntityNotFoundException.class, () -> loggingAspect.logControllers(fails));
+
+    // assert
+    assertEquals(1, appender.list.size());
+    Map<String, String> keyValues = keyValues(appender.list.get(0));
+    assertEquals(EntityNotFoundException.class.getName(), keyValues.get("error"));
+    assertEquals(HelpRequestController.class.getName() + ".getById", keyValues.get("handler"));
+  }
+
+  @Test
+  public void invocations_outside_of_a_request_are_not_logged() throws Throwable {
+    // arrange
+    RequestContextHolder.resetRequestAttributes();
+    ProceedingJoinPoint joinPoint = joinPoint(HelpRequestController.class, "allHelpRequests");
+    when(joinPoint.proceed()).thenReturn("ok");
+
+    // act
+    loggingAspect.logControllers(joinPoint);
+
+    // assert
+    assertEquals(0, appender.list.size());
+  }
+}
@@ -0,0 +1,133 @@
+package edu.ucsb.cs156.example.benchmarks;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.services.ExportService;
+import edu.ucsb.cs156.example.services.wiremock.WiremockService;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Compares the peak heap used to send every menu item review with the old {@code /all} approach
+ * (load the whole table with {@code findAll()} and serialize the list) against streaming NDJSON
+ * through {@link ExportService}.
+ *
+ * <p>Not part of the regular test run (the class name does not match the surefire includes). The
+ * default of 1,000,000 rows needs a larger heap than the default, e.g.: {@code mvn test
+ * -Dtest=ExportBenchmark -DargLine=-Xmx3g}. Use {@code -Drows=...} for a smaller table.
+ *
+ * <p>H2 keeps a reference per result row even when streaming (about 40 bytes a row), so the
+ * streamed figure still grows slowly with the table here; on PostgreSQL the fetch size turns the
+ * query into a server-side cursor.
+ */
+@Slf4j
+@DataJpaTest
+@Import(ExportService.class)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ExportBenchmark {
+  private static final int ROWS = Integer.getInteger("rows", 1_000_000);
+
+  @Autowired MenuItemReviewRepository menuItemReviewRepository;
+
+  @Autowired ExportService exportService;
+
+  @Autowired ObjectMapper mapper;
+
+  @Autowired JdbcTemplate jdbcTemplate;
+
+  @MockitoBean WiremockService mockWiremockService;
+
+  @Test
+  public void streaming_export_uses_less_heap_than_findAll() {
+    insertReviews();
+
+    long findAllMb =
+        peakHeapMbDuring(
+            () -> {
+              try {
+                mapper.writeValue(
+                    OutputStream.nullOutputStream(), menuItemReviewRepository.findAll());
+              } catch (IOException e) {
+                throw new UncheckedIOException(e);
+              }
+            });
+
+    long[] exported = new long[1];
+    long streamedMb =
+        peakHeapMbDuring(
+            () -> {
+              try {
+                exported[0] =
+                    exportService.write(
+                        menuItemReviewRepository::streamAllBy, OutputStream.nullOutputStream());
+              } catch (IOException e) {
+                throw new UncheckedIOException(e);
+              }
+            });
+
+    log.warn(
+        "{} menu item reviews: findAll old gen peak +{} MB, streamed NDJSON old gen peak +{} MB",
+        ROWS,
+        findAllMb,
+        streamedMb);
+    assertEquals(ROWS, exported[0]);
+    assertTrue(streamedMb < findAllMb);
+  }
+
+  private void insertReviews() {
+    Timestamp reviewed = Timestamp.valueOf(LocalDateTime.parse("2022-01-03T00:00:00"));
+    List<Object[]> batch = new ArrayList<>();
+    for (int i = 0; i < ROWS; i++) {
+      batch.add(new Object[] {i, "cgaucho@ucsb.edu", i % 5 + 1, reviewed, "review " + i});
+      if (batch.size() == 10_000 || i == ROWS - 1) {
+        jdbcTemplate.batchUpdate(
+            "INSERT INTO menuitemreviews (item_id, reviewer_email, stars, date_reviewed, comments)"
+                + " VALUES (?, ?, ?, ?, ?)",
+            batch);
+        batch.clear();
+      }
+    }
+  }
+
+  /**
+   * Runs r and returns how far the old generation grew above what was live before it started.
+   * Short-lived garbage dies young, so this counts what r kept reachable, e.g. a loaded table.
+   */
+  private static long peakHeapMbDuring(Runnable r) {
+    List<MemoryPoolMXBean> heapPools =
+        ManagementFactory.getMemoryPoolMXBeans().stream()
+            .filter(pool -> pool.getType() == MemoryType.HEAP)
+            .filter(pool -> pool.getName().contains("Old") || pool.getName().contains("Tenured"))
+            .toList();
+    System.gc();
+    long before = heapPools.stream().mapToLong(pool -> pool.getUsage().getUsed()).sum();
+    heapPools.forEach(MemoryPoolMXBean::resetPeakUsage);
+    r.run();
+    long peak = heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+    System.gc();
+    return (peak - before) / (1024 * 1024);
+  }
+}
@@ -0,0 +1,81 @@
+package edu.ucsb.cs156.example.benchmarks;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import edu.ucsb.cs156.example.services.jobs.JobContext;
+import edu.ucsb.cs156.example.services.jobs.JobLogWriter;
+import edu.ucsb.cs156.example.services.wiremock.WiremockService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Compares writing 10,000 job log lines with the old approach (append to Job.log and save the job
+ * after every line) against buffered, batched inserts into job_log_lines.
+ *
+ * <p>Not part of the regular test run (the class name does not match the surefire includes). Run it
+ * with: {@code mvn test -Dtest=JobLogBenchmark}
+ */
+@Slf4j
+@DataJpaTest
+@Import(JobLogWriter.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class JobLogBenchmark {
+  private static final int LINES = 10_000;
+
+  @Autowired JobsRepository jobsRepository;
+
+  @Autowired JobLogWriter jobLogWriter;
+
+  @MockitoBean WiremockService mockWiremockService;
+
+  @Test
+  public void batched_log_lines_are_faster_than_saving_the_job_per_line() {
+    long perLineSaveMs =
+        time(
+            () -> {
+              Job job = jobsRepository.save(Job.builder().status("running").build());
+              for (int i = 0; i < LINES; i++) {
+                String previousLog = job.getLog() == null ? "" : (job.getLog() + "\n");
+                job.setLog(previousLog + line(i));
+                jobsRepository.save(job);
+              }
+            });
+
+    long batchedMs =
+        time(
+            () -> {
+              Job job = jobsRepository.save(Job.builder().status("running").build());
+              JobContext ctx = new JobContext(jobLogWriter, job);
+              for (int i = 0; i < LINES; i++) {
+                ctx.log(line(i));
+              }
+              ctx.flush();
+            });
+
+    log.warn(
+        "{} log lines: per-line save {} ms, batched (flush-size {}) {} ms",
+        LINES,
+        perLineSaveMs,
+        jobLogWriter.getFlushSize(),
+        batchedMs);
+    assertTrue(batchedMs < perLineSaveMs);
+  }
+
+  private static String line(int i) {
+    return "benchmark line %05d".formatted(i);
+  }
+
+  private static long time(Runnable r) {
+    long start = System.nanoTime();
+    r.run();
+    return (System.nanoTime() - start) / 1_000_000;
+  }
+}
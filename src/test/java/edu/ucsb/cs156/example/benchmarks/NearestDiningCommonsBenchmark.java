@@ -0,0 +1,151 @@
+package edu.ucsb.cs156.example.benchmarks;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.services.NearestDiningCommonsService;
+import edu.ucsb.cs156.example.services.TableVersionService;
+import edu.ucsb.cs156.example.services.wiremock.WiremockService;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.StreamSupport;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Compares finding the 5 dining commons nearest to a point with the in-memory index of {@link
+ * NearestDiningCommonsService} against reading the whole table and sorting it by distance.
+ *
+ * <p>Not part of the regular test run (the class name does not match the surefire includes). Run it
+ * with: {@code mvn test -Dtest=NearestDiningCommonsBenchmark}. Use {@code -Drows=...} for a
+ * different number of commons.
+ */
+@Slf4j
+@DataJpaTest
+@Import({NearestDiningCommonsService.class, TableVersionService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class NearestDiningCommonsBenchmark {
+  private static final int ROWS = Integer.getInteger("rows", 10_000);
+
+  private static final int INDEX_QUERIES = 10_000;
+
+  private static final int SCAN_QUERIES = 20;
+
+  private static final int K = 5;
+
+  @Autowired NearestDiningCommonsService nearestDiningCommonsService;
+
+  @Autowired UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
+
+  @Autowired JdbcTemplate jdbcTemplate;
+
+  @MockitoBean WiremockService mockWiremockService;
+
+  @Test
+  public void the_index_is_faster_than_scanning_the_table() {
+    Random random = new Random(42);
+    insertCommons(random);
+    nearestDiningCommonsService.refresh();
+
+    double[][] points = new double[INDEX_QUERIES][];
+    for (int i = 0; i < INDEX_QUERIES; i++) {
+      points[i] = randomPoint(random);
+    }
+
+    // warm up both, and check that they agree
+    for (int i = 0; i < SCAN_QUERIES; i++) {
+      assertEquals(scan(points[i]), index(points[i]));
+    }
+
+    long indexNanos =
+        time(
+            () -> {
+              for (double[] point : points) {
+                index(point);
+              }
+            });
+    long scanNanos =
+        time(
+            () -> {
+              for (int i = 0; i < SCAN_QUERIES; i++) {
+                scan(points[i]);
+              }
+            });
+
+    double indexMicros = indexNanos / 1000.0 / INDEX_QUERIES;
+    double scanMicros = scanNanos / 1000.0 / SCAN_QUERIES;
+    log.warn(
+        "{} nearest of {} commons: index {} us/query, table scan {} us/query",
+        K,
+        ROWS,
+        "%.1f".formatted(indexMicros),
+        "%.1f".formatted(scanMicros));
+    assertTrue(indexMicros < scanMicros);
+  }
+
+  private List<String> index(double[] point) {
+    return nearestDiningCommonsService.nearest(point[0], point[1], K).stream()
+        .map(n -> n.getCommons().getCode())
+        .toList();
+  }
+
+  private List<String> scan(double[] point) {
+    return StreamSupport.stream(ucsbDiningCommonsRepository.findAll().spliterator(), false)
+        .sorted(
+            Comparator.comparingDouble(
+                    (UCSBDiningCommons c) ->
+                        haversine(point[0], point[1], c.getLatitude(), c.getLongitude()))
+                .thenComparing(UCSBDiningCommons::getCode))
+        .limit(K)
+        .map(UCSBDiningCommons::getCode)
+        .toList();
+  }
+
+  private void insertCommons(Random random) {
+    List<Object[]> rows = new ArrayList<>();
+    for (int i = 0; i < ROWS; i++) {
+      double[] point = randomPoint(random);
+      rows.add(new Object[] {"commons-%06d".formatted(i), "Commons " + i, point[0], point[1]});
+    }
+    jdbcTemplate.batchUpdate(
+        "INSERT INTO ucsbdiningcommons (code, name, has_sack_meal, has_take_out_meal,"
+            + " has_dining_cam, latitude, longitude) VALUES (?, ?, false, false, false, ?, ?)",
+        rows);
+    // the rows were not inserted through the entities, so make refresh() see them
+    jdbcTemplate.update(
+        "UPDATE table_versions SET version = version + 1 WHERE table_name = 'ucsbdiningcommons'");
+  }
+
+  /** a point in and around Isla Vista, so that neighbours are close together */
+  private static double[] randomPoint(Random random) {
+    return new double[] {34.40 + random.nextDouble() * 0.03, -119.88 + random.nextDouble() * 0.05};
+  }
+
+  private static double haversine(double lat1, double lon1, double lat2, double lon2) {
+    double dLat = Math.toRadians(lat2 - lat1);
+    double dLon = Math.toRadians(lon2 - lon1);
+    double a =
+        Math.pow(Math.sin(dLat / 2), 2)
+            + Math.cos(Math.toRadians(lat1))
+                * Math.cos(Math.toRadians(lat2))
+                * Math.pow(Math.sin(dLon / 2), 2);
+    return Math.asin(Math.sqrt(a));
+  }
+
+  private static long time(Runnable r) {
+    long start = System.nanoTime();
+    r.run();
+    return System.nanoTime() - start;
+  }
+}
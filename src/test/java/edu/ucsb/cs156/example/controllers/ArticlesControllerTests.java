@@ -15,12 +15,15 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.Articles;
+import edu.ucsb.cs156.example.models.BulkResult;
 import edu.ucsb.cs156.example.repositories.ArticlesRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.BulkService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import org.junit.jupiter.api.Test;
@@ -37,6 +40,8 @@ public class ArticlesControllerTests extends ControllerTestCase {
 
   @MockBean ArticlesRepository articlesRepository;
 
+  @MockBean BulkService bulkService;
+
   @MockBean UserRepository userRepository;
 
   @Test
@@ -49,6 +54,7 @@ public class ArticlesControllerTests extends ControllerTestCase {
   @WithMockUser(roles = {"USER"})
   @Test
   public void logged_in_users_can_get_all() throws Exception {
+    when(articlesRepository.findAll()).thenReturn(List.of());
     mockMvc.perform(get("/api/articles/all")).andExpect(status().is(200)); // logged
   }
 
@@ -332,4 +338,171 @@ public class ArticlesControllerTests extends ControllerTestCase {
     Map<String, Object> json = responseToJson(response);
     assertEquals("Articles with id 15 not found", json.get("message"));
   }
+
+  // Tests for POST, PUT and DELETE /api/articles/bulk
+
+  @Test
+  public void logged_out_users_cannot_post_bulk() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/articles/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_post_bulk() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/articles/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_post_many_articles_at_once() throws Exception {
+    // arrange
+    List<Articles> incoming =
+        List.of(
+            Articles.builder().title("Bulk 1").url("https://example.org/1").build(),
+            Articles.builder().title("Bulk 2").url("https://example.org/2").build());
+    BulkResult bulkResult =
+        BulkResult.builder()
+            .succeeded(1)
+            .failed(1)
+            .results(List.of(new BulkResult.Item(1L, 201), new BulkResult.Item(2L, 404)))
+            .build();
+    when(bulkService.create(eq(articlesRepository), eq(incoming))).thenReturn(bulkResult);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/articles/bulk")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(incoming)))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(bulkService, times(1)).create(articlesRepository, incoming);
+    assertEquals(
+        mapper.writeValueAsString(bulkResult), response.getResponse().getContentAsString());
+  }
+
+  @Test
+  public void logged_out_users_cannot_put_bulk() throws Exception {
+    mockMvc
+        .perform(
+            put("/api/articles/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_put_bulk() throws Exception {
+    mockMvc
+        .perform(
+            put("/api/articles/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_put_many_articles_at_once() throws Exception {
+    // arrange
+    List<Articles> incoming =
+        List.of(
+            Articles.builder().title("Bulk 1").url("https://example.org/1").id(1).build(),
+            Articles.builder().title("Bulk 2").url("https://example.org/2").id(2).build());
+    BulkResult bulkResult =
+        BulkResult.builder()
+            .succeeded(1)
+            .failed(1)
+            .results(List.of(new BulkResult.Item(1L, 200), new BulkResult.Item(2L, 404)))
+            .build();
+    when(bulkService.update(eq(articlesRepository), eq(incoming))).thenReturn(bulkResult);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/articles/bulk")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(incoming)))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(bulkService, times(1)).update(articlesRepository, incoming);
+    assertEquals(
+        mapper.writeValueAsString(bulkResult), response.getResponse().getContentAsString());
+  }
+
+  @Test
+  public void logged_out_users_cannot_delete_bulk() throws Exception {
+    mockMvc
+        .perform(
+            delete("/api/articles/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_delete_bulk() throws Exception {
+    mockMvc
+        .perform(
+            delete("/api/articles/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_delete_many_articles_at_once() throws Exception {
+    // arrange
+    List<Long> ids = List.of(1L, 2L);
+    BulkResult bulkResult =
+        BulkResult.builder()
+            .succeeded(1)
+            .failed(1)
+            .results(List.of(new BulkResult.Item(1L, 200), new BulkResult.Item(2L, 404)))
+            .build();
+    when(bulkService.delete(eq(articlesRepository), eq(ids))).thenReturn(bulkResult);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                delete("/api/articles/bulk")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(ids)))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(bulkService, times(1)).delete(articlesRepository, ids);
+    assertEquals(
+        mapper.writeValueAsString(bulkResult), response.getResponse().getContentAsString());
+  }
 }
@@ -9,25 +9,38 @@ import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.models.BulkResult;
 import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.BulkService;
+import edu.ucsb.cs156.example.services.ExportService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
 
@@ -37,8 +50,12 @@ public class HelpRequestControllerTests extends ControllerTestCase {
 
   @MockBean HelpRequestRepository helpRequestRepository;
 
+  @MockBean BulkService bulkService;
+
   @MockBean UserRepository userRepository;
 
+  @MockBean ExportService exportService;
+
   // test for GET /api/helprequest/all
 
   @WithMockUser(roles = {"USER"})
@@ -340,4 +357,399 @@ public class HelpRequestControllerTests extends ControllerTestCase {
     assertEquals("EntityNotFoundException", json.get("type"));
     assertEquals("HelpRequest with id 67 not found", json.get("message"));
   }
+
+  // Tests for /api/helprequest/export
+
+  @Test
+  public void logged_out_users_cannot_export() throws Exception {
+    mockMvc.perform(get("/api/helprequest/export")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  @SuppressWarnings("unchecked")
+  public void logged_in_users_can_export_all_rows() throws Exception {
+    // arrange
+    when(exportService.ndjson(eq("helprequests.ndjson"), any()))
+        .thenReturn(ResponseEntity.ok().body(out -> out.write("{}\n".getBytes())));
+
+    // act
+    mockMvc.perform(get("/api/helprequest/export")).andExpect(status().isOk());
+
+    // assert
+    ArgumentCaptor<Supplier<Stream<HelpRequest>>> rows = ArgumentCaptor.forClass(Supplier.class);
+    verify(exportService).ndjson(eq("helprequests.ndjson"), rows.capture());
+    rows.getValue().get();
+    verify(helpRequestRepository).streamAllBy();
+  }
+
+  // Tests for POST, PUT and DELETE /api/helprequest/bulk
+
+  @Test
+  public void logged_out_users_cannot_get_by_lookup_column() throws Exception {
+    mockMvc
+        .perform(get("/api/helprequest/byrequester?requesterEmail=test1@ucsb.edu"))
+        .andExpect(status().is(403));
+    mockMvc.perform(get("/api/helprequest/byteam?teamId=f25-01")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_users_can_get_help_requests_by_requester() throws Exception {
+    // arrange
+    List<HelpRequest> expected =
+        List.of(
+            HelpRequest.builder()
+                .requesterEmail("test1@ucsb.edu")
+                .teamId("f25-01")
+                .tableOrBreakoutRoom("Table 7")
+                .build());
+    when(helpRequestRepository.findAllByRequesterEmail(eq("test1@ucsb.edu"))).thenReturn(expected);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/helprequest/byrequester?requesterEmail=test1@ucsb.edu"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(helpRequestRepository, times(1)).findAllByRequesterEmail("test1@ucsb.edu");
+    assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_users_can_get_help_requests_by_team() throws Exception {
+    // arrange
+    List<HelpRequest> expected =
+        List.of(
+            HelpRequest.builder()
+                .requesterEmail("test1@ucsb.edu")
+                .teamId("f25-01")
+                .tableOrBreakoutRoom("Table 7")
+                .build());
+    when(helpRequestRepository.findAllByTeamId(eq("f25-01"))).thenReturn(expected);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/helprequest/byteam?teamId=f25-01"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(helpRequestRepository, times(1)).findAllByTeamId("f25-01");
+    assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+  }
+
+  // tests for GET /api/helprequest/queue and PATCH /api/helprequest/solve
+
+  @Test
+  public void logged_out_users_cannot_get_the_queue_or_solve() throws Exception {
+    mockMvc.perform(get("/api/helprequest/queue")).andExpect(status().is(403));
+    mockMvc.perform(patch("/api/helprequest/solve?id=7").with(csrf())).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_users_get_the_start_of_the_queue() throws Exception {
+    // arrange
+    List<HelpRequest> expected =
+        List.of(
+            HelpRequest.builder()
+                .id(7)
+                .teamId("f25-01")
+                .requestTime(LocalDateTime.parse("2025-10-01T10:00:00"))
+                .build(),
+            HelpRequest.builder()
+                .id(3)
+                .teamId("f25-02")
+                .requestTime(LocalDateTime.parse("2025-10-01T10:05:30"))
+                .build());
+    when(helpRequestRepository.findQueue(ScrollPosition.keyset(), Limit.of(2)))
+        .thenReturn(Window.from(expected, i -> ScrollPosition.keyset(), true));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/helprequest/queue?size=2"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(ApiController.HAS_NEXT_HEADER, "true"))
+            .andExpect(header().string(ApiController.NEXT_CURSOR_HEADER, "2025-10-01T10:05:30,3"))
+            .andReturn();
+
+    // assert
+    assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void the_queue_continues_after_the_cursor() throws Exception {
+    // arrange
+    when(helpRequestRepository.findQueue(any(), any()))
+        .thenReturn(Window.from(List.of(), i -> ScrollPosition.keyset(), false));
+
+    // act
+    mockMvc
+        .perform(get("/api/helprequest/queue?after=2025-10-01T10:05:30,3"))
+        .andExpect(status().isOk())
+        .andExpect(header().string(ApiController.HAS_NEXT_HEADER, "false"))
+        .andExpect(header().doesNotExist(ApiController.NEXT_CURSOR_HEADER));
+
+    // assert
+    verify(helpRequestRepository, times(1))
+        .findQueue(
+            ScrollPosition.forward(
+                Map.of("requestTime", LocalDateTime.parse("2025-10-01T10:05:30"), "id", 3L)),
+            Limit.of(50));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void the_queue_rejects_bad_cursors_and_sizes() throws Exception {
+    for (String after : List.of("3", "yesterday,3", "2025-10-01T10:05:30,three", "a,b,c")) {
+      MvcResult response =
+          mockMvc
+              .perform(get("/api/helprequest/queue").param("after", after))
+              .andExpect(status().isBadRequest())
+              .andReturn();
+      assertEquals("Invalid cursor " + after, responseToJson(response).get("message"));
+    }
+
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/helprequest/queue?size=1001"))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+    assertEquals(
+        "size must be between 1 and 1000, got 1001", responseToJson(response).get("message"));
+    mockMvc.perform(get("/api/helprequest/queue?size=0")).andExpect(status().isBadRequest());
+    verify(helpRequestRepository, times(0)).findQueue(any(), any());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_users_can_solve_a_help_request() throws Exception {
+    // arrange
+    when(helpRequestRepository.setSolved(7L, true)).thenReturn(1);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(patch("/api/helprequest/solve?id=7").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(helpRequestRepository, times(1)).setSolved(7L, true);
+    verify(helpRequestRepository, times(0)).findById(any());
+    verify(helpRequestRepository, times(0)).save(any());
+    verify(tableVersionService, times(1)).changed(HelpRequest.class);
+    assertEquals("HelpRequest with id 7 marked solved", responseToJson(response).get("message"));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_users_can_mark_a_help_request_unsolved() throws Exception {
+    // arrange
+    when(helpRequestRepository.setSolved(7L, false)).thenReturn(1);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(patch("/api/helprequest/solve?id=7&solved=false").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    assertEquals("HelpRequest with id 7 marked unsolved", responseToJson(response).get("message"));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void solving_a_help_request_that_does_not_exist_gives_404() throws Exception {
+    // arrange
+    when(helpRequestRepository.setSolved(15L, true)).thenReturn(0);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(patch("/api/helprequest/solve?id=15").with(csrf()))
+            .andExpect(status().isNotFound())
+            .andReturn();
+
+    // assert
+    verify(tableVersionService, times(0)).changed(any());
+    assertEquals("HelpRequest with id 15 not found", responseToJson(response).get("message"));
+  }
+
+  @Test
+  public void logged_out_users_cannot_post_bulk() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/helprequest/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_post_bulk() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/helprequest/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_post_many_help_requests_at_once() throws Exception {
+    // arrange
+    List<HelpRequest> incoming =
+        List.of(
+            HelpRequest.builder().requesterEmail("student1@ucsb.edu").teamId("f25-1").build(),
+            HelpRequest.builder().requesterEmail("student2@ucsb.edu").teamId("f25-2").build());
+    BulkResult bulkResult =
+        BulkResult.builder()
+            .succeeded(1)
+            .failed(1)
+            .results(List.of(new BulkResult.Item(1L, 201), new BulkResult.Item(2L, 404)))
+            .build();
+    when(bulkService.create(eq(helpRequestRepository), eq(incoming))).thenReturn(bulkResult);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/helprequest/bulk")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(incoming)))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(bulkService, times(1)).create(helpRequestRepository, incoming);
+    assertEquals(
+        mapper.writeValueAsString(bulkResult), response.getResponse().getContentAsString());
+  }
+
+  @Test
+  public void logged_out_users_cannot_put_bulk() throws Exception {
+    mockMvc
+        .perform(
+            put("/api/helprequest/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_put_bulk() throws Exception {
+    mockMvc
+        .perform(
+            put("/api/helprequest/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_put_many_help_requests_at_once() throws Exception {
+    // arrange
+    List<HelpRequest> incoming =
+        List.of(
+            HelpRequest.builder().requesterEmail("student1@ucsb.edu").teamId("f25-1").id(1).build(),
+            HelpRequest.builder()
+                .requesterEmail("student2@ucsb.edu")
+                .teamId("f25-2")
+                .id(2)
+                .build());
+    BulkResult bulkResult =
+        BulkResult.builder()
+            .succeeded(1)
+            .failed(1)
+            .results(List.of(new BulkResult.Item(1L, 200), new BulkResult.Item(2L, 404)))
+            .build();
+    when(bulkService.update(eq(helpRequestRepository), eq(incoming))).thenReturn(bulkResult);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/helprequest/bulk")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(incoming)))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(bulkService, times(1)).update(helpRequestRepository, incoming);
+    assertEquals(
+        mapper.writeValueAsString(bulkResult), response.getResponse().getContentAsString());
+  }
+
+  @Test
+  public void logged_out_users_cannot_delete_bulk() throws Exception {
+    mockMvc
+        .perform(
+            delete("/api/helprequest/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_delete_bulk() throws Exception {
+    mockMvc
+        .perform(
+            delete("/api/helprequest/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_delete_many_help_requests_at_once() throws Exception {
+    // arrange
+    List<Long> ids = List.of(1L, 2L);
+    BulkResult bulkResult =
+        BulkResult.builder()
+            .succeeded(1)
+            .failed(1)
+            .results(List.of(new BulkResult.Item(1L, 200), new BulkResult.Item(2L, 404)))
+            .build();
+    when(bulkService.delete(eq(helpRequestRepository), eq(ids))).thenReturn(bulkResult);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                delete("/api/helprequest/bulk")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(ids)))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(bulkService, times(1)).delete(helpRequestRepository, ids);
+    assertEquals(
+        mapper.writeValueAsString(bulkResult), response.getResponse().getContentAsString());
+  }
 }
@@ -0,0 +1,251 @@
+package edu.ucsb.cs156.example.controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.entities.JobSchedule;
+import edu.ucsb.cs156.example.jobs.TestJob;
+import edu.ucsb.cs156.example.repositories.JobSchedulesRepository;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.jobs.JobScheduler;
+import edu.ucsb.cs156.example.services.jobs.JobService;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MvcResult;
+
+@WebMvcTest(controllers = JobSchedulesController.class)
+@Import({TestConfig.class, JobScheduler.class})
+public class JobSchedulesControllerTests extends ControllerTestCase {
+
+  @MockitoBean JobSchedulesRepository jobSchedulesRepository;
+
+  @MockitoBean JobService jobService;
+
+  @MockitoBean UserRepository userRepository;
+
+  private final String testJob = TestJob.class.getName();
+
+  @Test
+  public void logged_out_users_cannot_get_all() throws Exception {
+    mockMvc.perform(get("/api/jobs/schedules/all")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void regular_users_cannot_get_all() throws Exception {
+    mockMvc.perform(get("/api/jobs/schedules/all")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void regular_users_cannot_post() throws Exception {
+    mockMvc
+        .perform(post("/api/jobs/schedules/post?name=a&jobType=x&fixedRateMs=1000").with(csrf()))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_get_all() throws Exception {
+    // arrange
+    JobSchedule schedule =
+        JobSchedule.builder().id(1L).name("nightly").jobType(testJob).cron("0 0 3 * * *").build();
+    when(jobSchedulesRepository.findAll()).thenReturn(List.of(schedule));
+
+    // act
+    MvcResult response =
+        mockMvc.perform(get("/api/jobs/schedules/all")).andExpect(status().isOk()).andReturn();
+
+    // assert
+    assertEquals(
+        mapper.writeValueAsString(List.of(schedule)), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_post_a_fixed_rate_schedule() throws Exception {
+    // arrange
+    when(jobSchedulesRepository.save(any(JobSchedule.class))).thenAnswer(i -> i.getArgument(0));
+    ZonedDateTime before = ZonedDateTime.now();
+
+    // act
+    mockMvc
+        .perform(
+            post("/api/jobs/schedules/post")
+                .param("name", "every-minute")
+                .param("jobType", testJob)
+                .param("payload", "{\"sleepMs\":10}")
+                .param("fixedRateMs", "60000")
+                .with(csrf()))
+        .andExpect(status().isOk());
+
+    // assert
+    verify(jobService, times(1)).readJob(testJob, "{\"sleepMs\":10}");
+    ArgumentCaptor<JobSchedule> captor = ArgumentCaptor.forClass(JobSchedule.class);
+    verify(jobSchedulesRepository).save(captor.capture());
+    JobSchedule saved = captor.getValue();
+    assertEquals("every-minute", saved.getName());
+    assertEquals(60000L, saved.getFixedRateMs());
+    assertTrue(saved.getEnabled());
+    assertFalse(saved.getNextRunAt().isBefore(before.plusSeconds(59)));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_post_a_cron_schedule() throws Exception {
+    // arrange
+    when(jobSchedulesRepository.save(any(JobSchedule.class))).thenAnswer(i -> i.getArgument(0));
+
+    // act
+    mockMvc
+        .perform(
+            post("/api/jobs/schedules/post")
+                .param("name", "nightly")
+                .param("jobType", testJob)
+                .param("cron", "0 0 3 * * *")
+                .with(csrf()))
+        .andExpect(status().isOk());
+
+    // assert
+    ArgumentCaptor<JobSchedule> captor = ArgumentCaptor.forClass(JobSchedule.class);
+    verify(jobSchedulesRepository).save(captor.capture());
+    assertEquals("{}", captor.getValue().getPayload());
+    assertEquals(3, captor.getValue().getNextRunAt().getHour());
+  }
+
+  private void assertBadRequest(String query, String message) throws Exception {
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/jobs/schedules/post?name=a&jobType=" + testJob + query).with(csrf()))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("IllegalArgumentException", json.get("type"));
+    assertEquals(message, json.get("message"));
+    verify(jobSchedulesRepository, never()).save(any());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void post_needs_exactly_one_of_cron_and_fixed_rate() throws Exception {
+    assertBadRequest("", "Give exactly one of cron and fixedRateMs");
+    assertBadRequest(
+        "&cron=0 0 3 * * *&fixedRateMs=1000", "Give exactly one of cron and fixedRateMs");
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void post_rejects_bad_cron_and_rate() throws Exception {
+    assertBadRequest("&cron=sometimes", "Invalid cron expression sometimes");
+    assertBadRequest("&fixedRateMs=0", "fixedRateMs must be positive");
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void post_rejects_job_that_cannot_be_restored() throws Exception {
+    when(jobService.readJob(testJob, "{}"))
+        .thenThrow(new IllegalArgumentException("Invalid JSON for x"));
+    assertBadRequest("&fixedRateMs=1000", "Invalid JSON for x");
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_reenable_a_schedule() throws Exception {
+    // arrange
+    ZonedDateTime old = ZonedDateTime.now().minusDays(1);
+    JobSchedule schedule =
+        JobSchedule.builder().id(7L).fixedRateMs(60000L).enabled(false).nextRunAt(old).build();
+    when(jobSchedulesRepository.findById(7L)).thenReturn(Optional.of(schedule));
+    when(jobSchedulesRepository.save(any(JobSchedule.class))).thenAnswer(i -> i.getArgument(0));
+
+    // act
+    mockMvc
+        .perform(put("/api/jobs/schedules?id=7&enabled=true").with(csrf()))
+        .andExpect(status().isOk());
+
+    // assert
+    assertTrue(schedule.getEnabled());
+    assertTrue(schedule.getNextRunAt().isAfter(ZonedDateTime.now()));
+    verify(jobSchedulesRepository).save(schedule);
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_disable_a_schedule() throws Exception {
+    // arrange
+    ZonedDateTime next = ZonedDateTime.now().plusMinutes(1);
+    JobSchedule schedule =
+        JobSchedule.builder().id(7L).fixedRateMs(60000L).enabled(true).nextRunAt(next).build();
+    when(jobSchedulesRepository.findById(7L)).thenReturn(Optional.of(schedule));
+    when(jobSchedulesRepository.save(any(JobSchedule.class))).thenAnswer(i -> i.getArgument(0));
+
+    // act
+    mockMvc
+        .perform(put("/api/jobs/schedules?id=7&enabled=false").with(csrf()))
+        .andExpect(status().isOk());
+
+    // assert
+    assertFalse(schedule.getEnabled());
+    assertEquals(next, schedule.getNextRunAt());
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void put_of_missing_schedule_is_not_found() throws Exception {
+    when(jobSchedulesRepository.findById(7L)).thenReturn(Optional.empty());
+    MvcResult response =
+        mockMvc
+            .perform(put("/api/jobs/schedules?id=7&enabled=false").with(csrf()))
+            .andExpect(status().isNotFound())
+            .andReturn();
+    assertEquals("JobSchedule with id 7 not found", responseToJson(response).get("message"));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admin_can_delete_a_schedule() throws Exception {
+    // arrange
+    JobSchedule schedule = JobSchedule.builder().id(7L).build();
+    when(jobSchedulesRepository.findById(7L)).thenReturn(Optional.of(schedule));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(delete("/api/jobs/schedules?id=7").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(jobSchedulesRepository).delete(schedule);
+    assertEquals("JobSchedule with id 7 deleted", responseToJson(response).get("message"));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void delete_of_missing_schedule_is_not_found() throws Exception {
+    when(jobSchedulesRepository.findById(7L)).thenReturn(Optional.empty());
+    mockMvc
+        .perform(delete("/api/jobs/schedules?id=7").with(csrf()))
+        .andExpect(status().isNotFound());
+  }
+}
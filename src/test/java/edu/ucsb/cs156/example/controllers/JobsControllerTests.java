@@ -4,6 +4,7 @@ import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.awaitility.Awaitility.await;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
@@ -11,37 +12,60 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.config.JobsExecutorConfig;
 import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobLogLine;
 import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.jobs.TestJob;
+import edu.ucsb.cs156.example.models.JobSummary;
+import edu.ucsb.cs156.example.models.JobSummaryPage;
+import edu.ucsb.cs156.example.repositories.JobLogLinesRepository;
 import edu.ucsb.cs156.example.repositories.JobsRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.jobs.JobLogPublisher;
+import edu.ucsb.cs156.example.services.jobs.JobLogWriter;
+import edu.ucsb.cs156.example.services.jobs.JobQueue;
+import edu.ucsb.cs156.example.services.jobs.JobRetention;
 import edu.ucsb.cs156.example.services.jobs.JobService;
+import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.AutoConfigureDataJpa;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MvcResult;
 
 @Slf4j
 @WebMvcTest(controllers = JobsController.class)
-@Import(JobService.class)
+@Import({JobService.class, JobLogPublisher.class, JobsExecutorConfig.class})
 @AutoConfigureDataJpa
 public class JobsControllerTests extends ControllerTestCase {
 
   @MockitoBean JobsRepository jobsRepository;
 
+  @MockitoBean JobLogLinesRepository jobLogLinesRepository;
+
+  @MockitoBean JobLogWriter jobLogWriter;
+
+  @MockitoBean JobQueue jobQueue;
+
+  @MockitoBean JobRetention jobRetention;
+
   @MockitoBean UserRepository userRepository;
 
   @Autowired JobService jobService;
@@ -74,6 +98,88 @@ public class JobsControllerTests extends ControllerTestCase {
     assertEquals(expectedJson, responseString);
   }
 
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_get_first_page_of_jobs() throws Exception {
+    // arrange
+    ZonedDateTime t = ZonedDateTime.parse("2025-01-01T10:00:00Z");
+    JobSummary job3 =
+        JobSummary.builder()
+            .id(3L)
+            .createdAt(t.plusMinutes(2))
+            .status("complete")
+            .progressDone(20L)
+            .progressTotal(20L)
+            .eta(t.plusMinutes(2))
+            .build();
+    JobSummary job2 =
+        JobSummary.builder().id(2L).createdAt(t.plusMinutes(1)).status("complete").build();
+    JobSummary job1 = JobSummary.builder().id(1L).createdAt(t).status("complete").build();
+    when(jobsRepository.findSummaries("complete", 7L, Limit.of(3)))
+        .thenReturn(new ArrayList<>(List.of(job3, job2, job1)));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/jobs/page?size=2&status=complete&createdBy=7"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    JobSummaryPage expected =
+        JobSummaryPage.builder()
+            .jobs(List.of(job3, job2))
+            .nextCreatedAt(job2.getCreatedAt())
+            .nextId(2L)
+            .build();
+    assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_get_last_page_of_jobs() throws Exception {
+    // arrange
+    ZonedDateTime t = ZonedDateTime.parse("2025-01-01T10:00:00Z");
+    JobSummary job1 = JobSummary.builder().id(1L).createdAt(t).status("error").build();
+    when(jobsRepository.findSummariesBefore(null, null, t.plusMinutes(1), 2L, Limit.of(3)))
+        .thenReturn(List.of(job1));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/jobs/page?size=2&beforeCreatedAt=2025-01-01T10:01:00Z&beforeId=2"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    JobSummaryPage expected = JobSummaryPage.builder().jobs(List.of(job1)).build();
+    assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void page_size_is_capped() throws Exception {
+    // arrange
+    when(jobsRepository.findSummaries(null, null, Limit.of(JobsController.MAX_PAGE_SIZE + 1)))
+        .thenReturn(List.of());
+    when(jobsRepository.findSummaries(null, null, Limit.of(2))).thenReturn(List.of());
+
+    // act
+    mockMvc.perform(get("/api/jobs/page?size=100000")).andExpect(status().isOk());
+    mockMvc.perform(get("/api/jobs/page?size=0")).andExpect(status().isOk());
+
+    // assert
+    verify(jobsRepository, times(1))
+        .findSummaries(null, null, Limit.of(JobsController.MAX_PAGE_SIZE + 1));
+    verify(jobsRepository, times(1)).findSummaries(null, null, Limit.of(2));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void users_cannot_page_jobs() throws Exception {
+    mockMvc.perform(get("/api/jobs/page")).andExpect(status().is(403));
+  }
+
   @WithMockUser(roles = {"ADMIN"})
   @Test
   public void api_getJobLogById__admin_logged_in__returns_job_by_id() throws Exception {
@@ -123,7 +229,7 @@ public class JobsControllerTests extends ControllerTestCase {
   @Test
   public void admin_can_delete_all_jobs() throws Exception {
 
-    doNothing().when(jobsRepository).deleteAll();
+    when(jobRetention.deleteAll()).thenReturn(3);
 
     // act
     MvcResult response =
@@ -134,8 +240,9 @@ public class JobsControllerTests extends ControllerTestCase {
 
     // assert
 
-    verify(jobsRepository, times(1)).deleteAll();
-    String expectedJson = mapper.writeValueAsString(Map.of("message", "All jobs deleted"));
+    verify(jobRetention, times(1)).deleteAll();
+    verify(jobsRepository, never()).deleteAll();
+    String expectedJson = mapper.writeValueAsString(Map.of("message", "All jobs deleted (3)"));
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
   }
@@ -149,6 +256,8 @@ public class JobsControllerTests extends ControllerTestCase {
     Job job = Job.builder().build();
     job.setLog(jobLog);
     when(jobsRepository.findById(jobId)).thenReturn(Optional.of(job));
+    when(jobLogLinesRepository.streamAllByJobIdOrderByLineNumberAsc(jobId))
+        .thenReturn(Stream.empty());
 
     // Act & Assert
     mockMvc
@@ -165,6 +274,8 @@ public class JobsControllerTests extends ControllerTestCase {
     Job job = Job.builder().build();
     job.setLog("");
     when(jobsRepository.findById(jobId)).thenReturn(Optional.of(job));
+    when(jobLogLinesRepository.streamAllByJobIdOrderByLineNumberAsc(jobId))
+        .thenReturn(Stream.empty());
 
     // Act & Assert
     mockMvc
@@ -173,6 +284,164 @@ public class JobsControllerTests extends ControllerTestCase {
         .andExpect(content().string(""));
   }
 
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void test_getJobLogs_admin_can_get_log_lines() throws Exception {
+    // Arrange
+    Long jobId = 3L;
+    Job job = Job.builder().id(jobId).build();
+    when(jobsRepository.findById(jobId)).thenReturn(Optional.of(job));
+    when(jobLogLinesRepository.streamAllByJobIdOrderByLineNumberAsc(jobId))
+        .thenReturn(
+            Stream.of(
+                JobLogLine.builder().jobId(jobId).lineNumber(0).message("first").build(),
+                JobLogLine.builder().jobId(jobId).lineNumber(1).message("second").build()));
+
+    // Act & Assert
+    mockMvc
+        .perform(get("/api/jobs/logs/{id}", jobId))
+        .andExpect(status().isOk())
+        .andExpect(content().string("first\nsecond"));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_stream_log_of_finished_job() throws Exception {
+    // arrange
+    Job job = Job.builder().id(4L).status("complete").build();
+    when(jobsRepository.findById(4L)).thenReturn(Optional.of(job));
+    when(jobLogLinesRepository.findByJobIdAndLineNumberGreaterThanEqualOrderByLineNumberAsc(
+            eq(4L), eq(0), any(Limit.class)))
+        .thenReturn(
+            List.of(
+                JobLogLine.builder().jobId(4L).lineNumber(0).message("first").build(),
+                JobLogLine.builder().jobId(4L).lineNumber(1).message("second").build()));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/jobs/4/logs/stream"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+    // assert
+    await()
+        .atMost(5, SECONDS)
+        .untilAsserted(
+            () ->
+                assertEquals(
+                    "id:0\nevent:log\ndata:first\n\n"
+                        + "id:1\nevent:log\ndata:second\n\n"
+                        + "event:complete\ndata:\n\n",
+                    response.getResponse().getContentAsString()));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_resume_log_stream_with_last_event_id() throws Exception {
+    // arrange
+    Job job = Job.builder().id(4L).status("complete").build();
+    when(jobsRepository.findById(4L)).thenReturn(Optional.of(job));
+    when(jobLogLinesRepository.findByJobIdAndLineNumberGreaterThanEqualOrderByLineNumberAsc(
+            eq(4L), eq(1), any(Limit.class)))
+        .thenReturn(
+            List.of(JobLogLine.builder().jobId(4L).lineNumber(1).message("second").build()));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/jobs/4/logs/stream").header("Last-Event-ID", "0"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+
+    // assert
+    await()
+        .atMost(5, SECONDS)
+        .untilAsserted(
+            () ->
+                assertEquals(
+                    "id:1\nevent:log\ndata:second\n\n" + "event:complete\ndata:\n\n",
+                    response.getResponse().getContentAsString()));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void log_stream_of_missing_job_is_not_found() throws Exception {
+    // arrange
+    when(jobsRepository.findById(5L)).thenReturn(Optional.empty());
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/jobs/5/logs/stream"))
+            .andExpect(status().isNotFound())
+            .andReturn();
+
+    // assert
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("Job with id 5 not found", json.get("message"));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_cancel_job() throws Exception {
+    // arrange
+    when(jobsRepository.existsById(6L)).thenReturn(true);
+    when(jobQueue.requestCancel(6L)).thenReturn(true);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(post("/api/jobs/6/cancel").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(jobQueue, times(1)).requestCancel(6L);
+    assertEquals(
+        mapper.writeValueAsString(Map.of("message", "Job with id 6 cancelled")),
+        response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void cancelling_finished_job_says_so() throws Exception {
+    // arrange
+    when(jobsRepository.existsById(6L)).thenReturn(true);
+    when(jobQueue.requestCancel(6L)).thenReturn(false);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(post("/api/jobs/6/cancel").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    assertEquals(
+        mapper.writeValueAsString(Map.of("message", "Job with id 6 has already finished")),
+        response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void cancelling_missing_job_is_not_found() throws Exception {
+    // arrange
+    when(jobsRepository.existsById(6L)).thenReturn(false);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(post("/api/jobs/6/cancel").with(csrf()))
+            .andExpect(status().isNotFound())
+            .andReturn();
+
+    // assert
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("Job with id 6 not found", json.get("message"));
+    verify(jobQueue, never()).requestCancel(anyLong());
+  }
+
   @WithMockUser(roles = {"ADMIN"})
   @Test
   public void admin_can_delete_specific_job() throws Exception {
@@ -228,16 +497,6 @@ public class JobsControllerTests extends ControllerTestCase {
 
     User user = currentUserService.getUser();
 
-    Job jobStarted =
-        Job.builder()
-            .id(0L)
-            .createdBy(user)
-            .createdAt(null)
-            .updatedAt(null)
-            .status("running")
-            .log("Hello World! from test job!")
-            .build();
-
     Job jobCompleted =
         Job.builder()
             .id(0L)
@@ -245,10 +504,11 @@ public class JobsControllerTests extends ControllerTestCase {
             .createdAt(null)
             .updatedAt(null)
             .status("complete")
-            .log("Hello World! from test job!\nGoodbye from test job!")
+            .jobType(TestJob.class.getName())
+            .payload("{\"fail\":false,\"sleepMs\":2000}")
             .build();
 
-    when(jobsRepository.save(any(Job.class))).thenReturn(jobStarted).thenReturn(jobCompleted);
+    when(jobsRepository.save(any(Job.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
     // act
     MvcResult response =
@@ -265,10 +525,29 @@ public class JobsControllerTests extends ControllerTestCase {
 
     await()
         .atMost(1, SECONDS)
-        .untilAsserted(() -> verify(jobsRepository, times(2)).save(eq(jobStarted)));
+        .untilAsserted(
+            () ->
+                verify(jobLogWriter, times(1))
+                    .write(
+                        List.of(
+                            JobLogLine.builder()
+                                .jobId(0L)
+                                .lineNumber(0)
+                                .message("Hello World! from test job!")
+                                .build())));
     await()
         .atMost(10, SECONDS)
-        .untilAsserted(() -> verify(jobsRepository, times(4)).save(eq(jobCompleted)));
+        .untilAsserted(() -> verify(jobQueue, times(1)).finish(eq(jobCompleted)));
+    verify(jobsRepository, times(1)).save(eq(jobCompleted));
+    verify(jobLogWriter, times(1))
+        .write(
+            List.of(
+                JobLogLine.builder()
+                    .jobId(0L)
+                    .lineNumber(1)
+                    .message("Goodbye from test job!")
+                    .build()));
+    verify(jobQueue, times(1)).lease(any(Job.class));
   }
 
   @WithMockUser(roles = {"ADMIN"})
@@ -279,16 +558,6 @@ public class JobsControllerTests extends ControllerTestCase {
 
     User user = currentUserService.getUser();
 
-    Job jobStarted =
-        Job.builder()
-            .id(0L)
-            .createdBy(user)
-            .createdAt(null)
-            .updatedAt(null)
-            .status("running")
-            .log("Hello World! from test job!")
-            .build();
-
     Job jobFailed =
         Job.builder()
             .id(0L)
@@ -296,10 +565,11 @@ public class JobsControllerTests extends ControllerTestCase {
             .createdAt(null)
             .updatedAt(null)
             .status("error")
-            .log("Hello World! from test job!\nFail!")
+            .jobType(TestJob.class.getName())
+            .payload("{\"fail\":true,\"sleepMs\":4000}")
             .build();
 
-    when(jobsRepository.save(any(Job.class))).thenReturn(jobStarted).thenReturn(jobFailed);
+    when(jobsRepository.save(any(Job.class))).thenAnswer(invocation -> invocation.getArgument(0));
 
     // act
     MvcResult response =
@@ -315,10 +585,22 @@ public class JobsControllerTests extends ControllerTestCase {
 
     await()
         .atMost(1, SECONDS)
-        .untilAsserted(() -> verify(jobsRepository, times(2)).save(eq(jobStarted)));
+        .untilAsserted(
+            () ->
+                verify(jobLogWriter, times(1))
+                    .write(
+                        List.of(
+                            JobLogLine.builder()
+                                .jobId(0L)
+                                .lineNumber(0)
+                                .message("Hello World! from test job!")
+                                .build())));
 
     await()
         .atMost(10, SECONDS)
-        .untilAsserted(() -> verify(jobsRepository, times(3)).save(eq(jobFailed)));
+        .untilAsserted(() -> verify(jobQueue, times(1)).finish(eq(jobFailed)));
+    verify(jobsRepository, times(1)).save(eq(jobFailed));
+    verify(jobLogWriter, times(1))
+        .write(List.of(JobLogLine.builder().jobId(0L).lineNumber(1).message("Fail!").build()));
   }
 }
@@ -11,23 +11,41 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.MenuItemReviewStats;
+import edu.ucsb.cs156.example.models.BulkResult;
 import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewStatsRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.BulkService;
+import edu.ucsb.cs156.example.services.ExportService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MvcResult;
 
@@ -36,8 +54,14 @@ import org.springframework.test.web.servlet.MvcResult;
 public class MenuItemReviewControllerTests extends ControllerTestCase {
   @MockBean MenuItemReviewRepository menuItemReviewRepository;
 
+  @MockBean BulkService bulkService;
+
   @MockBean UserRepository userRepository;
 
+  @MockBean ExportService exportService;
+
+  @MockBean MenuItemReviewStatsRepository menuItemReviewStatsRepository;
+
   // Authorization tests for /api/ucsbdates/admin/all
 
   @Test
@@ -50,6 +74,7 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
   @WithMockUser(roles = {"USER"})
   @Test
   public void logged_in_users_can_get_all() throws Exception {
+    when(menuItemReviewRepository.findAll()).thenReturn(List.of());
     mockMvc.perform(get("/api/menuitemreviews/all")).andExpect(status().is(200)); // logged
   }
 
@@ -175,6 +200,147 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
     assertEquals(expectedJson, responseString);
   }
 
+  // Tests for paging through /api/menuitemreviews/all
+
+  private MenuItemReview review(long id) {
+    return MenuItemReview.builder()
+        .id(id)
+        .itemId(1)
+        .reviewerEmail("cgaucho@ucsb.edu")
+        .stars(4)
+        .dateReviewed(LocalDateTime.parse("2022-01-03T00:00:00"))
+        .comments("fine")
+        .build();
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void all_returns_a_page_and_a_cursor_for_the_next_one() throws Exception {
+    // arrange
+    List<MenuItemReview> page = List.of(review(3), review(5));
+    when(menuItemReviewRepository.findAllBy(any(Pageable.class)))
+        .thenReturn(new SliceImpl<>(page, PageRequest.of(1, 2), true));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/menuitemreviews/all?page=1&size=2"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Has-Next", "true"))
+            .andExpect(header().string("X-Next-Cursor", "5"))
+            .andReturn();
+
+    // assert
+    verify(menuItemReviewRepository).findAllBy(PageRequest.of(1, 2, Sort.by("id")));
+    assertEquals(mapper.writeValueAsString(page), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void all_caps_the_page_size() throws Exception {
+    when(menuItemReviewRepository.findAllBy(any(Pageable.class)))
+        .thenReturn(new SliceImpl<>(List.of()));
+
+    mockMvc
+        .perform(get("/api/menuitemreviews/all?size=1000000"))
+        .andExpect(status().isOk())
+        .andExpect(header().string("X-Has-Next", "false"))
+        .andExpect(header().doesNotExist("X-Next-Cursor"));
+
+    verify(menuItemReviewRepository).findAllBy(PageRequest.of(0, 1000, Sort.by("id")));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void all_can_be_sorted_but_then_has_no_cursor() throws Exception {
+    when(menuItemReviewRepository.findAllBy(any(Pageable.class)))
+        .thenReturn(new SliceImpl<>(List.of(review(9)), PageRequest.of(0, 1), true));
+
+    mockMvc
+        .perform(get("/api/menuitemreviews/all?size=1&sort=stars,desc&sort=id"))
+        .andExpect(status().isOk())
+        .andExpect(header().string("X-Has-Next", "true"))
+        .andExpect(header().doesNotExist("X-Next-Cursor"));
+
+    verify(menuItemReviewRepository)
+        .findAllBy(PageRequest.of(0, 1, Sort.by(Sort.Order.desc("stars"), Sort.Order.asc("id"))));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void all_without_page_or_size_returns_every_review_in_sort_order() throws Exception {
+    // arrange
+    List<MenuItemReview> reviews = List.of(review(9), review(3));
+    Sort byStars = Sort.by(Sort.Order.desc("stars"));
+    when(menuItemReviewRepository.findAll(byStars)).thenReturn(reviews);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/menuitemreviews/all?sort=stars,desc"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Has-Next", "false"))
+            .andExpect(header().doesNotExist("X-Next-Cursor"))
+            .andReturn();
+
+    // assert
+    verify(menuItemReviewRepository, times(0)).findAllBy(any(Pageable.class));
+    assertEquals(mapper.writeValueAsString(reviews), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void all_rejects_sorting_by_an_unknown_field() throws Exception {
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/menuitemreviews/all?sort=password"))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("BadRequestException", json.get("type"));
+    assertEquals("Cannot sort by password", json.get("message"));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void all_continues_after_a_cursor() throws Exception {
+    // arrange
+    List<MenuItemReview> page = List.of(review(6), review(8));
+    when(menuItemReviewRepository.findBy(
+            any(ScrollPosition.class), any(Sort.class), any(Limit.class)))
+        .thenReturn(Window.from(page, i -> ScrollPosition.offset(), false));
+
+    // act
+    mockMvc
+        .perform(get("/api/menuitemreviews/all?after=5&size=2"))
+        .andExpect(status().isOk())
+        .andExpect(header().string("X-Has-Next", "false"));
+
+    // assert
+    verify(menuItemReviewRepository)
+        .findBy(ScrollPosition.forward(Map.of("id", 5L)), Sort.by("id"), Limit.of(2));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void all_rejects_bad_cursors() throws Exception {
+    MvcResult notANumber =
+        mockMvc
+            .perform(get("/api/menuitemreviews/all?after=abc"))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+    assertEquals("Invalid cursor abc", responseToJson(notANumber).get("message"));
+
+    MvcResult sorted =
+        mockMvc
+            .perform(get("/api/menuitemreviews/all?after=5&sort=stars"))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+    assertEquals(
+        "after can only be used when sorting by id", responseToJson(sorted).get("message"));
+  }
+
   @WithMockUser(roles = {"ADMIN", "USER"})
   @Test
   public void an_admin_user_can_post_a_new_menuitemreview() throws Exception {
@@ -350,4 +516,353 @@ public class MenuItemReviewControllerTests extends ControllerTestCase {
     Map<String, Object> json = responseToJson(response);
     assertEquals("MenuItemReview with id 15 not found", json.get("message"));
   }
+
+  // Tests for /api/menuitemreviews/export
+
+  @Test
+  public void logged_out_users_cannot_export() throws Exception {
+    mockMvc.perform(get("/api/menuitemreviews/export")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  @SuppressWarnings("unchecked")
+  public void logged_in_users_can_export_all_rows() throws Exception {
+    // arrange
+    when(exportService.ndjson(eq("menuitemreviews.ndjson"), any()))
+        .thenReturn(ResponseEntity.ok().body(out -> out.write("{}\n".getBytes())));
+
+    // act
+    mockMvc.perform(get("/api/menuitemreviews/export")).andExpect(status().isOk());
+
+    // assert
+    ArgumentCaptor<Supplier<Stream<MenuItemReview>>> rows = ArgumentCaptor.forClass(Supplier.class);
+    verify(exportService).ndjson(eq("menuitemreviews.ndjson"), rows.capture());
+    rows.getValue().get();
+    verify(menuItemReviewRepository).streamAllBy();
+  }
+
+  // Tests for POST, PUT and DELETE /api/menuitemreviews/bulk
+
+  @Test
+  public void logged_out_users_cannot_get_stats() throws Exception {
+    mockMvc.perform(get("/api/menuitemreviews/stats?itemId=7")).andExpect(status().is(403));
+    mockMvc.perform(get("/api/menuitemreviews/top")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_users_can_get_the_stats_of_an_item() throws Exception {
+    // arrange
+    MenuItemReviewStats stats =
+        MenuItemReviewStats.builder()
+            .itemId(7)
+            .reviewCount(3)
+            .starSum(12)
+            .threeStars(1)
+            .fourStars(1)
+            .fiveStars(1)
+            .averageStars(4.0)
+            .build();
+    when(menuItemReviewStatsRepository.findById(eq(7L))).thenReturn(Optional.of(stats));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/menuitemreviews/stats?itemId=7"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(menuItemReviewRepository, times(0)).findAll();
+    assertEquals(mapper.writeValueAsString(stats), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void an_item_without_reviews_has_empty_stats() throws Exception {
+    // arrange
+    when(menuItemReviewStatsRepository.findById(eq(8L))).thenReturn(Optional.empty());
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/menuitemreviews/stats?itemId=8"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    Map<String, Object> json = responseToJson(response);
+    assertEquals(8, json.get("itemId"));
+    assertEquals(0, json.get("reviewCount"));
+    assertEquals(null, json.get("averageStars"));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_users_can_get_the_top_rated_items() throws Exception {
+    // arrange
+    List<MenuItemReviewStats> top =
+        List.of(
+            MenuItemReviewStats.builder().itemId(3).reviewCount(2).averageStars(5.0).build(),
+            MenuItemReviewStats.builder().itemId(1).reviewCount(4).averageStars(4.5).build());
+    when(menuItemReviewStatsRepository.findTopRated(2L, Limit.of(5))).thenReturn(top);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/menuitemreviews/top?count=5&minReviews=2"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    assertEquals(mapper.writeValueAsString(top), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void top_rated_rejects_bad_counts() throws Exception {
+    // act
+    MvcResult tooMany =
+        mockMvc
+            .perform(get("/api/menuitemreviews/top?count=101"))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+    MvcResult noReviews =
+        mockMvc
+            .perform(get("/api/menuitemreviews/top?minReviews=0"))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+    // assert
+    assertEquals(
+        "count must be between 1 and 100, got 101", responseToJson(tooMany).get("message"));
+    assertEquals("minReviews must be at least 1, got 0", responseToJson(noReviews).get("message"));
+  }
+
+  @Test
+  public void logged_out_users_cannot_get_by_lookup_column() throws Exception {
+    mockMvc.perform(get("/api/menuitemreviews/byitem?itemId=7")).andExpect(status().is(403));
+    mockMvc
+        .perform(get("/api/menuitemreviews/byreviewer?reviewerEmail=cgaucho@ucsb.edu"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_users_can_get_reviews_by_item() throws Exception {
+    // arrange
+    List<MenuItemReview> expected =
+        List.of(
+            MenuItemReview.builder()
+                .itemId(7)
+                .reviewerEmail("cgaucho@ucsb.edu")
+                .stars(4)
+                .comments("good")
+                .build());
+    when(menuItemReviewRepository.findAllByItemId(eq(7L))).thenReturn(expected);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/menuitemreviews/byitem?itemId=7"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(menuItemReviewRepository, times(1)).findAllByItemId(7L);
+    assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_users_can_get_reviews_by_reviewer() throws Exception {
+    // arrange
+    List<MenuItemReview> expected =
+        List.of(
+            MenuItemReview.builder()
+                .itemId(7)
+                .reviewerEmail("cgaucho@ucsb.edu")
+                .stars(4)
+                .comments("good")
+                .build());
+    when(menuItemReviewRepository.findAllByReviewerEmail(eq("cgaucho@ucsb.edu")))
+        .thenReturn(expected);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/menuitemreviews/byreviewer?reviewerEmail=cgaucho@ucsb.edu"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(menuItemReviewRepository, times(1)).findAllByReviewerEmail("cgaucho@ucsb.edu");
+    assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+  }
+
+  @Test
+  public void logged_out_users_cannot_post_bulk() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/menuitemreviews/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_post_bulk() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/menuitemreviews/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_post_many_menu_item_reviews_at_once() throws Exception {
+    // arrange
+    List<MenuItemReview> incoming =
+        List.of(
+            MenuItemReview.builder().itemId(1).stars(4).build(),
+            MenuItemReview.builder().itemId(2).stars(4).build());
+    BulkResult bulkResult =
+        BulkResult.builder()
+            .succeeded(1)
+            .failed(1)
+            .results(List.of(new BulkResult.Item(1L, 201), new BulkResult.Item(2L, 404)))
+            .build();
+    when(bulkService.create(eq(menuItemReviewRepository), eq(incoming))).thenReturn(bulkResult);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/menuitemreviews/bulk")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(incoming)))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(bulkService, times(1)).create(menuItemReviewRepository, incoming);
+    assertEquals(
+        mapper.writeValueAsString(bulkResult), response.getResponse().getContentAsString());
+  }
+
+  @Test
+  public void logged_out_users_cannot_put_bulk() throws Exception {
+    mockMvc
+        .perform(
+            put("/api/menuitemreviews/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_put_bulk() throws Exception {
+    mockMvc
+        .perform(
+            put("/api/menuitemreviews/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_put_many_menu_item_reviews_at_once() throws Exception {
+    // arrange
+    List<MenuItemReview> incoming =
+        List.of(
+            MenuItemReview.builder().itemId(1).stars(4).id(1).build(),
+            MenuItemReview.builder().itemId(2).stars(4).id(2).build());
+    BulkResult bulkResult =
+        BulkResult.builder()
+            .succeeded(1)
+            .failed(1)
+            .results(List.of(new BulkResult.Item(1L, 200), new BulkResult.Item(2L, 404)))
+            .build();
+    when(bulkService.update(eq(menuItemReviewRepository), eq(incoming))).thenReturn(bulkResult);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/menuitemreviews/bulk")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(incoming)))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(bulkService, times(1)).update(menuItemReviewRepository, incoming);
+    assertEquals(
+        mapper.writeValueAsString(bulkResult), response.getResponse().getContentAsString());
+  }
+
+  @Test
+  public void logged_out_users_cannot_delete_bulk() throws Exception {
+    mockMvc
+        .perform(
+            delete("/api/menuitemreviews/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_delete_bulk() throws Exception {
+    mockMvc
+        .perform(
+            delete("/api/menuitemreviews/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_delete_many_menu_item_reviews_at_once() throws Exception {
+    // arrange
+    List<Long> ids = List.of(1L, 2L);
+    BulkResult bulkResult =
+        BulkResult.builder()
+            .succeeded(1)
+            .failed(1)
+            .results(List.of(new BulkResult.Item(1L, 200), new BulkResult.Item(2L, 404)))
+            .build();
+    when(bulkService.delete(eq(menuItemReviewRepository), eq(ids))).thenReturn(bulkResult);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                delete("/api/menuitemreviews/bulk")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(ids)))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(bulkService, times(1)).delete(menuItemReviewRepository, ids);
+    assertEquals(
+        mapper.writeValueAsString(bulkResult), response.getResponse().getContentAsString());
+  }
 }
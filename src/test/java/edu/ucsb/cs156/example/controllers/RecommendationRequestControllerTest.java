@@ -15,12 +15,15 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.RecommendationRequest;
+import edu.ucsb.cs156.example.models.BulkResult;
 import edu.ucsb.cs156.example.repositories.RecommendationRequestRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.BulkService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import org.junit.jupiter.api.Test;
@@ -37,6 +40,8 @@ public class RecommendationRequestControllerTest extends ControllerTestCase {
 
   @MockBean RecommendationRequestRepository recommendationRequestRepository;
 
+  @MockBean BulkService bulkService;
+
   @MockBean UserRepository userRepository;
 
   // Authorization tests for /api/recommendationrequest/admin/all
@@ -50,6 +55,7 @@ public class RecommendationRequestControllerTest extends ControllerTestCase {
   @WithMockUser(roles = {"USER"})
   @Test
   public void logged_in_users_can_get_all() throws Exception {
+    when(recommendationRequestRepository.findAll()).thenReturn(List.of());
     mockMvc.perform(get("/api/recommendationrequest/all")).andExpect(status().is(200)); // logged
   }
 
@@ -379,4 +385,220 @@ public class RecommendationRequestControllerTest extends ControllerTestCase {
     Map<String, Object> json = responseToJson(response);
     assertEquals("RecommendationRequest with id 67 not found", json.get("message"));
   }
+
+  // Tests for POST, PUT and DELETE /api/recommendationrequest/bulk
+
+  @Test
+  public void logged_out_users_cannot_get_by_lookup_column() throws Exception {
+    mockMvc
+        .perform(get("/api/recommendationrequest/byrequester?requesterEmail=cgaucho@ucsb.edu"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_users_can_get_recommendation_requests_by_requester() throws Exception {
+    // arrange
+    List<RecommendationRequest> expected =
+        List.of(
+            RecommendationRequest.builder()
+                .requesteremail("cgaucho@ucsb.edu")
+                .professoremail("phtcon@ucsb.edu")
+                .explanation("BS/MS")
+                .build());
+    when(recommendationRequestRepository.findAllByRequesteremail(eq("cgaucho@ucsb.edu")))
+        .thenReturn(expected);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/recommendationrequest/byrequester?requesterEmail=cgaucho@ucsb.edu"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(recommendationRequestRepository, times(1)).findAllByRequesteremail("cgaucho@ucsb.edu");
+    assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+  }
+
+  @Test
+  public void logged_out_users_cannot_post_bulk() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/recommendationrequest/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_post_bulk() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/recommendationrequest/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_post_many_recommendation_requests_at_once() throws Exception {
+    // arrange
+    List<RecommendationRequest> incoming =
+        List.of(
+            RecommendationRequest.builder()
+                .requesteremail("student1@ucsb.edu")
+                .professoremail("prof@ucsb.edu")
+                .build(),
+            RecommendationRequest.builder()
+                .requesteremail("student2@ucsb.edu")
+                .professoremail("prof@ucsb.edu")
+                .build());
+    BulkResult bulkResult =
+        BulkResult.builder()
+            .succeeded(1)
+            .failed(1)
+            .results(List.of(new BulkResult.Item(1L, 201), new BulkResult.Item(2L, 404)))
+            .build();
+    when(bulkService.create(eq(recommendationRequestRepository), eq(incoming)))
+        .thenReturn(bulkResult);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/recommendationrequest/bulk")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(incoming)))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(bulkService, times(1)).create(recommendationRequestRepository, incoming);
+    assertEquals(
+        mapper.writeValueAsString(bulkResult), response.getResponse().getContentAsString());
+  }
+
+  @Test
+  public void logged_out_users_cannot_put_bulk() throws Exception {
+    mockMvc
+        .perform(
+            put("/api/recommendationrequest/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_put_bulk() throws Exception {
+    mockMvc
+        .perform(
+            put("/api/recommendationrequest/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_put_many_recommendation_requests_at_once() throws Exception {
+    // arrange
+    List<RecommendationRequest> incoming =
+        List.of(
+            RecommendationRequest.builder()
+                .requesteremail("student1@ucsb.edu")
+                .professoremail("prof@ucsb.edu")
+                .id(1)
+                .build(),
+            RecommendationRequest.builder()
+                .requesteremail("student2@ucsb.edu")
+                .professoremail("prof@ucsb.edu")
+                .id(2)
+                .build());
+    BulkResult bulkResult =
+        BulkResult.builder()
+            .succeeded(1)
+            .failed(1)
+            .results(List.of(new BulkResult.Item(1L, 200), new BulkResult.Item(2L, 404)))
+            .build();
+    when(bulkService.update(eq(recommendationRequestRepository), eq(incoming)))
+        .thenReturn(bulkResult);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/recommendationrequest/bulk")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(incoming)))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(bulkService, times(1)).update(recommendationRequestRepository, incoming);
+    assertEquals(
+        mapper.writeValueAsString(bulkResult), response.getResponse().getContentAsString());
+  }
+
+  @Test
+  public void logged_out_users_cannot_delete_bulk() throws Exception {
+    mockMvc
+        .perform(
+            delete("/api/recommendationrequest/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_delete_bulk() throws Exception {
+    mockMvc
+        .perform(
+            delete("/api/recommendationrequest/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_delete_many_recommendation_requests_at_once() throws Exception {
+    // arrange
+    List<Long> ids = List.of(1L, 2L);
+    BulkResult bulkResult =
+        BulkResult.builder()
+            .succeeded(1)
+            .failed(1)
+            .results(List.of(new BulkResult.Item(1L, 200), new BulkResult.Item(2L, 404)))
+            .build();
+    when(bulkService.delete(eq(recommendationRequestRepository), eq(ids))).thenReturn(bulkResult);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                delete("/api/recommendationrequest/bulk")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(ids)))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(bulkService, times(1)).delete(recommendationRequestRepository, ids);
+    assertEquals(
+        mapper.writeValueAsString(bulkResult), response.getResponse().getContentAsString());
+  }
 }
@@ -12,11 +12,14 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.Restaurant;
+import edu.ucsb.cs156.example.models.BulkResult;
 import edu.ucsb.cs156.example.repositories.RestaurantRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.BulkService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import org.junit.jupiter.api.Test;
@@ -33,6 +36,8 @@ public class RestaurantsControllerTests extends ControllerTestCase {
 
   @MockitoBean RestaurantRepository restaurantRepository;
 
+  @MockitoBean BulkService bulkService;
+
   @MockitoBean UserRepository userRepository;
 
   // Authorization tests for /api/phones/admin/all
@@ -47,6 +52,7 @@ public class RestaurantsControllerTests extends ControllerTestCase {
   @WithMockUser(roles = {"USER"})
   @Test
   public void logged_in_users_can_get_all() throws Exception {
+    when(restaurantRepository.findAll()).thenReturn(List.of());
     mockMvc.perform(get("/api/restaurants/all")).andExpect(status().is(200)); // logged
   }
 
@@ -277,4 +283,171 @@ public class RestaurantsControllerTests extends ControllerTestCase {
     Map<String, Object> json = responseToJson(response);
     assertEquals("Restaurant with id 67 not found", json.get("message"));
   }
+
+  // Tests for POST, PUT and DELETE /api/restaurants/bulk
+
+  @Test
+  public void logged_out_users_cannot_post_bulk() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/restaurants/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_post_bulk() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/restaurants/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_post_many_restaurants_at_once() throws Exception {
+    // arrange
+    List<Restaurant> incoming =
+        List.of(
+            Restaurant.builder().name("Restaurant 1").description("Tacos").build(),
+            Restaurant.builder().name("Restaurant 2").description("Tacos").build());
+    BulkResult bulkResult =
+        BulkResult.builder()
+            .succeeded(1)
+            .failed(1)
+            .results(List.of(new BulkResult.Item(1L, 201), new BulkResult.Item(2L, 404)))
+            .build();
+    when(bulkService.create(eq(restaurantRepository), eq(incoming))).thenReturn(bulkResult);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/restaurants/bulk")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(incoming)))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(bulkService, times(1)).create(restaurantRepository, incoming);
+    assertEquals(
+        mapper.writeValueAsString(bulkResult), response.getResponse().getContentAsString());
+  }
+
+  @Test
+  public void logged_out_users_cannot_put_bulk() throws Exception {
+    mockMvc
+        .perform(
+            put("/api/restaurants/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_put_bulk() throws Exception {
+    mockMvc
+        .perform(
+            put("/api/restaurants/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_put_many_restaurants_at_once() throws Exception {
+    // arrange
+    List<Restaurant> incoming =
+        List.of(
+            Restaurant.builder().name("Restaurant 1").description("Tacos").id(1).build(),
+            Restaurant.builder().name("Restaurant 2").description("Tacos").id(2).build());
+    BulkResult bulkResult =
+        BulkResult.builder()
+            .succeeded(1)
+            .failed(1)
+            .results(List.of(new BulkResult.Item(1L, 200), new BulkResult.Item(2L, 404)))
+            .build();
+    when(bulkService.update(eq(restaurantRepository), eq(incoming))).thenReturn(bulkResult);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/restaurants/bulk")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(incoming)))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(bulkService, times(1)).update(restaurantRepository, incoming);
+    assertEquals(
+        mapper.writeValueAsString(bulkResult), response.getResponse().getContentAsString());
+  }
+
+  @Test
+  public void logged_out_users_cannot_delete_bulk() throws Exception {
+    mockMvc
+        .perform(
+            delete("/api/restaurants/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_delete_bulk() throws Exception {
+    mockMvc
+        .perform(
+            delete("/api/restaurants/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_delete_many_restaurants_at_once() throws Exception {
+    // arrange
+    List<Long> ids = List.of(1L, 2L);
+    BulkResult bulkResult =
+        BulkResult.builder()
+            .succeeded(1)
+            .failed(1)
+            .results(List.of(new BulkResult.Item(1L, 200), new BulkResult.Item(2L, 404)))
+            .build();
+    when(bulkService.delete(eq(restaurantRepository), eq(ids))).thenReturn(bulkResult);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                delete("/api/restaurants/bulk")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(ids)))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(bulkService, times(1)).delete(restaurantRepository, ids);
+    assertEquals(
+        mapper.writeValueAsString(bulkResult), response.getResponse().getContentAsString());
+  }
 }
@@ -0,0 +1,132 @@
+package edu.ucsb.cs156.example.controllers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import edu.ucsb.cs156.example.ControllerTestCase;
+import edu.ucsb.cs156.example.errors.BadRequestException;
+import edu.ucsb.cs156.example.models.SearchHit;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.SearchService;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+import jakarta.servlet.ServletException;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MvcResult;
+
+@WebMvcTest(controllers = SearchController.class)
+@Import(TestConfig.class)
+public class SearchControllerTests extends ControllerTestCase {
+  @MockitoBean SearchService searchService;
+
+  @MockitoBean UserRepository userRepository;
+
+  private final SearchHit article =
+      SearchHit.builder().type("article").id(1).text("Best Taco Tuesday").rank(0.6).build();
+
+  private final SearchHit review =
+      SearchHit.builder().type("menuitemreview").id(7).text("Great tacos").rank(0.3).build();
+
+  @Test
+  public void logged_out_users_cannot_search() throws Exception {
+    mockMvc.perform(get("/api/search?q=taco")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_users_get_the_first_page_of_hits() throws Exception {
+    // arrange
+    when(searchService.search("taco tuesday", 0, 21)).thenReturn(List.of(article, review));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/search?q=taco tuesday"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(ApiController.HAS_NEXT_HEADER, "false"))
+            .andReturn();
+
+    // assert
+    assertEquals(
+        mapper.writeValueAsString(List.of(article, review)),
+        response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void the_extra_hit_only_tells_that_there_is_a_next_page() throws Exception {
+    // arrange
+    when(searchService.search("taco", 1, 2)).thenReturn(List.of(article, review));
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/search?q=taco&page=1&size=1"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(ApiController.HAS_NEXT_HEADER, "true"))
+            .andReturn();
+
+    // assert
+    assertEquals(
+        mapper.writeValueAsString(List.of(article)), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void search_results_cannot_be_sorted() throws Exception {
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/search?q=taco&sort=id"))
+            .andExpect(status().isBadRequest())
+            .andReturn();
+
+    // assert
+    verify(searchService, times(0)).search(any(), anyLong(), anyInt());
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("Search results are always sorted by rank", json.get("message"));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void other_illegal_arguments_are_not_reported_as_bad_requests() throws Exception {
+    // arrange
+    when(searchService.search("taco", 0, 21)).thenThrow(new IllegalArgumentException("bug"));
+
+    // act & assert
+    ServletException e =
+        assertThrows(ServletException.class, () -> mockMvc.perform(get("/api/search?q=taco")));
+    assertEquals(IllegalArgumentException.class, e.getCause().getClass());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void bad_queries_are_rejected() throws Exception {
+    // arrange
+    when(searchService.search("!!", 0, 21))
+        .thenThrow(new BadRequestException("q must contain at least one letter or digit"));
+
+    // act
+    MvcResult response =
+        mockMvc.perform(get("/api/search?q=!!")).andExpect(status().isBadRequest()).andReturn();
+
+    // assert
+    Map<String, Object> json = responseToJson(response);
+    assertEquals("BadRequestException", json.get("type"));
+    assertEquals("q must contain at least one letter or digit", json.get("message"));
+  }
+}
@@ -12,12 +12,15 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.models.BulkResult;
 import edu.ucsb.cs156.example.repositories.UCSBDateRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.BulkService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import org.junit.jupiter.api.Test;
@@ -34,6 +37,8 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
 
   @MockitoBean UCSBDateRepository ucsbDateRepository;
 
+  @MockitoBean BulkService bulkService;
+
   @MockitoBean UserRepository userRepository;
 
   // Authorization tests for /api/ucsbdates/admin/all
@@ -48,6 +53,7 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
   @WithMockUser(roles = {"USER"})
   @Test
   public void logged_in_users_can_get_all() throws Exception {
+    when(ucsbDateRepository.findAll()).thenReturn(List.of());
     mockMvc.perform(get("/api/ucsbdates/all")).andExpect(status().is(200)); // logged
   }
 
@@ -164,6 +170,82 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
     assertEquals(expectedJson, responseString);
   }
 
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void get_by_id_answers_a_matching_if_none_match_with_not_modified() throws Exception {
+
+    // arrange
+    UCSBDate ucsbDate =
+        UCSBDate.builder()
+            .name("firstDayOfClasses")
+            .quarterYYYYQ("20222")
+            .localDateTime(LocalDateTime.parse("2022-01-03T00:00:00"))
+            .version(3)
+            .build();
+
+    when(ucsbDateRepository.findById(eq(7L))).thenReturn(Optional.of(ucsbDate));
+
+    String eTag =
+        mockMvc
+            .perform(get("/api/ucsbdates?id=7"))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getHeader("ETag");
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsbdates?id=7").header("If-None-Match", eTag))
+            .andExpect(status().isNotModified())
+            .andReturn();
+
+    // assert
+    assertEquals("\"3-%08x\"".formatted(ucsbDate.hashCode()), eTag);
+    assertEquals(eTag, response.getResponse().getHeader("ETag"));
+    assertEquals("", response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void get_all_has_the_table_version_as_etag() throws Exception {
+
+    // arrange
+    when(tableVersionService.getVersion(UCSBDate.class)).thenReturn(42L);
+    when(ucsbDateRepository.findAll()).thenReturn(List.of());
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsbdates/all").header("If-None-Match", "\"41\""))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    assertEquals("\"42\"", response.getResponse().getHeader("ETag"));
+    assertEquals("[]", response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void get_all_is_not_modified_without_reading_the_dates() throws Exception {
+
+    // arrange
+    when(tableVersionService.getVersion(UCSBDate.class)).thenReturn(42L);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsbdates/all").header("If-None-Match", "\"7\", W/\"42\""))
+            .andExpect(status().isNotModified())
+            .andReturn();
+
+    // assert
+    verify(ucsbDateRepository, times(0)).findAll();
+    assertEquals("\"42\"", response.getResponse().getHeader("ETag"));
+    assertEquals("", response.getResponse().getContentAsString());
+  }
+
   @WithMockUser(roles = {"ADMIN", "USER"})
   @Test
   public void an_admin_user_can_post_a_new_ucsbdate() throws Exception {
@@ -328,4 +410,201 @@ public class UCSBDatesControllerTests extends ControllerTestCase {
     Map<String, Object> json = responseToJson(response);
     assertEquals("UCSBDate with id 67 not found", json.get("message"));
   }
+
+  // Tests for POST, PUT and DELETE /api/ucsbdates/bulk
+
+  @Test
+  public void logged_out_users_cannot_get_by_lookup_column() throws Exception {
+    mockMvc.perform(get("/api/ucsbdates/byquarter?quarterYYYYQ=20244")).andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_users_can_get_dates_by_quarter() throws Exception {
+    // arrange
+    List<UCSBDate> expected =
+        List.of(
+            UCSBDate.builder()
+                .quarterYYYYQ("20244")
+                .name("firstDayOfClasses")
+                .localDateTime(LocalDateTime.parse("2024-09-26T00:00:00"))
+                .build());
+    when(ucsbDateRepository.findAllByQuarterYYYYQ(eq("20244"))).thenReturn(expected);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsbdates/byquarter?quarterYYYYQ=20244"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(ucsbDateRepository, times(1)).findAllByQuarterYYYYQ("20244");
+    assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+  }
+
+  @Test
+  public void logged_out_users_cannot_post_bulk() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/ucsbdates/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_post_bulk() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/ucsbdates/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_post_many_dates_at_once() throws Exception {
+    // arrange
+    List<UCSBDate> incoming =
+        List.of(
+            UCSBDate.builder().quarterYYYYQ("20251").name("Day 1").build(),
+            UCSBDate.builder().quarterYYYYQ("20252").name("Day 2").build());
+    BulkResult bulkResult =
+        BulkResult.builder()
+            .succeeded(1)
+            .failed(1)
+            .results(List.of(new BulkResult.Item(1L, 201), new BulkResult.Item(2L, 404)))
+            .build();
+    when(bulkService.create(eq(ucsbDateRepository), eq(incoming))).thenReturn(bulkResult);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/ucsbdates/bulk")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(incoming)))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(bulkService, times(1)).create(ucsbDateRepository, incoming);
+    assertEquals(
+        mapper.writeValueAsString(bulkResult), response.getResponse().getContentAsString());
+  }
+
+  @Test
+  public void logged_out_users_cannot_put_bulk() throws Exception {
+    mockMvc
+        .perform(
+            put("/api/ucsbdates/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_put_bulk() throws Exception {
+    mockMvc
+        .perform(
+            put("/api/ucsbdates/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_put_many_dates_at_once() throws Exception {
+    // arrange
+    List<UCSBDate> incoming =
+        List.of(
+            UCSBDate.builder().quarterYYYYQ("20251").name("Day 1").id(1).build(),
+            UCSBDate.builder().quarterYYYYQ("20252").name("Day 2").id(2).build());
+    BulkResult bulkResult =
+        BulkResult.builder()
+            .succeeded(1)
+            .failed(1)
+            .results(List.of(new BulkResult.Item(1L, 200), new BulkResult.Item(2L, 404)))
+            .build();
+    when(bulkService.update(eq(ucsbDateRepository), eq(incoming))).thenReturn(bulkResult);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/ucsbdates/bulk")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(incoming)))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(bulkService, times(1)).update(ucsbDateRepository, incoming);
+    assertEquals(
+        mapper.writeValueAsString(bulkResult), response.getResponse().getContentAsString());
+  }
+
+  @Test
+  public void logged_out_users_cannot_delete_bulk() throws Exception {
+    mockMvc
+        .perform(
+            delete("/api/ucsbdates/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_delete_bulk() throws Exception {
+    mockMvc
+        .perform(
+            delete("/api/ucsbdates/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_delete_many_dates_at_once() throws Exception {
+    // arrange
+    List<Long> ids = List.of(1L, 2L);
+    BulkResult bulkResult =
+        BulkResult.builder()
+            .succeeded(1)
+            .failed(1)
+            .results(List.of(new BulkResult.Item(1L, 200), new BulkResult.Item(2L, 404)))
+            .build();
+    when(bulkService.delete(eq(ucsbDateRepository), eq(ids))).thenReturn(bulkResult);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                delete("/api/ucsbdates/bulk")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(ids)))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(bulkService, times(1)).delete(ucsbDateRepository, ids);
+    assertEquals(
+        mapper.writeValueAsString(bulkResult), response.getResponse().getContentAsString());
+  }
 }
@@ -2,6 +2,8 @@ package edu.ucsb.cs156.example.controllers;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -12,11 +14,16 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
 
 import edu.ucsb.cs156.example.ControllerTestCase;
 import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.models.BulkResult;
+import edu.ucsb.cs156.example.models.NearbyDiningCommons;
 import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
 import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.BulkService;
+import edu.ucsb.cs156.example.services.NearestDiningCommonsService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import org.junit.jupiter.api.Test;
@@ -33,6 +40,10 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
 
   @MockitoBean UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
 
+  @MockitoBean BulkService bulkService;
+
+  @MockitoBean NearestDiningCommonsService nearestDiningCommonsService;
+
   @MockitoBean UserRepository userRepository;
 
   // Authorization tests for /api/ucsbdiningcommons/admin/all
@@ -177,6 +188,46 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
     assertEquals(expectedJson, responseString);
   }
 
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void get_all_is_not_modified_when_the_etag_matches() throws Exception {
+
+    // arrange
+    when(tableVersionService.getVersion(UCSBDiningCommons.class)).thenReturn(5L);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsbdiningcommons/all").header("If-None-Match", "\"5\""))
+            .andExpect(status().isNotModified())
+            .andReturn();
+
+    // assert
+    verify(ucsbDiningCommonsRepository, times(0)).findAll();
+    assertEquals("\"5\"", response.getResponse().getHeader("ETag"));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void get_all_has_a_new_etag_when_the_table_has_changed() throws Exception {
+
+    // arrange
+    when(tableVersionService.getVersion(UCSBDiningCommons.class)).thenReturn(6L);
+    when(ucsbDiningCommonsRepository.findAll()).thenReturn(List.of());
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsbdiningcommons/all").header("If-None-Match", "\"5\""))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(ucsbDiningCommonsRepository, times(1)).findAll();
+    assertEquals("\"6\"", response.getResponse().getHeader("ETag"));
+    assertEquals("[]", response.getResponse().getContentAsString());
+  }
+
   @WithMockUser(roles = {"ADMIN", "USER"})
   @Test
   public void an_admin_user_can_post_a_new_commons() throws Exception {
@@ -354,4 +405,249 @@ public class UCSBDiningCommonsControllerTests extends ControllerTestCase {
     Map<String, Object> json = responseToJson(response);
     assertEquals("UCSBDiningCommons with id munger-hall not found", json.get("message"));
   }
+
+  // Tests for POST, PUT and DELETE /api/ucsbdiningcommons/bulk
+
+  @Test
+  public void logged_out_users_cannot_post_bulk() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/ucsbdiningcommons/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_post_bulk() throws Exception {
+    mockMvc
+        .perform(
+            post("/api/ucsbdiningcommons/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_post_many_commons_at_once() throws Exception {
+    // arrange
+    List<UCSBDiningCommons> incoming =
+        List.of(
+            UCSBDiningCommons.builder().code("commons-1").name("Commons 1").build(),
+            UCSBDiningCommons.builder().code("commons-2").name("Commons 2").build());
+    BulkResult bulkResult =
+        BulkResult.builder()
+            .succeeded(1)
+            .failed(1)
+            .results(
+                List.of(
+                    new BulkResult.Item("commons-1", 201), new BulkResult.Item("commons-2", 404)))
+            .build();
+    when(bulkService.create(eq(ucsbDiningCommonsRepository), eq(incoming))).thenReturn(bulkResult);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                post("/api/ucsbdiningcommons/bulk")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(incoming)))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(bulkService, times(1)).create(ucsbDiningCommonsRepository, incoming);
+    assertEquals(
+        mapper.writeValueAsString(bulkResult), response.getResponse().getContentAsString());
+  }
+
+  @Test
+  public void logged_out_users_cannot_put_bulk() throws Exception {
+    mockMvc
+        .perform(
+            put("/api/ucsbdiningcommons/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_put_bulk() throws Exception {
+    mockMvc
+        .perform(
+            put("/api/ucsbdiningcommons/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_put_many_commons_at_once() throws Exception {
+    // arrange
+    List<UCSBDiningCommons> incoming =
+        List.of(
+            UCSBDiningCommons.builder().code("commons-1").name("Commons 1").build(),
+            UCSBDiningCommons.builder().code("commons-2").name("Commons 2").build());
+    BulkResult bulkResult =
+        BulkResult.builder()
+            .succeeded(1)
+            .failed(1)
+            .results(
+                List.of(
+                    new BulkResult.Item("commons-1", 200), new BulkResult.Item("commons-2", 404)))
+            .build();
+    when(bulkService.update(eq(ucsbDiningCommonsRepository), eq(incoming))).thenReturn(bulkResult);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                put("/api/ucsbdiningcommons/bulk")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(incoming)))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(bulkService, times(1)).update(ucsbDiningCommonsRepository, incoming);
+    assertEquals(
+        mapper.writeValueAsString(bulkResult), response.getResponse().getContentAsString());
+  }
+
+  @Test
+  public void logged_out_users_cannot_delete_bulk() throws Exception {
+    mockMvc
+        .perform(
+            delete("/api/ucsbdiningcommons/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_regular_users_cannot_delete_bulk() throws Exception {
+    mockMvc
+        .perform(
+            delete("/api/ucsbdiningcommons/bulk")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_delete_many_commons_at_once() throws Exception {
+    // arrange
+    List<String> ids = List.of("commons-1", "commons-2");
+    BulkResult bulkResult =
+        BulkResult.builder()
+            .succeeded(1)
+            .failed(1)
+            .results(
+                List.of(
+                    new BulkResult.Item("commons-1", 200), new BulkResult.Item("commons-2", 404)))
+            .build();
+    when(bulkService.delete(eq(ucsbDiningCommonsRepository), eq(ids))).thenReturn(bulkResult);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(
+                delete("/api/ucsbdiningcommons/bulk")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(ids)))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(bulkService, times(1)).delete(ucsbDiningCommonsRepository, ids);
+    assertEquals(
+        mapper.writeValueAsString(bulkResult), response.getResponse().getContentAsString());
+  }
+
+  // tests for GET /api/ucsbdiningcommons/nearest
+
+  @Test
+  public void logged_out_users_cannot_get_nearest() throws Exception {
+    mockMvc
+        .perform(get("/api/ucsbdiningcommons/nearest?lat=34.41&lon=-119.85"))
+        .andExpect(status().is(403));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void logged_in_users_can_get_the_nearest_commons() throws Exception {
+    // arrange
+    List<NearbyDiningCommons> expected =
+        List.of(
+            NearbyDiningCommons.builder()
+                .commons(
+                    UCSBDiningCommons.builder()
+                        .code("ortega")
+                        .name("Ortega")
+                        .latitude(34.410987)
+                        .longitude(-119.84709)
+                        .build())
+                .distanceMeters(8.38)
+                .build());
+    when(nearestDiningCommonsService.nearest(34.411, -119.847, 5)).thenReturn(expected);
+
+    // act
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsbdiningcommons/nearest?lat=34.411&lon=-119.847"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    verify(ucsbDiningCommonsRepository, times(0)).findAll();
+    assertEquals(mapper.writeValueAsString(expected), response.getResponse().getContentAsString());
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void nearest_passes_k_on() throws Exception {
+    // act
+    mockMvc
+        .perform(get("/api/ucsbdiningcommons/nearest?lat=0&lon=180&k=100"))
+        .andExpect(status().isOk());
+
+    // assert
+    verify(nearestDiningCommonsService, times(1)).nearest(0, 180, 100);
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void nearest_rejects_bad_coordinates_and_counts() throws Exception {
+    Map<String, String> messages =
+        Map.of(
+            "lat=90.5&lon=0", "lat must be between -90 and 90, got 90.5",
+            "lat=NaN&lon=0", "lat must be between -90 and 90, got NaN",
+            "lat=0&lon=-181", "lon must be between -180 and 180, got -181.0",
+            "lat=0&lon=0&k=0", "k must be between 1 and 100, got 0",
+            "lat=0&lon=0&k=101", "k must be between 1 and 100, got 101");
+    for (Map.Entry<String, String> entry : messages.entrySet()) {
+      MvcResult response =
+          mockMvc
+              .perform(get("/api/ucsbdiningcommons/nearest?" + entry.getKey()))
+              .andExpect(status().isBadRequest())
+              .andReturn();
+      assertEquals(entry.getValue(), responseToJson(response).get("message"));
+    }
+    verify(nearestDiningCommonsService, times(0)).nearest(anyDouble(), anyDouble(), anyInt());
+  }
 }
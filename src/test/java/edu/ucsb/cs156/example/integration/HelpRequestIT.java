@@ -1,10 +1,12 @@
 package edu.ucsb.cs156.example.integration;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -94,4 +96,23 @@ public class HelpRequestIT {
     assertEquals("[]", response.getResponse().getContentAsString());
     verify(helpRequestRepository, times(1)).findAll();
   }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void solving_a_help_request_changes_the_etag_of_the_lists() throws Exception {
+    // arrange
+    when(helpRequestRepository.setSolved(7L, true)).thenReturn(1);
+    when(helpRequestRepository.findAll()).thenReturn(new ArrayList<>());
+    String before =
+        mockMvc.perform(get("/api/helprequest/all")).andReturn().getResponse().getHeader("ETag");
+
+    // act
+    mockMvc.perform(patch("/api/helprequest/solve?id=7").with(csrf())).andExpect(status().isOk());
+
+    // assert
+    String after =
+        mockMvc.perform(get("/api/helprequest/all")).andReturn().getResponse().getHeader("ETag");
+    verify(helpRequestRepository, times(1)).setSolved(7L, true);
+    assertNotEquals(before, after);
+  }
 }
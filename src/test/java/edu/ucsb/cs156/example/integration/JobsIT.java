@@ -0,0 +1,176 @@
+package edu.ucsb.cs156.example.integration;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.jobs.TestJob;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.jobs.JobService;
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.annotation.DirtiesContext.ClassMode;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+@ActiveProfiles("integration")
+@Import(TestConfig.class)
+@DirtiesContext(classMode = ClassMode.BEFORE_EACH_TEST_METHOD)
+public class JobsIT {
+  @Autowired JobsRepository jobsRepository;
+
+  @Autowired JobService jobService;
+
+  @Autowired public MockMvc mockMvc;
+
+  @Autowired public ObjectMapper mapper;
+
+  @MockitoBean UserRepository userRepository;
+
+  private List<Long> saveJobs(String... statuses) {
+    List<Long> ids = new ArrayList<>();
+    for (String status : statuses) {
+      Job job = Job.builder().status(status).log("a long log").build();
+      ids.add(jobsRepository.save(job).getId());
+    }
+    return ids;
+  }
+
+  private JsonNode getPage(String query) throws Exception {
+    String body =
+        mockMvc
+            .perform(get("/api/jobs/page?" + query))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+    return mapper.readTree(body);
+  }
+
+  private List<Long> ids(JsonNode page) {
+    List<Long> ids = new ArrayList<>();
+    page.get("jobs").forEach(job -> ids.add(job.get("id").asLong()));
+    return ids;
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_page_through_all_jobs_newest_first() throws Exception {
+    // arrange
+    List<Long> saved = saveJobs("complete", "error", "complete", "complete", "error");
+
+    // act
+    JsonNode page1 = getPage("size=2");
+    JsonNode page2 =
+        getPage(
+            "size=2&beforeCreatedAt=%s&beforeId=%s"
+                .formatted(page1.get("nextCreatedAt").asText(), page1.get("nextId").asText()));
+    JsonNode page3 =
+        getPage(
+            "size=2&beforeCreatedAt=%s&beforeId=%s"
+                .formatted(page2.get("nextCreatedAt").asText(), page2.get("nextId").asText()));
+
+    // assert
+    assertEquals(List.of(saved.get(4), saved.get(3)), ids(page1));
+    assertEquals(List.of(saved.get(2), saved.get(1)), ids(page2));
+    assertEquals(List.of(saved.get(0)), ids(page3));
+    assertNull(page3.get("nextId").textValue());
+    assertNotNull(page1.get("jobs").get(0).get("createdAt").textValue());
+    assertNull(page1.get("jobs").get(0).get("log"));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_page_through_jobs_with_a_status() throws Exception {
+    // arrange
+    List<Long> saved = saveJobs("complete", "error", "complete", "complete", "error");
+
+    // act
+    JsonNode page1 = getPage("size=1&status=error");
+    JsonNode page2 =
+        getPage(
+            "size=1&status=error&beforeCreatedAt=%s&beforeId=%s"
+                .formatted(page1.get("nextCreatedAt").asText(), page1.get("nextId").asText()));
+
+    // assert
+    assertEquals(List.of(saved.get(4)), ids(page1));
+    assertEquals(List.of(saved.get(1)), ids(page2));
+    assertNull(page2.get("nextId").textValue());
+  }
+
+  @Test
+  public void queued_job_left_by_another_node_is_claimed_and_run() throws Exception {
+    // arrange
+    Job job =
+        jobsRepository.save(
+            Job.builder()
+                .status("queued")
+                .jobType(TestJob.class.getName())
+                .payload("{\"fail\":false,\"sleepMs\":0}")
+                .build());
+
+    // act
+    jobService.pollQueue();
+
+    // assert
+    await()
+        .atMost(10, SECONDS)
+        .until(() -> jobsRepository.findById(job.getId()).get().getStatus().equals("complete"));
+    Job finished = jobsRepository.findById(job.getId()).get();
+    assertEquals(1, finished.getAttempts());
+    assertNotNull(finished.getLeaseOwner());
+    assertEquals(
+        "Hello World! from test job!\nGoodbye from test job!", jobService.getJobLogs(job.getId()));
+  }
+
+  @WithMockUser(roles = {"ADMIN"})
+  @Test
+  public void admin_can_cancel_a_running_job() throws Exception {
+    // arrange
+    String launched =
+        mockMvc
+            .perform(post("/api/jobs/launch/testjob?fail=false&sleepMs=60000").with(csrf()))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+    long id = mapper.readTree(launched).get("id").asLong();
+    await()
+        .atMost(10, SECONDS)
+        .until(() -> jobService.getJobLogs(id).contains("Hello World! from test job!"));
+
+    // act
+    mockMvc
+        .perform(post("/api/jobs/%d/cancel".formatted(id)).with(csrf()))
+        .andExpect(status().isOk());
+
+    // assert
+    await()
+        .atMost(10, SECONDS)
+        .until(() -> jobsRepository.findById(id).get().getStatus().equals("cancelled"));
+    assertEquals("Hello World! from test job!\nJob cancelled", jobService.getJobLogs(id));
+  }
+}
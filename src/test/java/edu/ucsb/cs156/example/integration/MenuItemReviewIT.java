@@ -1,6 +1,7 @@
 package edu.ucsb.cs156.example.integration;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -13,12 +14,17 @@ import edu.ucsb.cs156.example.services.CurrentUserService;
 import edu.ucsb.cs156.example.services.GrantedAuthoritiesService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.annotation.DirtiesContext.ClassMode;
@@ -73,6 +79,174 @@ public class MenuItemReviewIT {
     assertEquals(expectedJson, responseString);
   }
 
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void a_user_can_page_through_all_reviews_with_a_cursor() throws Exception {
+    // arrange
+    for (int i = 1; i <= 5; i++) {
+      menuItemReviewRepository.save(
+          MenuItemReview.builder()
+              .itemId(i)
+              .reviewerEmail("johndoe@ucsb.edu")
+              .stars(i)
+              .dateReviewed(LocalDateTime.parse("2025-10-31T20:33:40"))
+              .comments("review " + i)
+              .build());
+    }
+
+    // act
+    MvcResult first =
+        mockMvc
+            .perform(get("/api/menuitemreviews/all?size=2"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Has-Next", "true"))
+            .andReturn();
+    String cursor = first.getResponse().getHeader("X-Next-Cursor");
+    MvcResult second =
+        mockMvc
+            .perform(get("/api/menuitemreviews/all?size=2&after=" + cursor))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Has-Next", "true"))
+            .andReturn();
+    MvcResult last =
+        mockMvc
+            .perform(get("/api/menuitemreviews/all?size=2&page=2"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Has-Next", "false"))
+            .andReturn();
+    MvcResult sorted =
+        mockMvc
+            .perform(get("/api/menuitemreviews/all?size=1&sort=stars,desc"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    assertEquals("2", cursor);
+    assertEquals(List.of(1, 2), itemIds(first));
+    assertEquals(List.of(3, 4), itemIds(second));
+    assertEquals(List.of(5), itemIds(last));
+    assertEquals(List.of(5), itemIds(sorted));
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void a_user_can_export_all_reviews_as_ndjson() throws Exception {
+    // arrange
+    for (int i = 1; i <= 3; i++) {
+      menuItemReviewRepository.save(
+          MenuItemReview.builder()
+              .itemId(i)
+              .reviewerEmail("johndoe@ucsb.edu")
+              .stars(i)
+              .dateReviewed(LocalDateTime.parse("2025-10-31T20:33:40"))
+              .comments("review " + i)
+              .build());
+    }
+
+    // act
+    MvcResult started =
+        mockMvc
+            .perform(get("/api/menuitemreviews/export"))
+            .andExpect(request().asyncStarted())
+            .andReturn();
+    MvcResult response =
+        mockMvc
+            .perform(asyncDispatch(started))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType("application/x-ndjson"))
+            .andReturn();
+
+    // assert
+    List<Integer> itemIds =
+        response
+            .getResponse()
+            .getContentAsString()
+            .lines()
+            .map(line -> (int) readReview(line).getItemId())
+            .toList();
+    assertEquals(List.of(1, 2, 3), itemIds);
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void an_admin_user_can_create_update_and_delete_reviews_in_bulk() throws Exception {
+    // arrange
+    List<MenuItemReview> reviews = new ArrayList<>();
+    for (int i = 1; i <= 3; i++) {
+      reviews.add(
+          MenuItemReview.builder()
+              .itemId(i)
+              .reviewerEmail("johndoe@ucsb.edu")
+              .stars(i)
+              .dateReviewed(LocalDateTime.parse("2025-10-31T20:33:40"))
+              .comments("review " + i)
+              .build());
+    }
+
+    // act
+    MvcResult created =
+        mockMvc
+            .perform(
+                post("/api/menuitemreviews/bulk")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(reviews)))
+            .andExpect(status().isOk())
+            .andReturn();
+    reviews.get(0).setId(1);
+    reviews.get(0).setStars(5);
+    reviews.get(1).setId(99);
+    MvcResult updated =
+        mockMvc
+            .perform(
+                put("/api/menuitemreviews/bulk")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(mapper.writeValueAsString(reviews.subList(0, 2))))
+            .andExpect(status().isOk())
+            .andReturn();
+    MvcResult deleted =
+        mockMvc
+            .perform(
+                delete("/api/menuitemreviews/bulk")
+                    .with(csrf())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("[2, 2]"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    assertEquals(
+        "{\"succeeded\":3,\"failed\":0,\"results\":"
+            + "[{\"id\":1,\"status\":201},{\"id\":2,\"status\":201},{\"id\":3,\"status\":201}]}",
+        created.getResponse().getContentAsString());
+    assertEquals(
+        "{\"succeeded\":1,\"failed\":1,\"results\":"
+            + "[{\"id\":1,\"status\":200},{\"id\":99,\"status\":404}]}",
+        updated.getResponse().getContentAsString());
+    assertEquals(
+        "{\"succeeded\":1,\"failed\":1,\"results\":"
+            + "[{\"id\":2,\"status\":200},{\"id\":2,\"status\":404}]}",
+        deleted.getResponse().getContentAsString());
+    assertEquals(5, menuItemReviewRepository.findById(1L).get().getStars());
+    assertEquals(2, menuItemReviewRepository.count());
+    assertFalse(menuItemReviewRepository.existsById(2L));
+  }
+
+  private MenuItemReview readReview(String json) {
+    try {
+      return mapper.readValue(json, MenuItemReview.class);
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private List<Integer> itemIds(MvcResult result) throws Exception {
+    MenuItemReview[] reviews =
+        mapper.readValue(result.getResponse().getContentAsString(), MenuItemReview[].class);
+    return Arrays.stream(reviews).map(r -> (int) r.getItemId()).toList();
+  }
+
   @WithMockUser(roles = {"ADMIN", "USER"})
   @Test
   public void an_admin_user_can_post_a_new_restaurant() throws Exception {
@@ -107,4 +281,63 @@ public class MenuItemReviewIT {
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
   }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void stats_follow_reviews_as_they_are_posted_edited_and_deleted() throws Exception {
+    // arrange
+    MenuItemReview three = null;
+    for (int stars : new int[] {5, 3}) {
+      MvcResult posted =
+          mockMvc
+              .perform(
+                  post("/api/menuitemreviews/post")
+                      .param("itemId", "4")
+                      .param("reviewerEmail", "johndoe@ucsb.edu")
+                      .param("stars", Integer.toString(stars))
+                      .param("dateReviewed", "2025-10-31T20:33:40")
+                      .param("comments", "ok")
+                      .with(csrf()))
+              .andExpect(status().isOk())
+              .andReturn();
+      three = mapper.readValue(posted.getResponse().getContentAsString(), MenuItemReview.class);
+    }
+    three.setStars(4);
+
+    // act
+    mockMvc
+        .perform(
+            put("/api/menuitemreviews?id=" + three.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(three))
+                .with(csrf()))
+        .andExpect(status().isOk());
+    MvcResult afterEdit =
+        mockMvc
+            .perform(get("/api/menuitemreviews/stats?itemId=4"))
+            .andExpect(status().isOk())
+            .andReturn();
+    mockMvc
+        .perform(delete("/api/menuitemreviews?id=" + three.getId()).with(csrf()))
+        .andExpect(status().isOk());
+    MvcResult afterDelete =
+        mockMvc
+            .perform(get("/api/menuitemreviews/top?count=1"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    Map<String, Object> edited =
+        mapper.readValue(afterEdit.getResponse().getContentAsString(), Map.class);
+    assertEquals(2, edited.get("reviewCount"));
+    assertEquals(4.5, edited.get("averageStars"));
+    assertEquals(1, edited.get("fourStars"));
+    assertEquals(1, edited.get("fiveStars"));
+    List<Map<String, Object>> top =
+        mapper.readValue(afterDelete.getResponse().getContentAsString(), List.class);
+    assertEquals(1, top.size());
+    assertEquals(4, top.get(0).get("itemId"));
+    assertEquals(1, top.get(0).get("reviewCount"));
+    assertEquals(5.0, top.get(0).get("averageStars"));
+  }
 }
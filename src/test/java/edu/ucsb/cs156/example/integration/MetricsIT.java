@@ -0,0 +1,67 @@
+package edu.ucsb.cs156.example.integration;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import edu.ucsb.cs156.example.testconfig.TestConfig;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.web.servlet.MockMvc;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+@ActiveProfiles("integration")
+@Import(TestConfig.class)
+public class MetricsIT {
+  @Autowired public MockMvc mockMvc;
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void admins_can_scrape_per_endpoint_pool_query_and_jvm_metrics() throws Exception {
+    // arrange
+    mockMvc.perform(get("/api/ucsbdiningcommons/all")).andExpect(status().isOk());
+
+    // act
+    String metrics =
+        mockMvc
+            .perform(get("/actuator/prometheus"))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getContentAsString();
+
+    // assert
+    for (String expected :
+        new String[] {
+          "http_server_requests_seconds_bucket{error=\"none\",exception=\"none\","
+              + "handler=\"UCSBDiningCommonsController.allCommonss\"",
+          "hikaricp_connections_active",
+          "hibernate_query_executions_total",
+          "jvm_gc_memory_allocated_bytes_total",
+        }) {
+      assertTrue(metrics.contains(expected), () -> expected + " not found in " + metrics);
+    }
+  }
+
+  @WithMockUser(roles = {"USER"})
+  @Test
+  public void users_cannot_scrape_metrics() throws Exception {
+    mockMvc.perform(get("/actuator/prometheus")).andExpect(status().isForbidden());
+  }
+
+  @Test
+  public void logged_out_users_cannot_scrape_metrics() throws Exception {
+    mockMvc.perform(get("/actuator/prometheus")).andExpect(status().isForbidden());
+  }
+}
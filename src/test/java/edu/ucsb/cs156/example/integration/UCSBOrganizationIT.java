@@ -1,6 +1,8 @@
 package edu.ucsb.cs156.example.integration;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -12,12 +14,14 @@ import edu.ucsb.cs156.example.repositories.UserRepository;
 import edu.ucsb.cs156.example.services.CurrentUserService;
 import edu.ucsb.cs156.example.services.GrantedAuthoritiesService;
 import edu.ucsb.cs156.example.testconfig.TestConfig;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.annotation.DirtiesContext.ClassMode;
@@ -44,6 +48,8 @@ public class UCSBOrganizationIT {
 
   @Autowired public ObjectMapper mapper;
 
+  @Autowired MeterRegistry meterRegistry;
+
   @MockitoBean UserRepository userRepository;
 
   @WithMockUser(roles = {"USER"})
@@ -101,4 +107,92 @@ public class UCSBOrganizationIT {
     String responseString = response.getResponse().getContentAsString();
     assertEquals(expectedJson, responseString);
   }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void repeated_gets_are_served_from_the_cache_until_an_update() throws Exception {
+    // arrange
+    ucsborganizationRepository.save(
+        UCSBOrganization.builder()
+            .orgcode("SWE")
+            .orgTranslationShort("SWE")
+            .orgTranslation("Society of Women Engineers")
+            .inactive(false)
+            .build());
+    UCSBOrganization updated =
+        UCSBOrganization.builder()
+            .orgcode("SWE")
+            .orgTranslationShort("SWE UCSB")
+            .orgTranslation("Society of Women Engineers at UCSB")
+            .inactive(false)
+            .version(1)
+            .build();
+
+    // act
+    mockMvc.perform(get("/api/ucsborganization?orgcode=SWE")).andExpect(status().isOk());
+    mockMvc.perform(get("/api/ucsborganization?orgcode=SWE")).andExpect(status().isOk());
+    mockMvc
+        .perform(
+            put("/api/ucsborganization?orgcode=SWE")
+                .with(csrf())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(mapper.writeValueAsString(updated)))
+        .andExpect(status().isOk());
+    MvcResult response =
+        mockMvc
+            .perform(get("/api/ucsborganization?orgcode=SWE"))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    assertEquals(mapper.writeValueAsString(updated), response.getResponse().getContentAsString());
+    double hits =
+        meterRegistry
+            .get("hibernate.second.level.cache.requests")
+            .tags("region", "ucsborganization", "result", "hit")
+            .functionCounter()
+            .count();
+    assertTrue(hits >= 3, "expected at least 3 cache hits, got " + hits);
+  }
+
+  @WithMockUser(roles = {"ADMIN", "USER"})
+  @Test
+  public void all_is_not_modified_until_an_organization_is_added() throws Exception {
+    // arrange
+    ucsborganizationRepository.save(
+        UCSBOrganization.builder().orgcode("SWE").orgTranslationShort("SWE").build());
+    String eTag =
+        mockMvc
+            .perform(get("/api/ucsborganization/all"))
+            .andExpect(status().isOk())
+            .andReturn()
+            .getResponse()
+            .getHeader("ETag");
+
+    // act
+    MvcResult unchanged =
+        mockMvc
+            .perform(get("/api/ucsborganization/all").header("If-None-Match", eTag))
+            .andExpect(status().isNotModified())
+            .andReturn();
+    mockMvc
+        .perform(
+            post("/api/ucsborganization/post")
+                .param("orgcode", "ACM")
+                .param("orgTranslationShort", "ACM")
+                .param("orgTranslation", "Association for Computing Machinery")
+                .param("inactive", "false")
+                .with(csrf()))
+        .andExpect(status().isOk());
+    MvcResult changed =
+        mockMvc
+            .perform(get("/api/ucsborganization/all").header("If-None-Match", eTag))
+            .andExpect(status().isOk())
+            .andReturn();
+
+    // assert
+    assertEquals("", unchanged.getResponse().getContentAsString());
+    assertNotEquals(eTag, changed.getResponse().getHeader("ETag"));
+    assertTrue(changed.getResponse().getContentAsString().contains("\"orgcode\":\"ACM\""));
+  }
 }
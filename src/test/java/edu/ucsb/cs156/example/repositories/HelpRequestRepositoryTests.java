@@ -0,0 +1,91 @@
+package edu.ucsb.cs156.example.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.services.wiremock.WiremockService;
+import jakarta.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+@DataJpaTest
+public class HelpRequestRepositoryTests {
+  @Autowired HelpRequestRepository helpRequestRepository;
+
+  @Autowired EntityManager entityManager;
+
+  @MockitoBean WiremockService mockWiremockService;
+
+  private HelpRequest save(String teamId, String requestTime, boolean solved) {
+    return helpRequestRepository.save(
+        HelpRequest.builder()
+            .requesterEmail("cgaucho@ucsb.edu")
+            .teamId(teamId)
+            .tableOrBreakoutRoom("7")
+            .requestTime(requestTime == null ? null : LocalDateTime.parse(requestTime))
+            .explanation("help")
+            .solved(solved)
+            .build());
+  }
+
+  private static List<String> teams(Window<HelpRequest> window) {
+    return window.getContent().stream().map(HelpRequest::getTeamId).toList();
+  }
+
+  @Test
+  public void the_queue_has_unsolved_requests_oldest_first_a_window_at_a_time() {
+    // arrange
+    save("late", "2025-10-01T10:30:00", false);
+    save("solved", "2025-10-01T09:00:00", true);
+    save("first", "2025-10-01T10:00:00", false);
+    save("same-time", "2025-10-01T10:00:00", false);
+    save("no-time", null, false);
+
+    // act
+    Window<HelpRequest> first =
+        helpRequestRepository.findQueue(ScrollPosition.keyset(), Limit.of(2));
+    HelpRequest last = first.getContent().get(1);
+    Window<HelpRequest> second =
+        helpRequestRepository.findQueue(
+            ScrollPosition.forward(
+                Map.of("requestTime", last.getRequestTime(), "id", last.getId())),
+            Limit.of(2));
+
+    // assert
+    assertEquals(List.of("first", "same-time"), teams(first));
+    assertTrue(first.hasNext());
+    assertEquals(List.of("late"), teams(second));
+    assertFalse(second.hasNext());
+  }
+
+  @Test
+  public void set_solved_updates_only_that_row_and_its_version() {
+    // arrange
+    HelpRequest helpRequest = save("f25-01", "2025-10-01T10:00:00", false);
+    HelpRequest other = save("f25-02", "2025-10-01T10:00:00", false);
+    entityManager.flush();
+
+    // act
+    int updated = helpRequestRepository.setSolved(helpRequest.getId(), true);
+    int missing = helpRequestRepository.setSolved(-1, true);
+
+    // assert
+    assertEquals(1, updated);
+    assertEquals(0, missing);
+    HelpRequest solved = helpRequestRepository.findById(helpRequest.getId()).get();
+    assertTrue(solved.getSolved());
+    assertEquals(1, solved.getVersion());
+    assertEquals("f25-01", solved.getTeamId());
+    assertFalse(helpRequestRepository.findById(other.getId()).get().getSolved());
+  }
+}
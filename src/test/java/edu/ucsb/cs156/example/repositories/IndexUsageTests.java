@@ -0,0 +1,140 @@
+package edu.ucsb.cs156.example.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ucsb.cs156.example.services.wiremock.WiremockService;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+/**
+ * Checks that the finder methods use the indexes created for them, by running each finder, taking
+ * the SQL it sent and asking the database for its plan with {@code EXPLAIN}.
+ */
+@DataJpaTest(
+    properties =
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+            + "edu.ucsb.cs156.example.repositories.IndexUsageTests$RecordingStatementInspector")
+public class IndexUsageTests {
+  /** Keeps every SQL statement Hibernate prepares. */
+  public static class RecordingStatementInspector implements StatementInspector {
+    static final List<String> statements = new CopyOnWriteArrayList<>();
+
+    @Override
+    public String inspect(String sql) {
+      statements.add(sql);
+      return sql;
+    }
+  }
+
+  @Autowired JdbcTemplate jdbcTemplate;
+
+  @Autowired UserRepository userRepository;
+
+  @Autowired UCSBDateRepository ucsbDateRepository;
+
+  @Autowired MenuItemReviewRepository menuItemReviewRepository;
+
+  @Autowired HelpRequestRepository helpRequestRepository;
+
+  @Autowired RecommendationRequestRepository recommendationRequestRepository;
+
+  @Autowired UCSBDiningCommonsMenuItemRepository ucsbDiningCommonsMenuItemRepository;
+
+  @MockitoBean WiremockService mockWiremockService;
+
+  @BeforeEach
+  public void setup() {
+    RecordingStatementInspector.statements.clear();
+  }
+
+  private void assertUsesIndex(String index, Object parameter, Runnable finder) {
+    finder.run();
+    List<String> statements = RecordingStatementInspector.statements;
+    assertEquals(1, statements.size(), () -> "expected one statement, got " + statements);
+
+    String plan =
+        jdbcTemplate.queryForObject("EXPLAIN " + statements.get(0), String.class, parameter);
+
+    assertTrue(plan.contains(index), () -> "expected " + index + " to be used, plan was " + plan);
+  }
+
+  @Test
+  public void users_are_found_by_email_with_an_index() {
+    assertUsesIndex(
+        "USERS_EMAIL_IDX",
+        "cgaucho@ucsb.edu",
+        () -> userRepository.findByEmail("cgaucho@ucsb.edu"));
+  }
+
+  @Test
+  public void dates_are_found_by_quarter_with_an_index() {
+    assertUsesIndex(
+        "UCSBDATES_QUARTERYYYYQ_IDX",
+        "20244",
+        () -> ucsbDateRepository.findAllByQuarterYYYYQ("20244"));
+  }
+
+  @Test
+  public void reviews_are_found_by_item_with_an_index() {
+    assertUsesIndex(
+        "MENUITEMREVIEWS_ITEM_ID_IDX", 7L, () -> menuItemReviewRepository.findAllByItemId(7L));
+  }
+
+  @Test
+  public void reviews_are_found_by_reviewer_with_an_index() {
+    assertUsesIndex(
+        "MENUITEMREVIEWS_REVIEWER_EMAIL_IDX",
+        "cgaucho@ucsb.edu",
+        () -> menuItemReviewRepository.findAllByReviewerEmail("cgaucho@ucsb.edu"));
+  }
+
+  @Test
+  public void help_requests_are_found_by_requester_with_an_index() {
+    assertUsesIndex(
+        "HELPREQUEST_REQUESTER_EMAIL_IDX",
+        "cgaucho@ucsb.edu",
+        () -> helpRequestRepository.findAllByRequesterEmail("cgaucho@ucsb.edu"));
+  }
+
+  @Test
+  public void help_requests_are_found_by_team_with_an_index() {
+    assertUsesIndex(
+        "HELPREQUEST_TEAM_ID_IDX",
+        "s25-5pm-3",
+        () -> helpRequestRepository.findAllByTeamId("s25-5pm-3"));
+  }
+
+  @Test
+  public void the_help_request_queue_is_read_with_an_index() {
+    assertUsesIndex(
+        "HELPREQUEST_UNSOLVED_IDX",
+        50,
+        () -> helpRequestRepository.findQueue(ScrollPosition.keyset(), Limit.of(50)));
+  }
+
+  @Test
+  public void recommendation_requests_are_found_by_requester_with_an_index() {
+    assertUsesIndex(
+        "RECOMMENDATIONREQUEST_REQUESTEREMAIL_IDX",
+        "cgaucho@ucsb.edu",
+        () -> recommendationRequestRepository.findAllByRequesteremail("cgaucho@ucsb.edu"));
+  }
+
+  @Test
+  public void menu_items_are_found_by_dining_commons_with_an_index() {
+    assertUsesIndex(
+        "UCSBDININGCOMMONSMENUITEM_DININGCOMMONSCODE_IDX",
+        "ortega",
+        () -> ucsbDiningCommonsMenuItemRepository.findAllByDiningcommonscode("ortega"));
+  }
+}
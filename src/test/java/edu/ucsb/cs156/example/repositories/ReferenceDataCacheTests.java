@@ -0,0 +1,197 @@
+package edu.ucsb.cs156.example.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import edu.ucsb.cs156.example.entities.UCSBDate;
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.entities.UCSBOrganization;
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.services.wiremock.WiremockService;
+import jakarta.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.stream.StreamSupport;
+import javax.cache.CacheManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Each repository call here runs in its own transaction, as it does when called from a controller,
+ * so that reads after the first can be served from the second-level cache.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class ReferenceDataCacheTests {
+  @Autowired UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
+
+  @Autowired UCSBOrganizationRepository ucsbOrganizationRepository;
+
+  @Autowired UCSBDateRepository ucsbDateRepository;
+
+  @Autowired UserRepository userRepository;
+
+  @Autowired EntityManagerFactory entityManagerFactory;
+
+  @MockitoBean WiremockService mockWiremockService;
+
+  private Statistics statistics;
+
+  @BeforeEach
+  public void setup() {
+    SessionFactory sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+    sessionFactory.getCache().evictAllRegions();
+    statistics = sessionFactory.getStatistics();
+    statistics.clear();
+  }
+
+  @AfterEach
+  public void cleanup() {
+    ucsbDiningCommonsRepository.deleteAll();
+    ucsbOrganizationRepository.deleteAll();
+    ucsbDateRepository.deleteAll();
+    userRepository.deleteAll();
+  }
+
+  private static UCSBDate date(String quarterYYYYQ, String name) {
+    return UCSBDate.builder()
+        .quarterYYYYQ(quarterYYYYQ)
+        .name(name)
+        .localDateTime(LocalDateTime.parse("2025-01-06T00:00:00"))
+        .build();
+  }
+
+  private List<String> namesInQuarter(String quarterYYYYQ) {
+    return StreamSupport.stream(
+            ucsbDateRepository.findAllByQuarterYYYYQ(quarterYYYYQ).spliterator(), false)
+        .map(UCSBDate::getName)
+        .sorted()
+        .toList();
+  }
+
+  @Test
+  public void dining_commons_are_read_from_the_cache_after_the_first_lookup() {
+    // arrange
+    ucsbDiningCommonsRepository.save(
+        UCSBDiningCommons.builder().code("ortega").name("Ortega").build());
+    statistics.clear();
+
+    // act
+    ucsbDiningCommonsRepository.findById("ortega");
+    ucsbDiningCommonsRepository.findById("ortega");
+    ucsbDiningCommonsRepository.findById("ortega");
+
+    // assert
+    assertEquals(0, statistics.getEntityLoadCount());
+    assertEquals(3, statistics.getSecondLevelCacheHitCount());
+  }
+
+  @Test
+  public void an_update_replaces_the_cached_organization() {
+    // arrange
+    ucsbOrganizationRepository.save(
+        UCSBOrganization.builder().orgcode("ZPR").orgTranslationShort("Zeta Phi Rho").build());
+    ucsbOrganizationRepository.findById("ZPR");
+
+    // act
+    UCSBOrganization organization = ucsbOrganizationRepository.findById("ZPR").get();
+    organization.setOrgTranslationShort("ZETA PHI RHO");
+    ucsbOrganizationRepository.save(organization);
+    statistics.clear();
+    UCSBOrganization reloaded = ucsbOrganizationRepository.findById("ZPR").get();
+
+    // assert
+    assertEquals("ZETA PHI RHO", reloaded.getOrgTranslationShort());
+    assertEquals(1, statistics.getSecondLevelCacheHitCount());
+    assertEquals(0, statistics.getEntityLoadCount());
+  }
+
+  @Test
+  public void a_deleted_organization_is_evicted() {
+    // arrange
+    ucsbOrganizationRepository.save(UCSBOrganization.builder().orgcode("SKY").build());
+    ucsbOrganizationRepository.findById("SKY");
+
+    // act
+    ucsbOrganizationRepository.deleteById("SKY");
+    statistics.clear();
+
+    // assert
+    assertTrue(ucsbOrganizationRepository.findById("SKY").isEmpty());
+    assertEquals(0, statistics.getSecondLevelCacheHitCount());
+    assertEquals(1, statistics.getSecondLevelCacheMissCount());
+  }
+
+  @Test
+  public void dates_by_quarter_come_from_the_query_cache_until_the_table_changes() {
+    // arrange
+    ucsbDateRepository.save(date("20251", "first day"));
+    ucsbDateRepository.save(date("20251", "last day"));
+
+    // act
+    List<String> first = namesInQuarter("20251");
+    List<String> second = namesInQuarter("20251");
+    long hitsBeforeWrite = statistics.getQueryCacheHitCount();
+    ucsbDateRepository.save(date("20251", "finals"));
+    List<String> afterWrite = namesInQuarter("20251");
+
+    // assert
+    assertEquals(List.of("first day", "last day"), first);
+    assertEquals(first, second);
+    assertEquals(1, hitsBeforeWrite);
+    assertEquals(List.of("finals", "first day", "last day"), afterWrite);
+    assertEquals(1, statistics.getQueryCacheHitCount());
+  }
+
+  @Test
+  public void users_by_email_come_from_the_cache_until_one_is_made_an_admin() {
+    // arrange
+    userRepository.save(User.builder().email("cgaucho@ucsb.edu").build());
+    userRepository.findByEmail("cgaucho@ucsb.edu");
+    statistics.clear();
+
+    // act
+    User cached = userRepository.findByEmail("cgaucho@ucsb.edu").get();
+    long queriesBeforeWrite = statistics.getQueryExecutionCount();
+    cached.setAdmin(true);
+    userRepository.save(cached);
+    User afterWrite = userRepository.findByEmail("cgaucho@ucsb.edu").get();
+
+    // assert
+    assertEquals(0, queriesBeforeWrite);
+    assertEquals(1, statistics.getQueryCacheHitCount());
+    assertTrue(afterWrite.getAdmin());
+    assertEquals(1, statistics.getQueryExecutionCount());
+  }
+
+  @Test
+  public void regions_are_configured_from_application_conf() {
+    // arrange
+    JCacheRegionFactory regionFactory =
+        (JCacheRegionFactory)
+            entityManagerFactory
+                .unwrap(SessionFactoryImplementor.class)
+                .getCache()
+                .getRegionFactory();
+    CacheManager cacheManager = regionFactory.getCacheManager();
+
+    // act
+    CaffeineConfiguration<?, ?> dates =
+        cacheManager.getCache("ucsbdates").getConfiguration(CaffeineConfiguration.class);
+
+    // assert
+    assertEquals(OptionalLong.of(10000), dates.getMaximumSize());
+  }
+}
@@ -0,0 +1,162 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.UCSBOrganization;
+import edu.ucsb.cs156.example.models.BulkResult;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
+import edu.ucsb.cs156.example.services.wiremock.WiremockService;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+@DataJpaTest
+@Import(BulkService.class)
+@TestPropertySource(
+    properties = {"spring.jpa.properties.hibernate.jdbc.batch_size=2", "app.bulk.max-items=5"})
+public class BulkServiceTests {
+  @Autowired BulkService bulkService;
+
+  @Autowired MenuItemReviewRepository menuItemReviewRepository;
+
+  @Autowired UCSBOrganizationRepository ucsbOrganizationRepository;
+
+  @MockitoBean WiremockService mockWiremockService;
+
+  private static MenuItemReview review(int stars) {
+    return MenuItemReview.builder()
+        .itemId(1)
+        .reviewerEmail("cgaucho@ucsb.edu")
+        .stars(stars)
+        .dateReviewed(LocalDateTime.parse("2025-10-31T20:33:40"))
+        .comments("review " + stars)
+        .build();
+  }
+
+  private static UCSBOrganization organization(String orgcode) {
+    return UCSBOrganization.builder()
+        .orgcode(orgcode)
+        .orgTranslationShort(orgcode + " short")
+        .orgTranslation(orgcode + " long")
+        .inactive(false)
+        .build();
+  }
+
+  private static List<Integer> statuses(BulkResult result) {
+    return result.getResults().stream().map(BulkResult.Item::status).toList();
+  }
+
+  @Test
+  public void create_saves_every_item_across_chunks() {
+    // act
+    BulkResult result =
+        bulkService.create(menuItemReviewRepository, List.of(review(1), review(2), review(3)));
+
+    // assert
+    assertEquals(3, result.getSucceeded());
+    assertEquals(0, result.getFailed());
+    assertEquals(List.of(201, 201, 201), statuses(result));
+    for (BulkResult.Item item : result.getResults()) {
+      assertTrue(menuItemReviewRepository.existsById((Long) item.id()));
+    }
+    assertEquals(3, menuItemReviewRepository.count());
+  }
+
+  @Test
+  public void create_rejects_items_with_an_id_when_ids_are_generated() {
+    // arrange
+    MenuItemReview withId = review(2);
+    withId.setId(17);
+
+    // act
+    BulkResult result = bulkService.create(menuItemReviewRepository, List.of(review(1), withId));
+
+    // assert
+    assertEquals(List.of(201, 400), statuses(result));
+    assertEquals(17L, result.getResults().get(1).id());
+    assertEquals(1, result.getFailed());
+    assertEquals(1, menuItemReviewRepository.count());
+  }
+
+  @Test
+  public void create_rejects_natural_ids_that_are_taken() {
+    // arrange
+    ucsbOrganizationRepository.save(organization("ZPR"));
+
+    // act
+    BulkResult result =
+        bulkService.create(
+            ucsbOrganizationRepository,
+            List.of(organization("ZPR"), organization("SKY"), organization("SKY")));
+
+    // assert
+    assertEquals(List.of(409, 201, 409), statuses(result));
+    assertEquals(
+        List.of("ZPR", "SKY", "SKY"), result.getResults().stream().map(i -> i.id()).toList());
+    assertEquals(2, ucsbOrganizationRepository.count());
+  }
+
+  @Test
+  public void update_replaces_existing_items_and_reports_missing_ones() {
+    // arrange
+    MenuItemReview saved = menuItemReviewRepository.save(review(1));
+    MenuItemReview changed = review(5);
+    changed.setId(saved.getId());
+    MenuItemReview missing = review(4);
+    missing.setId(saved.getId() + 1000);
+
+    // act
+    BulkResult result = bulkService.update(menuItemReviewRepository, List.of(changed, missing));
+
+    // assert
+    assertEquals(List.of(200, 404), statuses(result));
+    assertEquals(1, result.getSucceeded());
+    assertEquals(1, result.getFailed());
+    assertEquals(5, menuItemReviewRepository.findById(saved.getId()).get().getStars());
+    assertEquals(1, menuItemReviewRepository.count());
+  }
+
+  @Test
+  public void delete_removes_existing_items_and_reports_missing_ones() {
+    // arrange
+    long id1 = menuItemReviewRepository.save(review(1)).getId();
+    long id2 = menuItemReviewRepository.save(review(2)).getId();
+    long id3 = menuItemReviewRepository.save(review(3)).getId();
+
+    // act
+    BulkResult result =
+        bulkService.delete(menuItemReviewRepository, List.of(id1, id3, id3 + 1000, id1));
+
+    // assert
+    assertEquals(List.of(200, 200, 404, 404), statuses(result));
+    assertEquals(1, menuItemReviewRepository.count());
+    assertTrue(menuItemReviewRepository.existsById(id2));
+  }
+
+  @Test
+  public void requests_with_too_many_items_are_refused() {
+    // arrange
+    List<MenuItemReview> reviews =
+        IntStream.range(0, 6).mapToObj(BulkServiceTests::review).toList();
+
+    // act
+    IllegalArgumentException e =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> bulkService.create(menuItemReviewRepository, reviews));
+
+    // assert
+    assertEquals("At most 5 items can be sent at once, got 6", e.getMessage());
+    assertEquals(0, menuItemReviewRepository.count());
+  }
+}
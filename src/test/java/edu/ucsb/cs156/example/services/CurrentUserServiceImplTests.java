@@ -0,0 +1,137 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.*;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.models.CurrentUser;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+public class CurrentUserServiceImplTests {
+
+  @Mock private UserProvisioningService userProvisioningService;
+
+  @Mock private GrantedAuthoritiesService grantedAuthoritiesService;
+
+  @Mock private UserRolesService userRolesService;
+
+  @InjectMocks private CurrentUserServiceImpl currentUserService;
+
+  private final User user =
+      User.builder().id(1L).email("cgaucho@ucsb.edu").googleSub("sub-cgaucho").build();
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    when(userProvisioningService.provision(any())).thenReturn(user);
+    logIn();
+  }
+
+  @AfterEach
+  public void cleanup() {
+    SecurityContextHolder.clearContext();
+    RequestContextHolder.resetRequestAttributes();
+  }
+
+  private static void logIn() {
+    List<SimpleGrantedAuthority> authorities = List.of(new SimpleGrantedAuthority("ROLE_USER"));
+    DefaultOAuth2User principal =
+        new DefaultOAuth2User(
+            authorities,
+            Map.of("sub", "sub-cgaucho", "email", "cgaucho@ucsb.edu", "email_verified", true),
+            "sub");
+    SecurityContextHolder.getContext()
+        .setAuthentication(new OAuth2AuthenticationToken(principal, authorities, "google"));
+  }
+
+  private static void startRequest() {
+    RequestContextHolder.setRequestAttributes(
+        new ServletRequestAttributes(new MockHttpServletRequest()));
+  }
+
+  @Test
+  public void the_user_is_looked_up_once_per_request() {
+    // arrange
+    startRequest();
+
+    // act
+    User first = currentUserService.getUser();
+    CurrentUser currentUser = currentUserService.getCurrentUser();
+    CurrentUser again = currentUserService.getCurrentUser();
+    boolean loggedIn = currentUserService.isLoggedIn();
+
+    // assert
+    assertSame(user, first);
+    assertSame(user, currentUser.getUser());
+    assertSame(currentUser, again);
+    assertEquals(true, loggedIn);
+    verify(userProvisioningService, times(1)).provision(any());
+    verify(grantedAuthoritiesService, times(1)).getGrantedAuthorities();
+  }
+
+  @Test
+  public void the_profile_from_the_identity_provider_is_stored() {
+    // arrange
+    when(userRolesService.isAdminEmail("cgaucho@ucsb.edu")).thenReturn(true);
+    ArgumentCaptor<User> profile = ArgumentCaptor.forClass(User.class);
+
+    // act
+    currentUserService.getUser();
+
+    // assert
+    verify(userProvisioningService).provision(profile.capture());
+    assertEquals("cgaucho@ucsb.edu", profile.getValue().getEmail());
+    assertEquals("sub-cgaucho", profile.getValue().getGoogleSub());
+    assertEquals(true, profile.getValue().getEmailVerified());
+    assertEquals(true, profile.getValue().getAdmin());
+  }
+
+  @Test
+  public void each_request_looks_the_user_up_again() {
+    // act
+    startRequest();
+    currentUserService.getUser();
+    startRequest();
+    currentUserService.getUser();
+
+    // assert
+    verify(userProvisioningService, times(2)).provision(any());
+  }
+
+  @Test
+  public void a_new_authentication_in_the_same_request_looks_the_user_up_again() {
+    // arrange
+    startRequest();
+    currentUserService.getUser();
+
+    // act
+    logIn();
+    currentUserService.getUser();
+
+    // assert
+    verify(userProvisioningService, times(2)).provision(any());
+  }
+
+  @Test
+  public void outside_of_a_request_the_user_is_looked_up_every_time() {
+    // act
+    currentUserService.getUser();
+    currentUserService.getUser();
+
+    // assert
+    verify(userProvisioningService, times(2)).provision(any());
+  }
+}
@@ -0,0 +1,111 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.services.wiremock.WiremockService;
+import jakarta.persistence.EntityManager;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+@DataJpaTest
+@Import(ExportService.class)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+public class ExportServiceTests {
+  @Autowired ExportService exportService;
+
+  @Autowired MenuItemReviewRepository menuItemReviewRepository;
+
+  @Autowired EntityManager entityManager;
+
+  @Autowired ObjectMapper mapper;
+
+  @MockitoBean WiremockService mockWiremockService;
+
+  private MenuItemReview saveReview(int stars) {
+    return menuItemReviewRepository.save(
+        MenuItemReview.builder()
+            .itemId(1)
+            .reviewerEmail("cgaucho@ucsb.edu")
+            .stars(stars)
+            .dateReviewed(LocalDateTime.parse("2022-01-03T00:00:00"))
+            .comments("stars: " + stars)
+            .build());
+  }
+
+  @Test
+  public void write_sends_one_json_object_per_line_and_detaches_rows() throws Exception {
+    // arrange
+    List<MenuItemReview> reviews = List.of(saveReview(1), saveReview(2), saveReview(3));
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    // act
+    long count = exportService.write(menuItemReviewRepository::streamAllBy, out);
+
+    // assert
+    assertEquals(3, count);
+    String[] lines = out.toString().split("\n");
+    assertEquals(3, lines.length);
+    for (int i = 0; i < 3; i++) {
+      assertEquals(mapper.writeValueAsString(reviews.get(i)), lines[i]);
+      assertFalse(entityManager.contains(reviews.get(i)));
+    }
+  }
+
+  @Test
+  public void ndjson_streams_rows_into_the_response() throws Exception {
+    // arrange
+    saveReview(5);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    // act
+    ResponseEntity<StreamingResponseBody> response =
+        exportService.ndjson("reviews.ndjson", menuItemReviewRepository::streamAllBy);
+    response.getBody().writeTo(out);
+
+    // assert
+    assertEquals(ExportService.NDJSON, response.getHeaders().getContentType());
+    assertEquals(
+        "attachment; filename=\"reviews.ndjson\"",
+        response.getHeaders().getFirst("Content-Disposition"));
+    assertEquals(1, out.toString().split("\n").length);
+  }
+
+  @Test
+  public void write_passes_on_errors_from_the_output_stream() {
+    // arrange
+    saveReview(4);
+    OutputStream broken =
+        new OutputStream() {
+          @Override
+          public void write(int b) throws IOException {
+            throw new IOException("client went away");
+          }
+        };
+
+    // act
+    IOException e =
+        assertThrows(
+            IOException.class,
+            () -> exportService.write(menuItemReviewRepository::streamAllBy, broken));
+
+    // assert
+    assertEquals("client went away", e.getMessage());
+  }
+}
@@ -5,9 +5,16 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
 import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import edu.ucsb.cs156.example.repositories.JobLogLinesRepository;
 import edu.ucsb.cs156.example.repositories.JobsRepository;
+import edu.ucsb.cs156.example.services.jobs.JobLogPublisher;
+import edu.ucsb.cs156.example.services.jobs.JobLogWriter;
+import edu.ucsb.cs156.example.services.jobs.JobQueue;
 import edu.ucsb.cs156.example.services.jobs.JobService;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.*;
@@ -16,11 +23,20 @@ public class JobLogsServiceTests {
 
   @Mock private JobsRepository jobRepository;
 
+  @Mock private JobLogLinesRepository jobLogLinesRepository;
+
+  @Mock private JobLogWriter jobLogWriter;
+
+  @Spy private JobLogPublisher jobLogPublisher = new JobLogPublisher();
+
+  @Mock private JobQueue jobQueue;
+
   @InjectMocks private JobService jobService;
 
   @BeforeEach
   public void setup() {
     MockitoAnnotations.openMocks(this);
+    when(jobQueue.finish(any())).thenReturn(true);
   }
 
   @Test
@@ -30,6 +46,8 @@ public class JobLogsServiceTests {
     Job job = Job.builder().build();
     job.setLog("This is a job log");
     when(jobRepository.findById(jobId)).thenReturn(Optional.of(job));
+    when(jobLogLinesRepository.streamAllByJobIdOrderByLineNumberAsc(jobId))
+        .thenReturn(Stream.empty());
 
     // Act
     String result = jobService.getJobLogs(jobId);
@@ -45,6 +63,8 @@ public class JobLogsServiceTests {
     Job job = Job.builder().build();
     job.setLog(null);
     when(jobRepository.findById(jobId)).thenReturn(Optional.of(job));
+    when(jobLogLinesRepository.streamAllByJobIdOrderByLineNumberAsc(jobId))
+        .thenReturn(Stream.empty());
 
     // Act
     String result = jobService.getJobLogs(jobId);
@@ -53,6 +73,42 @@ public class JobLogsServiceTests {
     assertEquals("", result);
   }
 
+  @Test
+  void test_getJobLogs_reassembles_log_lines() {
+    // Arrange
+    Long jobId = 4L;
+    Job job = Job.builder().build();
+    when(jobRepository.findById(jobId)).thenReturn(Optional.of(job));
+    when(jobLogLinesRepository.streamAllByJobIdOrderByLineNumberAsc(jobId))
+        .thenReturn(
+            Stream.of(
+                JobLogLine.builder().jobId(jobId).lineNumber(0).message("line 0").build(),
+                JobLogLine.builder().jobId(jobId).lineNumber(1).message("line 1").build()));
+
+    // Act
+    String result = jobService.getJobLogs(jobId);
+
+    // Assert
+    assertEquals("line 0\nline 1", result);
+  }
+
+  @Test
+  void test_getJobLogs_legacy_log_comes_before_log_lines() {
+    // Arrange
+    Long jobId = 5L;
+    Job job = Job.builder().log("old line").build();
+    when(jobRepository.findById(jobId)).thenReturn(Optional.of(job));
+    when(jobLogLinesRepository.streamAllByJobIdOrderByLineNumberAsc(jobId))
+        .thenReturn(
+            Stream.of(JobLogLine.builder().jobId(jobId).lineNumber(0).message("new line").build()));
+
+    // Act
+    String result = jobService.getJobLogs(jobId);
+
+    // Assert
+    assertEquals("old line\nnew line", result);
+  }
+
   @Test
   void test_getJobLogs_job_not_found() {
     // Arrange
@@ -62,4 +118,56 @@ public class JobLogsServiceTests {
     // Act & Assert
     assertThrows(IllegalArgumentException.class, () -> jobService.getJobLogs(jobId));
   }
+
+  @Test
+  void test_runJobAsync_flushes_buffered_lines_before_saving_failed_job() {
+    // Arrange
+    when(jobLogWriter.getFlushSize()).thenReturn(100);
+    when(jobLogWriter.getFlushIntervalMs()).thenReturn(60_000L);
+    Job job = Job.builder().id(6L).status("running").build();
+
+    // Act
+    jobService.runJobAsync(
+        job,
+        ctx -> {
+          ctx.log("working");
+          throw new Exception("boom");
+        });
+
+    // Assert
+    InOrder inOrder = inOrder(jobLogWriter, jobQueue);
+    inOrder
+        .verify(jobLogWriter)
+        .write(
+            List.of(
+                JobLogLine.builder().jobId(6L).lineNumber(0).message("working").build(),
+                JobLogLine.builder().jobId(6L).lineNumber(1).message("boom").build()));
+    inOrder.verify(jobQueue).finish(job);
+    assertEquals("error", job.getStatus());
+  }
+
+  @Test
+  void test_flushJobLogs_flushes_running_jobs_that_are_due() {
+    // Arrange
+    when(jobLogWriter.getFlushSize()).thenReturn(100);
+    when(jobLogWriter.getFlushIntervalMs()).thenReturn(500L);
+    Job job = Job.builder().id(7L).status("running").build();
+    JobLogLine line = JobLogLine.builder().jobId(7L).lineNumber(0).message("working").build();
+
+    // Act
+    jobService.runJobAsync(
+        job,
+        ctx -> {
+          ctx.log("working");
+          verify(jobLogWriter, never()).write(any());
+          Thread.sleep(600);
+          jobService.flushJobLogs();
+          verify(jobLogWriter, times(1)).write(List.of(line));
+        });
+
+    // Assert
+    verify(jobLogWriter, times(1)).write(any());
+    verify(jobQueue).finish(job);
+    assertEquals("complete", job.getStatus());
+  }
 }
@@ -0,0 +1,192 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.entities.MenuItemReviewStats;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewStatsRepository;
+import edu.ucsb.cs156.example.services.wiremock.WiremockService;
+import jakarta.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/** Each test commits its own transactions, since totals are only updated on commit. */
+@DataJpaTest
+@Import({MenuItemReviewStatsService.class, BulkService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class MenuItemReviewStatsServiceTests {
+  @Autowired MenuItemReviewRepository menuItemReviewRepository;
+
+  @Autowired MenuItemReviewStatsRepository menuItemReviewStatsRepository;
+
+  @Autowired BulkService bulkService;
+
+  @Autowired PlatformTransactionManager transactionManager;
+
+  @Autowired EntityManager entityManager;
+
+  @MockitoBean WiremockService mockWiremockService;
+
+  @AfterEach
+  public void cleanup() {
+    menuItemReviewRepository.deleteAll();
+    menuItemReviewStatsRepository.deleteAll();
+  }
+
+  private static MenuItemReview review(long itemId, int stars) {
+    return MenuItemReview.builder()
+        .itemId(itemId)
+        .reviewerEmail("cgaucho@ucsb.edu")
+        .stars(stars)
+        .dateReviewed(LocalDateTime.parse("2025-10-31T20:33:40"))
+        .comments(stars + " stars")
+        .build();
+  }
+
+  private MenuItemReviewStats stats(long itemId) {
+    return menuItemReviewStatsRepository.findById(itemId).get();
+  }
+
+  @Test
+  public void creating_reviews_adds_to_the_totals() {
+    // act
+    menuItemReviewRepository.save(review(1, 5));
+    menuItemReviewRepository.save(review(1, 2));
+    menuItemReviewRepository.save(review(1, 5));
+
+    // assert
+    MenuItemReviewStats stats = stats(1);
+    assertEquals(3, stats.getReviewCount());
+    assertEquals(12, stats.getStarSum());
+    assertEquals(0, stats.getOneStar());
+    assertEquals(1, stats.getTwoStars());
+    assertEquals(2, stats.getFiveStars());
+    assertEquals(4.0, stats.getAverageStars());
+  }
+
+  @Test
+  public void changing_a_review_moves_it_between_items_and_stars() {
+    // arrange
+    menuItemReviewRepository.save(review(1, 4));
+    MenuItemReview review = menuItemReviewRepository.save(review(1, 2));
+
+    // act
+    review.setItemId(2);
+    review.setStars(3);
+    menuItemReviewRepository.save(review);
+
+    // assert
+    MenuItemReviewStats first = stats(1);
+    assertEquals(1, first.getReviewCount());
+    assertEquals(0, first.getTwoStars());
+    assertEquals(1, first.getFourStars());
+    assertEquals(4.0, first.getAverageStars());
+    MenuItemReviewStats second = stats(2);
+    assertEquals(1, second.getReviewCount());
+    assertEquals(1, second.getThreeStars());
+    assertEquals(3.0, second.getAverageStars());
+  }
+
+  @Test
+  public void deleting_the_last_review_leaves_empty_totals() {
+    // arrange
+    MenuItemReview review = menuItemReviewRepository.save(review(1, 4));
+
+    // act
+    menuItemReviewRepository.delete(review);
+
+    // assert
+    MenuItemReviewStats stats = stats(1);
+    assertEquals(0, stats.getReviewCount());
+    assertEquals(0, stats.getStarSum());
+    assertEquals(0, stats.getFourStars());
+    assertNull(stats.getAverageStars());
+  }
+
+  @Test
+  public void one_transaction_writes_each_item_once_and_out_of_range_stars_skip_the_histogram() {
+    // act
+    new TransactionTemplate(transactionManager)
+        .executeWithoutResult(
+            status -> {
+              menuItemReviewRepository.save(review(1, 5));
+              MenuItemReview removed = menuItemReviewRepository.save(review(1, 1));
+              menuItemReviewRepository.save(review(1, 7));
+              entityManager.flush();
+              menuItemReviewRepository.delete(removed);
+            });
+
+    // assert
+    MenuItemReviewStats stats = stats(1);
+    assertEquals(2, stats.getReviewCount());
+    assertEquals(12, stats.getStarSum());
+    assertEquals(0, stats.getOneStar());
+    assertEquals(1, stats.getFiveStars());
+    assertEquals(6.0, stats.getAverageStars());
+  }
+
+  @Test
+  public void bulk_changes_are_counted_too() {
+    // act
+    bulkService.create(menuItemReviewRepository, List.of(review(1, 3), review(2, 4)));
+
+    // assert
+    assertEquals(3.0, stats(1).getAverageStars());
+    assertEquals(4.0, stats(2).getAverageStars());
+  }
+
+  @Test
+  public void a_rolled_back_transaction_does_not_change_the_totals() {
+    // arrange
+    menuItemReviewRepository.save(review(1, 4));
+
+    // act
+    new TransactionTemplate(transactionManager)
+        .executeWithoutResult(
+            status -> {
+              menuItemReviewRepository.save(review(1, 1));
+              entityManager.flush();
+              status.setRollbackOnly();
+            });
+
+    // assert
+    assertEquals(1, stats(1).getReviewCount());
+    assertEquals(4.0, stats(1).getAverageStars());
+  }
+
+  @Test
+  public void top_rated_lists_items_with_enough_reviews_best_first() {
+    // arrange
+    menuItemReviewRepository.save(review(1, 4));
+    menuItemReviewRepository.save(review(1, 4));
+    menuItemReviewRepository.save(review(2, 5));
+    menuItemReviewRepository.save(review(3, 5));
+    menuItemReviewRepository.save(review(3, 5));
+    menuItemReviewRepository.save(review(4, 2));
+    menuItemReviewRepository.save(review(4, 3));
+
+    // act
+    List<MenuItemReviewStats> all = menuItemReviewStatsRepository.findTopRated(1, Limit.of(10));
+    List<MenuItemReviewStats> top = menuItemReviewStatsRepository.findTopRated(2, Limit.of(2));
+
+    // assert
+    assertEquals(
+        List.of(3L, 2L, 1L, 4L), all.stream().map(MenuItemReviewStats::getItemId).toList());
+    assertEquals(List.of(3L, 1L), top.stream().map(MenuItemReviewStats::getItemId).toList());
+    assertTrue(top.get(0).getAverageStars() > top.get(1).getAverageStars());
+  }
+}
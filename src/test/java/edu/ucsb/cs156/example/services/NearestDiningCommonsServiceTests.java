@@ -0,0 +1,152 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import edu.ucsb.cs156.example.entities.UCSBDiningCommons;
+import edu.ucsb.cs156.example.models.NearbyDiningCommons;
+import edu.ucsb.cs156.example.repositories.UCSBDiningCommonsRepository;
+import edu.ucsb.cs156.example.services.wiremock.WiremockService;
+import jakarta.persistence.EntityManager;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/** Each test commits its own transactions, since the index only changes on commit. */
+@DataJpaTest
+@Import({NearestDiningCommonsService.class, TableVersionService.class, BulkService.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class NearestDiningCommonsServiceTests {
+  @Autowired NearestDiningCommonsService nearestDiningCommonsService;
+
+  @Autowired UCSBDiningCommonsRepository ucsbDiningCommonsRepository;
+
+  @Autowired BulkService bulkService;
+
+  @Autowired PlatformTransactionManager transactionManager;
+
+  @Autowired JdbcTemplate jdbcTemplate;
+
+  @Autowired EntityManager entityManager;
+
+  @MockitoBean WiremockService mockWiremockService;
+
+  @AfterEach
+  public void cleanup() {
+    ucsbDiningCommonsRepository.deleteAll();
+  }
+
+  private static UCSBDiningCommons commons(String code, Double latitude, Double longitude) {
+    return UCSBDiningCommons.builder()
+        .code(code)
+        .name(code)
+        .latitude(latitude)
+        .longitude(longitude)
+        .build();
+  }
+
+  private List<String> nearest(double latitude, double longitude) {
+    return nearestDiningCommonsService.nearest(latitude, longitude, 10).stream()
+        .map(n -> n.getCommons().getCode())
+        .toList();
+  }
+
+  @Test
+  public void created_commons_are_found_with_their_distances() {
+    // arrange
+    ucsbDiningCommonsRepository.save(commons("ortega", 34.410987, -119.84709));
+    ucsbDiningCommonsRepository.save(commons("portola", 34.417723, -119.867427));
+    ucsbDiningCommonsRepository.save(commons("nowhere", null, null));
+
+    // act
+    List<NearbyDiningCommons> nearest = nearestDiningCommonsService.nearest(34.411, -119.847, 5);
+
+    // assert
+    assertEquals(2, nearest.size());
+    assertEquals("ortega", nearest.get(0).getCommons().getCode());
+    assertEquals("portola", nearest.get(1).getCommons().getCode());
+    assertEquals(8.38, nearest.get(0).getDistanceMeters(), 0.01);
+    assertEquals(2017.44, nearest.get(1).getDistanceMeters(), 0.01);
+  }
+
+  @Test
+  public void updated_and_deleted_commons_move_in_the_index() {
+    // arrange
+    UCSBDiningCommons ortega = ucsbDiningCommonsRepository.save(commons("ortega", 10.0, 10.0));
+    UCSBDiningCommons portola = ucsbDiningCommonsRepository.save(commons("portola", 20.0, 20.0));
+    ucsbDiningCommonsRepository.save(commons("carrillo", 30.0, 30.0));
+
+    // act
+    ortega.setLatitude(40.0);
+    ortega.setLongitude(40.0);
+    ortega.setName("Ortega Commons");
+    ucsbDiningCommonsRepository.save(ortega);
+    ucsbDiningCommonsRepository.delete(portola);
+
+    // assert
+    assertEquals(List.of("carrillo", "ortega"), nearest(10, 10));
+    assertEquals(
+        "Ortega Commons",
+        nearestDiningCommonsService.nearest(40, 40, 1).get(0).getCommons().getName());
+  }
+
+  @Test
+  public void bulk_changes_are_indexed_too() {
+    // act
+    bulkService.create(
+        ucsbDiningCommonsRepository,
+        List.of(commons("ortega", 10.0, 10.0), commons("portola", 20.0, 20.0)));
+    bulkService.delete(ucsbDiningCommonsRepository, List.of("ortega"));
+
+    // assert
+    assertEquals(List.of("portola"), nearest(10, 10));
+  }
+
+  @Test
+  public void a_rolled_back_transaction_does_not_change_the_index() {
+    // arrange
+    ucsbDiningCommonsRepository.save(commons("ortega", 10.0, 10.0));
+
+    // act
+    new TransactionTemplate(transactionManager)
+        .executeWithoutResult(
+            status -> {
+              ucsbDiningCommonsRepository.save(commons("portola", 10.0, 10.1));
+              entityManager.flush();
+              status.setRollbackOnly();
+            });
+
+    // assert
+    assertEquals(List.of("ortega"), nearest(10, 10));
+  }
+
+  @Test
+  public void refresh_picks_up_changes_made_outside_this_instance() {
+    // arrange
+    ucsbDiningCommonsRepository.save(commons("ortega", 10.0, 10.0));
+    nearestDiningCommonsService.refresh();
+    jdbcTemplate.update(
+        "INSERT INTO ucsbdiningcommons (code, name, has_sack_meal, has_take_out_meal,"
+            + " has_dining_cam, latitude, longitude) VALUES ('portola', 'portola', false, false,"
+            + " false, 10.0, 10.1)");
+
+    // act
+    nearestDiningCommonsService.refresh();
+    List<String> unchangedCounter = nearest(10, 10);
+    jdbcTemplate.update(
+        "UPDATE table_versions SET version = version + 1 WHERE table_name = 'ucsbdiningcommons'");
+    nearestDiningCommonsService.refresh();
+
+    // assert
+    assertEquals(List.of("ortega"), unchangedCounter);
+    assertEquals(List.of("ortega", "portola"), nearest(10, 10));
+  }
+}
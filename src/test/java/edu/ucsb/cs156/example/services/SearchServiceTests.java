@@ -0,0 +1,170 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import edu.ucsb.cs156.example.entities.Articles;
+import edu.ucsb.cs156.example.entities.HelpRequest;
+import edu.ucsb.cs156.example.entities.MenuItemReview;
+import edu.ucsb.cs156.example.models.SearchHit;
+import edu.ucsb.cs156.example.repositories.ArticlesRepository;
+import edu.ucsb.cs156.example.repositories.HelpRequestRepository;
+import edu.ucsb.cs156.example.repositories.MenuItemReviewRepository;
+import edu.ucsb.cs156.example.services.wiremock.WiremockService;
+import jakarta.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+/** Runs on H2, so these cover the LIKE fallback; PostgreSQL uses the tsvector columns instead. */
+@DataJpaTest(properties = "app.search.max-results=5")
+@Import(SearchService.class)
+public class SearchServiceTests {
+  @Autowired SearchService searchService;
+
+  @Autowired ArticlesRepository articlesRepository;
+
+  @Autowired HelpRequestRepository helpRequestRepository;
+
+  @Autowired MenuItemReviewRepository menuItemReviewRepository;
+
+  @Autowired EntityManager entityManager;
+
+  @MockitoBean WiremockService mockWiremockService;
+
+  private Articles taco;
+  private Articles burrito;
+  private HelpRequest help;
+  private MenuItemReview review;
+
+  @BeforeEach
+  public void setup() {
+    LocalDateTime date = LocalDateTime.parse("2025-10-31T20:33:40");
+    taco =
+        articlesRepository.save(
+            Articles.builder()
+                .title("Best Taco Tuesday")
+                .url("https://example.org/tacos")
+                .explanation("Where to eat on campus")
+                .email("cgaucho@ucsb.edu")
+                .dateAdded(date)
+                .build());
+    burrito =
+        articlesRepository.save(
+            Articles.builder()
+                .title("Burritos near campus")
+                .url("https://example.org/burritos")
+                .explanation("A taco truck also parks there")
+                .email("cgaucho@ucsb.edu")
+                .dateAdded(date)
+                .build());
+    help =
+        helpRequestRepository.save(
+            HelpRequest.builder()
+                .requesterEmail("cgaucho@ucsb.edu")
+                .teamId("s25-5pm-3")
+                .tableOrBreakoutRoom("7")
+                .requestTime(date)
+                .explanation("Cannot deploy the taco app to dokku")
+                .build());
+    review =
+        menuItemReviewRepository.save(
+            MenuItemReview.builder()
+                .itemId(7)
+                .reviewerEmail("cgaucho@ucsb.edu")
+                .stars(5)
+                .dateReviewed(date)
+                .comments("The fish TACO was great")
+                .build());
+    // the search reads the tables with SQL, so the rows must be written first
+    entityManager.flush();
+  }
+
+  private static List<String> keys(List<SearchHit> hits) {
+    return hits.stream().map(hit -> hit.getType() + ":" + hit.getId()).toList();
+  }
+
+  @Test
+  public void hits_from_all_tables_are_ranked_by_where_the_words_are() {
+    // act
+    List<SearchHit> hits = searchService.search("taco", 0, 10);
+
+    // assert
+    assertEquals(
+        List.of(
+            "article:" + taco.getId(),
+            "helprequest:" + help.getId(),
+            "menuitemreview:" + review.getId(),
+            "article:" + burrito.getId()),
+        keys(hits));
+    assertEquals("Best Taco Tuesday", hits.get(0).getText());
+    assertEquals(1.0, hits.get(0).getRank());
+    assertEquals(0.4, hits.get(3).getRank());
+  }
+
+  @Test
+  public void every_word_must_match() {
+    // act
+    List<SearchHit> hits = searchService.search("Taco, campus!", 0, 10);
+
+    // assert
+    assertEquals(List.of("article:" + taco.getId(), "article:" + burrito.getId()), keys(hits));
+    assertEquals(1.4, hits.get(0).getRank(), 1e-9);
+    assertEquals(1.4, hits.get(1).getRank(), 1e-9);
+  }
+
+  @Test
+  public void secondary_columns_are_searched_too() {
+    // act
+    List<SearchHit> hits = searchService.search("5pm", 0, 10);
+
+    // assert
+    assertEquals(List.of("helprequest:" + help.getId()), keys(hits));
+    assertEquals("Cannot deploy the taco app to dokku", hits.get(0).getText());
+  }
+
+  @Test
+  public void hits_are_paged() {
+    // act
+    List<SearchHit> second = searchService.search("taco", 1, 2);
+
+    // assert
+    assertEquals(
+        List.of("helprequest:" + help.getId(), "menuitemreview:" + review.getId()), keys(second));
+  }
+
+  @Test
+  public void a_query_without_words_is_rejected() {
+    // act
+    IllegalArgumentException e =
+        assertThrows(IllegalArgumentException.class, () -> searchService.search("%_ ", 0, 10));
+
+    // assert
+    assertEquals("q must contain at least one letter or digit", e.getMessage());
+  }
+
+  @Test
+  public void results_stop_at_max_results() {
+    // act
+    List<SearchHit> last = searchService.search("taco", 3, 10);
+    IllegalArgumentException e =
+        assertThrows(IllegalArgumentException.class, () -> searchService.search("taco", 5, 10));
+
+    // assert
+    assertEquals(List.of("article:" + burrito.getId()), keys(last));
+    assertEquals("Only the first 5 results can be paged through", e.getMessage());
+  }
+
+  @Test
+  public void queries_are_split_into_distinct_lower_case_words() {
+    assertEquals(List.of("fish", "taco"), SearchService.terms("Fish-TACO fish"));
+    assertEquals(
+        List.of("a", "b", "c", "d", "e", "f", "g", "h"),
+        SearchService.terms("a b c d e f g h i j"));
+  }
+}
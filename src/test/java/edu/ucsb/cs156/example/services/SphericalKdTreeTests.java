@@ -0,0 +1,130 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class SphericalKdTreeTests {
+
+  /** great-circle distance by the haversine formula, to check the tree against */
+  private static double haversineMeters(double lat1, double lon1, double lat2, double lon2) {
+    double dLat = Math.toRadians(lat2 - lat1);
+    double dLon = Math.toRadians(lon2 - lon1);
+    double a =
+        Math.pow(Math.sin(dLat / 2), 2)
+            + Math.cos(Math.toRadians(lat1))
+                * Math.cos(Math.toRadians(lat2))
+                * Math.pow(Math.sin(dLon / 2), 2);
+    return 2 * SphericalKdTree.EARTH_RADIUS_METERS * Math.asin(Math.sqrt(a));
+  }
+
+  private static List<String> bruteForce(
+      Map<String, double[]> points, double lat, double lon, int k) {
+    return points.entrySet().stream()
+        .sorted(
+            Comparator.comparingDouble(
+                (Map.Entry<String, double[]> e) ->
+                    haversineMeters(lat, lon, e.getValue()[0], e.getValue()[1])))
+        .limit(k)
+        .map(Map.Entry::getKey)
+        .toList();
+  }
+
+  private static List<String> names(List<SphericalKdTree.Neighbor> neighbors) {
+    return neighbors.stream().map(SphericalKdTree.Neighbor::name).toList();
+  }
+
+  @Test
+  public void nearest_points_come_first_with_their_distances() {
+    // arrange
+    SphericalKdTree tree = new SphericalKdTree();
+    tree.put("de-la-guerra", 34.409953, -119.85277);
+    tree.put("ortega", 34.410987, -119.84709);
+    tree.put("portola", 34.417723, -119.867427);
+    tree.put("carrillo", 34.409811, -119.852518);
+
+    // act
+    List<SphericalKdTree.Neighbor> nearest = tree.nearest(34.4100, -119.8525, 2);
+
+    // assert
+    assertEquals(List.of("carrillo", "de-la-guerra"), names(nearest));
+    assertEquals(
+        haversineMeters(34.4100, -119.8525, 34.409811, -119.852518),
+        nearest.get(0).distanceMeters(),
+        0.01);
+    assertEquals(4, tree.nearest(34.4100, -119.8525, 10).size());
+  }
+
+  @Test
+  public void points_across_the_antimeridian_are_near() {
+    // arrange
+    SphericalKdTree tree = new SphericalKdTree();
+    tree.put("east", 0, 179.9);
+    tree.put("west", 0, -179.9);
+    tree.put("middle", 0, 170);
+
+    // act
+    List<SphericalKdTree.Neighbor> nearest = tree.nearest(0, 179.95, 2);
+
+    // assert
+    assertEquals(List.of("east", "west"), names(nearest));
+  }
+
+  @Test
+  public void moved_and_removed_points_are_found_where_they_are_now() {
+    // arrange
+    SphericalKdTree tree = new SphericalKdTree();
+    tree.put("a", 10, 10);
+    tree.put("b", 20, 20);
+    tree.put("c", 30, 30);
+
+    // act
+    tree.put("a", 40, 40);
+    tree.remove("b");
+    tree.remove("missing");
+
+    // assert
+    assertEquals(2, tree.size());
+    assertEquals(List.of("c", "a"), names(tree.nearest(10, 10, 5)));
+  }
+
+  @Test
+  public void random_changes_give_the_same_answers_as_a_full_scan() {
+    // arrange
+    Random random = new Random(42);
+    SphericalKdTree tree = new SphericalKdTree();
+    Map<String, double[]> points = new LinkedHashMap<>();
+    for (int i = 0; i < 2000; i++) {
+      String name = "p" + random.nextInt(500);
+      if (random.nextInt(4) == 0) {
+        tree.remove(name);
+        points.remove(name);
+      } else {
+        double lat = random.nextDouble() * 180 - 90;
+        double lon = random.nextDouble() * 360 - 180;
+        tree.put(name, lat, lon);
+        points.put(name, new double[] {lat, lon});
+      }
+    }
+
+    // act and assert
+    assertEquals(points.size(), tree.size());
+    List<String> mismatches = new ArrayList<>();
+    for (int i = 0; i < 200; i++) {
+      double lat = random.nextDouble() * 180 - 90;
+      double lon = random.nextDouble() * 360 - 180;
+      List<String> expected = bruteForce(points, lat, lon, 7);
+      List<String> actual = names(tree.nearest(lat, lon, 7));
+      if (!expected.equals(actual)) {
+        mismatches.add("(%s, %s): %s != %s".formatted(lat, lon, expected, actual));
+      }
+    }
+    assertEquals(List.of(), mismatches);
+  }
+}
@@ -0,0 +1,156 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ucsb.cs156.example.entities.Restaurant;
+import edu.ucsb.cs156.example.entities.UCSBOrganization;
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.repositories.RestaurantRepository;
+import edu.ucsb.cs156.example.repositories.UCSBOrganizationRepository;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.wiremock.WiremockService;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/** Each test commits its own transactions, since counters only go up on commit. */
+@DataJpaTest
+@Import(TableVersionService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class TableVersionServiceTests {
+  @Autowired TableVersionService tableVersionService;
+
+  @Autowired RestaurantRepository restaurantRepository;
+
+  @Autowired UCSBOrganizationRepository ucsbOrganizationRepository;
+
+  @Autowired UserRepository userRepository;
+
+  @Autowired PlatformTransactionManager transactionManager;
+
+  @Autowired EntityManager entityManager;
+
+  @MockitoBean WiremockService mockWiremockService;
+
+  @AfterEach
+  public void cleanup() {
+    restaurantRepository.deleteAll();
+    ucsbOrganizationRepository.deleteAll();
+    userRepository.deleteAll();
+  }
+
+  private static Restaurant restaurant(String name) {
+    return Restaurant.builder().name(name).description(name + " description").build();
+  }
+
+  @Test
+  public void the_counter_goes_up_once_per_transaction() {
+    // arrange
+    long before = tableVersionService.getVersion(Restaurant.class);
+    long organizationsBefore = tableVersionService.getVersion(UCSBOrganization.class);
+
+    // act
+    new TransactionTemplate(transactionManager)
+        .executeWithoutResult(
+            status -> {
+              Restaurant saved = restaurantRepository.save(restaurant("Freebirds"));
+              restaurantRepository.save(restaurant("Woodstock's"));
+              entityManager.flush();
+              saved.setDescription("burritos");
+              restaurantRepository.delete(saved);
+            });
+
+    // assert
+    assertEquals(before + 1, tableVersionService.getVersion(Restaurant.class));
+    assertEquals(organizationsBefore, tableVersionService.getVersion(UCSBOrganization.class));
+  }
+
+  @Test
+  public void each_committed_write_is_counted() {
+    // arrange
+    long before = tableVersionService.getVersion(UCSBOrganization.class);
+
+    // act
+    UCSBOrganization organization =
+        ucsbOrganizationRepository.save(UCSBOrganization.builder().orgcode("ZPR").build());
+    organization.setOrgTranslationShort("Zeta Phi Rho");
+    organization = ucsbOrganizationRepository.save(organization);
+
+    // assert
+    assertEquals(before + 2, tableVersionService.getVersion(UCSBOrganization.class));
+    assertEquals(1, organization.getVersion());
+  }
+
+  @Test
+  public void a_rolled_back_transaction_is_not_counted() {
+    // arrange
+    long before = tableVersionService.getVersion(Restaurant.class);
+
+    // act
+    new TransactionTemplate(transactionManager)
+        .executeWithoutResult(
+            status -> {
+              restaurantRepository.save(restaurant("Freebirds"));
+              entityManager.flush();
+              status.setRollbackOnly();
+            });
+
+    // assert
+    assertEquals(before, tableVersionService.getVersion(Restaurant.class));
+    assertEquals(0, restaurantRepository.count());
+  }
+
+  @Test
+  public void changes_made_without_the_entities_can_be_counted() {
+    // arrange
+    UCSBOrganization organization =
+        ucsbOrganizationRepository.save(UCSBOrganization.builder().orgcode("ZPR").build());
+    long before = tableVersionService.getVersion(UCSBOrganization.class);
+
+    // act
+    new TransactionTemplate(transactionManager)
+        .executeWithoutResult(
+            status -> {
+              entityManager
+                  .createQuery("UPDATE ucsborganization o SET o.inactive = true")
+                  .executeUpdate();
+              tableVersionService.changed(UCSBOrganization.class);
+              tableVersionService.changed(UCSBOrganization.class);
+            });
+
+    // assert
+    assertEquals(before + 1, tableVersionService.getVersion(UCSBOrganization.class));
+    assertTrue(ucsbOrganizationRepository.findById(organization.getOrgcode()).get().getInactive());
+  }
+
+  @Test
+  public void changes_can_only_be_counted_inside_a_transaction() {
+    // act
+    IllegalStateException e =
+        assertThrows(
+            IllegalStateException.class, () -> tableVersionService.changed(Restaurant.class));
+
+    // assert
+    assertEquals("changed must be called inside a transaction", e.getMessage());
+  }
+
+  @Test
+  public void tables_without_a_counter_have_no_version() {
+    // act
+    userRepository.save(User.builder().email("cgaucho@ucsb.edu").build());
+
+    // assert
+    assertNull(tableVersionService.getVersion(User.class));
+  }
+}
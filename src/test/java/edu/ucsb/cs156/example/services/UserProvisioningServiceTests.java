@@ -0,0 +1,165 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.wiremock.WiremockService;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/** Each test commits its own transactions, as logins do. */
+@DataJpaTest
+@Import(UserProvisioningService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class UserProvisioningServiceTests {
+  @Autowired UserProvisioningService userProvisioningService;
+
+  @Autowired UserRepository userRepository;
+
+  @Autowired JdbcTemplate jdbcTemplate;
+
+  @Autowired EntityManagerFactory entityManagerFactory;
+
+  @MockitoBean WiremockService mockWiremockService;
+
+  @AfterEach
+  public void cleanup() {
+    userRepository.deleteAll();
+  }
+
+  private static User profile(String pictureUrl, boolean admin) {
+    return User.builder()
+        .email("cgaucho@ucsb.edu")
+        .googleSub("sub-cgaucho")
+        .pictureUrl(pictureUrl)
+        .fullName("Chris Gaucho")
+        .givenName("Chris")
+        .familyName("Gaucho")
+        .emailVerified(true)
+        .locale("en")
+        .hostedDomain("ucsb.edu")
+        .admin(admin)
+        .build();
+  }
+
+  private int rows() {
+    return jdbcTemplate.queryForObject(
+        "SELECT COUNT(*) FROM users WHERE email = 'cgaucho@ucsb.edu'", Integer.class);
+  }
+
+  @Test
+  public void the_first_login_stores_the_user() {
+    // act
+    User user = userProvisioningService.provision(profile("https://example.org/1.jpg", false));
+
+    // assert
+    assertTrue(user.getId() > 0);
+    assertEquals("Chris Gaucho", user.getFullName());
+    assertEquals("https://example.org/1.jpg", user.getPictureUrl());
+    assertFalse(user.getAdmin());
+    assertEquals(1, rows());
+  }
+
+  @Test
+  public void an_unchanged_profile_is_not_written_or_read_again() {
+    // arrange
+    User first = userProvisioningService.provision(profile("https://example.org/1.jpg", false));
+    userProvisioningService.provision(profile("https://example.org/1.jpg", false));
+    Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    statistics.clear();
+
+    // act
+    User again = userProvisioningService.provision(profile("https://example.org/1.jpg", false));
+
+    // assert
+    assertEquals(first.getId(), again.getId());
+    assertEquals(0, statistics.getPrepareStatementCount());
+  }
+
+  @Test
+  public void a_changed_profile_updates_the_same_row() {
+    // arrange
+    User first = userProvisioningService.provision(profile("https://example.org/1.jpg", false));
+
+    // act
+    User second = userProvisioningService.provision(profile("https://example.org/2.jpg", false));
+
+    // assert
+    assertEquals(first.getId(), second.getId());
+    assertEquals("https://example.org/2.jpg", second.getPictureUrl());
+    assertEquals(
+        "https://example.org/2.jpg", userRepository.findById(first.getId()).get().getPictureUrl());
+    assertEquals(1, rows());
+  }
+
+  @Test
+  public void admins_are_promoted_but_never_demoted() {
+    // act
+    User user = userProvisioningService.provision(profile("https://example.org/1.jpg", false));
+    User promoted = userProvisioningService.provision(profile("https://example.org/1.jpg", true));
+    User stillAdmin =
+        userProvisioningService.provision(profile("https://example.org/2.jpg", false));
+
+    // assert
+    assertFalse(user.getAdmin());
+    assertTrue(promoted.getAdmin());
+    assertTrue(stillAdmin.getAdmin());
+  }
+
+  @Test
+  public void concurrent_first_logins_store_one_user() throws Exception {
+    // arrange
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    List<Callable<User>> logins = new ArrayList<>();
+    for (int i = 0; i < 8; i++) {
+      logins.add(
+          () -> userProvisioningService.provision(profile("https://example.org/1.jpg", false)));
+    }
+
+    // act
+    List<Long> ids = new ArrayList<>();
+    try {
+      for (Future<User> login : executor.invokeAll(logins)) {
+        ids.add(login.get().getId());
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    // assert
+    assertEquals(1, rows());
+    assertEquals(1, ids.stream().distinct().count());
+  }
+
+  @Test
+  public void emails_are_unique() {
+    // arrange
+    userRepository.save(User.builder().email("cgaucho@ucsb.edu").build());
+
+    // act and assert
+    assertThrows(
+        DataIntegrityViolationException.class,
+        () -> userRepository.save(User.builder().email("cgaucho@ucsb.edu").build()));
+  }
+}
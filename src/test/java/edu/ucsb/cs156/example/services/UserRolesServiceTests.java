@@ -0,0 +1,148 @@
+package edu.ucsb.cs156.example.services;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ucsb.cs156.example.entities.User;
+import edu.ucsb.cs156.example.repositories.UserRepository;
+import edu.ucsb.cs156.example.services.wiremock.WiremockService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/** Each test commits its own transactions, since the cached admins only change on commit. */
+@DataJpaTest(properties = "app.admin.emails=phtcon@ucsb.edu,admin@example.org")
+@Import(UserRolesService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class UserRolesServiceTests {
+  @Autowired UserRolesService userRolesService;
+
+  @Autowired UserRepository userRepository;
+
+  @Autowired EntityManagerFactory entityManagerFactory;
+
+  @Autowired EntityManager entityManager;
+
+  @Autowired PlatformTransactionManager transactionManager;
+
+  @MockitoBean WiremockService mockWiremockService;
+
+  private Statistics statistics;
+
+  @BeforeEach
+  public void setup() {
+    statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+  }
+
+  @AfterEach
+  public void cleanup() {
+    userRepository.deleteAll();
+  }
+
+  private static Set<String> names(Set<GrantedAuthority> roles) {
+    return roles.stream().map(GrantedAuthority::getAuthority).collect(Collectors.toSet());
+  }
+
+  @Test
+  public void roles_come_from_the_configured_emails_and_the_email_domain() {
+    // act and assert
+    assertEquals(
+        Set.of("ROLE_USER", "ROLE_ADMIN", "ROLE_MEMBER"),
+        names(userRolesService.getRoles("phtcon@ucsb.edu")));
+    assertEquals(
+        Set.of("ROLE_USER", "ROLE_ADMIN"), names(userRolesService.getRoles("admin@example.org")));
+    assertEquals(
+        Set.of("ROLE_USER", "ROLE_MEMBER"), names(userRolesService.getRoles("cgaucho@ucsb.edu")));
+    assertEquals(Set.of("ROLE_USER"), names(userRolesService.getRoles("someone@example.org")));
+    assertTrue(userRolesService.isAdminEmail("phtcon@ucsb.edu"));
+    assertFalse(userRolesService.isAdminEmail("cgaucho@ucsb.edu"));
+  }
+
+  @Test
+  public void admins_in_the_table_are_read_once_for_many_logins() {
+    // arrange
+    userRepository.save(User.builder().email("cgaucho@ucsb.edu").admin(true).build());
+    userRepository.save(User.builder().email("ldelplaya@ucsb.edu").build());
+    statistics.clear();
+
+    // act
+    boolean cgaucho = userRolesService.isAdmin("cgaucho@ucsb.edu");
+    boolean ldelplaya = userRolesService.isAdmin("ldelplaya@ucsb.edu");
+    for (int i = 0; i < 10; i++) {
+      userRolesService.getRoles("cgaucho@ucsb.edu");
+    }
+
+    // assert
+    assertTrue(cgaucho);
+    assertFalse(ldelplaya);
+    assertEquals(1, statistics.getQueryExecutionCount());
+  }
+
+  @Test
+  public void making_a_user_an_admin_is_seen_once_committed() {
+    // arrange
+    User user = userRepository.save(User.builder().email("cgaucho@ucsb.edu").build());
+    boolean before = userRolesService.isAdmin("cgaucho@ucsb.edu");
+
+    // act
+    user.setAdmin(true);
+    userRepository.save(user);
+
+    // assert
+    assertFalse(before);
+    assertTrue(userRolesService.isAdmin("cgaucho@ucsb.edu"));
+  }
+
+  @Test
+  public void new_users_who_are_not_admins_do_not_reload_the_admins() {
+    // arrange
+    userRolesService.isAdmin("cgaucho@ucsb.edu");
+    statistics.clear();
+
+    // act
+    userRepository.save(User.builder().email("ldelplaya@ucsb.edu").build());
+    userRolesService.isAdmin("cgaucho@ucsb.edu");
+
+    // assert
+    assertEquals(0, statistics.getQueryExecutionCount());
+  }
+
+  @Test
+  public void a_rolled_back_change_keeps_the_cached_admins() {
+    // arrange
+    User user = userRepository.save(User.builder().email("cgaucho@ucsb.edu").build());
+    userRolesService.isAdmin("cgaucho@ucsb.edu");
+
+    // act
+    new TransactionTemplate(transactionManager)
+        .executeWithoutResult(
+            status -> {
+              user.setAdmin(true);
+              userRepository.save(user);
+              entityManager.flush();
+              status.setRollbackOnly();
+            });
+    statistics.clear();
+    boolean admin = userRolesService.isAdmin("cgaucho@ucsb.edu");
+
+    // assert
+    assertFalse(admin);
+    assertEquals(0, statistics.getQueryExecutionCount());
+  }
+}
@@ -1,8 +1,21 @@
 package edu.ucsb.cs156.example.services.jobs;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import java.time.ZonedDateTime;
+import java.util.List;
 import org.junit.jupiter.api.Test;
 
 public class JobContextTests {
@@ -18,6 +31,163 @@ public class JobContextTests {
     ctx.log("This is a log message");
 
     // assert
-    assertEquals("This is a log message", job1.getLog());
+    assertEquals(1, ctx.getLineCount());
+    assertNull(job1.getLog());
+  }
+
+  @Test
+  public void lines_are_written_as_one_batch_when_the_buffer_is_full() throws Exception {
+
+    // arrange
+
+    JobLogWriter jobLogWriter = mock(JobLogWriter.class);
+    when(jobLogWriter.getFlushSize()).thenReturn(2);
+    when(jobLogWriter.getFlushIntervalMs()).thenReturn(60_000L);
+    Job job1 = Job.builder().id(17L).build();
+    JobContext ctx = new JobContext(jobLogWriter, job1);
+
+    // act
+    ctx.log("first");
+
+    // assert
+    verify(jobLogWriter, never()).write(any());
+
+    // act
+    ctx.log("second");
+
+    // assert
+    verify(jobLogWriter, times(1))
+        .write(
+            List.of(
+                JobLogLine.builder().jobId(17L).lineNumber(0).message("first").build(),
+                JobLogLine.builder().jobId(17L).lineNumber(1).message("second").build()));
+    assertEquals(2, ctx.getLineCount());
+    assertNull(job1.getLog());
+  }
+
+  @Test
+  public void lines_are_written_when_the_flush_interval_has_passed() throws Exception {
+
+    // arrange
+
+    JobLogWriter jobLogWriter = mock(JobLogWriter.class);
+    when(jobLogWriter.getFlushSize()).thenReturn(100);
+    when(jobLogWriter.getFlushIntervalMs()).thenReturn(0L);
+    Job job1 = Job.builder().id(17L).build();
+    JobContext ctx = new JobContext(jobLogWriter, job1);
+
+    // act
+    ctx.log("first");
+
+    // assert
+    verify(jobLogWriter, times(1))
+        .write(List.of(JobLogLine.builder().jobId(17L).lineNumber(0).message("first").build()));
+  }
+
+  @Test
+  public void flush_writes_a_partially_filled_buffer_and_nothing_when_empty() throws Exception {
+
+    // arrange
+
+    JobLogWriter jobLogWriter = mock(JobLogWriter.class);
+    when(jobLogWriter.getFlushSize()).thenReturn(100);
+    when(jobLogWriter.getFlushIntervalMs()).thenReturn(60_000L);
+    Job job1 = Job.builder().id(17L).build();
+    JobContext ctx = new JobContext(jobLogWriter, job1);
+
+    // act
+    ctx.flush();
+    ctx.log("first");
+    ctx.flushIfDue();
+
+    // assert
+    verify(jobLogWriter, never()).write(any());
+
+    // act
+    ctx.flush();
+    ctx.flush();
+
+    // assert
+    verify(jobLogWriter, times(1))
+        .write(List.of(JobLogLine.builder().jobId(17L).lineNumber(0).message("first").build()));
+  }
+
+  @Test
+  public void cancel_is_seen_by_isCancelled_and_checkCancelled() {
+    // arrange
+    JobContext ctx = new JobContext(null, Job.builder().id(3L).build());
+
+    // act & assert
+    assertFalse(ctx.isCancelled());
+    ctx.checkCancelled();
+
+    ctx.cancel();
+
+    assertTrue(ctx.isCancelled());
+    JobCancelledException e = assertThrows(JobCancelledException.class, ctx::checkCancelled);
+    assertEquals("Job 3 was cancelled", e.getMessage());
+  }
+
+  @Test
+  public void cancel_interrupts_the_runner_only_while_it_is_set() {
+    // arrange
+    JobContext ctx = new JobContext(null, Job.builder().build());
+
+    // act & assert
+    ctx.setRunner(Thread.currentThread());
+    ctx.cancel();
+    assertTrue(Thread.interrupted());
+
+    ctx.setRunner(null);
+    ctx.cancel();
+    assertFalse(Thread.interrupted());
+  }
+
+  @Test
+  public void progress_is_written_at_once_then_at_most_once_per_interval() throws Exception {
+    // arrange
+    JobLogWriter jobLogWriter = mock(JobLogWriter.class);
+    when(jobLogWriter.getFlushSize()).thenReturn(100);
+    when(jobLogWriter.getProgressIntervalMs()).thenReturn(300L);
+    Job job = Job.builder().id(5L).build();
+    JobContext ctx = new JobContext(jobLogWriter, job);
+
+    // act & assert
+    ctx.progress(1, 10);
+    verify(jobLogWriter, times(1)).writeProgress(job);
+
+    ctx.progress(2, 10);
+    ctx.progress(3, 10);
+    ctx.flushIfDue();
+    verify(jobLogWriter, times(1)).writeProgress(job);
+    assertEquals(3L, job.getProgressDone());
+    assertEquals(10L, job.getProgressTotal());
+
+    Thread.sleep(400);
+    ctx.flushIfDue();
+    verify(jobLogWriter, times(2)).writeProgress(job);
+
+    ctx.flushIfDue();
+    verify(jobLogWriter, times(2)).writeProgress(job);
+  }
+
+  @Test
+  public void eta_is_estimated_from_rate_so_far() throws Exception {
+    // arrange
+    Job job = Job.builder().build();
+    JobContext ctx = new JobContext(null, job);
+
+    // act & assert
+    ctx.progress(0, 10);
+    assertNull(job.getEta());
+
+    Thread.sleep(100);
+    ctx.progress(1, 10);
+    ZonedDateTime eta = job.getEta();
+    assertTrue(eta.isAfter(ZonedDateTime.now().plusNanos(800_000_000L)));
+    assertTrue(eta.isBefore(ZonedDateTime.now().plusSeconds(30)));
+
+    ctx.progress(10, 10);
+    assertFalse(job.getEta().isAfter(ZonedDateTime.now()));
   }
 }
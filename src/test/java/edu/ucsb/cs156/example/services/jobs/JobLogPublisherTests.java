@@ -0,0 +1,160 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+public class JobLogPublisherTests {
+
+  /** An emitter that records the text of each event instead of writing to a response. */
+  static class RecordingEmitter extends SseEmitter {
+    final List<String> events = new CopyOnWriteArrayList<>();
+    volatile boolean completed = false;
+    volatile boolean failing = false;
+
+    @Override
+    public void send(SseEventBuilder builder) throws IOException {
+      if (failing) throw new IOException("client went away");
+      events.add(
+          builder.build().stream().map(d -> d.getData().toString()).collect(Collectors.joining()));
+    }
+
+    @Override
+    public void complete() {
+      completed = true;
+    }
+  }
+
+  private final JobLogPublisher publisher = new JobLogPublisher();
+
+  @AfterEach
+  public void teardown() {
+    publisher.destroy();
+  }
+
+  private static JobLogLine line(int n) {
+    return JobLogLine.builder().jobId(1L).lineNumber(n).message("line " + n).build();
+  }
+
+  private static String event(int n) {
+    return "id:%d\nevent:log\ndata:line %d\n\n".formatted(n, n);
+  }
+
+  @Test
+  public void live_lines_are_held_until_the_backlog_is_sent_and_not_duplicated() {
+    // arrange
+    RecordingEmitter emitter = new RecordingEmitter();
+    JobLogPublisher.Subscription subscription = publisher.subscribe(1L, emitter, 1);
+
+    // act
+    publisher.publish(line(2));
+    publisher.publish(line(3));
+    subscription.sendBacklog(line(0));
+    subscription.sendBacklog(line(1));
+    subscription.sendBacklog(line(2));
+
+    // assert
+    assertEquals(List.of(event(1), event(2)), emitter.events);
+
+    // act
+    subscription.goLive();
+
+    // assert
+    await().atMost(5, SECONDS).until(() -> emitter.events.size() == 3);
+    assertEquals(List.of(event(1), event(2), event(3)), emitter.events);
+    assertEquals(1, publisher.getSubscriberCount(1L));
+  }
+
+  @Test
+  public void all_viewers_of_a_job_get_each_line_and_the_completion() {
+    // arrange
+    RecordingEmitter first = new RecordingEmitter();
+    RecordingEmitter second = new RecordingEmitter();
+    publisher.subscribe(1L, first, 0).goLive();
+    publisher.subscribe(1L, second, 0).goLive();
+
+    // act
+    publisher.publish(line(0));
+    publisher.publish(JobLogLine.builder().jobId(2L).lineNumber(0).message("other job").build());
+    publisher.complete(1L);
+
+    // assert
+    String complete = "event:complete\ndata:\n\n";
+    await().atMost(5, SECONDS).until(() -> first.completed && second.completed);
+    assertEquals(List.of(event(0), complete), first.events);
+    assertEquals(List.of(event(0), complete), second.events);
+    assertEquals(0, publisher.getSubscriberCount(1L));
+  }
+
+  @Test
+  public void completing_a_job_nobody_watches_does_nothing() {
+    publisher.publish(line(0));
+    publisher.complete(1L);
+    assertEquals(0, publisher.getSubscriberCount(1L));
+  }
+
+  @Test
+  public void legacy_log_and_empty_lines_are_sent() {
+    // arrange
+    RecordingEmitter emitter = new RecordingEmitter();
+    JobLogPublisher.Subscription subscription = publisher.subscribe(1L, emitter, 0);
+
+    // act
+    subscription.sendLegacy("old log");
+    subscription.sendBacklog(JobLogLine.builder().jobId(1L).lineNumber(0).build());
+
+    // assert
+    assertEquals(
+        List.of("event:legacy\ndata:old log\n\n", "id:0\nevent:log\ndata:\n\n"), emitter.events);
+  }
+
+  @Test
+  public void a_viewer_that_goes_away_is_dropped() {
+    // arrange
+    RecordingEmitter emitter = new RecordingEmitter();
+    JobLogPublisher.Subscription subscription = publisher.subscribe(1L, emitter, 0);
+    RecordingEmitter other = new RecordingEmitter();
+    publisher.subscribe(1L, other, 0);
+    emitter.failing = true;
+
+    // act
+    subscription.sendBacklog(line(0));
+    subscription.sendBacklog(line(1));
+    subscription.complete();
+    subscription.goLive();
+
+    // assert
+    await().atMost(5, SECONDS).until(() -> publisher.getSubscriberCount(1L) == 1);
+    assertTrue(emitter.events.isEmpty());
+    assertFalse(emitter.completed);
+  }
+
+  @Test
+  public void next_line_counts_only_viewers_that_have_the_backlog() {
+    // arrange
+    RecordingEmitter emitter = new RecordingEmitter();
+    JobLogPublisher.Subscription subscription = publisher.subscribe(1L, emitter, 0);
+    publisher.subscribe(1L, new RecordingEmitter(), 0);
+
+    // act & assert
+    assertEquals(-1, publisher.getNextLine(1L));
+    subscription.sendBacklog(line(0));
+    subscription.goLive();
+    assertEquals(1, publisher.getNextLine(1L));
+    publisher.publish(line(1));
+    assertEquals(2, publisher.getNextLine(1L));
+    assertEquals(List.of(1L), publisher.getWatchedJobIds());
+    assertEquals(-1, publisher.getNextLine(2L));
+  }
+}
@@ -0,0 +1,106 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.ZonedDateTime;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ParameterizedPreparedStatementSetter;
+
+public class JobLogWriterTests {
+
+  @Mock private JdbcTemplate jdbcTemplate;
+
+  @InjectMocks private JobLogWriter jobLogWriter;
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+  }
+
+  @Test
+  public void defaults_are_used_when_properties_are_not_set() {
+    assertEquals(100, jobLogWriter.getFlushSize());
+    assertEquals(1000L, jobLogWriter.getFlushIntervalMs());
+    assertEquals(2000L, jobLogWriter.getProgressIntervalMs());
+  }
+
+  @Test
+  public void empty_batch_is_not_written() {
+    jobLogWriter.write(List.of());
+    verify(jdbcTemplate, never()).batchUpdate(anyString(), any(List.class), anyInt(), any());
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  public void lines_are_written_as_one_batch() throws Exception {
+    // arrange
+    List<JobLogLine> lines =
+        List.of(
+            JobLogLine.builder().jobId(3L).lineNumber(0).message("first").build(),
+            JobLogLine.builder().jobId(3L).lineNumber(1).message("second").build());
+    ArgumentCaptor<ParameterizedPreparedStatementSetter<JobLogLine>> setter =
+        ArgumentCaptor.forClass(ParameterizedPreparedStatementSetter.class);
+
+    // act
+    jobLogWriter.write(lines);
+
+    // assert
+    verify(jdbcTemplate)
+        .batchUpdate(
+            eq("INSERT INTO job_log_lines (job_id, line_number, message) VALUES (?, ?, ?)"),
+            eq(lines),
+            eq(2),
+            setter.capture());
+
+    PreparedStatement ps = mock(PreparedStatement.class);
+    setter.getValue().setValues(ps, lines.get(1));
+    verify(ps).setLong(1, 3L);
+    verify(ps).setInt(2, 1);
+    verify(ps).setString(3, "second");
+  }
+
+  @Test
+  public void progress_is_written_to_the_jobs_table() {
+    // arrange
+    ZonedDateTime eta = ZonedDateTime.parse("2025-01-01T10:00:00Z");
+    Job job = Job.builder().id(4L).progressDone(3L).progressTotal(7L).eta(eta).build();
+
+    // act
+    jobLogWriter.writeProgress(job);
+    jobLogWriter.writeProgress(Job.builder().id(5L).build());
+
+    // assert
+    verify(jdbcTemplate)
+        .update(
+            "UPDATE jobs SET progress_done = ?, progress_total = ?, eta = ? WHERE id = ?",
+            3L,
+            7L,
+            Timestamp.from(eta.toInstant()),
+            4L);
+    verify(jdbcTemplate)
+        .update(
+            "UPDATE jobs SET progress_done = ?, progress_total = ?, eta = ? WHERE id = ?",
+            null,
+            null,
+            null,
+            5L);
+  }
+}
@@ -0,0 +1,273 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import edu.ucsb.cs156.example.services.wiremock.WiremockService;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+@DataJpaTest
+@Import(JobQueue.class)
+@TestPropertySource(
+    properties = {
+      "app.jobs.queue.node-id=this-node",
+      "app.jobs.queue.lease-ms=60000",
+      "app.jobs.queue.max-attempts=2"
+    })
+public class JobQueueTests {
+  @Autowired JobQueue jobQueue;
+
+  @Autowired JobsRepository jobsRepository;
+
+  @Autowired JdbcTemplate jdbcTemplate;
+
+  @MockitoBean WiremockService mockWiremockService;
+
+  private long saveJob(String status, String payload) {
+    Job job = Job.builder().status(status).payload(payload).build();
+    return jobsRepository.save(job).getId();
+  }
+
+  private void setLease(long id, String owner, Instant expiresAt, int attempts) {
+    jdbcTemplate.update(
+        "UPDATE jobs SET lease_owner = ?, lease_expires_at = ?, attempts = ? WHERE id = ?",
+        owner,
+        expiresAt == null ? null : Timestamp.from(expiresAt),
+        attempts,
+        id);
+  }
+
+  private Map<String, Object> row(long id) {
+    return jdbcTemplate.queryForMap(
+        "SELECT status, lease_owner, lease_expires_at, attempts, cancel_requested FROM jobs"
+            + " WHERE id = ?",
+        id);
+  }
+
+  private List<String> logLines(long id) {
+    return jdbcTemplate.queryForList(
+        "SELECT message FROM job_log_lines WHERE job_id = ? ORDER BY line_number",
+        String.class,
+        id);
+  }
+
+  @Test
+  public void lease_inserts_the_job_with_a_lease_for_this_node() {
+    // arrange
+    Job job = Job.builder().status("running").build();
+
+    // act
+    jobQueue.lease(job);
+    long id = jobsRepository.save(job).getId();
+
+    // assert
+    Map<String, Object> row = row(id);
+    assertEquals("this-node", row.get("lease_owner"));
+    assertEquals(1, row.get("attempts"));
+    Instant expiresAt = ((Timestamp) row.get("lease_expires_at")).toInstant();
+    assertTrue(expiresAt.isAfter(Instant.now().plusSeconds(50)));
+  }
+
+  @Test
+  public void job_inserted_with_a_lease_cannot_be_claimed_by_another_node() {
+    // arrange
+    Job job = Job.builder().status("queued").payload("{}").build();
+    jobQueue.lease(job);
+    jobsRepository.save(job);
+
+    // act & assert
+    assertEquals(List.of(), jobQueue.claim(5));
+  }
+
+  @Test
+  public void finish_writes_status_only_while_this_node_holds_the_lease() {
+    // arrange
+    long mine = saveJob("running", "{}");
+    setLease(mine, "this-node", Instant.now().plusSeconds(60), 1);
+    long taken = saveJob("running", "{}");
+    setLease(taken, "other-node", Instant.now().plusSeconds(60), 2);
+    Job finishedHere = jobsRepository.findById(mine).orElseThrow();
+    finishedHere.setStatus("complete");
+    finishedHere.setProgressDone(3L);
+    finishedHere.setProgressTotal(3L);
+    Job finishedLate = jobsRepository.findById(taken).orElseThrow();
+    finishedLate.setStatus("error");
+
+    // act & assert
+    assertTrue(jobQueue.finish(finishedHere));
+    assertFalse(jobQueue.finish(finishedLate));
+    assertEquals("complete", row(mine).get("status"));
+    assertEquals(
+        3L,
+        jdbcTemplate.queryForObject(
+            "SELECT progress_done FROM jobs WHERE id = ?", Long.class, mine));
+    assertEquals("running", row(taken).get("status"));
+  }
+
+  @Test
+  public void claim_takes_oldest_unleased_recoverable_queued_jobs_once() {
+    // arrange
+    long first = saveJob("queued", "{}");
+    long second = saveJob("queued", "{}");
+    long third = saveJob("queued", "{}");
+    long leased = saveJob("queued", "{}");
+    setLease(leased, "other-node", Instant.now().plusSeconds(60), 1);
+    saveJob("queued", null);
+    saveJob("complete", "{}");
+
+    // act
+    List<Long> claimed = jobQueue.claim(2);
+    List<Long> claimedAgain = jobQueue.claim(5);
+
+    // assert
+    assertEquals(List.of(first, second), claimed);
+    assertEquals(List.of(third), claimedAgain);
+    assertEquals("this-node", row(first).get("lease_owner"));
+    assertEquals(1, row(first).get("attempts"));
+    assertEquals("other-node", row(leased).get("lease_owner"));
+    assertEquals(List.of(), jobQueue.claim(0));
+  }
+
+  @Test
+  public void release_puts_the_job_back_in_the_queue() {
+    // arrange
+    long id = saveJob("running", "{}");
+    setLease(id, "this-node", Instant.now().plusSeconds(60), 1);
+
+    // act
+    jobQueue.release(id);
+
+    // assert
+    assertEquals("queued", row(id).get("status"));
+    assertNull(row(id).get("lease_owner"));
+    assertEquals(List.of(id), jobQueue.claim(1));
+  }
+
+  @Test
+  public void heartbeat_extends_leases_of_unfinished_jobs_of_this_node() {
+    // arrange
+    Instant soon = Instant.now().plusSeconds(1);
+    long running = saveJob("running", null);
+    setLease(running, "this-node", soon, 1);
+    long queued = saveJob("queued", null);
+    setLease(queued, "this-node", soon, 1);
+    long finished = saveJob("complete", null);
+    setLease(finished, "this-node", soon, 1);
+    long otherNode = saveJob("running", null);
+    setLease(otherNode, "other-node", soon, 1);
+
+    // act
+    int extended = jobQueue.heartbeat();
+
+    // assert
+    assertEquals(2, extended);
+    Instant expiresAt = ((Timestamp) row(running).get("lease_expires_at")).toInstant();
+    assertTrue(expiresAt.isAfter(Instant.now().plusSeconds(50)));
+  }
+
+  @Test
+  public void sweep_requeues_recoverable_jobs_and_fails_the_rest() {
+    // arrange
+    Instant past = Instant.now().minusSeconds(1);
+    long retry = saveJob("running", "{}");
+    setLease(retry, "dead-node", past, 1);
+    long outOfAttempts = saveJob("running", "{}");
+    setLease(outOfAttempts, "dead-node", past, 2);
+    long notRecoverable = saveJob("queued", null);
+    setLease(notRecoverable, "dead-node", past, 1);
+    long alive = saveJob("running", null);
+    setLease(alive, "live-node", Instant.now().plusSeconds(60), 1);
+    long unleasedOld = saveJob("running", null);
+    jdbcTemplate.update(
+        "UPDATE jobs SET created_at = ? WHERE id = ?",
+        Timestamp.from(Instant.now().minusSeconds(3600)),
+        unleasedOld);
+    long unleasedNew = saveJob("running", null);
+    jdbcTemplate.update(
+        "UPDATE jobs SET created_at = ? WHERE id = ?", Timestamp.from(Instant.now()), unleasedNew);
+
+    // act
+    int swept = jobQueue.sweep();
+
+    // assert
+    assertEquals(4, swept);
+    assertEquals("queued", row(retry).get("status"));
+    assertNull(row(retry).get("lease_owner"));
+    assertEquals(
+        List.of("Lease held by dead-node expired; job re-queued (attempt 2 of 2)"),
+        logLines(retry));
+    assertEquals("error", row(outOfAttempts).get("status"));
+    assertEquals(
+        List.of("Lease held by dead-node expired; job abandoned"), logLines(outOfAttempts));
+    assertEquals("error", row(notRecoverable).get("status"));
+    assertEquals("running", row(alive).get("status"));
+    assertEquals("error", row(unleasedOld).get("status"));
+    assertEquals(
+        List.of("Job was not running on any node; marked as failed"), logLines(unleasedOld));
+    assertEquals("running", row(unleasedNew).get("status"));
+    assertEquals(0, jobQueue.sweep());
+  }
+
+  @Test
+  public void sweep_marks_orphaned_job_cancelled_if_that_was_requested() {
+    // arrange
+    long id = saveJob("running", "{}");
+    setLease(id, "dead-node", Instant.now().minusSeconds(1), 1);
+    jobQueue.requestCancel(id);
+
+    // act
+    jobQueue.sweep();
+
+    // assert
+    assertEquals("cancelled", row(id).get("status"));
+    assertEquals(List.of("Lease held by dead-node expired; job cancelled"), logLines(id));
+  }
+
+  @Test
+  public void cancelIfUnclaimed_only_cancels_jobs_no_node_has_claimed() {
+    // arrange
+    long unclaimed = saveJob("queued", "{}");
+    long claimed = saveJob("queued", "{}");
+    setLease(claimed, "this-node", Instant.now().plusSeconds(60), 1);
+
+    // act & assert
+    assertTrue(jobQueue.cancelIfUnclaimed(unclaimed));
+    assertFalse(jobQueue.cancelIfUnclaimed(claimed));
+    assertEquals("cancelled", row(unclaimed).get("status"));
+    assertEquals(List.of("Job cancelled before it started"), logLines(unclaimed));
+    assertEquals(List.of(), jobQueue.claim(5));
+  }
+
+  @Test
+  public void requestCancel_flags_unfinished_jobs_for_their_node() {
+    // arrange
+    long mine = saveJob("running", null);
+    setLease(mine, "this-node", Instant.now().plusSeconds(60), 1);
+    long other = saveJob("running", null);
+    setLease(other, "other-node", Instant.now().plusSeconds(60), 1);
+    long finished = saveJob("complete", null);
+
+    // act & assert
+    assertFalse(jobQueue.isCancelRequested(mine));
+    assertTrue(jobQueue.requestCancel(mine));
+    assertTrue(jobQueue.requestCancel(other));
+    assertFalse(jobQueue.requestCancel(finished));
+    assertTrue(jobQueue.isCancelRequested(mine));
+    assertEquals(true, row(other).get("cancel_requested"));
+    assertEquals(List.of(mine), jobQueue.findCancelRequested());
+  }
+}
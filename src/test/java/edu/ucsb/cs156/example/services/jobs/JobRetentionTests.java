@@ -0,0 +1,173 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import edu.ucsb.cs156.example.repositories.JobLogLinesRepository;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import edu.ucsb.cs156.example.services.wiremock.WiremockService;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+@DataJpaTest
+@Import(JobRetention.class)
+@TestPropertySource(
+    properties = {
+      "app.jobs.retention.max-age-days=30",
+      "app.jobs.retention.max-count=3",
+      "app.jobs.retention.keep-failed-days=90",
+      "app.jobs.retention.chunk-size=2",
+      "app.jobs.retention.interval-ms=3600000"
+    })
+public class JobRetentionTests {
+  @Autowired JobRetention jobRetention;
+
+  @Autowired JobsRepository jobsRepository;
+
+  @Autowired JobLogLinesRepository jobLogLinesRepository;
+
+  @Autowired JdbcTemplate jdbcTemplate;
+
+  @MockitoBean WiremockService mockWiremockService;
+
+  private long saveJob(String status, int daysOld) {
+    long id = jobsRepository.save(Job.builder().status(status).build()).getId();
+    jdbcTemplate.update(
+        "UPDATE jobs SET created_at = ? WHERE id = ?",
+        Timestamp.from(Instant.now().minus(Duration.ofDays(daysOld))),
+        id);
+    return id;
+  }
+
+  private List<Long> remainingIds() {
+    return jdbcTemplate.queryForList("SELECT id FROM jobs ORDER BY id", Long.class);
+  }
+
+  @Test
+  public void old_finished_jobs_are_removed_in_chunks() {
+    // arrange
+    long old1 = saveJob("complete", 40);
+    long old2 = saveJob("cancelled", 35);
+    long old3 = saveJob("rejected", 31);
+    long recent = saveJob("complete", 1);
+
+    // act
+    int deleted = jobRetention.enforce();
+
+    // assert
+    assertEquals(3, deleted);
+    assertEquals(List.of(recent), remainingIds());
+  }
+
+  @Test
+  public void unfinished_jobs_are_never_removed() {
+    // arrange
+    long queued = saveJob("queued", 100);
+    long running = saveJob("running", 100);
+
+    // act
+    int deleted = jobRetention.enforce();
+
+    // assert
+    assertEquals(0, deleted);
+    assertEquals(List.of(queued, running), remainingIds());
+  }
+
+  @Test
+  public void failed_jobs_are_kept_for_keep_failed_days() {
+    // arrange
+    long oldFailure = saveJob("error", 100);
+    long failure = saveJob("error", 60);
+
+    // act
+    int deleted = jobRetention.enforce();
+
+    // assert
+    assertEquals(1, deleted);
+    assertEquals(List.of(failure), remainingIds());
+  }
+
+  @Test
+  public void only_the_newest_max_count_finished_jobs_are_kept() {
+    // arrange
+    long first = saveJob("complete", 5);
+    long failure = saveJob("error", 5);
+    long second = saveJob("complete", 4);
+    long running = saveJob("running", 4);
+    long third = saveJob("complete", 3);
+    long fourth = saveJob("complete", 2);
+    long fifth = saveJob("complete", 1);
+
+    // act
+    int deleted = jobRetention.enforce();
+
+    // assert
+    assertEquals(2, deleted);
+    assertEquals(List.of(failure, running, third, fourth, fifth), remainingIds());
+  }
+
+  @Test
+  public void log_lines_are_removed_with_their_job() {
+    // arrange
+    long old = saveJob("complete", 40);
+    jobLogLinesRepository.save(JobLogLine.builder().jobId(old).lineNumber(0).message("hi").build());
+
+    // act
+    jobRetention.enforce();
+
+    // assert
+    assertEquals(0, jobLogLinesRepository.count());
+  }
+
+  @Test
+  public void deleteAll_removes_every_finished_job_and_reports_the_count() {
+    // arrange
+    long complete = saveJob("complete", 0);
+    saveJob("error", 0);
+    jobLogLinesRepository.save(
+        JobLogLine.builder().jobId(complete).lineNumber(0).message("hi").build());
+
+    // act
+    int deleted = jobRetention.deleteAll();
+
+    // assert
+    assertEquals(2, deleted);
+    assertEquals(List.of(), remainingIds());
+    assertEquals(0, jobLogLinesRepository.count());
+  }
+
+  @Test
+  public void deleteAll_keeps_queued_and_running_jobs_and_their_log() {
+    // arrange
+    long queued = saveJob("queued", 0);
+    long running = saveJob("running", 0);
+    saveJob("complete", 0);
+    jdbcTemplate.update(
+        "UPDATE jobs SET lease_owner = 'node-1', lease_expires_at = ? WHERE id = ?",
+        Timestamp.from(Instant.now().plus(Duration.ofMinutes(1))),
+        running);
+    jobLogLinesRepository.save(
+        JobLogLine.builder().jobId(running).lineNumber(0).message("hi").build());
+
+    // act
+    int deleted = jobRetention.deleteAll();
+
+    // assert
+    assertEquals(1, deleted);
+    assertEquals(List.of(queued, running), remainingIds());
+    // the runner can still add to the log of its job
+    jobLogLinesRepository.save(
+        JobLogLine.builder().jobId(running).lineNumber(1).message("still here").build());
+    assertEquals(2, jobLogLinesRepository.count());
+  }
+}
@@ -0,0 +1,154 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobSchedule;
+import edu.ucsb.cs156.example.jobs.TestJob;
+import edu.ucsb.cs156.example.repositories.JobSchedulesRepository;
+import edu.ucsb.cs156.example.services.wiremock.WiremockService;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+@DataJpaTest
+@Import(JobScheduler.class)
+@TestPropertySource(properties = {"app.jobs.scheduler.tick-ms=3600000"})
+public class JobSchedulerTests {
+  @Autowired JobScheduler jobScheduler;
+
+  @Autowired JobSchedulesRepository jobSchedulesRepository;
+
+  @MockitoBean JobService jobService;
+
+  @MockitoBean WiremockService mockWiremockService;
+
+  private final ZonedDateTime now = ZonedDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+
+  private JobSchedule saveSchedule(String name, ZonedDateTime nextRunAt, boolean enabled) {
+    JobSchedule schedule =
+        JobSchedule.builder()
+            .name(name)
+            .jobType(TestJob.class.getName())
+            .payload("{\"sleepMs\":0}")
+            .fixedRateMs(60_000L)
+            .enabled(enabled)
+            .nextRunAt(nextRunAt)
+            .build();
+    return jobSchedulesRepository.save(schedule);
+  }
+
+  private JobSchedule reload(JobSchedule schedule) {
+    return jobSchedulesRepository.findById(schedule.getId()).get();
+  }
+
+  @Test
+  public void due_schedule_starts_its_job_once() {
+    // arrange
+    JobSchedule schedule = saveSchedule("due", now.minusSeconds(5), true);
+    when(jobService.runAsJob(TestJob.class.getName(), "{\"sleepMs\":0}"))
+        .thenReturn(Job.builder().id(42L).build());
+
+    // act
+    jobScheduler.runDueSchedules();
+    jobScheduler.runDueSchedules();
+
+    // assert
+    verify(jobService, times(1)).runAsJob(TestJob.class.getName(), "{\"sleepMs\":0}");
+    JobSchedule saved = reload(schedule);
+    assertEquals(42L, saved.getLastJobId());
+    assertEquals(
+        schedule.getNextRunAt().plusMinutes(1).toInstant(), saved.getNextRunAt().toInstant());
+  }
+
+  @Test
+  public void schedules_not_due_or_disabled_do_not_run() {
+    // arrange
+    saveSchedule("later", now.plusMinutes(5), true);
+    saveSchedule("disabled", now.minusMinutes(5), false);
+
+    // act
+    jobScheduler.runDueSchedules();
+
+    // assert
+    verify(jobService, never()).runAsJob(any(String.class), any(String.class));
+  }
+
+  @Test
+  public void firing_claimed_by_another_node_is_not_run_again() {
+    // arrange
+    JobSchedule schedule = saveSchedule("claimed", now.minusSeconds(5), true);
+    ZonedDateTime next = now.plusSeconds(55);
+
+    // act
+    int first =
+        jobSchedulesRepository.claimFiring(schedule.getId(), schedule.getNextRunAt(), next, now);
+    int second =
+        jobSchedulesRepository.claimFiring(schedule.getId(), schedule.getNextRunAt(), next, now);
+
+    // assert
+    assertEquals(1, first);
+    assertEquals(0, second);
+  }
+
+  @Test
+  public void schedule_whose_job_cannot_start_still_moves_on() {
+    // arrange
+    JobSchedule schedule = saveSchedule("broken", now.minusSeconds(5), true);
+    when(jobService.runAsJob(any(String.class), any(String.class)))
+        .thenThrow(new IllegalArgumentException("Unknown job type x"));
+
+    // act
+    jobScheduler.runDueSchedules();
+
+    // assert
+    JobSchedule saved = reload(schedule);
+    assertNull(saved.getLastJobId());
+    assertEquals(
+        schedule.getNextRunAt().plusMinutes(1).toInstant(), saved.getNextRunAt().toInstant());
+  }
+
+  @Test
+  public void missed_fixed_rate_runs_are_coalesced() {
+    // arrange
+    JobSchedule schedule = JobSchedule.builder().fixedRateMs(60_000L).build();
+    ZonedDateTime due = now.minusMinutes(10).minusSeconds(30);
+
+    // act
+    ZonedDateTime next = jobScheduler.nextRunAfter(schedule, due, now);
+
+    // assert
+    assertEquals(now.plusSeconds(30), next);
+  }
+
+  @Test
+  public void new_fixed_rate_schedule_runs_one_period_from_now() {
+    JobSchedule schedule = JobSchedule.builder().fixedRateMs(60_000L).build();
+    assertEquals(now.plusMinutes(1), jobScheduler.nextRunAfter(schedule, null, now));
+    assertEquals(now.plusMinutes(1), jobScheduler.nextRunAfter(schedule, now.plusSeconds(10), now));
+  }
+
+  @Test
+  public void cron_schedule_runs_at_next_matching_time() {
+    // arrange
+    JobSchedule schedule = JobSchedule.builder().cron("0 0 3 * * *").build();
+    ZonedDateTime at = ZonedDateTime.parse("2024-01-01T12:00:00-08:00[America/Los_Angeles]");
+
+    // act
+    ZonedDateTime next = jobScheduler.nextRunAfter(schedule, at.minusDays(3), at);
+
+    // assert
+    assertEquals(ZonedDateTime.parse("2024-01-02T03:00:00-08:00[America/Los_Angeles]"), next);
+  }
+}
@@ -0,0 +1,558 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import edu.ucsb.cs156.example.entities.Job;
+import edu.ucsb.cs156.example.entities.JobLogLine;
+import edu.ucsb.cs156.example.jobs.TestJob;
+import edu.ucsb.cs156.example.repositories.JobLogLinesRepository;
+import edu.ucsb.cs156.example.repositories.JobsRepository;
+import edu.ucsb.cs156.example.services.CurrentUserService;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+public class JobServiceTests {
+
+  @Mock private JobsRepository jobsRepository;
+
+  @Mock private JobLogLinesRepository jobLogLinesRepository;
+
+  @Mock private JobLogWriter jobLogWriter;
+
+  @Spy private JobLogPublisher jobLogPublisher = new JobLogPublisher();
+
+  @Mock private CurrentUserService currentUserService;
+
+  @Mock private JobsExecutor jobsExecutor;
+
+  @Mock private JobQueue jobQueue;
+
+  @Spy private ObjectMapper objectMapper = new ObjectMapper();
+
+  @InjectMocks private JobService jobService;
+
+  private JobService self;
+
+  private final JobContextConsumer noop = ctx -> {};
+
+  private static JobLogLine line(long jobId, int lineNumber) {
+    return JobLogLine.builder().jobId(jobId).lineNumber(lineNumber).message("line").build();
+  }
+
+  @BeforeEach
+  public void setup() {
+    MockitoAnnotations.openMocks(this);
+    self = mock(JobService.class);
+    ReflectionTestUtils.setField(jobService, "self", self);
+    when(jobQueue.finish(any())).thenReturn(true);
+  }
+
+  @Test
+  public void runAsJob_starts_job_as_running_when_executor_has_capacity() {
+    // arrange
+    when(jobsExecutor.isSaturated()).thenReturn(false);
+
+    // act
+    Job job = jobService.runAsJob(noop);
+
+    // assert
+    assertEquals("running", job.getStatus());
+    assertEquals(null, job.getPayload());
+    verify(jobQueue, times(1)).lease(job);
+    verify(jobsRepository, times(1)).save(job);
+    verify(self, times(1)).runJobAsync(job, noop);
+  }
+
+  @Test
+  public void runAsJob_stores_recoverable_job_as_json() {
+    // arrange
+    TestJob testJob = TestJob.builder().fail(true).sleepMs(5).build();
+
+    // act
+    Job job = jobService.runAsJob(testJob);
+
+    // assert
+    assertEquals(TestJob.class.getName(), job.getJobType());
+    assertEquals("{\"fail\":true,\"sleepMs\":5}", job.getPayload());
+    verify(self, times(1)).runJobAsync(job, testJob);
+  }
+
+  @Test
+  public void runAsJob_restores_job_from_type_and_json() {
+    // act
+    Job job = jobService.runAsJob(TestJob.class.getName(), "{\"sleepMs\":7}");
+
+    // assert
+    assertEquals("{\"fail\":false,\"sleepMs\":7}", job.getPayload());
+    verify(self, times(1)).runJobAsync(job, TestJob.builder().sleepMs(7).build());
+  }
+
+  @Test
+  public void readJob_rejects_unknown_types_and_bad_json() {
+    IllegalArgumentException unknown =
+        assertThrows(IllegalArgumentException.class, () -> jobService.readJob("no.Such", "{}"));
+    assertEquals("Unknown job type no.Such", unknown.getMessage());
+
+    IllegalArgumentException badJson =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> jobService.readJob(TestJob.class.getName(), "{\"sleepMs\":\"x\"}"));
+    assertTrue(badJson.getMessage().startsWith("Invalid JSON for " + TestJob.class.getName()));
+  }
+
+  @Test
+  public void runAsJob_leaves_recoverable_job_in_queue_when_local_queue_is_full() {
+    // arrange
+    TestJob testJob = TestJob.builder().sleepMs(5).build();
+    when(jobsExecutor.isSaturated()).thenReturn(true);
+    doThrow(new TaskRejectedException("Job queue is full")).when(self).runJobAsync(any(), any());
+
+    // act
+    Job job = jobService.runAsJob(testJob);
+
+    // assert
+    assertEquals("queued", job.getStatus());
+    verify(jobQueue, times(1)).release(0L);
+    verify(jobsRepository, times(1)).save(job);
+    verify(jobLogWriter, never()).write(any());
+  }
+
+  @Test
+  public void runAsJob_starts_job_as_queued_when_executor_is_saturated() {
+    // arrange
+    when(jobsExecutor.isSaturated()).thenReturn(true);
+
+    // act
+    Job job = jobService.runAsJob(noop);
+
+    // assert
+    assertEquals("queued", job.getStatus());
+    verify(jobsRepository, times(1)).save(job);
+    verify(self, times(1)).runJobAsync(job, noop);
+  }
+
+  @Test
+  public void runAsJob_marks_job_rejected_when_queue_is_full() {
+    // arrange
+    when(jobsExecutor.isSaturated()).thenReturn(true);
+    doThrow(new TaskRejectedException("Job queue is full")).when(self).runJobAsync(any(), any());
+
+    // act
+    Job job = jobService.runAsJob(noop);
+
+    // assert
+    assertEquals("rejected", job.getStatus());
+    verify(jobsRepository, times(1)).save(job);
+    verify(jobQueue, times(1)).finish(job);
+    verify(jobLogPublisher, times(1)).complete(0L);
+    verify(jobLogWriter, times(1))
+        .write(
+            List.of(
+                JobLogLine.builder().jobId(0L).lineNumber(0).message("Job queue is full").build()));
+  }
+
+  @Test
+  public void runJobAsync_marks_queued_job_running_when_it_starts() {
+    // arrange
+    Job job = Job.builder().status("queued").build();
+    List<String> statusWhileRunning = new ArrayList<>();
+
+    // act
+    jobService.runJobAsync(job, ctx -> statusWhileRunning.add(job.getStatus()));
+
+    // assert
+    assertEquals(List.of("running"), statusWhileRunning);
+    assertEquals("complete", job.getStatus());
+    verify(jobsRepository, times(1)).save(job);
+    verify(jobQueue, times(1)).finish(job);
+  }
+
+  @Test
+  public void streamJobLogs_sends_backlog_a_page_at_a_time_and_completes_for_finished_job() {
+    // arrange
+    ReflectionTestUtils.setField(jobService, "streamPageSize", 2);
+    Job job = Job.builder().id(3L).status("complete").log("legacy").build();
+    when(jobsRepository.findById(3L)).thenReturn(Optional.of(job));
+    when(jobLogLinesRepository.findByJobIdAndLineNumberGreaterThanEqualOrderByLineNumberAsc(
+            3L, 0, Limit.of(2)))
+        .thenReturn(List.of(line(3L, 0), line(3L, 1)));
+    when(jobLogLinesRepository.findByJobIdAndLineNumberGreaterThanEqualOrderByLineNumberAsc(
+            3L, 2, Limit.of(2)))
+        .thenReturn(List.of(line(3L, 2)));
+
+    // act
+    SseEmitter emitter = jobService.streamJobLogs(job, 0);
+
+    // assert
+    verify(jobLogPublisher, times(1)).subscribe(3L, emitter, 0);
+    await().atMost(5, SECONDS).until(() -> jobLogPublisher.getSubscriberCount(3L) == 0);
+    verify(jobLogLinesRepository, times(1))
+        .findByJobIdAndLineNumberGreaterThanEqualOrderByLineNumberAsc(3L, 2, Limit.of(2));
+  }
+
+  @Test
+  public void stream_of_job_running_on_another_node_stays_open_until_a_poll_sees_it_finish() {
+    // arrange
+    Job job = Job.builder().id(4L).status("running").log("legacy").build();
+    when(jobsRepository.findById(4L)).thenReturn(Optional.of(job));
+
+    // act
+    jobService.streamJobLogs(job, 5);
+
+    // assert
+    await().atMost(5, SECONDS).until(() -> jobLogPublisher.getNextLine(4L) == 5);
+    jobService.pollLogStreams();
+    assertEquals(1, jobLogPublisher.getSubscriberCount(4L));
+
+    // arrange
+    job.setStatus("complete");
+    when(jobLogLinesRepository.findByJobIdAndLineNumberGreaterThanEqualOrderByLineNumberAsc(
+            4L, 5, Limit.of(500)))
+        .thenReturn(List.of(line(4L, 5), line(4L, 6)));
+
+    // act
+    jobService.pollLogStreams();
+
+    // assert
+    verify(jobLogPublisher, times(1)).publish(line(4L, 5));
+    verify(jobLogPublisher, times(1)).publish(line(4L, 6));
+    verify(jobLogPublisher, times(1)).complete(4L);
+    assertEquals(0, jobLogPublisher.getSubscriberCount(4L));
+  }
+
+  @Test
+  public void streamJobLogs_of_running_job_includes_unflushed_lines_and_ends_with_the_job() {
+    // arrange
+    when(jobLogWriter.getFlushSize()).thenReturn(100);
+    when(jobLogWriter.getFlushIntervalMs()).thenReturn(60_000L);
+    Job job = Job.builder().id(5L).status("running").build();
+    when(jobsRepository.findById(5L)).thenReturn(Optional.of(job));
+    List<Integer> subscribersWhileRunning = new ArrayList<>();
+
+    // act
+    jobService.runJobAsync(
+        job,
+        ctx -> {
+          ctx.log("before viewer");
+          jobService.streamJobLogs(job, 0);
+          ctx.log("after viewer");
+          subscribersWhileRunning.add(jobLogPublisher.getSubscriberCount(5L));
+        });
+
+    // assert
+    assertEquals(List.of(1), subscribersWhileRunning);
+    verify(jobLogPublisher, times(1)).complete(5L);
+    assertEquals(0, jobLogPublisher.getSubscriberCount(5L));
+  }
+
+  @Test
+  public void runJobAsync_of_later_attempt_continues_the_log() {
+    // arrange
+    Job job = Job.builder().id(8L).status("queued").attempts(2).build();
+    when(jobLogLinesRepository.nextLineNumber(8L)).thenReturn(3);
+
+    // act
+    jobService.runJobAsync(job, ctx -> ctx.log("again"));
+
+    // assert
+    verify(jobLogWriter, times(1))
+        .write(List.of(JobLogLine.builder().jobId(8L).lineNumber(3).message("again").build()));
+  }
+
+  @Test
+  public void pollQueue_runs_claimed_jobs() {
+    // arrange
+    Job job =
+        Job.builder()
+            .id(9L)
+            .status("queued")
+            .jobType(TestJob.class.getName())
+            .payload("{\"fail\":false,\"sleepMs\":7}")
+            .build();
+    when(jobsExecutor.getIdleCount()).thenReturn(2);
+    when(jobQueue.claim(2)).thenReturn(List.of(9L, 10L));
+    when(jobsRepository.findById(9L)).thenReturn(Optional.of(job));
+    when(jobsRepository.findById(10L)).thenReturn(Optional.empty());
+
+    // act
+    jobService.pollQueue();
+
+    // assert
+    verify(self, times(1)).runJobAsync(job, TestJob.builder().fail(false).sleepMs(7).build());
+  }
+
+  @Test
+  public void pollQueue_releases_claimed_job_when_local_queue_is_full() {
+    // arrange
+    Job job =
+        Job.builder()
+            .id(9L)
+            .status("queued")
+            .jobType(TestJob.class.getName())
+            .payload("{}")
+            .build();
+    when(jobsExecutor.getIdleCount()).thenReturn(1);
+    when(jobQueue.claim(1)).thenReturn(List.of(9L));
+    when(jobsRepository.findById(9L)).thenReturn(Optional.of(job));
+    doThrow(new TaskRejectedException("Job queue is full")).when(self).runJobAsync(any(), any());
+
+    // act
+    jobService.pollQueue();
+
+    // assert
+    verify(jobQueue, times(1)).release(9L);
+  }
+
+  @Test
+  public void pollQueue_fails_job_that_cannot_be_restored() {
+    // arrange
+    Job job =
+        Job.builder().id(11L).status("queued").jobType("java.lang.String").payload("{}").build();
+    when(jobsExecutor.getIdleCount()).thenReturn(1);
+    when(jobQueue.claim(1)).thenReturn(List.of(11L));
+    when(jobsRepository.findById(11L)).thenReturn(Optional.of(job));
+    when(jobLogLinesRepository.nextLineNumber(11L)).thenReturn(1);
+
+    // act
+    jobService.pollQueue();
+
+    // assert
+    assertEquals("error", job.getStatus());
+    verify(jobQueue, times(1)).finish(job);
+    verify(self, never()).runJobAsync(any(), any());
+    verify(jobLogWriter, times(1))
+        .write(
+            List.of(
+                JobLogLine.builder()
+                    .jobId(11L)
+                    .lineNumber(1)
+                    .message(
+                        "Cannot restore job of type java.lang.String:"
+                            + " java.lang.String is not a RecoverableJob")
+                    .build()));
+  }
+
+  @Test
+  public void heartbeat_and_sweep_go_to_the_queue() {
+    // act
+    jobService.heartbeat();
+    jobService.sweepOrphanedJobs();
+
+    // assert
+    verify(jobQueue, times(1)).heartbeat();
+    verify(jobQueue, times(1)).sweep();
+  }
+
+  @Test
+  public void cancelJob_cancels_unclaimed_job_straight_away() {
+    // arrange
+    when(jobQueue.cancelIfUnclaimed(12L)).thenReturn(true);
+
+    // act & assert
+    assertTrue(jobService.cancelJob(12L));
+    verify(jobQueue, never()).requestCancel(12L);
+    verify(jobLogPublisher, times(1)).complete(12L);
+  }
+
+  @Test
+  public void cancelJob_of_finished_job_returns_false() {
+    // arrange
+    when(jobQueue.requestCancel(13L)).thenReturn(false);
+
+    // act & assert
+    assertFalse(jobService.cancelJob(13L));
+  }
+
+  @Test
+  public void cancelJob_interrupts_job_running_on_this_node() {
+    // arrange
+    Job job = Job.builder().id(14L).status("running").build();
+    when(jobQueue.requestCancel(14L)).thenReturn(true);
+    List<Boolean> results = new ArrayList<>();
+
+    // act
+    jobService.runJobAsync(
+        job,
+        ctx -> {
+          results.add(jobService.cancelJob(14L));
+          Thread.sleep(10_000);
+          ctx.log("not reached");
+        });
+
+    // assert
+    assertEquals(List.of(true), results);
+    assertEquals("cancelled", job.getStatus());
+    assertFalse(Thread.currentThread().isInterrupted());
+    verify(jobQueue, times(1)).finish(job);
+    verify(jobLogWriter, times(1))
+        .write(
+            List.of(
+                JobLogLine.builder().jobId(14L).lineNumber(0).message("Job cancelled").build()));
+  }
+
+  @Test
+  public void job_that_finishes_despite_cancel_is_complete_and_leaves_thread_uninterrupted() {
+    // arrange
+    Job job = Job.builder().id(15L).status("running").build();
+    when(jobQueue.requestCancel(15L)).thenReturn(true);
+
+    // act
+    jobService.runJobAsync(job, ctx -> jobService.cancelJob(15L));
+
+    // assert
+    assertEquals("complete", job.getStatus());
+    assertFalse(Thread.currentThread().isInterrupted());
+  }
+
+  @Test
+  public void heartbeat_cancels_jobs_flagged_on_another_node() {
+    // arrange
+    Job job = Job.builder().id(16L).status("running").build();
+    when(jobQueue.findCancelRequested()).thenReturn(List.of(16L, 99L));
+
+    // act
+    jobService.runJobAsync(
+        job,
+        ctx -> {
+          jobService.heartbeat();
+          ctx.checkCancelled();
+          ctx.log("not reached");
+        });
+
+    // assert
+    assertEquals("cancelled", job.getStatus());
+    verify(jobQueue, times(1)).heartbeat();
+  }
+
+  @Test
+  public void queued_job_cancelled_before_it_starts_does_not_run() {
+    // arrange
+    Job job = Job.builder().id(17L).status("queued").build();
+    when(jobQueue.isCancelRequested(17L)).thenReturn(true);
+    when(jobLogLinesRepository.nextLineNumber(17L)).thenReturn(0);
+    List<String> ran = new ArrayList<>();
+
+    // act
+    jobService.runJobAsync(job, ctx -> ran.add("ran"));
+
+    // assert
+    assertEquals(List.of(), ran);
+    assertEquals("cancelled", job.getStatus());
+    verify(jobQueue, times(1)).finish(job);
+    verify(jobLogPublisher, times(1)).complete(17L);
+    verify(jobLogWriter, times(1))
+        .write(
+            List.of(
+                JobLogLine.builder()
+                    .jobId(17L)
+                    .lineNumber(0)
+                    .message("Job cancelled before it started")
+                    .build()));
+  }
+
+  @Test
+  public void last_progress_is_saved_with_the_finished_job() {
+    // arrange
+    when(jobLogWriter.getProgressIntervalMs()).thenReturn(60_000L);
+    Job job = Job.builder().id(18L).status("running").build();
+
+    // act
+    jobService.runJobAsync(
+        job,
+        ctx -> {
+          ctx.progress(1, 2);
+          ctx.progress(2, 2);
+        });
+
+    // assert
+    verify(jobLogWriter, times(1)).writeProgress(job);
+    verify(jobQueue, times(1)).finish(job);
+    assertEquals(2L, job.getProgressDone());
+    assertEquals(2L, job.getProgressTotal());
+  }
+
+  @Test
+  public void job_whose_lease_was_lost_leaves_status_to_the_new_owner() {
+    // arrange
+    Job job = Job.builder().id(19L).status("running").build();
+    when(jobQueue.finish(job)).thenReturn(false);
+
+    // act
+    jobService.runJobAsync(job, noop);
+
+    // assert
+    verify(jobQueue, times(1)).finish(job);
+    verify(jobsRepository, never()).save(job);
+    verify(jobLogPublisher, never()).complete(19L);
+  }
+
+  @Test
+  public void job_that_throws_an_error_is_marked_error_and_ends_its_stream() {
+    // arrange
+    Job job = Job.builder().id(20L).status("running").build();
+    StackOverflowError error = new StackOverflowError();
+
+    // act
+    StackOverflowError thrown =
+        assertThrows(
+            StackOverflowError.class,
+            () ->
+                jobService.runJobAsync(
+                    job,
+                    ctx -> {
+                      throw error;
+                    }));
+
+    // assert
+    assertSame(error, thrown);
+    assertEquals("error", job.getStatus());
+    verify(jobQueue, times(1)).finish(job);
+    verify(jobLogPublisher, times(1)).complete(20L);
+  }
+
+  @Test
+  public void job_whose_last_flush_fails_still_gets_its_status_written() {
+    // arrange
+    when(jobLogWriter.getFlushSize()).thenReturn(100);
+    when(jobLogWriter.getFlushIntervalMs()).thenReturn(60_000L);
+    Job job = Job.builder().id(21L).status("running").build();
+    doThrow(new DataIntegrityViolationException("fk_job_log_lines_job"))
+        .when(jobLogWriter)
+        .write(any());
+
+    // act
+    jobService.runJobAsync(job, ctx -> ctx.log("hello"));
+
+    // assert
+    assertEquals("complete", job.getStatus());
+    verify(jobLogWriter, times(1)).write(any());
+    verify(jobQueue, times(1)).finish(job);
+    verify(jobLogPublisher, times(1)).complete(21L);
+  }
+}
@@ -0,0 +1,139 @@
+package edu.ucsb.cs156.example.services.jobs;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskRejectedException;
+
+public class JobsExecutorTests {
+
+  @Test
+  public void jobs_beyond_max_concurrent_are_queued_and_run_in_order() throws Exception {
+    // arrange
+    JobsExecutor executor = JobsExecutor.virtualThreads(1, 5);
+    CountDownLatch release = new CountDownLatch(1);
+    List<String> ran = new CopyOnWriteArrayList<>();
+
+    // act
+    assertFalse(executor.isSaturated());
+    executor.execute(
+        () -> {
+          waitFor(release);
+          ran.add("first");
+        });
+    executor.execute(() -> ran.add("second"));
+    executor.execute(() -> ran.add("third"));
+
+    // assert
+    assertTrue(executor.isSaturated());
+    assertEquals(1, executor.getActiveCount());
+    assertEquals(2, executor.getQueueDepth());
+    assertEquals(0, executor.getIdleCount());
+
+    release.countDown();
+    await().atMost(5, SECONDS).until(() -> ran.size() == 3);
+    assertEquals(List.of("first", "second", "third"), ran);
+    await().atMost(5, SECONDS).until(() -> executor.getActiveCount() == 0);
+    assertEquals(0, executor.getQueueDepth());
+    assertEquals(1, executor.getIdleCount());
+    assertFalse(executor.isSaturated());
+    executor.shutdown();
+  }
+
+  @Test
+  public void jobs_beyond_queue_capacity_are_rejected() throws Exception {
+    // arrange
+    JobsExecutor executor = JobsExecutor.platformThreads(1, 1);
+    CountDownLatch release = new CountDownLatch(1);
+    executor.execute(() -> waitFor(release));
+    executor.execute(() -> {});
+
+    // act
+    TaskRejectedException e =
+        assertThrows(TaskRejectedException.class, () -> executor.execute(() -> {}));
+
+    // assert
+    assertEquals("Job queue is full (1 running, 1 queued)", e.getMessage());
+    assertEquals(1, executor.getRejectedCount());
+    release.countDown();
+    await().atMost(5, SECONDS).until(() -> executor.getActiveCount() == 0);
+    executor.shutdown();
+  }
+
+  @Test
+  public void a_failing_job_does_not_stop_the_queue() throws Exception {
+    // arrange
+    JobsExecutor executor = JobsExecutor.platformThreads(1, 5);
+    List<String> ran = new CopyOnWriteArrayList<>();
+
+    // act
+    executor.execute(
+        () -> {
+          throw new IllegalStateException("boom");
+        });
+    executor.execute(() -> ran.add("after"));
+
+    // assert
+    await().atMost(5, SECONDS).until(() -> ran.size() == 1);
+    await().atMost(5, SECONDS).until(() -> executor.getActiveCount() == 0);
+    executor.shutdown();
+  }
+
+  @Test
+  public void jobs_are_rejected_after_shutdown() {
+    // arrange
+    JobsExecutor executor = JobsExecutor.virtualThreads(2, 5);
+    executor.shutdown();
+
+    // act
+    TaskRejectedException e =
+        assertThrows(TaskRejectedException.class, () -> executor.execute(() -> {}));
+
+    // assert
+    assertEquals("Jobs executor has been shut down", e.getMessage());
+    assertEquals(1, executor.getRejectedCount());
+    assertEquals(0, executor.getActiveCount());
+  }
+
+  @Test
+  public void gauges_are_registered() throws Exception {
+    // arrange
+    JobsExecutor executor = JobsExecutor.platformThreads(1, 5);
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    CountDownLatch release = new CountDownLatch(1);
+
+    // act
+    executor.bindTo(registry);
+    executor.execute(() -> waitFor(release));
+    executor.execute(() -> {});
+
+    // assert
+    assertEquals(1.0, registry.get("jobs.executor.active").tag("mode", "platform").gauge().value());
+    assertEquals(
+        1.0, registry.get("jobs.executor.queue.depth").tag("mode", "platform").gauge().value());
+    assertEquals(
+        0.0, registry.get("jobs.executor.rejected").tag("mode", "platform").gauge().value());
+    assertEquals("platform", executor.getMode());
+    assertEquals(1, executor.getMaxConcurrent());
+    assertEquals(5, executor.getQueueCapacity());
+    release.countDown();
+    executor.shutdown();
+  }
+
+  private static void waitFor(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}